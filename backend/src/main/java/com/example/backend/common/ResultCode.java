@@ -17,6 +17,7 @@ public enum ResultCode {
     FORBIDDEN(403, "禁止访问"),
     NOT_FOUND(404, "资源不存在"),
     METHOD_NOT_ALLOWED(405, "请求方法不允许"),
+    TOO_MANY_REQUESTS(429, "报表生成任务过多，请稍后重试"),
     
     // 业务错误 5xx
     USER_NOT_EXIST(5001, "用户不存在"),
@@ -46,6 +47,7 @@ public enum ResultCode {
     // 模板状态相关
     TEMPLATE_NOT_PUBLISHED(6010, "模板未发布"),
     RECORD_NOT_FOUND(6011, "报表记录不存在"),
+    REPORT_CANCELLED(6012, "报表生成已取消"),
     
     // 定时任务相关
     SCHEDULE_NOT_FOUND(8003, "定时任务不存在"),
@@ -0,0 +1,65 @@
+package com.example.backend.common;
+
+import cn.dev33.satoken.stp.StpUtil;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 当前请求的登录用户上下文
+ *
+ * 由 UserContextInterceptor 在请求开始时填充一次（用户ID、角色编码、是否管理员），请求结束时清除，
+ * 同一请求内的服务共用，避免重复读取 Sa-Token 会话和查询角色。
+ * 请求线程之外（异步任务、定时任务）没有上下文，getUserId() 回退到 StpUtil。
+ */
+public final class UserContext {
+
+    private static final ThreadLocal<UserContext> HOLDER = new ThreadLocal<>();
+
+    private final Long userId;
+
+    private final List<String> roleCodes;
+
+    private final boolean admin;
+
+    public UserContext(Long userId, List<String> roleCodes, boolean admin) {
+        this.userId = userId;
+        this.roleCodes = Collections.unmodifiableList(roleCodes);
+        this.admin = admin;
+    }
+
+    public Long userId() {
+        return userId;
+    }
+
+    public List<String> roleCodes() {
+        return roleCodes;
+    }
+
+    public boolean admin() {
+        return admin;
+    }
+
+    /**
+     * 当前请求的上下文，未登录或不在请求线程中时返回 null
+     */
+    public static UserContext get() {
+        return HOLDER.get();
+    }
+
+    public static void set(UserContext context) {
+        HOLDER.set(context);
+    }
+
+    public static void clear() {
+        HOLDER.remove();
+    }
+
+    /**
+     * 当前登录用户ID，没有上下文时从 Sa-Token 会话读取（未登录时抛出 NotLoginException）
+     */
+    public static Long getUserId() {
+        UserContext context = HOLDER.get();
+        return context != null ? context.userId : StpUtil.getLoginIdAsLong();
+    }
+}
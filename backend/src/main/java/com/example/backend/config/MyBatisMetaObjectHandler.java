@@ -1,6 +1,7 @@
 package com.example.backend.config;
 
 import cn.dev33.satoken.stp.StpUtil;
+import com.example.backend.common.UserContext;
 import com.baomidou.mybatisplus.core.handlers.MetaObjectHandler;
 import org.apache.ibatis.reflection.MetaObject;
 import org.springframework.stereotype.Component;
@@ -22,8 +23,8 @@ public class MyBatisMetaObjectHandler implements MetaObjectHandler {
 
         // 填充创建人ID
         try {
-            if (StpUtil.isLogin()) {
-                Long userId = StpUtil.getLoginIdAsLong();
+            Long userId = currentUserId();
+            if (userId != null) {
                 this.strictInsertFill(metaObject, "createBy", Long.class, userId);
                 this.strictInsertFill(metaObject, "updateBy", Long.class, userId);
             }
@@ -39,12 +40,23 @@ public class MyBatisMetaObjectHandler implements MetaObjectHandler {
 
         // 填充更新人ID
         try {
-            if (StpUtil.isLogin()) {
-                Long userId = StpUtil.getLoginIdAsLong();
+            Long userId = currentUserId();
+            if (userId != null) {
                 this.strictUpdateFill(metaObject, "updateBy", Long.class, userId);
             }
         } catch (Exception e) {
             // 未登录时不填充用户ID
         }
     }
+
+    /**
+     * 当前登录用户ID，优先使用请求上下文，未登录时返回 null
+     */
+    private Long currentUserId() {
+        UserContext context = UserContext.get();
+        if (context != null) {
+            return context.userId();
+        }
+        return StpUtil.isLogin() ? StpUtil.getLoginIdAsLong() : null;
+    }
 }
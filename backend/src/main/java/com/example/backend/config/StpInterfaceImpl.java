@@ -1,7 +1,8 @@
 package com.example.backend.config;
 
 import cn.dev33.satoken.stp.StpInterface;
-import com.example.backend.mapper.UserMapper;
+import com.example.backend.common.UserContext;
+import com.example.backend.service.PermissionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
@@ -15,7 +16,7 @@ import java.util.List;
 public class StpInterfaceImpl implements StpInterface {
 
     @Autowired
-    private UserMapper userMapper;
+    private PermissionService permissionService;
 
     @Override
     public List<String> getPermissionList(Object loginId, String loginType) {
@@ -25,6 +26,11 @@ public class StpInterfaceImpl implements StpInterface {
     @Override
     public List<String> getRoleList(Object loginId, String loginType) {
         Long userId = Long.parseLong(loginId.toString());
-        return userMapper.selectRoleCodesByUserId(userId);
+        // 当前请求的用户直接使用上下文中的角色，其他用户使用权限服务缓存的角色
+        UserContext context = UserContext.get();
+        if (context != null && userId.equals(context.userId())) {
+            return context.roleCodes();
+        }
+        return permissionService.getUserRoleCodes(userId);
     }
 }
@@ -0,0 +1,36 @@
+package com.example.backend.config;
+
+import cn.dev33.satoken.stp.StpUtil;
+import com.example.backend.common.UserContext;
+import com.example.backend.service.PermissionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 登录用户上下文拦截器
+ * 请求开始时读取一次登录用户及其角色填充 UserContext，请求结束后清除
+ */
+@Component
+public class UserContextInterceptor implements HandlerInterceptor {
+
+    @Autowired
+    private PermissionService permissionService;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (StpUtil.isLogin()) {
+            Long userId = StpUtil.getLoginIdAsLong();
+            UserContext.set(new UserContext(userId,
+                    permissionService.getUserRoleCodes(userId), permissionService.isAdmin(userId)));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        UserContext.clear();
+    }
+}
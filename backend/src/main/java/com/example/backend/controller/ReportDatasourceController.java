@@ -3,6 +3,7 @@ package com.example.backend.controller;
 import com.example.backend.common.Result;
 import com.example.backend.dto.ReportDatasourceDTO;
 import com.example.backend.service.ReportDatasourceService;
+import com.example.backend.vo.DatasourcePoolStatsVO;
 import com.example.backend.vo.ReportDatasourceVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -56,6 +57,12 @@ public class ReportDatasourceController {
         return Result.success(datasourceService.listAllDatasources());
     }
 
+    @Operation(summary = "获取数据源连接池状态")
+    @GetMapping("/pool-stats")
+    public Result<List<DatasourcePoolStatsVO>> getPoolStats() {
+        return Result.success(datasourceService.getPoolStats());
+    }
+
     @Operation(summary = "测试数据源连接")
     @PostMapping("/{id}/test")
     public Result<Boolean> testConnection(@PathVariable Long id) {
@@ -4,11 +4,14 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.backend.common.PageResult;
 import com.example.backend.common.Result;
 import com.example.backend.dto.ReportGenerateDTO;
+import com.example.backend.dto.ReportPreviewDataDTO;
 import com.example.backend.dto.ReportRecordQueryDTO;
 import com.example.backend.service.ReportGenerateService;
+import com.example.backend.vo.ReportPreviewDataVO;
 import com.example.backend.vo.ReportRecordVO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,16 +42,22 @@ public class ReportGenerateController {
         return Result.success(generateService.generateReport(generateDTO));
     }
 
+    @Operation(summary = "分页预览报表数据（不生成文件）")
+    @PostMapping("/preview-data")
+    public Result<ReportPreviewDataVO> previewData(@Valid @RequestBody ReportPreviewDataDTO previewDTO) {
+        return Result.success(generateService.previewData(previewDTO));
+    }
+
     @Operation(summary = "预览报表")
     @GetMapping("/{recordId}/preview")
-    public void previewReport(@PathVariable Long recordId, HttpServletResponse response) {
-        generateService.previewReport(recordId, response);
+    public void previewReport(@PathVariable Long recordId, HttpServletRequest request, HttpServletResponse response) {
+        generateService.previewReport(recordId, request, response);
     }
 
     @Operation(summary = "下载报表")
     @GetMapping("/{recordId}/download")
-    public void downloadReport(@PathVariable Long recordId, HttpServletResponse response) {
-        generateService.downloadReport(recordId, response);
+    public void downloadReport(@PathVariable Long recordId, HttpServletRequest request, HttpServletResponse response) {
+        generateService.downloadReport(recordId, request, response);
     }
 
     @Operation(summary = "分页查询生成记录")
@@ -71,6 +80,13 @@ public class ReportGenerateController {
         return Result.success();
     }
 
+    @Operation(summary = "取消生成报表")
+    @PostMapping("/records/{recordId}/cancel")
+    public Result<Void> cancelGenerate(@PathVariable Long recordId) {
+        generateService.cancelGenerate(recordId);
+        return Result.success();
+    }
+
     @Operation(summary = "重新生成报表")
     @PostMapping("/records/{recordId}/regenerate")
     public Result<ReportRecordVO> regenerateReport(@PathVariable Long recordId) {
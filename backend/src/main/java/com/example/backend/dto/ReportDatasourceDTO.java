@@ -1,5 +1,6 @@
 package com.example.backend.dto;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
@@ -71,4 +72,38 @@ public class ReportDatasourceDTO {
      * 状态
      */
     private Integer status;
+
+    /**
+     * 连接池最大连接数
+     */
+    @Min(value = 1, message = "最大连接数不能小于1")
+    private Integer poolMaxSize;
+
+    /**
+     * 连接池最小空闲连接数
+     */
+    @Min(value = 0, message = "最小空闲连接数不能小于0")
+    private Integer poolMinIdle;
+
+    /**
+     * 是否自适应调整连接池大小
+     */
+    private Boolean poolAdaptive;
+
+    /**
+     * 自适应模式下的最大连接数上限
+     */
+    private Integer poolAdaptiveMaxSize;
+
+    /**
+     * 流式查询每次拉取的行数
+     */
+    @Min(value = 1, message = "拉取行数不能小于1")
+    private Integer fetchSize;
+
+    /**
+     * SQL执行超时时间（秒）
+     */
+    @Min(value = 1, message = "超时时间不能小于1秒")
+    private Integer queryTimeout;
 }
@@ -23,8 +23,9 @@ public class ReportGenerateDTO {
     @Schema(description = "生成参数")
     private Map<String, Object> params;
 
-    @Schema(description = "文件类型", example = "xlsx", allowableValues = {"xlsx", "pdf"})
-    private String fileType = "xlsx";
+    @Schema(description = "文件类型，为空时使用模板的默认文件类型", example = "xlsx",
+            allowableValues = {"xlsx", "pdf", "csv", "parquet", "arrow"})
+    private String fileType;
 
     @Schema(description = "是否异步生成", example = "false")
     private Boolean async = false;
@@ -0,0 +1,33 @@
+package com.example.backend.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 报表数据预览请求DTO
+ */
+@Data
+@Schema(description = "报表数据预览请求参数")
+public class ReportPreviewDataDTO {
+
+    @Schema(description = "模板ID", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    @NotNull(message = "模板ID不能为空")
+    private Long templateId;
+
+    @Schema(description = "生成参数")
+    private Map<String, Object> params;
+
+    @Schema(description = "页码", example = "1")
+    @Min(value = 1, message = "页码不能小于1")
+    private Integer pageNum = 1;
+
+    @Schema(description = "每页行数", example = "50")
+    @Min(value = 1, message = "每页行数不能小于1")
+    @Max(value = 1000, message = "每页行数不能超过1000")
+    private Integer pageSize = 50;
+}
@@ -1,7 +1,9 @@
 package com.example.backend.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 
 import java.util.List;
@@ -74,4 +76,28 @@ public class ReportTemplateDTO {
      * 排序
      */
     private Integer sort;
+
+    /**
+     * 流式查询每次拉取的行数（为空时使用数据源配置）
+     */
+    @Min(value = 1, message = "拉取行数不能小于1")
+    private Integer fetchSize;
+
+    /**
+     * SQL执行超时时间（秒，为空时使用数据源配置）
+     */
+    @Min(value = 1, message = "超时时间不能小于1秒")
+    private Integer queryTimeout;
+
+    /**
+     * 生成文件保留天数（为空时使用全局配置，0表示永久保留）
+     */
+    @Min(value = 0, message = "保留天数不能小于0")
+    private Integer retentionDays;
+
+    /**
+     * 默认文件类型（生成请求未指定时使用，为空时为xlsx）
+     */
+    @Pattern(regexp = "xlsx|pdf|csv|parquet|arrow", message = "不支持的文件类型")
+    private String defaultFileType;
 }
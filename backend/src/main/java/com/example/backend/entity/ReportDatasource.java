@@ -92,4 +92,34 @@ public class ReportDatasource extends BaseEntity {
      * 测试结果 0-失败 1-成功
      */
     private Integer testResult;
+
+    /**
+     * 连接池最大连接数（为空时使用默认配置）
+     */
+    private Integer poolMaxSize;
+
+    /**
+     * 连接池最小空闲连接数（为空时使用默认配置）
+     */
+    private Integer poolMinIdle;
+
+    /**
+     * 是否根据等待时间自适应调整连接池大小
+     */
+    private Boolean poolAdaptive;
+
+    /**
+     * 自适应模式下的最大连接数上限
+     */
+    private Integer poolAdaptiveMaxSize;
+
+    /**
+     * 流式查询每次拉取的行数（为空时使用默认配置）
+     */
+    private Integer fetchSize;
+
+    /**
+     * SQL执行超时时间（秒，为空时使用默认配置）
+     */
+    private Integer queryTimeout;
 }
@@ -59,7 +59,7 @@ public class ReportRecord extends BaseEntity {
     private Integer dataRows;
 
     /**
-     * 状态 0-生成中 1-成功 2-失败
+     * 状态 0-生成中 1-成功 2-失败 3-已取消
      */
     private Integer status;
 
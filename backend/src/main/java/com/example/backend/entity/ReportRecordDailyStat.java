@@ -0,0 +1,71 @@
+package com.example.backend.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * 报表生成记录日统计实体
+ * 按统计日期、创建人、模板汇总，记录创建、完成、下载和删除时按增量累加
+ */
+@Data
+@TableName("report_record_daily_stat")
+public class ReportRecordDailyStat implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 主键ID
+     */
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 统计日期（记录创建日期）
+     */
+    private LocalDate statDate;
+
+    /**
+     * 创建人ID（未知时为0）
+     */
+    private Long userId;
+
+    /**
+     * 模板ID（未知时为0）
+     */
+    private Long templateId;
+
+    /**
+     * 生成次数
+     */
+    private Integer generateCount;
+
+    /**
+     * 成功次数
+     */
+    private Integer successCount;
+
+    /**
+     * 失败次数
+     */
+    private Integer failCount;
+
+    /**
+     * 下载次数
+     */
+    private Integer downloadCount;
+
+    /**
+     * 成功生成的文件总大小（字节）
+     */
+    private Long totalBytes;
+
+    /**
+     * 成功生成的总耗时（毫秒）
+     */
+    private Long totalDuration;
+}
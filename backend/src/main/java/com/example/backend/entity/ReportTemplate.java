@@ -3,6 +3,7 @@ package com.example.backend.entity;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.baomidou.mybatisplus.extension.handlers.JacksonTypeHandler;
+import com.example.backend.report.CompiledTemplateLayout;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
@@ -48,6 +49,12 @@ public class ReportTemplate extends BaseEntity {
     @TableField(typeHandler = JacksonTypeHandler.class)
     private Map<String, Object> templateConfig;
 
+    /**
+     * 编译后的字段布局（保存设计时由模板配置生成，默认查询不返回）
+     */
+    @TableField(select = false, typeHandler = JacksonTypeHandler.class)
+    private CompiledTemplateLayout compiledLayout;
+
     /**
      * 模板文件路径（Excel模板）
      */
@@ -99,4 +106,24 @@ public class ReportTemplate extends BaseEntity {
      * 使用次数
      */
     private Integer useCount;
+
+    /**
+     * 流式查询每次拉取的行数（为空时使用数据源配置）
+     */
+    private Integer fetchSize;
+
+    /**
+     * SQL执行超时时间（秒，为空时使用数据源配置）
+     */
+    private Integer queryTimeout;
+
+    /**
+     * 生成文件保留天数（为空时使用全局配置，0表示永久保留）
+     */
+    private Integer retentionDays;
+
+    /**
+     * 默认文件类型（生成请求未指定时使用，为空时为xlsx）
+     */
+    private String defaultFileType;
 }
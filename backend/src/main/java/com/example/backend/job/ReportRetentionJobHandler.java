@@ -0,0 +1,53 @@
+package com.example.backend.job;
+
+import com.example.backend.service.ReportRetentionService;
+import com.xxl.job.core.context.XxlJobHelper;
+import com.xxl.job.core.handler.annotation.XxlJob;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntSupplier;
+
+/**
+ * 生成文件保留清理任务Handler
+ * 在调度中心配置为每天业务低峰执行一次（如 0 30 2 * * ?），路由策略选择单个执行器
+ */
+@Component
+@ConditionalOnProperty(name = "xxl.job.enabled", havingValue = "true", matchIfMissing = true)
+public class ReportRetentionJobHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportRetentionJobHandler.class);
+
+    @Autowired
+    private ReportRetentionService retentionService;
+
+    /**
+     * 依次执行过期记录清理、CSV压缩、孤立文件清理和临时文件清理，某一步失败不影响后续步骤
+     */
+    @XxlJob("reportRetentionHandler")
+    public void execute() {
+        XxlJobHelper.log("开始执行报表文件清理...");
+        boolean success = runStep("过期记录清理", retentionService::purgeExpiredRecords)
+                & runStep("CSV压缩", retentionService::compressOldFiles)
+                & runStep("孤立文件清理", retentionService::sweepOrphanFiles)
+                & runStep("临时文件清理", retentionService::cleanTempFiles);
+        if (!success) {
+            XxlJobHelper.handleFail("部分清理步骤执行失败");
+        }
+    }
+
+    private boolean runStep(String name, IntSupplier step) {
+        try {
+            int count = step.getAsInt();
+            XxlJobHelper.log("{}完成: {}", name, count);
+            return true;
+        } catch (Exception e) {
+            XxlJobHelper.log("{}失败: {}", name, e.getMessage());
+            logger.error("{}失败", name, e);
+            return false;
+        }
+    }
+}
@@ -7,6 +7,7 @@ import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 报表权限Mapper
@@ -49,4 +50,14 @@ public interface ReportPermissionMapper extends BaseMapper<ReportPermission> {
             "INNER JOIN sys_user_role ur ON r.id = ur.role_id " +
             "WHERE ur.user_id = #{userId} AND r.role_code = #{roleCode} AND r.status = 1")
     int checkUserHasRole(@Param("userId") Long userId, @Param("roleCode") String roleCode);
+
+    /**
+     * 一次查询用户的角色编码及角色配置的模板权限（用于构建权限快照）
+     * 每行包含 role_code（角色停用时为空）、template_id、permission_type（角色未配置模板权限时为空）
+     */
+    @Select("SELECT r.role_code, rp.template_id, rp.permission_type FROM sys_user_role ur " +
+            "LEFT JOIN sys_role r ON r.id = ur.role_id AND r.status = 1 AND r.deleted = 0 " +
+            "LEFT JOIN report_permission rp ON rp.role_id = ur.role_id AND rp.deleted = 0 " +
+            "WHERE ur.user_id = #{userId}")
+    List<Map<String, Object>> selectUserPermissionRows(@Param("userId") Long userId);
 }
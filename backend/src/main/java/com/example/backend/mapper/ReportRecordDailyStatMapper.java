@@ -0,0 +1,91 @@
+package com.example.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.backend.entity.ReportRecordDailyStat;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 报表生成记录日统计Mapper
+ */
+@Mapper
+public interface ReportRecordDailyStatMapper extends BaseMapper<ReportRecordDailyStat> {
+
+    /**
+     * 累加统计增量，当天该用户该模板的统计行不存在时插入
+     */
+    @Insert("INSERT INTO report_record_daily_stat (stat_date, user_id, template_id, generate_count, success_count, " +
+            "fail_count, download_count, total_bytes, total_duration) " +
+            "VALUES (#{statDate}, #{userId}, #{templateId}, #{generateCount}, #{successCount}, " +
+            "#{failCount}, #{downloadCount}, #{totalBytes}, #{totalDuration}) " +
+            "ON DUPLICATE KEY UPDATE " +
+            "generate_count = generate_count + VALUES(generate_count), " +
+            "success_count = success_count + VALUES(success_count), " +
+            "fail_count = fail_count + VALUES(fail_count), " +
+            "download_count = download_count + VALUES(download_count), " +
+            "total_bytes = total_bytes + VALUES(total_bytes), " +
+            "total_duration = total_duration + VALUES(total_duration)")
+    int upsertDelta(ReportRecordDailyStat delta);
+
+    /**
+     * 一次查询统计生成总数以及今日、本周、本月的生成数
+     * @param userId 创建人ID，为空时统计全部
+     */
+    @Select("<script>" +
+            "SELECT COALESCE(SUM(generate_count), 0) AS total_count, " +
+            "COALESCE(SUM(CASE WHEN stat_date &gt;= #{today} THEN generate_count ELSE 0 END), 0) AS today_count, " +
+            "COALESCE(SUM(CASE WHEN stat_date &gt;= #{weekStart} THEN generate_count ELSE 0 END), 0) AS week_count, " +
+            "COALESCE(SUM(CASE WHEN stat_date &gt;= #{monthStart} THEN generate_count ELSE 0 END), 0) AS month_count " +
+            "FROM report_record_daily_stat " +
+            "<where><if test='userId != null'>user_id = #{userId}</if></where>" +
+            "</script>")
+    Map<String, Object> selectGenerateSummary(@Param("userId") Long userId, @Param("today") LocalDate today,
+                                              @Param("weekStart") LocalDate weekStart,
+                                              @Param("monthStart") LocalDate monthStart);
+
+    /**
+     * 按天汇总生成次数和下载次数
+     * @param userId 创建人ID，为空时统计全部
+     * @param startDate 起始日期（含）
+     */
+    @Select("<script>" +
+            "SELECT stat_date, SUM(generate_count) AS generate_count, SUM(download_count) AS download_count " +
+            "FROM report_record_daily_stat WHERE stat_date &gt;= #{startDate} " +
+            "<if test='userId != null'>AND user_id = #{userId}</if> " +
+            "GROUP BY stat_date" +
+            "</script>")
+    List<ReportRecordDailyStat> selectDailyTotals(@Param("userId") Long userId,
+                                                  @Param("startDate") LocalDate startDate);
+
+    /**
+     * 按成功生成次数排序的模板排行（排除已删除的模板）
+     * @param userId 生成人ID，为空时统计全部
+     * @param templateIds 限定的模板ID，为空时不限制
+     * @param limit 返回条数，为空时返回全部
+     * @return templateId 和 successCount
+     */
+    @Select("<script>" +
+            "SELECT s.template_id, SUM(s.success_count) AS success_count " +
+            "FROM report_record_daily_stat s " +
+            "INNER JOIN report_template t ON t.id = s.template_id AND t.deleted = 0 " +
+            "<where>" +
+            "<if test='userId != null'>s.user_id = #{userId}</if>" +
+            "<if test='templateIds != null'>AND s.template_id IN " +
+            "<foreach collection='templateIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</if>" +
+            "</where> " +
+            "GROUP BY s.template_id HAVING SUM(s.success_count) &gt; 0 " +
+            "ORDER BY SUM(s.success_count) DESC, s.template_id" +
+            "<if test='limit != null'> LIMIT #{limit}</if>" +
+            "</script>")
+    List<ReportRecordDailyStat> selectTemplateRanking(@Param("userId") Long userId,
+                                                      @Param("templateIds") Collection<Long> templateIds,
+                                                      @Param("limit") Integer limit);
+}
@@ -3,10 +3,26 @@ package com.example.backend.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.backend.entity.ReportRecord;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 报表生成记录Mapper
  */
 @Mapper
 public interface ReportRecordMapper extends BaseMapper<ReportRecord> {
+
+    /**
+     * 批量累加下载次数
+     * @param deltas ID → 增量
+     */
+    @Update("<script>" +
+            "UPDATE report_record SET download_count = IFNULL(download_count, 0) + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementDownloadCounts(@Param("deltas") Map<Long, Long> deltas);
 }
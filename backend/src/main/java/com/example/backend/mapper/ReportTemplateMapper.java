@@ -3,10 +3,35 @@ package com.example.backend.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.backend.entity.ReportTemplate;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 /**
  * 报表模板Mapper
  */
 @Mapper
 public interface ReportTemplateMapper extends BaseMapper<ReportTemplate> {
+
+    /**
+     * 批量累加模板使用次数
+     * @param deltas ID → 增量
+     */
+    @Update("<script>" +
+            "UPDATE report_template SET use_count = IFNULL(use_count, 0) + CASE id " +
+            "<foreach collection='deltas' index='id' item='delta'>WHEN #{id} THEN #{delta} </foreach>" +
+            "END WHERE id IN " +
+            "<foreach collection='deltas' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int incrementUseCounts(@Param("deltas") Map<Long, Long> deltas);
+
+    /**
+     * 查询编译后的字段布局JSON
+     * @param id 模板ID
+     * @return 布局JSON，旧模板未编译时为 null
+     */
+    @Select("SELECT compiled_layout FROM report_template WHERE id = #{id}")
+    String selectCompiledLayout(@Param("id") Long id);
 }
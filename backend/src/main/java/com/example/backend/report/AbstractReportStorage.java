@@ -0,0 +1,38 @@
+package com.example.backend.report;
+
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.UUID;
+
+/**
+ * 报表存储基类：分配按UUID前缀分目录的存储键
+ *
+ * 每层目录取UUID的两位十六进制字符，两层共 65536 个目录，避免单个目录下堆积数百万个文件。
+ * 旧记录中不带目录的文件名同样是合法的存储键。
+ */
+public abstract class AbstractReportStorage implements ReportStorage {
+
+    @Value("${report.storage.shard-depth:2}")
+    private int shardDepth = 2;
+
+    @Override
+    public String newKey(String extension) {
+        String uuid = UUID.randomUUID().toString();
+        StringBuilder key = new StringBuilder();
+        for (int level = 0; level < shardDepth; level++) {
+            key.append(uuid, level * 2, level * 2 + 2).append('/');
+        }
+        return key.append(uuid).append('.').append(extension).toString();
+    }
+
+    /**
+     * 校验存储键，拒绝绝对路径和上级目录
+     */
+    protected static String checkKey(String key) {
+        if (key == null || key.isEmpty() || key.startsWith("/") || key.startsWith("\\")
+                || key.contains("..") || key.contains(":")) {
+            throw new IllegalArgumentException("非法的存储键: " + key);
+        }
+        return key.replace('\\', '/');
+    }
+}
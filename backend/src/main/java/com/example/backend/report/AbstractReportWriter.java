@@ -0,0 +1,98 @@
+package com.example.backend.report;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 报表文件写入器基类
+ * 在收到结果集元数据时一次性解析输出列（设计器字段布局或全部列），
+ * 之后每行按列下标取值，不再逐单元格按字段名查找
+ */
+public abstract class AbstractReportWriter implements ReportRowHandler, Closeable {
+
+    /**
+     * 设计器字段布局，为空时输出全部列
+     */
+    private final CompiledTemplateLayout layout;
+
+    /**
+     * 输出列对应的结果集列下标，-1 表示结果集中不存在该字段
+     */
+    private int[] columnIndexes;
+
+    /**
+     * 输出列对应的结果集列，结果集中不存在的字段为 null
+     */
+    private List<ReportColumn> outputColumns;
+
+    protected AbstractReportWriter(CompiledTemplateLayout layout) {
+        this.layout = layout;
+    }
+
+    @Override
+    public void onStart(List<ReportColumn> columns) {
+        List<String> headers = new ArrayList<>();
+        outputColumns = new ArrayList<>();
+        if (layout != null && !layout.isEmpty()) {
+            // 字段名匹配不区分大小写，与 JdbcTemplate.queryForList 返回的 Map 行为保持一致
+            Map<String, Integer> columnPositions = new HashMap<>();
+            for (int i = columns.size() - 1; i >= 0; i--) {
+                columnPositions.put(columns.get(i).getName().toLowerCase(Locale.ROOT), i);
+            }
+            List<CompiledTemplateLayout.Field> fields = layout.getFields();
+            columnIndexes = new int[fields.size()];
+            for (int i = 0; i < fields.size(); i++) {
+                CompiledTemplateLayout.Field field = fields.get(i);
+                Integer position = columnPositions.get(field.getField().toLowerCase(Locale.ROOT));
+                columnIndexes[i] = position != null ? position : -1;
+                outputColumns.add(position != null ? columns.get(position) : null);
+                headers.add(field.getLabel());
+            }
+        } else {
+            columnIndexes = new int[columns.size()];
+            for (int i = 0; i < columns.size(); i++) {
+                columnIndexes[i] = i;
+            }
+            for (ReportColumn column : columns) {
+                headers.add(column.getName());
+            }
+            outputColumns.addAll(columns);
+        }
+        writeHeader(headers);
+    }
+
+    @Override
+    public void onBatch(RowBatch batch) {
+        writeRows(batch, columnIndexes);
+    }
+
+    /**
+     * 输出列对应的结果集列（与表头顺序一致），结果集中不存在的字段为 null；在 {@link #writeHeader} 前已解析
+     */
+    protected List<ReportColumn> getOutputColumns() {
+        return outputColumns;
+    }
+
+    /**
+     * 写入表头
+     */
+    protected abstract void writeHeader(List<String> headers);
+
+    /**
+     * 写入一批数据行
+     * @param batch 列式数据批次
+     * @param columnIndexes 输出列对应的结果集列下标，-1 表示输出空值
+     */
+    protected abstract void writeRows(RowBatch batch, int[] columnIndexes);
+
+    /**
+     * 按输出列下标取值
+     */
+    protected static Object valueAt(RowBatch batch, int row, int columnIndex) {
+        return columnIndex >= 0 ? batch.getValue(row, columnIndex) : null;
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arrow IPC 文件格式报表写入器
+ * 每个数据批次转换为一个 Arrow 记录批次写出，只保留当前批次的列数据（堆外内存）
+ */
+public class ArrowReportWriter extends AbstractReportWriter {
+
+    private final OutputStream outputStream;
+
+    private final BufferAllocator allocator = new RootAllocator();
+
+    private List<ColumnarField> fields;
+
+    private VectorSchemaRoot root;
+
+    private ArrowFileWriter writer;
+
+    /**
+     * 写入输出流（如报表存储的上传流），关闭时一并关闭输出流
+     */
+    public ArrowReportWriter(OutputStream outputStream, CompiledTemplateLayout layout) {
+        super(layout);
+        this.outputStream = outputStream;
+    }
+
+    @Override
+    protected void writeHeader(List<String> headers) {
+        fields = ColumnarField.of(headers, getOutputColumns());
+        List<Field> arrowFields = new ArrayList<>(fields.size());
+        for (ColumnarField field : fields) {
+            arrowFields.add(new Field(field.getName(), FieldType.nullable(arrowType(field)), null));
+        }
+        root = VectorSchemaRoot.create(new Schema(arrowFields), allocator);
+        writer = new ArrowFileWriter(root, null, Channels.newChannel(outputStream));
+        try {
+            writer.start();
+        } catch (IOException e) {
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "Arrow文件写入失败: " + e.getMessage());
+        }
+    }
+
+    private static ArrowType arrowType(ColumnarField field) {
+        return switch (field.getKind()) {
+            case INT32 -> new ArrowType.Int(32, true);
+            case INT64 -> new ArrowType.Int(64, true);
+            case DOUBLE -> new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case DECIMAL -> new ArrowType.Decimal(field.getPrecision(), field.getScale(), 128);
+            case BOOLEAN -> ArrowType.Bool.INSTANCE;
+            case DATE -> new ArrowType.Date(DateUnit.DAY);
+            case TIMESTAMP -> new ArrowType.Timestamp(TimeUnit.MILLISECOND, null);
+            case STRING -> ArrowType.Utf8.INSTANCE;
+        };
+    }
+
+    @Override
+    protected void writeRows(RowBatch batch, int[] columnIndexes) {
+        int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+        for (int c = 0; c < columnIndexes.length; c++) {
+            FieldVector vector = root.getVector(c);
+            vector.setInitialCapacity(size);
+            // 重新分配时有效位全部清零，空值不需要单独设置
+            vector.allocateNew();
+            if (columnIndexes[c] >= 0) {
+                fill(vector, fields.get(c), batch, columnIndexes[c]);
+            }
+            vector.setValueCount(size);
+        }
+        root.setRowCount(size);
+        try {
+            writer.writeBatch();
+        } catch (IOException e) {
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "Arrow文件写入失败: " + e.getMessage());
+        }
+    }
+
+    private static void fill(FieldVector vector, ColumnarField field, RowBatch batch, int column) {
+        for (int row = 0; row < batch.size(); row++) {
+            if (batch.isNull(row, column)) {
+                continue;
+            }
+            switch (field.getKind()) {
+                case INT32 -> ((IntVector) vector).setSafe(row, (int) batch.getLong(row, column));
+                case INT64 -> ((BigIntVector) vector).setSafe(row, batch.getLong(row, column));
+                case DOUBLE -> ((Float8Vector) vector).setSafe(row, batch.getDouble(row, column));
+                case DECIMAL -> ((DecimalVector) vector).setSafe(row, field.decimal(batch.getValue(row, column)));
+                case BOOLEAN -> ((BitVector) vector).setSafe(row, (int) batch.getLong(row, column));
+                case DATE -> ((DateDayVector) vector).setSafe(row, (int) batch.getLong(row, column));
+                case TIMESTAMP -> ((TimeStampMilliVector) vector).setSafe(row,
+                        ColumnarField.localMillis(batch.getLong(row, column)));
+                case STRING -> ((VarCharVector) vector).setSafe(row,
+                        ColumnarField.string(batch, row, column).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (writer != null) {
+                // 写入文件尾并关闭输出流
+                writer.close();
+            } else {
+                outputStream.close();
+            }
+        } finally {
+            if (root != null) {
+                root.close();
+            }
+            allocator.close();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.backend.report;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按键（记录ID、模板ID或统计行）累加的内存计数器，定期取出增量批量写入数据库
+ *
+ * 递增和取出都是 ConcurrentHashMap 上的单键原子操作（merge / remove），只锁定该键所在的桶，
+ * 高并发递增时不争用同一行记录，也不需要先查询再整行更新。
+ * 取出时整条移除，不会像先读取再清零那样丢失两步之间并发写入的增量。
+ */
+public class BatchedCounter<K> {
+
+    private final ConcurrentHashMap<K, Long> counters = new ConcurrentHashMap<>();
+
+    public void increment(K id) {
+        add(id, 1);
+    }
+
+    public void add(K id, long delta) {
+        if (id != null && delta != 0) {
+            counters.merge(id, delta, Long::sum);
+        }
+    }
+
+    /**
+     * 取出并清零所有增量
+     * @return 键 → 增量，不含增量为0的键
+     */
+    public Map<K, Long> drain() {
+        Map<K, Long> deltas = new HashMap<>();
+        for (K id : counters.keySet()) {
+            Long delta = counters.remove(id);
+            if (delta != null && delta != 0) {
+                deltas.merge(id, delta, Long::sum);
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * 写入失败时放回增量，下次再写
+     */
+    public void restore(Map<K, Long> deltas) {
+        deltas.forEach(this::add);
+    }
+
+    /**
+     * 尚未写入的增量
+     */
+    public long pending(K id) {
+        return counters.getOrDefault(id, 0L);
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 列式文件（Parquet、Arrow IPC）的输出列
+ * 列类型由结果集元数据解析出的存储类型决定；精度未知或超过128位的定点数、其他对象类型以及结果集中不存在的字段按字符串输出
+ */
+final class ColumnarField {
+
+    enum Kind {
+        INT32, INT64, DOUBLE, DECIMAL, BOOLEAN, DATE, TIMESTAMP, STRING
+    }
+
+    /**
+     * 128位定点数的最大精度
+     */
+    static final int MAX_DECIMAL_PRECISION = 38;
+
+    private static final ZoneRules ZONE_RULES = ZoneId.systemDefault().getRules();
+
+    private final String name;
+
+    private final Kind kind;
+
+    private final int precision;
+
+    private final int scale;
+
+    private ColumnarField(String name, Kind kind, int precision, int scale) {
+        this.name = name;
+        this.kind = kind;
+        this.precision = precision;
+        this.scale = scale;
+    }
+
+    /**
+     * 按表头和输出列解析，重复的列名依次追加 _2、_3…（列式文件按名称引用列）
+     * @param columns 输出列，结果集中不存在的字段为 null
+     */
+    static List<ColumnarField> of(List<String> headers, List<ReportColumn> columns) {
+        List<ColumnarField> fields = new ArrayList<>(headers.size());
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < headers.size(); i++) {
+            String name = headers.get(i) != null ? headers.get(i) : "column" + (i + 1);
+            String unique = name;
+            for (int n = 2; !names.add(unique); n++) {
+                unique = name + "_" + n;
+            }
+            fields.add(of(unique, columns.get(i)));
+        }
+        return fields;
+    }
+
+    private static ColumnarField of(String name, ReportColumn column) {
+        if (column == null) {
+            return new ColumnarField(name, Kind.STRING, 0, 0);
+        }
+        return switch (column.getType()) {
+            case LONG -> new ColumnarField(name, column.isIntSized() ? Kind.INT32 : Kind.INT64, 0, 0);
+            case DOUBLE -> new ColumnarField(name, Kind.DOUBLE, 0, 0);
+            case DECIMAL -> {
+                int precision = column.getPrecision();
+                int scale = column.getScale();
+                yield precision > 0 && precision <= MAX_DECIMAL_PRECISION && scale >= 0 && scale <= precision
+                        ? new ColumnarField(name, Kind.DECIMAL, precision, scale)
+                        : new ColumnarField(name, Kind.STRING, 0, 0);
+            }
+            case BOOLEAN -> new ColumnarField(name, Kind.BOOLEAN, 0, 0);
+            case DATE -> new ColumnarField(name, Kind.DATE, 0, 0);
+            case TIMESTAMP -> new ColumnarField(name, Kind.TIMESTAMP, 0, 0);
+            default -> new ColumnarField(name, Kind.STRING, 0, 0);
+        };
+    }
+
+    /**
+     * 时间戳（epochMilli）转为本地时间的毫秒数
+     * 列式文件中的时间戳按不带时区的本地时间存储，读取结果与数据库中的值一致
+     */
+    static long localMillis(long epochMilli) {
+        return epochMilli + ZONE_RULES.getOffset(Instant.ofEpochMilli(epochMilli)).getTotalSeconds() * 1000L;
+    }
+
+    /**
+     * 按列的小数位数取定点数值，超出精度时抛出异常
+     */
+    BigDecimal decimal(Object value) {
+        BigDecimal decimal = value instanceof BigDecimal bigDecimal ? bigDecimal : new BigDecimal(value.toString());
+        decimal = decimal.setScale(scale, RoundingMode.HALF_UP);
+        if (decimal.precision() > precision) {
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR,
+                    "列 " + name + " 的值超出定点数精度: " + decimal.toPlainString());
+        }
+        return decimal;
+    }
+
+    /**
+     * STRING 类型输出列的值
+     */
+    static String string(RowBatch batch, int row, int column) {
+        return batch.type(column) == ReportColumn.Type.STRING
+                ? batch.getString(row, column) : batch.getValue(row, column).toString();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    int getPrecision() {
+        return precision;
+    }
+
+    int getScale() {
+        return scale;
+    }
+}
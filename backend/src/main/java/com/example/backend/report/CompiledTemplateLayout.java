@@ -0,0 +1,221 @@
+package com.example.backend.report;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译后的模板字段布局（不可变）
+ *
+ * 保存设计时从设计器 cellData 中解析一次：含 ${字段名} 占位符的单元格按列（再按行）排序，
+ * 表头取同列第1行的文本；生成时直接使用，不再逐单元格匹配正则。列号支持 Z 之后的 AA、AB…
+ */
+public final class CompiledTemplateLayout {
+
+    /**
+     * 没有字段占位符的布局，写入器输出全部列
+     */
+    public static final CompiledTemplateLayout EMPTY = new CompiledTemplateLayout(List.of());
+
+    private static final Pattern FIELD_PATTERN = Pattern.compile("\\$\\{(\\w+)\\}");
+
+    private final List<Field> fields;
+
+    @JsonCreator
+    public CompiledTemplateLayout(@JsonProperty("fields") List<Field> fields) {
+        this.fields = fields != null ? List.copyOf(fields) : List.of();
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * 从模板配置编译字段布局
+     * @param templateConfig 设计器保存的模板配置，兼容 spreadsheetData.cellData、cellData 和直接存储 cellData 的格式
+     */
+    @SuppressWarnings("unchecked")
+    public static CompiledTemplateLayout compile(Map<String, Object> templateConfig) {
+        if (templateConfig == null) {
+            return EMPTY;
+        }
+        Object spreadsheetData = templateConfig.get("spreadsheetData");
+        if (!(spreadsheetData instanceof Map)) {
+            // 兼容旧格式：直接从 cellData 中提取
+            spreadsheetData = templateConfig.get("cellData");
+            if (!(spreadsheetData instanceof Map)) {
+                return EMPTY;
+            }
+        }
+        Object cellData = ((Map<String, Object>) spreadsheetData).get("cellData");
+        Map<String, Object> cells = cellData instanceof Map
+                ? (Map<String, Object>) cellData
+                : (Map<String, Object>) spreadsheetData;
+
+        List<Field> fields = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : cells.entrySet()) {
+            String cellRef = entry.getKey();
+            int split = letterCount(cellRef);
+            if (split == 0 || split == cellRef.length() || !isDigits(cellRef, split)) {
+                continue;
+            }
+            String text = cellText(entry.getValue());
+            if (text == null) {
+                continue;
+            }
+            Matcher matcher = FIELD_PATTERN.matcher(text);
+            if (!matcher.find()) {
+                continue;
+            }
+            String fieldName = matcher.group(1);
+            String columnName = cellRef.substring(0, split);
+
+            // 表头在同列第1行
+            String label = cellText(cells.get(columnName + "1"));
+            if (label == null || label.startsWith("${")) {
+                label = fieldName;
+            }
+            fields.add(new Field(fieldName, label, columnIndex(columnName), Integer.parseInt(cellRef.substring(split)),
+                    cellType(entry.getValue()), cellFormat(entry.getValue())));
+        }
+        fields.sort(Comparator.comparingInt(Field::getColumn).thenComparingInt(Field::getRow));
+        return fields.isEmpty() ? EMPTY : new CompiledTemplateLayout(fields);
+    }
+
+    /**
+     * 列名转0起始的列号：A → 0，Z → 25，AA → 26
+     */
+    public static int columnIndex(String columnName) {
+        int index = 0;
+        for (int i = 0; i < columnName.length(); i++) {
+            index = index * 26 + (columnName.charAt(i) - 'A' + 1);
+        }
+        return index - 1;
+    }
+
+    private static int letterCount(String cellRef) {
+        int i = 0;
+        while (i < cellRef.length() && cellRef.charAt(i) >= 'A' && cellRef.charAt(i) <= 'Z') {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigits(String value, int from) {
+        if (value.length() - from > 9) {
+            return false;
+        }
+        for (int i = from; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 单元格文本：设计器单元格对象取 v，其他值直接转字符串
+     */
+    private static String cellText(Object value) {
+        if (value instanceof Map<?, ?> cell) {
+            Object v = cell.get("v");
+            return v != null ? v.toString() : null;
+        }
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * 单元格类型：设计器单元格对象的 t（1 文本，2 数字，3 布尔）
+     */
+    private static String cellType(Object value) {
+        if (value instanceof Map<?, ?> cell && cell.get("t") instanceof Number type) {
+            return switch (type.intValue()) {
+                case 1 -> "string";
+                case 2 -> "number";
+                case 3 -> "boolean";
+                default -> null;
+            };
+        }
+        return null;
+    }
+
+    /**
+     * 数字格式：设计器单元格样式 s.n.pattern
+     */
+    private static String cellFormat(Object value) {
+        if (value instanceof Map<?, ?> cell && cell.get("s") instanceof Map<?, ?> style
+                && style.get("n") instanceof Map<?, ?> numberFormat && numberFormat.get("pattern") != null) {
+            return numberFormat.get("pattern").toString();
+        }
+        return null;
+    }
+
+    /**
+     * 输出字段
+     */
+    public static final class Field {
+
+        private final String field;
+        private final String label;
+        private final int column;
+        private final int row;
+        private final String type;
+        private final String format;
+
+        /**
+         * @param field 字段名（与结果集列名不区分大小写匹配）
+         * @param label 表头
+         * @param column 设计器中的列号（0起始）
+         * @param row 设计器中的行号（1起始）
+         * @param type 单元格类型 string/number/boolean，未设置为 null
+         * @param format 数字格式，未设置为 null
+         */
+        @JsonCreator
+        public Field(@JsonProperty("field") String field, @JsonProperty("label") String label,
+                     @JsonProperty("column") int column, @JsonProperty("row") int row,
+                     @JsonProperty("type") String type, @JsonProperty("format") String format) {
+            this.field = field;
+            this.label = label;
+            this.column = column;
+            this.row = row;
+            this.type = type;
+            this.format = format;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public int getRow() {
+            return row;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public String getFormat() {
+            return format;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package com.example.backend.report;
+
+import com.example.backend.exception.BusinessException;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * CSV报表写入器
+ * 按 RFC 4180 输出（CRLF换行，含分隔符、引号或换行的值加引号），数据批次逐行写出，不在内存中保留已写入的数据。
+ * 字符先写入复用的 CharBuffer，满后整块编码到复用的 ByteBuffer 再写入通道，数值列直接从原始类型数组写出
+ */
+public class CsvReportWriter extends AbstractReportWriter {
+
+    public static final char DEFAULT_DELIMITER = ',';
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] DIGITS = "0123456789".toCharArray();
+
+    private final WritableByteChannel channel;
+
+    private final CharsetEncoder encoder;
+
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+
+    private final ByteBuffer bytes;
+
+    private final char delimiter;
+
+    public CsvReportWriter(String filePath, CompiledTemplateLayout layout) {
+        this(openFile(filePath), layout, DEFAULT_DELIMITER, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 写入输出流（如报表存储的上传流），关闭时一并关闭输出流
+     */
+    public CsvReportWriter(OutputStream outputStream, CompiledTemplateLayout layout) {
+        this(outputStream, layout, DEFAULT_DELIMITER, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param delimiter 字段分隔符
+     * @param charset 文件编码，UTF-8 时写入BOM以便Excel正确识别
+     */
+    public CsvReportWriter(OutputStream outputStream, CompiledTemplateLayout layout, char delimiter, Charset charset) {
+        this(outputStream instanceof FileOutputStream fileStream ? fileStream.getChannel()
+                : Channels.newChannel(outputStream), layout, delimiter, charset);
+    }
+
+    private CsvReportWriter(WritableByteChannel channel, CompiledTemplateLayout layout, char delimiter,
+                            Charset charset) {
+        super(layout);
+        if (delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+            throw new IllegalArgumentException("CSV分隔符不能是引号或换行符");
+        }
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate((int) (BUFFER_SIZE * encoder.maxBytesPerChar()) + 16);
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            chars.put('\ufeff');
+        }
+    }
+
+    private static WritableByteChannel openFile(String filePath) {
+        try {
+            return FileChannel.open(Paths.get(filePath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new BusinessException("CSV文件生成失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    protected void writeHeader(List<String> headers) {
+        for (int i = 0; i < headers.size(); i++) {
+            if (i > 0) {
+                put(delimiter);
+            }
+            putEscaped(headers.get(i));
+        }
+        putLineEnd();
+    }
+
+    @Override
+    protected void writeRows(RowBatch batch, int[] columnIndexes) {
+        for (int row = 0; row < batch.size(); row++) {
+            for (int i = 0; i < columnIndexes.length; i++) {
+                if (i > 0) {
+                    put(delimiter);
+                }
+                putValue(batch, row, columnIndexes[i]);
+            }
+            putLineEnd();
+        }
+    }
+
+    /**
+     * 写入单元格值，数值和布尔列不装箱
+     */
+    private void putValue(RowBatch batch, int row, int column) {
+        if (column < 0 || batch.isNull(row, column)) {
+            return;
+        }
+        switch (batch.type(column)) {
+            case LONG -> putLong(batch.getLong(row, column));
+            case DOUBLE -> putDouble(batch.getDouble(row, column));
+            case BOOLEAN -> put(batch.getLong(row, column) != 0 ? "true" : "false");
+            case STRING -> putEscaped(batch.getString(row, column));
+            default -> putEscaped(batch.getValue(row, column).toString());
+        }
+    }
+
+    /**
+     * 浮点数按普通小数写出：Double.toString 对很大或很小的值使用科学计数法（如 1.2345678E7），
+     * Excel等下游按文本读取，此时转为不带指数的写法；NaN 和 Infinity 原样输出
+     */
+    private void putDouble(double value) {
+        String text = Double.toString(value);
+        if (Double.isFinite(value) && text.indexOf('E') >= 0) {
+            text = new BigDecimal(text).stripTrailingZeros().toPlainString();
+        }
+        put(text);
+    }
+
+    /**
+     * 一次扫描判断是否需要加引号：包含分隔符、引号、CR或LF时整体加引号，引号写两次
+     */
+    private void putEscaped(String value) {
+        int length = value.length();
+        int special = -1;
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch == delimiter || ch == '"' || ch == '\n' || ch == '\r') {
+                special = i;
+                break;
+            }
+        }
+        if (special < 0) {
+            put(value);
+            return;
+        }
+        put('"');
+        put(value, 0, special);
+        for (int i = special; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') {
+                put('"');
+            }
+            put(ch);
+        }
+        put('"');
+    }
+
+    private void putLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            put(Long.toString(value));
+            return;
+        }
+        if (chars.remaining() < 20) {
+            flush(false);
+        }
+        if (value < 0) {
+            chars.put('-');
+            value = -value;
+        }
+        // 从低位开始写入缓冲区，再原地反转
+        int start = chars.position();
+        do {
+            chars.put(DIGITS[(int) (value % 10)]);
+            value /= 10;
+        } while (value != 0);
+        char[] array = chars.array();
+        for (int i = start, j = chars.position() - 1; i < j; i++, j--) {
+            char tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    private void putLineEnd() {
+        put('\r');
+        put('\n');
+    }
+
+    private void put(char ch) {
+        if (!chars.hasRemaining()) {
+            flush(false);
+        }
+        chars.put(ch);
+    }
+
+    private void put(String value) {
+        put(value, 0, value.length());
+    }
+
+    private void put(String value, int start, int end) {
+        while (start < end) {
+            if (!chars.hasRemaining()) {
+                flush(false);
+            }
+            int count = Math.min(end - start, chars.remaining());
+            chars.put(value, start, start + count);
+            start += count;
+        }
+    }
+
+    /**
+     * 编码缓冲区中的字符并写入通道；未结束时不完整的代理对留在缓冲区中等待后续字符
+     */
+    private void flush(boolean endOfInput) {
+        chars.flip();
+        try {
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, endOfInput);
+                writeBytes();
+            } while (result.isOverflow());
+            if (endOfInput) {
+                while (encoder.flush(bytes).isOverflow()) {
+                    writeBytes();
+                }
+                writeBytes();
+            }
+        } catch (IOException e) {
+            throw new BusinessException("CSV文件生成失败: " + e.getMessage());
+        } finally {
+            chars.compact();
+        }
+    }
+
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush(true);
+        } finally {
+            channel.close();
+        }
+    }
+}
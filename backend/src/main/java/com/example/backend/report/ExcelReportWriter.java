@@ -0,0 +1,126 @@
+package com.example.backend.report;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Excel报表写入器（EasyExcel流式写入）
+ * 每个数据批次直接写入工作表，内存占用与总行数无关；
+ * 工作表数据行数达到上限时自动切换到新的工作表（报表数据、报表数据2…），每个工作表重复表头
+ */
+public class ExcelReportWriter extends AbstractReportWriter {
+
+    /**
+     * 单个工作表最多的数据行数（Excel上限1048576行，减去表头）
+     */
+    public static final int MAX_SHEET_ROWS = 1_048_575;
+
+    private static final String SHEET_NAME = "报表数据";
+
+    private final ExcelWriter excelWriter;
+
+    private final int sheetMaxRows;
+
+    private WriteSheet writeSheet;
+
+    private int sheetCount = 1;
+
+    private int sheetRows;
+
+    private List<List<Object>> headerRow;
+
+    public ExcelReportWriter(String filePath, CompiledTemplateLayout layout) {
+        this(filePath, layout, MAX_SHEET_ROWS);
+    }
+
+    public ExcelReportWriter(String filePath, CompiledTemplateLayout layout, int sheetMaxRows) {
+        super(layout);
+        this.excelWriter = EasyExcel.write(filePath).build();
+        this.sheetMaxRows = sheetMaxRows(sheetMaxRows);
+        this.writeSheet = EasyExcel.writerSheet(0, SHEET_NAME).build();
+    }
+
+    /**
+     * 写入输出流（如报表存储的上传流），关闭时一并关闭输出流
+     */
+    public ExcelReportWriter(OutputStream outputStream, CompiledTemplateLayout layout) {
+        this(outputStream, layout, MAX_SHEET_ROWS);
+    }
+
+    /**
+     * @param sheetMaxRows 单个工作表的数据行数上限，超过 {@link #MAX_SHEET_ROWS} 时按 MAX_SHEET_ROWS 处理
+     */
+    public ExcelReportWriter(OutputStream outputStream, CompiledTemplateLayout layout, int sheetMaxRows) {
+        super(layout);
+        this.excelWriter = EasyExcel.write(outputStream).build();
+        this.sheetMaxRows = sheetMaxRows(sheetMaxRows);
+        this.writeSheet = EasyExcel.writerSheet(0, SHEET_NAME).build();
+    }
+
+    /**
+     * 第 index 个工作表（从1开始）的名称
+     */
+    public static String sheetName(int index) {
+        return index == 1 ? SHEET_NAME : SHEET_NAME + index;
+    }
+
+    /**
+     * 规范化工作表行数上限：不大于0或超过Excel上限时使用 {@link #MAX_SHEET_ROWS}
+     */
+    public static int sheetMaxRows(int sheetMaxRows) {
+        return sheetMaxRows <= 0 ? MAX_SHEET_ROWS : Math.min(sheetMaxRows, MAX_SHEET_ROWS);
+    }
+
+    @Override
+    protected void writeHeader(List<String> headers) {
+        headerRow = List.of(new ArrayList<>(headers));
+        excelWriter.write(headerRow, writeSheet);
+    }
+
+    @Override
+    protected void writeRows(RowBatch batch, int[] columnIndexes) {
+        int row = 0;
+        while (row < batch.size()) {
+            if (sheetRows >= sheetMaxRows) {
+                nextSheet();
+            }
+            int end = Math.min(batch.size(), row + sheetMaxRows - sheetRows);
+            List<List<Object>> writeData = new ArrayList<>(end - row);
+            for (; row < end; row++) {
+                List<Object> values = new ArrayList<>(columnIndexes.length);
+                for (int columnIndex : columnIndexes) {
+                    values.add(valueAt(batch, row, columnIndex));
+                }
+                writeData.add(values);
+            }
+            excelWriter.write(writeData, writeSheet);
+            sheetRows += writeData.size();
+        }
+    }
+
+    private void nextSheet() {
+        sheetCount++;
+        writeSheet = EasyExcel.writerSheet(sheetCount - 1, sheetName(sheetCount)).build();
+        sheetRows = 0;
+        if (headerRow != null) {
+            excelWriter.write(headerRow, writeSheet);
+        }
+    }
+
+    /**
+     * 已写入的工作表数
+     */
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    @Override
+    public void close() {
+        excelWriter.finish();
+    }
+}
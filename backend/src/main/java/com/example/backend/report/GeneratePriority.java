@@ -0,0 +1,18 @@
+package com.example.backend.report;
+
+/**
+ * 报表生成任务优先级
+ * 队列中按优先级排序，同优先级按提交顺序执行
+ */
+public enum GeneratePriority {
+
+    /**
+     * 用户交互触发的生成（页面点击生成）
+     */
+    INTERACTIVE,
+
+    /**
+     * 定时任务触发的生成
+     */
+    SCHEDULED
+}
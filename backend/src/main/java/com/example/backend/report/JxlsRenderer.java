@@ -0,0 +1,191 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.jxls.area.Area;
+import org.jxls.builder.xls.XlsCommentAreaBuilder;
+import org.jxls.common.CellRef;
+import org.jxls.common.Context;
+import org.jxls.formula.FastFormulaProcessor;
+import org.jxls.transform.poi.PoiTransformer;
+import org.jxls.util.JxlsHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+/**
+ * Jxls模板渲染
+ *
+ * 1. 内存模式：数据集完整加载后用 XSSF 渲染，支持全部 Jxls 功能
+ * 2. 流式模式：用 SXSSF 按行窗口写出，数据由查询线程边读边交给渲染线程（JxlsRowFeed），
+ *    工作簿和数据集都不会整体驻留内存。SXSSF 不能回写已写出的行，输出写入新工作表后替换模板工作表
+ */
+@Component
+public class JxlsRenderer implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JxlsRenderer.class);
+
+    private static final String OUTPUT_SHEET_SUFFIX = "__jxls_out";
+
+    @Value("${report.jxls.streaming:true}")
+    private boolean streaming;
+
+    @Value("${report.jxls.row-access-window:500}")
+    private int rowAccessWindow;
+
+    @Value("${report.jxls.queue-batches:4}")
+    private int queueBatches;
+
+    private final ExecutorService renderExecutor;
+
+    public JxlsRenderer() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "jxls-render-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        // 渲染线程数受xlsx生成工作线程数限制，不需要单独设置上限
+        this.renderExecutor = Executors.newCachedThreadPool(threadFactory);
+    }
+
+    /**
+     * 模板是否使用流式模式渲染
+     */
+    public boolean isStreaming(JxlsTemplate template) {
+        return streaming && template.isStreamable();
+    }
+
+    /**
+     * 内存模式渲染
+     */
+    public void render(JxlsTemplate template, Context context, OutputStream outputStream) throws IOException {
+        try (InputStream is = template.openStream()) {
+            JxlsHelper.getInstance().processTemplate(is, outputStream, context);
+        }
+    }
+
+    /**
+     * 流式模式渲染：在当前线程执行查询，渲染线程同时消费数据
+     * @param query 执行查询并把数据写入给定的处理器，返回数据行数
+     * @return 数据行数
+     */
+    public long renderStreaming(JxlsTemplate template, Context context, OutputStream outputStream,
+                                ToLongFunction<ReportRowHandler> query) throws IOException {
+        JxlsRowFeed feed = new JxlsRowFeed(queueBatches);
+        context.putVar(JxlsTemplate.DATA_VAR, feed);
+        Future<?> rendering = renderExecutor.submit(() -> {
+            Throwable failure = null;
+            try {
+                renderSxssf(template, context, outputStream);
+            } catch (IOException | RuntimeException | Error e) {
+                failure = e;
+                throw e;
+            } finally {
+                feed.close(failure);
+            }
+            return null;
+        });
+
+        long rows;
+        try {
+            rows = query.applyAsLong(feed);
+            feed.finish();
+        } catch (RuntimeException | Error e) {
+            feed.fail(e);
+            awaitQuietly(rendering);
+            throw e;
+        }
+        await(rendering);
+        return rows;
+    }
+
+    private void renderSxssf(JxlsTemplate template, Context context, OutputStream outputStream) throws IOException {
+        Workbook workbook;
+        try (InputStream is = template.openStream()) {
+            workbook = WorkbookFactory.create(is);
+        }
+        PoiTransformer transformer = PoiTransformer.createSxssfTransformer(workbook, rowAccessWindow, false);
+        transformer.setOutputStream(outputStream);
+        try {
+            List<Area> areas = new XlsCommentAreaBuilder(transformer).build();
+            List<String> sheets = new ArrayList<>();
+            for (Area area : areas) {
+                CellRef start = area.getStartCellRef();
+                if (!sheets.contains(start.getSheetName())) {
+                    sheets.add(start.getSheetName());
+                }
+                area.setFormulaProcessor(new FastFormulaProcessor());
+                area.applyAt(new CellRef(start.getSheetName() + OUTPUT_SHEET_SUFFIX, start.getRow(), start.getCol()), context);
+                area.processFormulas();
+            }
+
+            // 用输出工作表替换模板工作表，保持原名称和位置
+            Workbook output = transformer.getWorkbook();
+            for (String sheet : sheets) {
+                int index = output.getSheetIndex(sheet);
+                output.removeSheetAt(index);
+                output.setSheetName(output.getSheetIndex(sheet + OUTPUT_SHEET_SUFFIX), sheet);
+                output.setSheetOrder(sheet, index);
+            }
+            output.setActiveSheet(0);
+            output.setSelectedTab(0);
+            transformer.writeButNotCloseStream();
+        } finally {
+            // 删除 SXSSF 的临时文件
+            transformer.dispose();
+        }
+    }
+
+    private void await(Future<?> rendering) throws IOException {
+        try {
+            rendering.get();
+        } catch (InterruptedException e) {
+            rendering.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "报表生成已中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "模板渲染失败: " + cause.getMessage());
+        }
+    }
+
+    private void awaitQuietly(Future<?> rendering) {
+        try {
+            await(rendering);
+        } catch (IOException | RuntimeException e) {
+            logger.debug("查询失败后渲染线程结束: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        renderExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式Jxls渲染的数据源
+ *
+ * 查询线程按批次写入（ReportRowHandler），渲染线程通过 jx:each 按顺序遍历（Iterable），
+ * 中间只保留有限个批次，队列满时查询线程等待渲染，整个结果集不会同时驻留内存。
+ * 只能遍历一次
+ */
+public class JxlsRowFeed implements ReportRowHandler, Iterable<Map<String, Object>> {
+
+    private static final List<Map<String, Object>> END = Collections.emptyList();
+
+    private final BlockingQueue<List<Map<String, Object>>> queue;
+
+    private List<ReportColumn> columns;
+
+    private volatile Throwable failure;
+
+    /**
+     * 渲染结束（成功或失败）后为 true，之后写入的批次直接丢弃
+     */
+    private volatile boolean closed;
+
+    private volatile Throwable renderFailure;
+
+    private boolean iterated;
+
+    /**
+     * @param capacity 最多缓冲的批次数
+     */
+    public JxlsRowFeed(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    @Override
+    public void onStart(List<ReportColumn> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void onBatch(RowBatch batch) {
+        // 批次对象会被复用，转换为行Map后再交给渲染线程
+        List<Map<String, Object>> rows = new ArrayList<>(batch.size());
+        for (int row = 0; row < batch.size(); row++) {
+            // 字段名不区分大小写，与 JdbcTemplate.queryForList 返回的行一致（如Oracle返回大写列名）
+            Map<String, Object> values = new LinkedCaseInsensitiveMap<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                values.put(columns.get(i).getName(), batch.getValue(row, i));
+            }
+            rows.add(values);
+        }
+        offer(rows);
+    }
+
+    /**
+     * 数据写入完毕
+     */
+    public void finish() {
+        offer(END);
+    }
+
+    /**
+     * 查询失败，渲染线程遍历到末尾时抛出
+     */
+    public void fail(Throwable cause) {
+        failure = cause;
+        queue.clear();
+        queue.offer(END);
+    }
+
+    /**
+     * 渲染结束后调用，之后查询线程写入的数据被丢弃
+     * @param cause 渲染失败原因，成功时为 null；非空时查询线程的下一次写入抛出异常以中止查询
+     */
+    public void close(Throwable cause) {
+        renderFailure = cause;
+        closed = true;
+        queue.clear();
+    }
+
+    @Override
+    public Iterator<Map<String, Object>> iterator() {
+        synchronized (this) {
+            if (iterated) {
+                throw new IllegalStateException("流式数据只能遍历一次");
+            }
+            iterated = true;
+        }
+        return new Iterator<>() {
+
+            private Iterator<Map<String, Object>> current = Collections.emptyIterator();
+
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                while (!done && !current.hasNext()) {
+                    List<Map<String, Object>> rows = take();
+                    if (rows == END) {
+                        done = true;
+                        if (failure != null) {
+                            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "数据查询失败: " + failure.getMessage());
+                        }
+                    } else {
+                        current = rows.iterator();
+                    }
+                }
+                return !done;
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    private void offer(List<Map<String, Object>> rows) {
+        try {
+            while (!closed) {
+                if (queue.offer(rows, 100, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "报表生成已中断");
+        }
+        if (renderFailure != null) {
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "模板渲染失败: " + renderFailure.getMessage());
+        }
+    }
+
+    private List<Map<String, Object>> take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "报表生成已中断");
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.backend.report;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.jxls.area.Area;
+import org.jxls.area.CommandData;
+import org.jxls.builder.xls.XlsCommentAreaBuilder;
+import org.jxls.command.Command;
+import org.jxls.command.EachCommand;
+import org.jxls.common.AreaRef;
+import org.jxls.common.CellRef;
+import org.jxls.transform.poi.PoiTransformer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 已加载的Jxls模板（不可变）
+ *
+ * 保存模板文件内容和校验和，并在加载时分析一次模板是否可以流式渲染：
+ * 流式渲染时数据只能按顺序遍历一次，已写出的行不能再修改，因此要求
+ * dataList 只被一个 jx:each 引用（单元格表达式中不再使用）、不使用 orderBy/groupBy/select/multisheet、循环区域内没有公式
+ */
+public final class JxlsTemplate {
+
+    /**
+     * 模板中数据集的变量名
+     */
+    public static final String DATA_VAR = "dataList";
+
+    private final String fileKey;
+    private final String checksum;
+    private final byte[] content;
+    private final String nonStreamableReason;
+
+    public JxlsTemplate(String fileKey, String checksum, byte[] content) {
+        this.fileKey = fileKey;
+        this.checksum = checksum;
+        this.content = content;
+        this.nonStreamableReason = analyze(content);
+    }
+
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public int size() {
+        return content.length;
+    }
+
+    /**
+     * 每次渲染打开新的输入流，Jxls会修改读入的工作簿，不能共享已解析的工作簿
+     */
+    public InputStream openStream() {
+        return new ByteArrayInputStream(content);
+    }
+
+    public boolean isStreamable() {
+        return nonStreamableReason == null;
+    }
+
+    /**
+     * 不能流式渲染的原因，可以流式渲染时为 null
+     */
+    public String getNonStreamableReason() {
+        return nonStreamableReason;
+    }
+
+    private static String analyze(byte[] content) {
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(content))) {
+            // 创建转换器会读取并清空模板单元格，需要先记录公式和单元格表达式
+            if (referencesData(workbook)) {
+                return "单元格表达式中引用了 " + DATA_VAR;
+            }
+            List<CellRef> formulaCells = formulaCells(workbook);
+            List<Area> areas = new XlsCommentAreaBuilder(PoiTransformer.createTransformer(workbook)).build();
+            if (areas.isEmpty()) {
+                return "模板中没有 jx:area";
+            }
+            int[] dataEachCount = {0};
+            for (Area area : areas) {
+                String reason = analyzeArea(area, formulaCells, dataEachCount);
+                if (reason != null) {
+                    return reason;
+                }
+            }
+            if (dataEachCount[0] != 1) {
+                return DATA_VAR + " 被 " + dataEachCount[0] + " 个 jx:each 引用";
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return "模板解析失败: " + e.getMessage();
+        }
+    }
+
+    private static String analyzeArea(Area area, List<CellRef> formulaCells, int[] dataEachCount) {
+        for (CommandData commandData : area.getCommandDataList()) {
+            Command command = commandData.getCommand();
+            if (command instanceof EachCommand each) {
+                if (StringUtils.isNotBlank(each.getOrderBy()) || StringUtils.isNotBlank(each.getGroupBy())
+                        || StringUtils.isNotBlank(each.getSelect()) || StringUtils.isNotBlank(each.getMultisheet())) {
+                    return "jx:each 使用了 orderBy/groupBy/select/multisheet";
+                }
+                if (DATA_VAR.equals(StringUtils.trim(each.getItems()))) {
+                    dataEachCount[0]++;
+                }
+                AreaRef areaRef = commandData.getAreaRef();
+                if (formulaCells.stream().anyMatch(areaRef::contains)) {
+                    return "jx:each 区域内包含公式";
+                }
+            }
+            for (Area child : command.getAreaList()) {
+                String reason = analyzeArea(child, formulaCells, dataEachCount);
+                if (reason != null) {
+                    return reason;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean referencesData(XSSFWorkbook workbook) {
+        for (Sheet sheet : workbook) {
+            for (Row row : sheet) {
+                for (Cell cell : row) {
+                    if (cell.getCellType() == CellType.STRING && cell.getStringCellValue().contains(DATA_VAR)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<CellRef> formulaCells(XSSFWorkbook workbook) {
+        List<CellRef> cells = new ArrayList<>();
+        for (Sheet sheet : workbook) {
+            for (Row row : sheet) {
+                for (Cell cell : row) {
+                    // Jxls 的 $[...] 公式以文本形式保存
+                    if (cell.getCellType() == CellType.FORMULA
+                            || (cell.getCellType() == CellType.STRING && cell.getStringCellValue().startsWith("$["))) {
+                        cells.add(new CellRef(sheet.getSheetName(), cell.getRowIndex(), cell.getColumnIndex()));
+                    }
+                }
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.backend.report;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import com.example.backend.entity.ReportTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Jxls模板文件缓存
+ *
+ * 按模板ID缓存模板文件内容、校验和及流式渲染分析结果，生成时不再每次从报表存储读取和分析模板。
+ * 每次使用前查询存储中文件的大小和修改时间，模板文件被替换后重新读取；内容校验和不变时沿用原分析结果。
+ * 按总字节数做LRU淘汰
+ */
+@Component
+public class JxlsTemplateCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(JxlsTemplateCache.class);
+
+    @Value("${report.jxls.cache-max-size-mb:64}")
+    private long maxSizeMb;
+
+    @Autowired
+    private ReportStorage reportStorage;
+
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSize;
+
+    /**
+     * 获取模板文件
+     * @param template 模板（templateFile 为报表存储中的模板文件键）
+     * @throws FileNotFoundException 模板文件不存在
+     */
+    public JxlsTemplate get(ReportTemplate template) throws IOException {
+        String fileKey = template.getTemplateFile();
+        ReportStorage.StoredFile stat = reportStorage.stat(fileKey);
+        if (stat == null) {
+            throw new FileNotFoundException(fileKey);
+        }
+        Entry cached;
+        synchronized (this) {
+            cached = entries.get(template.getId());
+        }
+        if (cached != null && cached.matches(fileKey, stat)) {
+            return cached.template;
+        }
+
+        byte[] content;
+        try (InputStream in = reportStorage.openInput(fileKey)) {
+            content = in.readAllBytes();
+        }
+        String checksum = DigestUtil.md5Hex(content);
+        JxlsTemplate loaded = cached != null && checksum.equals(cached.template.getChecksum())
+                && fileKey.equals(cached.template.getFileKey())
+                ? cached.template
+                : new JxlsTemplate(fileKey, checksum, content);
+        if (!loaded.isStreamable()) {
+            logger.info("Jxls模板不能流式渲染，将使用内存模式: template={}, reason={}",
+                    fileKey, loaded.getNonStreamableReason());
+        }
+        if (template.getId() != null) {
+            put(template.getId(), new Entry(loaded, stat.getSize(), stat.getLastModified()));
+        }
+        return loaded;
+    }
+
+    /**
+     * 移除模板的缓存
+     */
+    public synchronized void invalidate(Long templateId) {
+        Entry removed = entries.remove(templateId);
+        if (removed != null) {
+            totalSize -= removed.template.size();
+        }
+    }
+
+    private synchronized void put(Long templateId, Entry entry) {
+        long maxSize = maxSizeMb * 1024 * 1024;
+        if (entry.template.size() > maxSize) {
+            return;
+        }
+        Entry previous = entries.put(templateId, entry);
+        if (previous != null) {
+            totalSize -= previous.template.size();
+        }
+        totalSize += entry.template.size();
+
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (totalSize > maxSize && iterator.hasNext()) {
+            Map.Entry<Long, Entry> eldest = iterator.next();
+            if (eldest.getValue() == entry) {
+                continue;
+            }
+            totalSize -= eldest.getValue().template.size();
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+
+        private final JxlsTemplate template;
+        private final long size;
+        private final long lastModified;
+
+        Entry(JxlsTemplate template, long size, long lastModified) {
+            this.template = template;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        boolean matches(String fileKey, ReportStorage.StoredFile stat) {
+            return Objects.equals(fileKey, template.getFileKey())
+                    && size == stat.getSize() && lastModified == stat.getLastModified();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.backend.report;
+
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将流式结果收集为 List&lt;Map&gt;
+ * 仅用于需要完整数据集的场景（如Jxls模板渲染），行数上限由流式查询控制
+ */
+public class ListRowCollector implements ReportRowHandler {
+
+    private final List<Map<String, Object>> rows = new ArrayList<>();
+
+    private List<ReportColumn> columns;
+
+    @Override
+    public void onStart(List<ReportColumn> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void onBatch(RowBatch batch) {
+        for (int row = 0; row < batch.size(); row++) {
+            // 字段名不区分大小写，与 JdbcTemplate.queryForList 返回的行一致（如Oracle返回大写列名）
+            Map<String, Object> values = new LinkedCaseInsensitiveMap<>(columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                values.put(columns.get(i).getName(), batch.getValue(row, i));
+            }
+            rows.add(values);
+        }
+    }
+
+    public List<Map<String, Object>> getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.backend.report;
+
+import cn.hutool.core.io.FileUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * 本地磁盘报表存储，存储键为 report.storage.path 下的相对路径
+ * 多节点部署时需要挂载共享目录，否则使用S3兼容存储
+ */
+@Component
+@ConditionalOnProperty(name = "report.storage.type", havingValue = "local", matchIfMissing = true)
+public class LocalReportStorage extends AbstractReportStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalReportStorage.class);
+
+    @Value("${report.storage.path:./upload/reports}")
+    private String storagePath;
+
+    public LocalReportStorage() {
+    }
+
+    public LocalReportStorage(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    @Override
+    public StorageOutputStream openOutput(String key) throws IOException {
+        File file = resolve(key);
+        FileUtil.mkParentDirs(file);
+        return new FileStorageOutputStream(file);
+    }
+
+    @Override
+    public void store(String key, File source) throws IOException {
+        File file = resolve(key);
+        FileUtil.mkParentDirs(file);
+        Files.copy(source.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public InputStream openInput(String key) throws IOException {
+        return Files.newInputStream(existing(key).toPath());
+    }
+
+    @Override
+    public InputStream openInput(String key, long start, long count) throws IOException {
+        FileChannel channel = FileChannel.open(existing(key).toPath(), StandardOpenOption.READ);
+        channel.position(start);
+        return new BoundedInputStream(Channels.newInputStream(channel), count);
+    }
+
+    @Override
+    public StoredFile stat(String key) {
+        File file = resolve(key);
+        return file.isFile() ? new StoredFile(file.length(), file.lastModified()) : null;
+    }
+
+    @Override
+    public boolean copy(String sourceKey, String targetKey) {
+        File source = resolve(sourceKey);
+        if (!source.isFile()) {
+            return false;
+        }
+        try {
+            store(targetKey, source);
+            return true;
+        } catch (IOException e) {
+            logger.debug("复制报表文件失败: {} -> {}, {}", sourceKey, targetKey, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        FileUtil.del(resolve(key));
+    }
+
+    @Override
+    public File localFile(String key) {
+        return resolve(key);
+    }
+
+    @Override
+    public void download(String key, File target) throws IOException {
+        FileUtil.mkParentDirs(target);
+        Files.copy(existing(key).toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void walk(BiConsumer<String, StoredFile> visitor) throws IOException {
+        Path base = Paths.get(storagePath);
+        if (!Files.isDirectory(base)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(base)) {
+            Iterator<Path> iterator = paths.iterator();
+            while (iterator.hasNext()) {
+                Path path = iterator.next();
+                BasicFileAttributes attributes;
+                try {
+                    attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                } catch (NoSuchFileException e) {
+                    // 遍历期间被删除
+                    continue;
+                }
+                if (attributes.isRegularFile()) {
+                    String key = base.relativize(path).toString().replace(File.separatorChar, '/');
+                    visitor.accept(key, new StoredFile(attributes.size(), attributes.lastModifiedTime().toMillis()));
+                }
+            }
+        }
+    }
+
+    private File resolve(String key) {
+        return new File(storagePath, checkKey(key));
+    }
+
+    private File existing(String key) throws FileNotFoundException {
+        File file = resolve(key);
+        if (!file.isFile()) {
+            throw new FileNotFoundException("报表文件不存在: " + key);
+        }
+        return file;
+    }
+
+    /**
+     * 直接写入目标文件，放弃时关闭并删除
+     */
+    private static final class FileStorageOutputStream extends StorageOutputStream {
+
+        private final File file;
+
+        private final OutputStream out;
+
+        private boolean closed;
+
+        FileStorageOutputStream(File file) throws IOException {
+            this.file = file;
+            this.out = Files.newOutputStream(file.toPath());
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            out.close();
+        }
+
+        @Override
+        public void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.debug("关闭报表文件失败: {}, {}", file, e.getMessage());
+            }
+            FileUtil.del(file);
+        }
+    }
+}
@@ -0,0 +1,652 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 多线程编码的XLSX报表写入器
+ *
+ * 直接生成 xlsx 包（zip），不经过 POI：每个数据批次在编码线程池中独立编码为工作表行XML并压缩
+ * （以 SYNC_FLUSH 结束的 deflate 片段可以直接拼接），查询线程按顺序把压缩片段写入当前工作表部件，
+ * 多个批次同时在多个CPU核上编码。工作表数据行数达到上限时结束当前工作表部件并开始下一个，
+ * 工作表名称与 {@link ExcelReportWriter} 一致；工作簿、样式等部件在关闭时写入。
+ * 字符串使用内联字符串，日期和时间戳写为带日期格式的数值
+ */
+public class ParallelXlsxReportWriter extends AbstractReportWriter {
+
+    private static final String SHEET_PROLOGUE = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n"
+            + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>";
+
+    private static final String SHEET_EPILOGUE = "</sheetData></worksheet>";
+
+    /**
+     * 日期、时间戳单元格的样式序号（见 styles.xml）
+     */
+    private static final int DATE_STYLE = 1;
+    private static final int TIMESTAMP_STYLE = 2;
+
+    /**
+     * Excel 序列日期 0 对应 1899-12-30
+     */
+    private static final long EXCEL_EPOCH_OFFSET = 25569;
+
+    private static final int MAX_TEXT_LENGTH = 32767;
+
+    private static final long ZIP_LIMIT = 0xFFFFFFFFL;
+
+    private final CountingOutputStream out;
+
+    private final int sheetMaxRows;
+
+    private final ExecutorService encoders;
+
+    private final int maxInFlight;
+
+    private final Deque<Future<EncodedChunk>> pending = new ArrayDeque<>();
+
+    private final List<ZipEntryInfo> entries = new ArrayList<>();
+
+    private final int dosTime;
+
+    private final int dosDate;
+
+    private String[] columnRefs = new String[0];
+
+    private List<String> headers = List.of();
+
+    private int sheetCount;
+
+    private int sheetRows;
+
+    private ZipEntryInfo currentSheet;
+
+    private CRC32 sheetCrc;
+
+    private boolean failed;
+
+    private boolean closed;
+
+    /**
+     * @param outputStream 输出流，关闭时一并关闭
+     * @param sheetMaxRows 单个工作表的数据行数上限
+     * @param parallelism 编码线程数
+     */
+    public ParallelXlsxReportWriter(OutputStream outputStream, CompiledTemplateLayout layout, int sheetMaxRows,
+                                    int parallelism) {
+        super(layout);
+        this.out = new CountingOutputStream(outputStream);
+        this.sheetMaxRows = ExcelReportWriter.sheetMaxRows(sheetMaxRows);
+        int threads = Math.max(parallelism, 1);
+        this.maxInFlight = threads * 2;
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread thread = new Thread(r, "xlsx-encode-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.encoders = Executors.newFixedThreadPool(threads, threadFactory);
+        LocalDateTime now = LocalDateTime.now();
+        this.dosTime = (now.getHour() << 11) | (now.getMinute() << 5) | (now.getSecond() / 2);
+        this.dosDate = ((now.getYear() - 1980) << 9) | (now.getMonthValue() << 5) | now.getDayOfMonth();
+    }
+
+    /**
+     * 已写入的工作表数
+     */
+    public int getSheetCount() {
+        return sheetCount;
+    }
+
+    @Override
+    protected void writeHeader(List<String> headers) {
+        this.headers = headers;
+        this.columnRefs = new String[headers.size()];
+        for (int i = 0; i < columnRefs.length; i++) {
+            columnRefs[i] = columnName(i);
+        }
+        run(this::startSheet);
+    }
+
+    @Override
+    protected void writeRows(RowBatch batch, int[] columnIndexes) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Snapshot snapshot = Snapshot.copy(batch, columnIndexes);
+        run(() -> {
+            int row = 0;
+            while (row < snapshot.size) {
+                if (sheetRows >= sheetMaxRows) {
+                    finishSheet();
+                    startSheet();
+                }
+                int end = Math.min(snapshot.size, row + sheetMaxRows - sheetRows);
+                // 行号从2开始（第1行为表头）
+                int firstRow = sheetRows + 2;
+                int from = row;
+                submit(() -> encodeRows(snapshot, from, end, firstRow));
+                sheetRows += end - row;
+                row = end;
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (!failed) {
+                if (currentSheet == null) {
+                    startSheet();
+                }
+                finishSheet();
+                writeWorkbookParts();
+                writeCentralDirectory();
+            }
+        } finally {
+            encoders.shutdownNow();
+            out.close();
+        }
+    }
+
+    private void run(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            failed = true;
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "报表文件写入失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void startSheet() throws IOException {
+        sheetCount++;
+        sheetRows = 0;
+        sheetCrc = new CRC32();
+        currentSheet = new ZipEntryInfo("xl/worksheets/sheet" + sheetCount + ".xml", out.count, true);
+        writeLocalHeader(currentSheet);
+        String[] refs = columnRefs;
+        List<String> headerValues = headers;
+        submit(() -> {
+            StringBuilder xml = new StringBuilder(SHEET_PROLOGUE);
+            xml.append("<row r=\"1\">");
+            for (int i = 0; i < headerValues.size(); i++) {
+                appendText(xml, refs[i] + 1, headerValues.get(i));
+            }
+            xml.append("</row>");
+            return deflate(xml, false);
+        });
+    }
+
+    private void finishSheet() throws IOException {
+        submit(() -> deflate(new StringBuilder(SHEET_EPILOGUE), true));
+        drain(0);
+        writeInt(0x08074b50);
+        currentSheet.crc = sheetCrc.getValue();
+        checkZipLimit(currentSheet.compressedSize);
+        checkZipLimit(currentSheet.size);
+        writeInt(currentSheet.crc);
+        writeInt(currentSheet.compressedSize);
+        writeInt(currentSheet.size);
+        entries.add(currentSheet);
+    }
+
+    private void submit(Callable<EncodedChunk> task) throws IOException {
+        pending.add(encoders.submit(task));
+        drain(maxInFlight);
+    }
+
+    /**
+     * 按提交顺序写出已编码的片段，直到未完成的片段数不超过 limit
+     */
+    private void drain(int limit) throws IOException {
+        while (pending.size() > limit) {
+            EncodedChunk chunk;
+            try {
+                chunk = pending.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new BusinessException(ResultCode.REPORT_CANCELLED);
+            } catch (ExecutionException e) {
+                throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "Excel编码失败: " + e.getCause().getMessage());
+            }
+            sheetCrc.update(chunk.raw, 0, chunk.raw.length);
+            currentSheet.size += chunk.raw.length;
+            out.write(chunk.compressed, 0, chunk.compressedLength);
+            currentSheet.compressedSize += chunk.compressedLength;
+        }
+    }
+
+    // ---------------- 行编码（编码线程） ----------------
+
+    private EncodedChunk encodeRows(Snapshot snapshot, int from, int to, int firstRow) {
+        StringBuilder xml = new StringBuilder((to - from) * (32 + snapshot.columns.length * 24));
+        for (int row = from; row < to; row++) {
+            int rowNumber = firstRow + row - from;
+            xml.append("<row r=\"").append(rowNumber).append("\">");
+            for (int c = 0; c < snapshot.columns.length; c++) {
+                appendCell(xml, columnRefs[c] + rowNumber, snapshot.columns[c], row);
+            }
+            xml.append("</row>");
+        }
+        return deflate(xml, false);
+    }
+
+    private static void appendCell(StringBuilder xml, String ref, ColumnData column, int row) {
+        if (column.type == null || column.nulls[row]) {
+            return;
+        }
+        switch (column.type) {
+            case LONG -> appendNumber(xml, ref, Long.toString(column.longs[row]), 0);
+            case DOUBLE -> appendDouble(xml, ref, column.doubles[row]);
+            case BOOLEAN -> appendBoolean(xml, ref, column.longs[row] != 0);
+            case DATE -> appendNumber(xml, ref, Long.toString(column.longs[row] + EXCEL_EPOCH_OFFSET), DATE_STYLE);
+            case TIMESTAMP -> appendTimestamp(xml, ref, Instant.ofEpochMilli(column.longs[row])
+                    .atZone(ZoneId.systemDefault()).toLocalDateTime());
+            case STRING -> appendText(xml, ref, (String) column.objects[row]);
+            default -> appendObject(xml, ref, column.objects[row]);
+        }
+    }
+
+    private static void appendObject(StringBuilder xml, String ref, Object value) {
+        if (value instanceof BigDecimal decimal) {
+            appendNumber(xml, ref, decimal.toPlainString(), 0);
+        } else if (value instanceof Double || value instanceof Float) {
+            appendDouble(xml, ref, ((Number) value).doubleValue());
+        } else if (value instanceof Number number) {
+            appendNumber(xml, ref, number.toString(), 0);
+        } else if (value instanceof Boolean bool) {
+            appendBoolean(xml, ref, bool);
+        } else if (value instanceof java.sql.Date date) {
+            appendNumber(xml, ref, Long.toString(date.toLocalDate().toEpochDay() + EXCEL_EPOCH_OFFSET), DATE_STYLE);
+        } else if (value instanceof LocalDate date) {
+            appendNumber(xml, ref, Long.toString(date.toEpochDay() + EXCEL_EPOCH_OFFSET), DATE_STYLE);
+        } else if (value instanceof java.util.Date date) {
+            appendTimestamp(xml, ref, Instant.ofEpochMilli(date.getTime()).atZone(ZoneId.systemDefault()).toLocalDateTime());
+        } else if (value instanceof LocalDateTime dateTime) {
+            appendTimestamp(xml, ref, dateTime);
+        } else {
+            appendText(xml, ref, value.toString());
+        }
+    }
+
+    private static void appendNumber(StringBuilder xml, String ref, String value, int style) {
+        xml.append("<c r=\"").append(ref).append('"');
+        if (style != 0) {
+            xml.append(" s=\"").append(style).append('"');
+        }
+        xml.append("><v>").append(value).append("</v></c>");
+    }
+
+    private static void appendDouble(StringBuilder xml, String ref, double value) {
+        if (Double.isFinite(value)) {
+            appendNumber(xml, ref, Double.toString(value), 0);
+        } else {
+            appendText(xml, ref, Double.toString(value));
+        }
+    }
+
+    private static void appendBoolean(StringBuilder xml, String ref, boolean value) {
+        xml.append("<c r=\"").append(ref).append("\" t=\"b\"><v>").append(value ? '1' : '0').append("</v></c>");
+    }
+
+    private static void appendTimestamp(StringBuilder xml, String ref, LocalDateTime dateTime) {
+        double serial = dateTime.toLocalDate().toEpochDay() + EXCEL_EPOCH_OFFSET
+                + dateTime.toLocalTime().toNanoOfDay() / 86_400_000_000_000d;
+        appendNumber(xml, ref, Double.toString(serial), TIMESTAMP_STYLE);
+    }
+
+    private static void appendText(StringBuilder xml, String ref, String value) {
+        xml.append("<c r=\"").append(ref).append("\" t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+        int length = Math.min(value.length(), MAX_TEXT_LENGTH);
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            switch (ch) {
+                case '&' -> xml.append("&amp;");
+                case '<' -> xml.append("&lt;");
+                case '>' -> xml.append("&gt;");
+                default -> {
+                    // 去掉XML 1.0不允许的控制字符
+                    if (ch >= 0x20 || ch == '\t' || ch == '\n' || ch == '\r') {
+                        if (ch != 0xFFFE && ch != 0xFFFF) {
+                            xml.append(ch);
+                        }
+                    }
+                }
+            }
+        }
+        xml.append("</t></is></c>");
+    }
+
+    /**
+     * 压缩为可拼接的 deflate 片段：普通片段以 SYNC_FLUSH 结束，最后一个片段结束压缩流
+     */
+    private static EncodedChunk deflate(StringBuilder xml, boolean last) {
+        byte[] raw = xml.toString().getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            byte[] buffer = new byte[Math.max(256, raw.length / 3)];
+            int length = 0;
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    if (length == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    length += deflater.deflate(buffer, length, buffer.length - length);
+                }
+            } else {
+                while (true) {
+                    length += deflater.deflate(buffer, length, buffer.length - length, Deflater.SYNC_FLUSH);
+                    if (length < buffer.length) {
+                        break;
+                    }
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+            return new EncodedChunk(raw, buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 0起始的列号转列名：0 → A，26 → AA
+     */
+    static String columnName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int i = index + 1; i > 0; i = (i - 1) / 26) {
+            name.insert(0, (char) ('A' + (i - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    // ---------------- 包结构 ----------------
+
+    private void writeWorkbookParts() throws IOException {
+        StringBuilder workbook = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" ")
+                .append("xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\"><sheets>");
+        StringBuilder workbookRels = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">");
+        StringBuilder contentTypes = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>")
+                .append("<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int i = 1; i <= sheetCount; i++) {
+            workbook.append("<sheet name=\"").append(ExcelReportWriter.sheetName(i))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            workbookRels.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet")
+                    .append(i).append(".xml\"/>");
+            contentTypes.append("<Override PartName=\"/xl/worksheets/sheet").append(i)
+                    .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        workbook.append("</sheets></workbook>");
+        workbookRels.append("<Relationship Id=\"rId").append(sheetCount + 1)
+                .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/styles\" Target=\"styles.xml\"/>")
+                .append("</Relationships>");
+        contentTypes.append("</Types>");
+
+        writePart("[Content_Types].xml", contentTypes);
+        writePart("_rels/.rels", new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">")
+                .append("<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>")
+                .append("</Relationships>"));
+        writePart("xl/workbook.xml", workbook);
+        writePart("xl/_rels/workbook.xml.rels", workbookRels);
+        writePart("xl/styles.xml", new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n")
+                .append("<styleSheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\">")
+                .append("<numFmts count=\"2\"><numFmt numFmtId=\"164\" formatCode=\"yyyy-mm-dd\"/>")
+                .append("<numFmt numFmtId=\"165\" formatCode=\"yyyy-mm-dd hh:mm:ss\"/></numFmts>")
+                .append("<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"宋体\"/></font></fonts>")
+                .append("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>")
+                .append("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>")
+                .append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>")
+                .append("<cellXfs count=\"3\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>")
+                .append("<xf numFmtId=\"164\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>")
+                .append("<xf numFmtId=\"165\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/></cellXfs>")
+                .append("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>")
+                .append("</styleSheet>"));
+    }
+
+    /**
+     * 写入已知大小和校验和的小部件
+     */
+    private void writePart(String name, StringBuilder xml) throws IOException {
+        EncodedChunk chunk = deflate(xml, true);
+        CRC32 crc = new CRC32();
+        crc.update(chunk.raw);
+        ZipEntryInfo entry = new ZipEntryInfo(name, out.count, false);
+        entry.crc = crc.getValue();
+        entry.size = chunk.raw.length;
+        entry.compressedSize = chunk.compressedLength;
+        writeLocalHeader(entry);
+        out.write(chunk.compressed, 0, chunk.compressedLength);
+        entries.add(entry);
+    }
+
+    private void writeLocalHeader(ZipEntryInfo entry) throws IOException {
+        checkZipLimit(entry.offset);
+        writeInt(0x04034b50);
+        writeShort(20);
+        writeShort(entry.flags());
+        writeShort(Deflater.DEFLATED);
+        writeShort(dosTime);
+        writeShort(dosDate);
+        // 使用数据描述符时校验和与大小写在数据之后
+        writeInt(entry.crc);
+        writeInt(entry.compressedSize);
+        writeInt(entry.size);
+        writeShort(entry.name.length);
+        writeShort(0);
+        out.write(entry.name);
+    }
+
+    private void writeCentralDirectory() throws IOException {
+        long start = out.count;
+        for (ZipEntryInfo entry : entries) {
+            writeInt(0x02014b50);
+            writeShort(20);
+            writeShort(20);
+            writeShort(entry.flags());
+            writeShort(Deflater.DEFLATED);
+            writeShort(dosTime);
+            writeShort(dosDate);
+            writeInt(entry.crc);
+            writeInt(entry.compressedSize);
+            writeInt(entry.size);
+            writeShort(entry.name.length);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeShort(0);
+            writeInt(0);
+            writeInt(entry.offset);
+            out.write(entry.name);
+        }
+        long size = out.count - start;
+        checkZipLimit(start);
+        writeInt(0x06054b50);
+        writeShort(0);
+        writeShort(0);
+        writeShort(entries.size());
+        writeShort(entries.size());
+        writeInt(size);
+        writeInt(start);
+        writeShort(0);
+        out.flush();
+    }
+
+    private static void checkZipLimit(long value) throws IOException {
+        if (value > ZIP_LIMIT) {
+            throw new IOException("Excel文件超过4GB，请改用CSV导出");
+        }
+    }
+
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private void writeInt(long value) throws IOException {
+        writeShort((int) (value & 0xFFFF));
+        writeShort((int) ((value >>> 16) & 0xFFFF));
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * 编码压缩后的片段，raw 用于计算工作表部件的校验和
+     */
+    private static final class EncodedChunk {
+
+        private final byte[] raw;
+        private final byte[] compressed;
+        private final int compressedLength;
+
+        EncodedChunk(byte[] raw, byte[] compressed, int compressedLength) {
+            this.raw = raw;
+            this.compressed = compressed;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    private static final class ZipEntryInfo {
+
+        private final byte[] name;
+        private final long offset;
+        private final boolean dataDescriptor;
+        private long crc;
+        private long size;
+        private long compressedSize;
+
+        ZipEntryInfo(String name, long offset, boolean dataDescriptor) {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.offset = offset;
+            this.dataDescriptor = dataDescriptor;
+        }
+
+        int flags() {
+            // bit 11：文件名为UTF-8；bit 3：使用数据描述符
+            return 0x0800 | (dataDescriptor ? 0x0008 : 0);
+        }
+    }
+
+    /**
+     * 批次数据的副本（批次对象在回调后复用，编码在其他线程进行）
+     */
+    private static final class Snapshot {
+
+        private final int size;
+        private final ColumnData[] columns;
+
+        private Snapshot(int size, ColumnData[] columns) {
+            this.size = size;
+            this.columns = columns;
+        }
+
+        static Snapshot copy(RowBatch batch, int[] columnIndexes) {
+            int size = batch.size();
+            ColumnData[] columns = new ColumnData[columnIndexes.length];
+            for (int c = 0; c < columnIndexes.length; c++) {
+                int source = columnIndexes[c];
+                ColumnData column = new ColumnData(source >= 0 ? batch.type(source) : null, size);
+                if (column.type != null) {
+                    for (int row = 0; row < size; row++) {
+                        column.nulls[row] = batch.isNull(row, source);
+                        if (column.nulls[row]) {
+                            continue;
+                        }
+                        switch (column.type) {
+                            case LONG, BOOLEAN, DATE, TIMESTAMP -> column.longs[row] = batch.getLong(row, source);
+                            case DOUBLE -> column.doubles[row] = batch.getDouble(row, source);
+                            case STRING -> column.objects[row] = batch.getString(row, source);
+                            default -> column.objects[row] = batch.getValue(row, source);
+                        }
+                    }
+                }
+                columns[c] = column;
+            }
+            return new Snapshot(size, columns);
+        }
+    }
+
+    private static final class ColumnData {
+
+        private final ReportColumn.Type type;
+        private final boolean[] nulls;
+        private long[] longs;
+        private double[] doubles;
+        private Object[] objects;
+
+        ColumnData(ReportColumn.Type type, int size) {
+            this.type = type;
+            this.nulls = new boolean[size];
+            if (type == null) {
+                return;
+            }
+            switch (type) {
+                case LONG, BOOLEAN, DATE, TIMESTAMP -> longs = new long[size];
+                case DOUBLE -> doubles = new double[size];
+                default -> objects = new Object[size];
+            }
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,724 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Parquet报表写入器
+ *
+ * 直接按 Parquet 文件格式写出，不依赖 Hadoop：所有列为 OPTIONAL，值使用 PLAIN 编码，
+ * 定义级别使用 RLE/位打包混合编码，数据页按页大小切分并可选 GZIP 压缩。
+ * 行组在内存中按列缓冲（已压缩的数据页），达到行组大小后整体写出，文件尾部写入 Thrift 紧凑协议编码的元数据
+ */
+public class ParquetReportWriter extends AbstractReportWriter {
+
+    /**
+     * 数据页压缩方式（值为 Parquet CompressionCodec 枚举值）
+     */
+    public enum Codec {
+        UNCOMPRESSED(0), GZIP(2);
+
+        private final int value;
+
+        Codec(int value) {
+            this.value = value;
+        }
+    }
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int PAGE_SIZE = 1024 * 1024;
+
+    // Parquet 物理类型
+    private static final int TYPE_BOOLEAN = 0;
+    private static final int TYPE_INT32 = 1;
+    private static final int TYPE_INT64 = 2;
+    private static final int TYPE_DOUBLE = 5;
+    private static final int TYPE_BYTE_ARRAY = 6;
+    private static final int TYPE_FIXED_LEN_BYTE_ARRAY = 7;
+
+    // 编码与重复类型
+    private static final int ENCODING_PLAIN = 0;
+    private static final int ENCODING_RLE = 3;
+    private static final int REPETITION_OPTIONAL = 1;
+
+    // ConvertedType，兼容只识别旧注解的读取端
+    private static final int CONVERTED_UTF8 = 0;
+    private static final int CONVERTED_DECIMAL = 5;
+    private static final int CONVERTED_DATE = 6;
+
+    /**
+     * 不超过该精度的定点数以 INT64 存储，否则以定长字节数组存储
+     */
+    private static final int INT64_DECIMAL_PRECISION = 18;
+
+    private final CountingOutputStream out;
+
+    private final Codec codec;
+
+    private final long rowGroupSize;
+
+    private List<ColumnarField> fields;
+
+    private ColumnChunk[] chunks;
+
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+
+    private long rowGroupRows;
+
+    private long totalRows;
+
+    /**
+     * @param outputStream 输出流，关闭时一并关闭
+     * @param codec 数据页压缩方式
+     * @param rowGroupSize 行组大小（缓冲的已压缩字节数）
+     */
+    public ParquetReportWriter(OutputStream outputStream, CompiledTemplateLayout layout, Codec codec,
+                               long rowGroupSize) {
+        super(layout);
+        this.out = new CountingOutputStream(outputStream);
+        this.codec = codec;
+        this.rowGroupSize = rowGroupSize;
+    }
+
+    @Override
+    protected void writeHeader(List<String> headers) {
+        fields = ColumnarField.of(headers, getOutputColumns());
+        chunks = new ColumnChunk[fields.size()];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new ColumnChunk(fields.get(i));
+        }
+        run(() -> out.write(MAGIC));
+    }
+
+    @Override
+    protected void writeRows(RowBatch batch, int[] columnIndexes) {
+        int size = batch.size();
+        if (size == 0) {
+            return;
+        }
+        run(() -> {
+            long buffered = 0;
+            for (int c = 0; c < chunks.length; c++) {
+                ColumnChunk chunk = chunks[c];
+                int column = columnIndexes[c];
+                for (int row = 0; row < size; row++) {
+                    if (column < 0 || batch.isNull(row, column)) {
+                        chunk.addNull();
+                    } else {
+                        chunk.addValue(batch, row, column);
+                    }
+                }
+                buffered += chunk.bufferedSize();
+            }
+            rowGroupRows += size;
+            // 行组只在批次边界切分，保证各列行数一致
+            if (buffered >= rowGroupSize) {
+                flushRowGroup();
+            }
+        });
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (rowGroupRows == 0) {
+            return;
+        }
+        RowGroup rowGroup = new RowGroup(rowGroupRows);
+        for (ColumnChunk chunk : chunks) {
+            rowGroup.columns.add(chunk.writeTo(out));
+        }
+        rowGroups.add(rowGroup);
+        totalRows += rowGroupRows;
+        rowGroupRows = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (chunks != null) {
+                flushRowGroup();
+                ThriftWriter footer = new ThriftWriter();
+                writeFileMetaData(footer);
+                footer.bytes.writeTo(out);
+                writeIntLE(out, footer.bytes.size());
+                out.write(MAGIC);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private void run(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "Parquet文件写入失败: " + e.getMessage());
+        }
+    }
+
+    // ---------------- 文件元数据 ----------------
+
+    /**
+     * FileMetaData：版本、模式、行数、行组列表、写入方
+     */
+    private void writeFileMetaData(ThriftWriter thrift) {
+        thrift.beginStruct();
+        thrift.fieldI32(1, 1);
+        thrift.beginList(2, ThriftWriter.STRUCT, fields.size() + 1);
+        thrift.beginStruct();
+        thrift.fieldString(4, "schema");
+        thrift.fieldI32(5, fields.size());
+        thrift.endStruct();
+        for (ColumnarField field : fields) {
+            writeSchemaElement(thrift, field);
+        }
+        thrift.fieldI64(3, totalRows);
+        thrift.beginList(4, ThriftWriter.STRUCT, rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            thrift.beginStruct();
+            thrift.beginList(1, ThriftWriter.STRUCT, rowGroup.columns.size());
+            long totalSize = 0;
+            for (ChunkMeta meta : rowGroup.columns) {
+                writeColumnChunk(thrift, meta);
+                totalSize += meta.uncompressedSize;
+            }
+            thrift.fieldI64(2, totalSize);
+            thrift.fieldI64(3, rowGroup.rows);
+            thrift.endStruct();
+        }
+        thrift.fieldString(6, "enterprise-report");
+        thrift.endStruct();
+    }
+
+    private static void writeSchemaElement(ThriftWriter thrift, ColumnarField field) {
+        thrift.beginStruct();
+        thrift.fieldI32(1, physicalType(field));
+        if (physicalType(field) == TYPE_FIXED_LEN_BYTE_ARRAY) {
+            thrift.fieldI32(2, decimalBytes(field.getPrecision()));
+        }
+        thrift.fieldI32(3, REPETITION_OPTIONAL);
+        thrift.fieldString(4, field.getName());
+        switch (field.getKind()) {
+            case STRING -> {
+                thrift.fieldI32(6, CONVERTED_UTF8);
+                thrift.beginStructField(10);
+                thrift.emptyStructField(1);
+                thrift.endStruct();
+            }
+            case DECIMAL -> {
+                thrift.fieldI32(6, CONVERTED_DECIMAL);
+                thrift.fieldI32(7, field.getScale());
+                thrift.fieldI32(8, field.getPrecision());
+                thrift.beginStructField(10);
+                thrift.beginStructField(5);
+                thrift.fieldI32(1, field.getScale());
+                thrift.fieldI32(2, field.getPrecision());
+                thrift.endStruct();
+                thrift.endStruct();
+            }
+            case DATE -> {
+                thrift.fieldI32(6, CONVERTED_DATE);
+                thrift.beginStructField(10);
+                thrift.emptyStructField(6);
+                thrift.endStruct();
+            }
+            case TIMESTAMP -> {
+                // 不带时区的本地时间（isAdjustedToUTC=false）没有对应的 ConvertedType
+                thrift.beginStructField(10);
+                thrift.beginStructField(8);
+                thrift.fieldBool(1, false);
+                thrift.beginStructField(2);
+                thrift.emptyStructField(1);
+                thrift.endStruct();
+                thrift.endStruct();
+                thrift.endStruct();
+            }
+            default -> {
+            }
+        }
+        thrift.endStruct();
+    }
+
+    /**
+     * ColumnChunk 及其 ColumnMetaData
+     */
+    private void writeColumnChunk(ThriftWriter thrift, ChunkMeta meta) {
+        thrift.beginStruct();
+        thrift.fieldI64(2, meta.offset);
+        thrift.beginStructField(3);
+        thrift.fieldI32(1, meta.type);
+        thrift.beginList(2, ThriftWriter.I32, 2);
+        thrift.listI32(ENCODING_PLAIN);
+        thrift.listI32(ENCODING_RLE);
+        thrift.beginList(3, ThriftWriter.BINARY, 1);
+        thrift.listString(meta.name);
+        thrift.fieldI32(4, codec.value);
+        thrift.fieldI64(5, meta.values);
+        thrift.fieldI64(6, meta.uncompressedSize);
+        thrift.fieldI64(7, meta.compressedSize);
+        thrift.fieldI64(9, meta.offset);
+        thrift.endStruct();
+        thrift.endStruct();
+    }
+
+    private static int physicalType(ColumnarField field) {
+        return switch (field.getKind()) {
+            case INT32, DATE -> TYPE_INT32;
+            case INT64, TIMESTAMP -> TYPE_INT64;
+            case DOUBLE -> TYPE_DOUBLE;
+            case BOOLEAN -> TYPE_BOOLEAN;
+            case DECIMAL -> field.getPrecision() <= INT64_DECIMAL_PRECISION ? TYPE_INT64 : TYPE_FIXED_LEN_BYTE_ARRAY;
+            case STRING -> TYPE_BYTE_ARRAY;
+        };
+    }
+
+    /**
+     * 容纳给定精度定点数的最少字节数
+     */
+    private static int decimalBytes(int precision) {
+        BigInteger max = BigInteger.TEN.pow(precision).subtract(BigInteger.ONE);
+        return max.bitLength() / 8 + 1;
+    }
+
+    // ---------------- 列缓冲 ----------------
+
+    /**
+     * 当前行组中一列的缓冲：未写完的数据页（定义级别、值）和已完成的数据页
+     */
+    private final class ColumnChunk {
+
+        private final ColumnarField field;
+
+        private final int type;
+
+        private final int fixedLength;
+
+        private final BitBuffer definitionLevels = new BitBuffer();
+
+        private final ByteSink values = new ByteSink(4096);
+
+        private final BitBuffer booleans = new BitBuffer();
+
+        private int pageValues;
+
+        private int pageNulls;
+
+        private final ByteSink pages = new ByteSink(4096);
+
+        private long chunkValues;
+
+        private long uncompressedSize;
+
+        ColumnChunk(ColumnarField field) {
+            this.field = field;
+            this.type = physicalType(field);
+            this.fixedLength = type == TYPE_FIXED_LEN_BYTE_ARRAY ? decimalBytes(field.getPrecision()) : 0;
+        }
+
+        void addNull() {
+            definitionLevels.add(false);
+            pageNulls++;
+            pageValues++;
+        }
+
+        void addValue(RowBatch batch, int row, int column) throws IOException {
+            definitionLevels.add(true);
+            switch (field.getKind()) {
+                case INT32, DATE -> values.writeIntLE((int) batch.getLong(row, column));
+                case INT64 -> values.writeLongLE(batch.getLong(row, column));
+                case TIMESTAMP -> values.writeLongLE(ColumnarField.localMillis(batch.getLong(row, column)));
+                case DOUBLE -> values.writeLongLE(Double.doubleToRawLongBits(batch.getDouble(row, column)));
+                case BOOLEAN -> booleans.add(batch.getLong(row, column) != 0);
+                case DECIMAL -> {
+                    BigInteger unscaled = field.decimal(batch.getValue(row, column)).unscaledValue();
+                    if (type == TYPE_INT64) {
+                        values.writeLongLE(unscaled.longValue());
+                    } else {
+                        writeFixed(unscaled);
+                    }
+                }
+                case STRING -> {
+                    byte[] bytes = ColumnarField.string(batch, row, column).getBytes(StandardCharsets.UTF_8);
+                    values.writeIntLE(bytes.length);
+                    values.write(bytes, 0, bytes.length);
+                }
+            }
+            pageValues++;
+            if (values.size() + booleans.size() >= PAGE_SIZE) {
+                writePage();
+            }
+        }
+
+        /**
+         * 大端补码，按符号位扩展到定长
+         */
+        private void writeFixed(BigInteger unscaled) {
+            byte[] bytes = unscaled.toByteArray();
+            byte pad = unscaled.signum() < 0 ? (byte) 0xFF : 0;
+            for (int i = bytes.length; i < fixedLength; i++) {
+                values.write(pad);
+            }
+            values.write(bytes, 0, bytes.length);
+        }
+
+        /**
+         * 结束当前数据页：[定义级别长度][定义级别][值]，压缩后连同页头追加到已完成的数据页
+         */
+        void writePage() throws IOException {
+            if (pageValues == 0) {
+                return;
+            }
+            ByteSink body = new ByteSink(values.size() + booleans.size() + definitionLevels.size() + 16);
+            ByteSink levels = new ByteSink(definitionLevels.size() + 8);
+            if (pageNulls == 0) {
+                // 全部非空：一个 RLE 段
+                levels.writeVarInt((long) pageValues << 1);
+                levels.write(1);
+            } else {
+                // 位打包段，每组8个值
+                definitionLevels.flush();
+                levels.writeVarInt(((long) (pageValues + 7) / 8 << 1) | 1);
+                levels.write(definitionLevels.bytes.buf, 0, definitionLevels.bytes.size());
+            }
+            body.writeIntLE(levels.size());
+            body.write(levels.buf, 0, levels.size());
+            if (type == TYPE_BOOLEAN) {
+                booleans.flush();
+                body.write(booleans.bytes.buf, 0, booleans.bytes.size());
+            } else {
+                body.write(values.buf, 0, values.size());
+            }
+
+            byte[] data = compress(body);
+            ThriftWriter header = new ThriftWriter();
+            header.beginStruct();
+            header.fieldI32(1, 0);
+            header.fieldI32(2, body.size());
+            header.fieldI32(3, data.length);
+            header.beginStructField(5);
+            header.fieldI32(1, pageValues);
+            header.fieldI32(2, ENCODING_PLAIN);
+            header.fieldI32(3, ENCODING_RLE);
+            header.fieldI32(4, ENCODING_RLE);
+            header.endStruct();
+            header.endStruct();
+
+            pages.write(header.bytes.buf, 0, header.bytes.size());
+            pages.write(data, 0, data.length);
+            uncompressedSize += header.bytes.size() + body.size();
+            chunkValues += pageValues;
+
+            values.reset();
+            booleans.reset();
+            definitionLevels.reset();
+            pageValues = 0;
+            pageNulls = 0;
+        }
+
+        private byte[] compress(ByteSink body) throws IOException {
+            if (codec == Codec.UNCOMPRESSED) {
+                return Arrays.copyOf(body.buf, body.size());
+            }
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.size() / 3 + 64);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(body.buf, 0, body.size());
+            }
+            return compressed.toByteArray();
+        }
+
+        long bufferedSize() {
+            return pages.size() + values.size() + booleans.size();
+        }
+
+        /**
+         * 写出本行组中该列的全部数据页并清空缓冲
+         */
+        ChunkMeta writeTo(CountingOutputStream out) throws IOException {
+            writePage();
+            ChunkMeta meta = new ChunkMeta(field.getName(), type, out.count, chunkValues, uncompressedSize,
+                    pages.size());
+            out.write(pages.buf, 0, pages.size());
+            pages.reset();
+            chunkValues = 0;
+            uncompressedSize = 0;
+            return meta;
+        }
+    }
+
+    private static final class RowGroup {
+
+        private final long rows;
+        private final List<ChunkMeta> columns = new ArrayList<>();
+
+        RowGroup(long rows) {
+            this.rows = rows;
+        }
+    }
+
+    private static final class ChunkMeta {
+
+        private final String name;
+        private final int type;
+        private final long offset;
+        private final long values;
+        private final long uncompressedSize;
+        private final long compressedSize;
+
+        ChunkMeta(String name, int type, long offset, long values, long uncompressedSize, long compressedSize) {
+            this.name = name;
+            this.type = type;
+            this.offset = offset;
+            this.values = values;
+            this.uncompressedSize = uncompressedSize;
+            this.compressedSize = compressedSize;
+        }
+    }
+
+    // ---------------- 编码工具 ----------------
+
+    /**
+     * 可增长的字节缓冲，复用内部数组
+     */
+    private static final class ByteSink {
+
+        private byte[] buf;
+        private int size;
+
+        ByteSink(int capacity) {
+            this.buf = new byte[Math.max(capacity, 16)];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+            }
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[size++] = (byte) b;
+        }
+
+        void write(byte[] bytes, int offset, int length) {
+            ensure(length);
+            System.arraycopy(bytes, offset, buf, size, length);
+            size += length;
+        }
+
+        void writeIntLE(int value) {
+            ensure(4);
+            buf[size++] = (byte) value;
+            buf[size++] = (byte) (value >>> 8);
+            buf[size++] = (byte) (value >>> 16);
+            buf[size++] = (byte) (value >>> 24);
+        }
+
+        void writeLongLE(long value) {
+            writeIntLE((int) value);
+            writeIntLE((int) (value >>> 32));
+        }
+
+        void writeVarInt(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            out.write(buf, 0, size);
+        }
+    }
+
+    /**
+     * 按低位在前打包的位序列（PLAIN 布尔值、位打包的定义级别）
+     */
+    private static final class BitBuffer {
+
+        private final ByteSink bytes = new ByteSink(512);
+        private int current;
+        private int bits;
+
+        void add(boolean value) {
+            if (value) {
+                current |= 1 << bits;
+            }
+            if (++bits == 8) {
+                bytes.write(current);
+                current = 0;
+                bits = 0;
+            }
+        }
+
+        /**
+         * 写出不足8位的最后一个字节
+         */
+        void flush() {
+            if (bits > 0) {
+                bytes.write(current);
+                current = 0;
+                bits = 0;
+            }
+        }
+
+        int size() {
+            return bytes.size() + 1;
+        }
+
+        void reset() {
+            bytes.reset();
+            current = 0;
+            bits = 0;
+        }
+    }
+
+    /**
+     * Thrift 紧凑协议编码（只包含元数据用到的类型）
+     */
+    private static final class ThriftWriter {
+
+        static final int BOOLEAN_TRUE = 1;
+        static final int BOOLEAN_FALSE = 2;
+        static final int I32 = 5;
+        static final int I64 = 6;
+        static final int BINARY = 8;
+        static final int LIST = 9;
+        static final int STRUCT = 12;
+
+        private final ByteSink bytes = new ByteSink(256);
+
+        private final int[] lastFieldIds = new int[16];
+
+        private int depth = -1;
+
+        void beginStruct() {
+            lastFieldIds[++depth] = 0;
+        }
+
+        void beginStructField(int id) {
+            fieldHeader(id, STRUCT);
+            beginStruct();
+        }
+
+        void emptyStructField(int id) {
+            beginStructField(id);
+            endStruct();
+        }
+
+        void endStruct() {
+            bytes.write(0);
+            depth--;
+        }
+
+        void fieldI32(int id, int value) {
+            fieldHeader(id, I32);
+            bytes.writeVarInt(zigzag(value));
+        }
+
+        void fieldI64(int id, long value) {
+            fieldHeader(id, I64);
+            bytes.writeVarInt(zigzag(value));
+        }
+
+        void fieldBool(int id, boolean value) {
+            fieldHeader(id, value ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+        }
+
+        void fieldString(int id, String value) {
+            fieldHeader(id, BINARY);
+            writeString(value);
+        }
+
+        void beginList(int id, int elementType, int size) {
+            fieldHeader(id, LIST);
+            if (size < 15) {
+                bytes.write(size << 4 | elementType);
+            } else {
+                bytes.write(0xF0 | elementType);
+                bytes.writeVarInt(size);
+            }
+        }
+
+        void listI32(int value) {
+            bytes.writeVarInt(zigzag(value));
+        }
+
+        void listString(String value) {
+            writeString(value);
+        }
+
+        private void writeString(String value) {
+            byte[] data = value.getBytes(StandardCharsets.UTF_8);
+            bytes.writeVarInt(data.length);
+            bytes.write(data, 0, data.length);
+        }
+
+        private void fieldHeader(int id, int type) {
+            int delta = id - lastFieldIds[depth];
+            if (delta > 0 && delta <= 15) {
+                bytes.write(delta << 4 | type);
+            } else {
+                bytes.write(type);
+                bytes.writeVarInt(zigzag(id));
+            }
+            lastFieldIds[depth] = id;
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+
+    @FunctionalInterface
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
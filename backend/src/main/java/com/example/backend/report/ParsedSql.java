@@ -0,0 +1,196 @@
+package com.example.backend.report;
+
+import com.example.backend.exception.BusinessException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预解析的报表SQL
+ *
+ * 模板SQL中的 ${paramName} 和 :paramName 参数在解析时替换为 JDBC 占位符 ?，记录每个占位符对应的参数名。
+ * 字符串、带引号的标识符和注释中的内容不作为参数；PostgreSQL 的 :: 类型转换保持不变。
+ * 相同模板SQL只解析一次，不同参数值执行时SQL文本不变，数据库可以复用执行计划。
+ */
+public final class ParsedSql {
+
+    /**
+     * 占位符之间的SQL片段，片段数 = 参数数 + 1
+     */
+    private final String[] fragments;
+
+    /**
+     * 按出现顺序排列的参数名（同一参数可出现多次）
+     */
+    private final List<String> parameterNames;
+
+    /**
+     * 所有参数都是单值时执行的SQL
+     */
+    private final String sql;
+
+    private ParsedSql(List<String> fragments, List<String> parameterNames) {
+        this.fragments = fragments.toArray(new String[0]);
+        this.parameterNames = Collections.unmodifiableList(parameterNames);
+        this.sql = String.join("?", fragments);
+    }
+
+    /**
+     * 解析模板SQL
+     */
+    public static ParsedSql parse(String templateSql) {
+        List<String> fragments = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder fragment = new StringBuilder(templateSql.length());
+        int length = templateSql.length();
+        int i = 0;
+        while (i < length) {
+            char c = templateSql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                // 字符串或带引号的标识符，成对的引号表示转义
+                int end = i + 1;
+                while (end < length) {
+                    if (templateSql.charAt(end) == c) {
+                        if (end + 1 < length && templateSql.charAt(end + 1) == c) {
+                            end += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    end++;
+                }
+                end = Math.min(end + 1, length);
+                fragment.append(templateSql, i, end);
+                i = end;
+            } else if (c == '-' && i + 1 < length && templateSql.charAt(i + 1) == '-') {
+                int end = templateSql.indexOf('\n', i);
+                end = end < 0 ? length : end;
+                fragment.append(templateSql, i, end);
+                i = end;
+            } else if (c == '/' && i + 1 < length && templateSql.charAt(i + 1) == '*') {
+                int end = templateSql.indexOf("*/", i + 2);
+                end = end < 0 ? length : end + 2;
+                fragment.append(templateSql, i, end);
+                i = end;
+            } else if (c == ':' && i + 1 < length && templateSql.charAt(i + 1) == ':') {
+                // PostgreSQL 类型转换
+                fragment.append("::");
+                i += 2;
+            } else if (c == ':' && i + 1 < length && isNameStart(templateSql.charAt(i + 1))) {
+                int end = nameEnd(templateSql, i + 1);
+                names.add(templateSql.substring(i + 1, end));
+                fragments.add(fragment.toString());
+                fragment.setLength(0);
+                i = end;
+            } else if (c == '$' && i + 1 < length && templateSql.charAt(i + 1) == '{') {
+                int close = templateSql.indexOf('}', i + 2);
+                String name = close > 0 ? templateSql.substring(i + 2, close) : "";
+                if (name.isEmpty() || nameEnd(name, 0) != name.length()) {
+                    fragment.append(c);
+                    i++;
+                    continue;
+                }
+                names.add(name);
+                fragments.add(fragment.toString());
+                fragment.setLength(0);
+                i = close + 1;
+            } else {
+                fragment.append(c);
+                i++;
+            }
+        }
+        fragments.add(fragment.toString());
+        return new ParsedSql(fragments, names);
+    }
+
+    /**
+     * 绑定参数值
+     * 集合类型的参数展开为多个占位符（用于 IN 条件），空集合绑定为 NULL
+     * @throws BusinessException 缺少参数时抛出
+     */
+    public BoundSql bind(Map<String, Object> params) {
+        List<Object> args = new ArrayList<>(parameterNames.size());
+        StringBuilder expanded = null;
+        for (int i = 0; i < parameterNames.size(); i++) {
+            String name = parameterNames.get(i);
+            if (params == null || !params.containsKey(name)) {
+                throw new BusinessException("缺少必需的SQL参数: " + name);
+            }
+            Object value = params.get(name);
+            if (value instanceof Collection<?> values) {
+                if (expanded == null) {
+                    expanded = new StringBuilder(sql.length() + 16);
+                    for (int j = 0; j < i; j++) {
+                        expanded.append(fragments[j]).append('?');
+                    }
+                }
+                expanded.append(fragments[i]);
+                if (values.isEmpty()) {
+                    expanded.append('?');
+                    args.add(null);
+                } else {
+                    expanded.append(String.join(", ", Collections.nCopies(values.size(), "?")));
+                    args.addAll(values);
+                }
+            } else {
+                if (expanded != null) {
+                    expanded.append(fragments[i]).append('?');
+                }
+                args.add(value);
+            }
+        }
+        if (expanded != null) {
+            expanded.append(fragments[fragments.length - 1]);
+            return new BoundSql(expanded.toString(), args.toArray());
+        }
+        return new BoundSql(sql, args.toArray());
+    }
+
+    /**
+     * 解析后的SQL（参数替换为 ?）
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public List<String> getParameterNames() {
+        return parameterNames;
+    }
+
+    private static boolean isNameStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static int nameEnd(String text, int start) {
+        int end = start;
+        while (end < text.length() && (Character.isLetterOrDigit(text.charAt(end)) || text.charAt(end) == '_')) {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * 绑定参数后的SQL及参数值
+     */
+    public static final class BoundSql {
+
+        private final String sql;
+        private final Object[] args;
+
+        BoundSql(String sql, Object[] args) {
+            this.sql = sql;
+            this.args = args;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Object[] getArgs() {
+            return args;
+        }
+    }
+}
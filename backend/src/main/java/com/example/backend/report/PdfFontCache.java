@@ -0,0 +1,255 @@
+package com.example.backend.report;
+
+import com.example.backend.exception.BusinessException;
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
+import com.itextpdf.io.font.PdfEncodings;
+import com.itextpdf.kernel.font.PdfFont;
+import com.itextpdf.kernel.font.PdfFontFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PDF中文字体缓存
+ *
+ * 字体文件只探测和解析一次，解析后的 FontProgram 按字体路径在进程内共享；
+ * 每个PDF文档从缓存的 FontProgram 创建独立的 PdfFont（PdfFont不能跨文档共享），并以子集方式嵌入。
+ * 按优先级选择字体：系统字体 → 类路径字体（直接从内存解析，不再复制临时文件）→ iText内置CJK字体 → 默认字体
+ */
+@Component
+public class PdfFontCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfFontCache.class);
+
+    /**
+     * 系统字体路径及名称，按优先级排序
+     */
+    private static final String[][] SYSTEM_FONTS = {
+        // Windows系统字体
+        {"C:/Windows/Fonts/simsun.ttc,0", "SimSun"},
+        {"C:/Windows/Fonts/simhei.ttf", "SimHei"},
+        {"C:/Windows/Fonts/msyh.ttc,0", "Microsoft YaHei"},
+        {"C:/Windows/Fonts/msyhbd.ttc,0", "Microsoft YaHei Bold"},
+        // Linux系统字体
+        {"/usr/share/fonts/truetype/wqy/wqy-zenhei.ttc,0", "WenQuanYi Zen Hei"},
+        {"/usr/share/fonts/truetype/wqy/wqy-microhei.ttc,0", "WenQuanYi Micro Hei"},
+        {"/usr/share/fonts/opentype/noto/NotoSansCJK-Regular.ttc,0", "Noto Sans CJK"},
+        {"/usr/share/fonts/truetype/droid/DroidSansFallbackFull.ttf", "Droid Sans Fallback"},
+        // macOS系统字体
+        {"/System/Library/Fonts/PingFang.ttc,0", "PingFang SC"},
+        {"/System/Library/Fonts/STHeiti Light.ttc,0", "STHeiti Light"},
+        {"/Library/Fonts/Songti.ttc,0", "Songti SC"}
+    };
+
+    /**
+     * 类路径下的嵌入字体
+     */
+    private static final String[] CLASSPATH_FONTS = {
+        "fonts/simsun.ttf",
+        "fonts/simhei.ttf",
+        "fonts/NotoSansSC-Regular.ttf"
+    };
+
+    /**
+     * iText内置CJK字体及编码
+     */
+    private static final String[][] BUILT_IN_FONTS = {
+        {"STSong-Light", "UniGB-UCS2-H"},      // 简体中文宋体
+        {"STSongStd-Light", "UniGB-UCS2-H"},   // 简体中文宋体标准
+        {"MHei-Medium", "UniCNS-UCS2-H"},      // 繁体中文黑体
+        {"MSung-Light", "UniCNS-UCS2-H"}       // 繁体中文宋体
+    };
+
+    @Value("${report.pdf.font-warmup:true}")
+    private boolean warmup = true;
+
+    /**
+     * 已解析的字体程序，key为字体路径
+     */
+    private final Map<String, FontProgram> programs = new ConcurrentHashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * 选定的字体，首次使用时确定
+     */
+    private volatile FontSource source;
+
+    /**
+     * 应用启动后预先加载字体，避免第一个PDF承担字体解析耗时
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!warmup) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        FontSource fontSource = resolveSource();
+        logger.info("PDF字体预加载完成: {}，耗时 {} ms", fontSource.name, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 为一个PDF文档创建字体
+     */
+    public PdfFont createFont() {
+        FontSource fontSource = resolveSource();
+        if (fontSource.path == null) {
+            return createDefaultFont();
+        }
+        FontProgram program = getProgram(fontSource);
+        PdfFont font = PdfFontFactory.createFont(program, fontSource.encoding, fontSource.embeddingStrategy);
+        font.setSubset(true);
+        return font;
+    }
+
+    /**
+     * 字体缓存命中次数
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * 字体解析次数
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    private FontProgram getProgram(FontSource fontSource) {
+        FontProgram program = programs.get(fontSource.path);
+        if (program != null) {
+            hitCount.incrementAndGet();
+            return program;
+        }
+        return programs.computeIfAbsent(fontSource.path, path -> {
+            try {
+                return loadProgram(fontSource);
+            } catch (IOException e) {
+                throw new BusinessException("字体加载失败: " + fontSource.name + " - " + e.getMessage());
+            }
+        });
+    }
+
+    private FontProgram loadProgram(FontSource fontSource) throws IOException {
+        loadCount.incrementAndGet();
+        if (fontSource.classpath) {
+            try (InputStream is = new ClassPathResource(fontSource.path).getInputStream()) {
+                return FontProgramFactory.createFont(is.readAllBytes(), false);
+            }
+        }
+        return FontProgramFactory.createFont(fontSource.path, false);
+    }
+
+    private FontSource resolveSource() {
+        FontSource fontSource = source;
+        if (fontSource == null) {
+            synchronized (this) {
+                if (source == null) {
+                    source = findSource();
+                }
+                fontSource = source;
+            }
+        }
+        return fontSource;
+    }
+
+    /**
+     * 按优先级探测第一个可以解析的字体，解析结果放入缓存
+     */
+    private FontSource findSource() {
+        // 1. 尝试加载系统字体
+        for (String[] fontInfo : SYSTEM_FONTS) {
+            String fontPath = fontInfo[0];
+            File fontFile = new File(fontPath.contains(",") ? fontPath.substring(0, fontPath.lastIndexOf(",")) : fontPath);
+            if (fontFile.exists()) {
+                FontSource fontSource = new FontSource(fontInfo[1], fontPath, false, PdfEncodings.IDENTITY_H,
+                        PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+                if (tryLoad(fontSource)) {
+                    logger.info("成功加载系统中文字体: {} ({})", fontInfo[1], fontPath);
+                    return fontSource;
+                }
+            }
+        }
+
+        // 2. 尝试加载类路径下的嵌入字体
+        for (String fontResource : CLASSPATH_FONTS) {
+            if (new ClassPathResource(fontResource).exists()) {
+                FontSource fontSource = new FontSource(fontResource, fontResource, true, PdfEncodings.IDENTITY_H,
+                        PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+                if (tryLoad(fontSource)) {
+                    logger.info("成功加载嵌入中文字体: {}", fontResource);
+                    return fontSource;
+                }
+            }
+        }
+
+        // 3. 使用iText内置的CJK字体作为备用
+        for (String[] fontInfo : BUILT_IN_FONTS) {
+            FontSource fontSource = new FontSource(fontInfo[0], fontInfo[0], false, fontInfo[1],
+                    PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
+            if (tryLoad(fontSource)) {
+                logger.info("成功加载iText内置CJK字体: {}", fontInfo[0]);
+                return fontSource;
+            }
+        }
+
+        // 4. 最后备用：使用默认字体
+        logger.warn("无法加载任何中文字体，使用默认字体，中文字符可能无法正确显示");
+        return new FontSource("default", null, false, null, null);
+    }
+
+    private boolean tryLoad(FontSource fontSource) {
+        try {
+            programs.put(fontSource.path, loadProgram(fontSource));
+            return true;
+        } catch (Exception e) {
+            logger.debug("字体加载失败: {} - {}", fontSource.name, e.getMessage());
+            return false;
+        }
+    }
+
+    private static PdfFont createDefaultFont() {
+        try {
+            return PdfFontFactory.createFont();
+        } catch (Exception e) {
+            logger.error("默认字体创建失败: {}", e.getMessage());
+            throw new BusinessException("字体初始化失败: 无法创建任何可用字体");
+        }
+    }
+
+    /**
+     * 字体来源
+     */
+    private static final class FontSource {
+
+        private final String name;
+        private final String path;
+        private final boolean classpath;
+        private final String encoding;
+        private final PdfFontFactory.EmbeddingStrategy embeddingStrategy;
+
+        FontSource(String name, String path, boolean classpath, String encoding,
+                   PdfFontFactory.EmbeddingStrategy embeddingStrategy) {
+            this.name = name;
+            this.path = path;
+            this.classpath = classpath;
+            this.encoding = encoding;
+            this.embeddingStrategy = embeddingStrategy;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.backend.report;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池获取连接等待时间统计
+ * Hikari 的 MXBean 只提供连接数，等待时间通过 MetricsTracker 回调累计
+ */
+public class PoolMetricsTracker implements IMetricsTracker, MetricsTrackerFactory {
+
+    private final LongAdder acquireCount = new LongAdder();
+
+    private final LongAdder acquireNanos = new LongAdder();
+
+    private final AtomicLong maxAcquireNanos = new AtomicLong();
+
+    private final LongAdder timeoutCount = new LongAdder();
+
+    /**
+     * 上次采样时的累计值，用于计算采样区间内的平均等待时间
+     */
+    private long sampledCount;
+
+    private long sampledNanos;
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        return this;
+    }
+
+    @Override
+    public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquireCount.increment();
+        acquireNanos.add(elapsedAcquiredNanos);
+        maxAcquireNanos.accumulateAndGet(elapsedAcquiredNanos, Math::max);
+    }
+
+    @Override
+    public void recordConnectionTimeout() {
+        timeoutCount.increment();
+    }
+
+    /**
+     * 累计获取连接次数
+     */
+    public long getAcquireCount() {
+        return acquireCount.sum();
+    }
+
+    /**
+     * 累计平均等待时间（毫秒）
+     */
+    public double getAverageWaitMillis() {
+        long count = acquireCount.sum();
+        return count == 0 ? 0 : toMillis(acquireNanos.sum()) / count;
+    }
+
+    /**
+     * 最长等待时间（毫秒）
+     */
+    public double getMaxWaitMillis() {
+        return toMillis(maxAcquireNanos.get());
+    }
+
+    /**
+     * 获取连接超时次数
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    /**
+     * 返回自上次采样以来的平均等待时间（毫秒），并开始新的采样区间
+     */
+    public synchronized double sampleAverageWaitMillis() {
+        long count = acquireCount.sum();
+        long nanos = acquireNanos.sum();
+        long deltaCount = count - sampledCount;
+        long deltaNanos = nanos - sampledNanos;
+        sampledCount = count;
+        sampledNanos = nanos;
+        return deltaCount == 0 ? 0 : toMillis(deltaNanos) / deltaCount;
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.backend.report;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 数据预览收集器
+ * 按模板字段布局收集一页数据，输出列与生成的报表文件一致；日期时间转为 java.time 类型，其他对象类型转为字符串，便于序列化为JSON
+ */
+public class PreviewRowCollector extends AbstractReportWriter {
+
+    private List<String> headers = Collections.emptyList();
+
+    private List<ReportColumn.Type> types = Collections.emptyList();
+
+    private final List<List<Object>> rows = new ArrayList<>();
+
+    public PreviewRowCollector(CompiledTemplateLayout layout) {
+        super(layout);
+    }
+
+    @Override
+    protected void writeHeader(List<String> headers) {
+        this.headers = headers;
+        this.types = new ArrayList<>(headers.size());
+        for (ReportColumn column : getOutputColumns()) {
+            // 结果集中不存在的字段输出空值，按字符串列处理
+            types.add(column != null ? column.getType() : ReportColumn.Type.STRING);
+        }
+    }
+
+    @Override
+    protected void writeRows(RowBatch batch, int[] columnIndexes) {
+        for (int row = 0; row < batch.size(); row++) {
+            List<Object> values = new ArrayList<>(columnIndexes.length);
+            for (int column : columnIndexes) {
+                values.add(value(batch, row, column));
+            }
+            rows.add(values);
+        }
+    }
+
+    private static Object value(RowBatch batch, int row, int column) {
+        if (column < 0 || batch.isNull(row, column)) {
+            return null;
+        }
+        return switch (batch.type(column)) {
+            case LONG, DOUBLE, BOOLEAN, STRING -> batch.getValue(row, column);
+            case DECIMAL -> {
+                Object value = batch.getValue(row, column);
+                yield value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+            }
+            case DATE -> LocalDate.ofEpochDay(batch.getLong(row, column));
+            case TIMESTAMP -> ((Timestamp) batch.getValue(row, column)).toLocalDateTime();
+            default -> batch.getValue(row, column).toString();
+        };
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * 输出列的存储类型（与表头顺序一致）
+     */
+    public List<ReportColumn.Type> getTypes() {
+        return types;
+    }
+
+    public List<List<Object>> getRows() {
+        return rows;
+    }
+
+    @Override
+    public void close() {
+    }
+}
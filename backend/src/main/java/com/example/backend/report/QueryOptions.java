@@ -0,0 +1,78 @@
+package com.example.backend.report;
+
+/**
+ * 流式查询执行选项
+ * 拉取行数和超时时间为空时依次使用数据源配置和全局默认配置
+ */
+public class QueryOptions {
+
+    /**
+     * 查询标识（生成记录ID），用于取消正在执行的SQL，为空时不可取消
+     */
+    private Long queryId;
+
+    /**
+     * 最大行数，超过时抛出 REPORT_TOO_LARGE，小于等于0表示不限制
+     */
+    private int maxRows;
+
+    /**
+     * 每批回调的行数
+     */
+    private int batchSize;
+
+    /**
+     * 每次从数据库拉取的行数
+     */
+    private Integer fetchSize;
+
+    /**
+     * SQL执行超时时间（秒）
+     */
+    private Integer queryTimeout;
+
+    public QueryOptions(int maxRows, int batchSize) {
+        this.maxRows = maxRows;
+        this.batchSize = batchSize;
+    }
+
+    public Long getQueryId() {
+        return queryId;
+    }
+
+    public QueryOptions setQueryId(Long queryId) {
+        this.queryId = queryId;
+        return this;
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public QueryOptions setMaxRows(int maxRows) {
+        this.maxRows = maxRows;
+        return this;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    public QueryOptions setFetchSize(Integer fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    public Integer getQueryTimeout() {
+        return queryTimeout;
+    }
+
+    public QueryOptions setQueryTimeout(Integer queryTimeout) {
+        this.queryTimeout = queryTimeout;
+        return this;
+    }
+}
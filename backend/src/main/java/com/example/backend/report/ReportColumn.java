@@ -0,0 +1,153 @@
+package com.example.backend.report;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * 报表结果集列元数据
+ * 在查询开始时从 ResultSetMetaData 解析一次，决定该列在 {@link RowBatch} 中的存储方式
+ */
+public final class ReportColumn {
+
+    /**
+     * 列存储类型
+     */
+    public enum Type {
+        /** 整数，long[] 存储 */
+        LONG,
+        /** 浮点数，double[] 存储 */
+        DOUBLE,
+        /** 定点数，保留 BigDecimal 精度 */
+        DECIMAL,
+        /** 布尔值，long[] 存储（0/1） */
+        BOOLEAN,
+        /** 日期，long[] 存储 epochDay */
+        DATE,
+        /** 时间戳，long[] 存储 epochMilli */
+        TIMESTAMP,
+        /** 字符串，批次内字典编码 */
+        STRING,
+        /** 其他类型，按对象存储 */
+        OBJECT
+    }
+
+    private final int index;
+
+    private final String name;
+
+    private final int sqlType;
+
+    private final Type type;
+
+    /**
+     * 定点数列的精度和小数位数，其他类型或驱动未提供时为0
+     */
+    private final int precision;
+
+    private final int scale;
+
+    /**
+     * 是否为无符号整数列（如 MySQL INT UNSIGNED）
+     */
+    private final boolean unsigned;
+
+    public ReportColumn(int index, String name, int sqlType, Type type) {
+        this(index, name, sqlType, type, 0, 0);
+    }
+
+    public ReportColumn(int index, String name, int sqlType, Type type, int precision, int scale) {
+        this(index, name, sqlType, type, precision, scale, false);
+    }
+
+    public ReportColumn(int index, String name, int sqlType, Type type, int precision, int scale,
+                        boolean unsigned) {
+        this.index = index;
+        this.name = name;
+        this.sqlType = sqlType;
+        this.type = type;
+        this.precision = precision;
+        this.scale = scale;
+        this.unsigned = unsigned;
+    }
+
+    /**
+     * 从结果集元数据解析列
+     * @param index 列下标（从0开始）
+     */
+    public static ReportColumn of(ResultSetMetaData metaData, int index, String name) throws SQLException {
+        int sqlType = metaData.getColumnType(index + 1);
+        Type type = resolveType(sqlType);
+        boolean unsigned = type == Type.LONG && !metaData.isSigned(index + 1);
+        // 无符号 BIGINT 超出 long 范围，按定点数处理
+        if (sqlType == Types.BIGINT && unsigned) {
+            type = Type.DECIMAL;
+        }
+        if (type == Type.DECIMAL) {
+            return new ReportColumn(index, name, sqlType, type,
+                    metaData.getPrecision(index + 1), metaData.getScale(index + 1), unsigned);
+        }
+        return new ReportColumn(index, name, sqlType, type, 0, 0, unsigned);
+    }
+
+    /**
+     * JDBC类型到存储类型的映射
+     */
+    public static Type resolveType(int sqlType) {
+        return switch (sqlType) {
+            case Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT -> Type.LONG;
+            case Types.FLOAT, Types.REAL, Types.DOUBLE -> Type.DOUBLE;
+            case Types.NUMERIC, Types.DECIMAL -> Type.DECIMAL;
+            case Types.BIT, Types.BOOLEAN -> Type.BOOLEAN;
+            case Types.DATE -> Type.DATE;
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE -> Type.TIMESTAMP;
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR,
+                 Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> Type.STRING;
+            default -> Type.OBJECT;
+        };
+    }
+
+    /**
+     * 整数列装箱时是否使用 Integer（与 JDBC getObject 的返回类型保持一致）
+     * 无符号 INTEGER 的取值超出 int 范围，驱动返回 Long
+     */
+    boolean isIntSized() {
+        return sqlType == Types.TINYINT || sqlType == Types.SMALLINT || sqlType == Types.INTEGER && !unsigned;
+    }
+
+    /**
+     * 浮点列是否为单精度（REAL，如 MySQL FLOAT），驱动的 getObject 返回 Float
+     * JDBC 的 FLOAT 类型按规范是双精度
+     */
+    public boolean isSinglePrecision() {
+        return sqlType == Types.REAL;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSqlType() {
+        return sqlType;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public boolean isUnsigned() {
+        return unsigned;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.backend.report;
+
+import com.example.backend.mapper.ReportRecordMapper;
+import com.example.backend.mapper.ReportTemplateMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 报表下载次数和模板使用次数计数
+ *
+ * 递增只累加到内存计数器，定时以 download_count = download_count + 增量 的方式批量写入，
+ * 避免热门报表被集中下载时逐次整行更新和并发覆盖。应用关闭时写入剩余增量。
+ */
+@Component
+public class ReportCounters {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportCounters.class);
+
+    private final BatchedCounter<Long> downloadCounter = new BatchedCounter<>();
+
+    private final BatchedCounter<Long> useCounter = new BatchedCounter<>();
+
+    @Autowired
+    private ReportRecordMapper reportRecordMapper;
+
+    @Autowired
+    private ReportTemplateMapper reportTemplateMapper;
+
+    /**
+     * 记录一次报表下载
+     */
+    public void recordDownload(Long recordId) {
+        downloadCounter.increment(recordId);
+    }
+
+    /**
+     * 记录一次模板使用
+     */
+    public void recordTemplateUse(Long templateId) {
+        useCounter.increment(templateId);
+    }
+
+    @Scheduled(fixedDelayString = "${report.counter.flush-interval:5000}")
+    public void flush() {
+        flush(downloadCounter, reportRecordMapper::incrementDownloadCounts, "下载次数");
+        flush(useCounter, reportTemplateMapper::incrementUseCounts, "模板使用次数");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void flush(BatchedCounter<Long> counter, Consumer<Map<Long, Long>> writer, String name) {
+        Map<Long, Long> deltas = counter.drain();
+        if (deltas.isEmpty()) {
+            return;
+        }
+        try {
+            writer.accept(deltas);
+        } catch (Exception e) {
+            counter.restore(deltas);
+            logger.warn("写入{}失败，下次重试: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.backend.report;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 报表文件发送
+ *
+ * 生成的报表文件以UUID命名且生成后不再修改，因此用文件名作为强ETag并允许浏览器长期缓存；
+ * 支持 If-None-Match / If-Modified-Since 条件请求和单个 Range 请求（PDF预览跳页时只取需要的片段）。
+ * 本地文件在 Tomcat 支持 sendfile 时交给容器零拷贝发送，否则通过 FileChannel.transferTo 写出；
+ * 远程存储只读取请求的范围。压缩归档的 .gz 文件以 Content-Encoding: gzip 发送。
+ */
+public final class ReportFileSender {
+
+    private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 私有缓存一年：文件需要登录访问，不允许共享缓存
+     */
+    private static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    private ReportFileSender() {
+    }
+
+    /**
+     * 发送文件，调用前需设置 Content-Type 和 Content-Disposition
+     * @return 是否从文件开头发送了内容（完整文件或从0开始的片段），用于统计下载次数；304、416及后续片段返回 false
+     */
+    public static boolean send(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        return send(file.getName(), file.length(), file.lastModified(), request, response, (start, end) -> {
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+                request.setAttribute(SENDFILE_FILENAME_ATTR, file.getCanonicalPath());
+                request.setAttribute(SENDFILE_START_ATTR, start);
+                request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            } else {
+                transfer(file, start, end - start + 1, response.getOutputStream());
+            }
+        });
+    }
+
+    /**
+     * 发送存储中的报表文件，本地文件走零拷贝，远程存储按请求的范围读取后转发
+     * @return 同 {@link #send(File, HttpServletRequest, HttpServletResponse)}
+     */
+    public static boolean send(ReportStorage storage, String key, HttpServletRequest request,
+                               HttpServletResponse response) throws IOException {
+        if (key.endsWith(".gz")) {
+            // 压缩归档的文件：客户端支持gzip时原样发送，由客户端解压；否则解压后完整发送
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!acceptsGzip(request)) {
+                return sendDecompressed(storage, key, response);
+            }
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        File file = storage.localFile(key);
+        if (file != null) {
+            return send(file, request, response);
+        }
+        ReportStorage.StoredFile stat = storage.stat(key);
+        if (stat == null) {
+            throw new FileNotFoundException("报表文件不存在: " + key);
+        }
+        return send(key, stat.getSize(), stat.getLastModified(), request, response, (start, end) -> {
+            try (InputStream in = storage.openInput(key, start, end - start + 1)) {
+                OutputStream out = response.getOutputStream();
+                in.transferTo(out);
+                out.flush();
+            }
+        });
+    }
+
+    private static boolean send(String name, long length, long lastModifiedMillis, HttpServletRequest request,
+                                HttpServletResponse response, RangeWriter writer) throws IOException {
+        long lastModified = lastModifiedMillis / 1000 * 1000;
+        String etag = etag(name);
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (notModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && length > 0 && ifRangeMatches(request, etag, lastModified)) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+                // 多个范围时按完整文件返回
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        throw new IllegalArgumentException("Range超出文件长度: " + rangeHeader);
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return false;
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count > 0) {
+            writer.write(start, end);
+        }
+        return start == 0;
+    }
+
+    /**
+     * 强ETag：文件名（UUID）去掉目录和扩展名
+     */
+    public static String etag(String name) {
+        name = name.substring(name.lastIndexOf('/') + 1);
+        int dot = name.indexOf('.');
+        return "\"" + (dot > 0 ? name.substring(0, dot) : name) + "\"";
+    }
+
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (("gzip".equalsIgnoreCase(parts[0].trim()) || "*".equals(parts[0].trim()))
+                    && (parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean sendDecompressed(ReportStorage storage, String key, HttpServletResponse response)
+            throws IOException {
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "none");
+        try (InputStream in = new GZIPInputStream(storage.openInput(key), 64 * 1024)) {
+            OutputStream out = response.getOutputStream();
+            in.transferTo(out);
+            out.flush();
+        }
+        return true;
+    }
+
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-None-Match 使用弱比较，存在时忽略 If-Modified-Since
+            for (String candidate : ifNoneMatch.split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if ("*".equals(candidate) || etag.equals(candidate)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = dateHeader(request, HttpHeaders.IF_MODIFIED_SINCE);
+        return ifModifiedSince >= 0 && lastModified <= ifModifiedSince;
+    }
+
+    /**
+     * If-Range 不匹配时忽略 Range，返回完整文件
+     */
+    private static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range 要求强比较
+            return etag.equals(ifRange.trim());
+        }
+        return dateHeader(request, HttpHeaders.IF_RANGE) == lastModified;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static void transfer(File file, long start, long count, OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+        outputStream.flush();
+    }
+
+    @FunctionalInterface
+    private interface RangeWriter {
+        void write(long start, long end) throws IOException;
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 报表生成调度器
+ *
+ * 1. 按文件类型划分独立的工作线程组（xlsx/csv/pdf），PDF转换不会占满Excel生成的线程
+ * 2. 有界优先队列：交互生成优先于定时生成，队列满时拒绝（TOO_MANY_REQUESTS）而不是无限堆积
+ * 3. 每个用户、每个数据源的并发上限，超出上限的任务留在队列中，不阻塞其他任务
+ * 4. 支持取消排队中和执行中的任务（执行中的任务通过线程中断停止读取数据）
+ */
+@Component
+public class ReportGenerateExecutor implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportGenerateExecutor.class);
+
+    private static final String DEFAULT_LANE = "xlsx";
+
+    @Value("${report.executor.xlsx-workers:4}")
+    private int xlsxWorkers;
+
+    @Value("${report.executor.csv-workers:2}")
+    private int csvWorkers;
+
+    @Value("${report.executor.pdf-workers:2}")
+    private int pdfWorkers;
+
+    @Value("${report.executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${report.executor.user-concurrency:2}")
+    private int userConcurrency;
+
+    @Value("${report.executor.datasource-concurrency:4}")
+    private int datasourceConcurrency;
+
+    private final Map<String, Lane> lanes = new HashMap<>();
+
+    /**
+     * 排队中的任务，按优先级、提交顺序排序
+     */
+    private final TreeSet<GenerateJob> pending = new TreeSet<>(Comparator
+            .comparing((GenerateJob job) -> job.priority)
+            .thenComparingLong(job -> job.sequence));
+
+    /**
+     * 排队中和执行中的任务，key为报表记录ID
+     */
+    private final Map<Long, GenerateJob> jobs = new HashMap<>();
+
+    private final Map<Long, Integer> runningByUser = new HashMap<>();
+
+    private final Map<Long, Integer> runningByDatasource = new HashMap<>();
+
+    private long sequence;
+
+    @PostConstruct
+    public void init() {
+        lanes.put("xlsx", new Lane("xlsx", xlsxWorkers));
+        lanes.put("csv", new Lane("csv", csvWorkers));
+        lanes.put("pdf", new Lane("pdf", pdfWorkers));
+    }
+
+    /**
+     * 提交生成任务
+     * @param recordId 报表记录ID
+     * @param fileType 文件类型，决定使用的工作线程组
+     * @param userId 提交用户ID，为空时不受用户并发限制
+     * @param datasourceId 数据源ID，为空时不受数据源并发限制
+     * @param priority 优先级
+     * @param task 生成任务
+     * @return 任务完成时结束的 Future；任务被取消时以 CancellationException 结束
+     * @throws BusinessException 队列已满时抛出 TOO_MANY_REQUESTS
+     */
+    public CompletableFuture<Void> submit(Long recordId, String fileType, Long userId, Long datasourceId,
+                                          GeneratePriority priority, Runnable task) {
+        GenerateJob job = new GenerateJob(recordId, resolveLane(fileType), userId, datasourceId, priority, task);
+        synchronized (this) {
+            if (pending.size() >= queueCapacity) {
+                logger.warn("报表生成队列已满，拒绝任务: recordId={}, queued={}", recordId, pending.size());
+                throw new BusinessException(ResultCode.TOO_MANY_REQUESTS);
+            }
+            job.sequence = sequence++;
+            pending.add(job);
+            jobs.put(recordId, job);
+            dispatch();
+        }
+        return job.completion;
+    }
+
+    /**
+     * 取消任务：排队中的直接移出队列，执行中的中断工作线程
+     * @return 任务是否存在于本节点
+     */
+    public boolean cancel(Long recordId) {
+        synchronized (this) {
+            GenerateJob job = jobs.get(recordId);
+            if (job == null) {
+                return false;
+            }
+            job.cancelled = true;
+            if (pending.remove(job)) {
+                jobs.remove(recordId);
+                job.completion.completeExceptionally(new CancellationException("报表生成已取消"));
+            } else if (job.worker != null) {
+                job.worker.interrupt();
+            }
+            logger.info("报表生成任务已取消: recordId={}", recordId);
+            return true;
+        }
+    }
+
+    /**
+     * 任务是否已被取消（供执行中的任务在写入结果前检查）
+     */
+    public synchronized boolean isCancelled(Long recordId) {
+        GenerateJob job = jobs.get(recordId);
+        return job != null && job.cancelled;
+    }
+
+    /**
+     * 当前排队中的任务数
+     */
+    public synchronized int getQueuedCount() {
+        return pending.size();
+    }
+
+    /**
+     * 按优先级顺序启动所有满足并发限制的排队任务
+     */
+    private void dispatch() {
+        Iterator<GenerateJob> iterator = pending.iterator();
+        while (iterator.hasNext()) {
+            GenerateJob job = iterator.next();
+            if (job.lane.running >= job.lane.workers
+                    || exceedsLimit(runningByUser, job.userId, userConcurrency)
+                    || exceedsLimit(runningByDatasource, job.datasourceId, datasourceConcurrency)) {
+                continue;
+            }
+            iterator.remove();
+            job.lane.running++;
+            increment(runningByUser, job.userId, 1);
+            increment(runningByDatasource, job.datasourceId, 1);
+            job.lane.executor.execute(() -> run(job));
+        }
+    }
+
+    private void run(GenerateJob job) {
+        synchronized (this) {
+            job.worker = Thread.currentThread();
+        }
+        Throwable failure = null;
+        try {
+            if (job.cancelled) {
+                throw new CancellationException("报表生成已取消");
+            }
+            job.task.run();
+        } catch (Throwable e) {
+            failure = job.cancelled ? new CancellationException("报表生成已取消") : e;
+        } finally {
+            synchronized (this) {
+                job.worker = null;
+                jobs.remove(job.recordId);
+                job.lane.running--;
+                increment(runningByUser, job.userId, -1);
+                increment(runningByDatasource, job.datasourceId, -1);
+                dispatch();
+            }
+            // 清除取消时设置的中断标记，避免影响线程池中的下一个任务
+            Thread.interrupted();
+        }
+
+        // 释放并发占用后再通知等待方
+        if (failure != null) {
+            job.completion.completeExceptionally(failure);
+        } else {
+            job.completion.complete(null);
+        }
+    }
+
+    private Lane resolveLane(String fileType) {
+        Lane lane = fileType != null ? lanes.get(fileType.toLowerCase()) : null;
+        return lane != null ? lane : lanes.get(DEFAULT_LANE);
+    }
+
+    private static boolean exceedsLimit(Map<Long, Integer> running, Long key, int limit) {
+        return key != null && limit > 0 && running.getOrDefault(key, 0) >= limit;
+    }
+
+    private static void increment(Map<Long, Integer> running, Long key, int delta) {
+        if (key != null) {
+            running.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        for (Lane lane : lanes.values()) {
+            lane.executor.shutdownNow();
+        }
+        for (Lane lane : lanes.values()) {
+            lane.executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 按文件类型划分的工作线程组
+     */
+    private static final class Lane {
+
+        private final int workers;
+        private final ExecutorService executor;
+        private int running;
+
+        Lane(String name, int workers) {
+            this.workers = Math.max(workers, 1);
+            AtomicInteger counter = new AtomicInteger();
+            ThreadFactory threadFactory = r -> {
+                Thread thread = new Thread(r, "report-gen-" + name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            };
+            // 只在有空闲线程时派发任务，线程池自身的队列不会积压
+            this.executor = Executors.newFixedThreadPool(this.workers, threadFactory);
+        }
+    }
+
+    /**
+     * 生成任务
+     */
+    private static final class GenerateJob {
+
+        private final Long recordId;
+        private final Lane lane;
+        private final Long userId;
+        private final Long datasourceId;
+        private final GeneratePriority priority;
+        private final Runnable task;
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private long sequence;
+        private volatile boolean cancelled;
+        private Thread worker;
+
+        GenerateJob(Long recordId, Lane lane, Long userId, Long datasourceId,
+                    GeneratePriority priority, Runnable task) {
+            this.recordId = recordId;
+            this.lane = lane;
+            this.userId = userId;
+            this.datasourceId = datasourceId;
+            this.priority = priority;
+            this.task = task;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.backend.report;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.example.backend.entity.ReportTemplate;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * 报表生成结果缓存
+ *
+ * 缓存键由模板ID、模板版本、数据源ID、文件类型和规范化后的参数计算，相同条件的生成直接复制已生成的文件。
+ * 1. 本地磁盘缓存：按总大小做LRU淘汰，条目超过TTL后失效
+ * 2. Redis元数据：记录生成该结果的存储键，其他节点本地未命中时在报表存储内复制（S3为服务端复制）
+ * 本地磁盘缓存只在报表存储为本地磁盘时使用，远程存储只通过Redis元数据复用
+ * 模板修改时版本号递增，旧缓存键自然失效；同时显式清除本节点和Redis中该模板的缓存
+ */
+@Component
+public class ReportResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportResultCache.class);
+
+    private static final String REDIS_RESULT_PREFIX = "report:cache:result:";
+
+    private static final String REDIS_TEMPLATE_PREFIX = "report:cache:template:";
+
+    /**
+     * 缓存文件名：缓存键（SHA-256十六进制）加报表文件扩展名
+     */
+    private static final Pattern CACHE_FILE_NAME = Pattern.compile("[0-9a-f]{64}\\.[A-Za-z0-9]*");
+
+    @Value("${report.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${report.cache.ttl:3600}")
+    private long ttl;
+
+    @Value("${report.cache.path:./upload/cache}")
+    private String cachePath;
+
+    @Value("${report.cache.max-size-mb:1024}")
+    private long maxSizeMb;
+
+    @Autowired
+    private ReportStorage reportStorage;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 本地缓存条目，按访问顺序排列用于LRU淘汰
+     */
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalSize;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        // 本地索引只保存在内存中，启动时清理上次遗留的缓存文件；
+        // 只删除缓存写入的 <sha256>.<扩展名> 文件，缓存目录配置错误时不会删除其他数据
+        File[] files = FileUtil.mkdir(cachePath).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isFile() && CACHE_FILE_NAME.matcher(file.getName()).matches()) {
+                FileUtil.del(file);
+            }
+        }
+    }
+
+    /**
+     * 计算缓存键
+     * @return 缓存未启用时返回 null
+     */
+    public String buildKey(ReportTemplate template, Map<String, Object> params, String fileType) {
+        if (!enabled) {
+            return null;
+        }
+        String source = template.getId() + "|" + template.getVersion() + "|" + template.getDatasourceId()
+                + "|" + fileType + "|" + normalize(params);
+        return DigestUtil.sha256Hex(source);
+    }
+
+    /**
+     * 从缓存恢复报表文件
+     * @param key 缓存键
+     * @param targetKey 目标存储键
+     * @return 命中时返回数据行数，未命中返回 null
+     */
+    public Integer restore(String key, String targetKey) {
+        if (key == null) {
+            return null;
+        }
+
+        CacheEntry entry = getLocal(key);
+        if (entry != null && store(entry.file, targetKey)) {
+            logger.debug("报表结果缓存命中: key={}", key);
+            return entry.dataRows;
+        }
+
+        // 本地未命中时查询Redis元数据，复用报表存储中已生成的报表文件
+        Map<String, Object> meta = getRemote(key);
+        if (meta == null || !reportStorage.copy(String.valueOf(meta.get("fileName")), targetKey)) {
+            return null;
+        }
+        int dataRows = ((Number) meta.get("dataRows")).intValue();
+        Long templateId = ((Number) meta.get("templateId")).longValue();
+        File target = reportStorage.localFile(targetKey);
+        if (target != null) {
+            putLocal(key, templateId, target, dataRows);
+        }
+        logger.debug("报表结果缓存命中（共享存储）: key={}", key);
+        return dataRows;
+    }
+
+    /**
+     * 缓存已生成的报表文件
+     * @param key 缓存键
+     * @param templateId 模板ID
+     * @param fileKey 报表文件的存储键
+     * @param dataRows 数据行数
+     */
+    public void put(String key, Long templateId, String fileKey, int dataRows) {
+        if (key == null) {
+            return;
+        }
+        File file = reportStorage.localFile(fileKey);
+        if (file != null) {
+            if (!file.isFile()) {
+                return;
+            }
+            putLocal(key, templateId, file, dataRows);
+        }
+        putRemote(key, templateId, fileKey, dataRows);
+    }
+
+    /**
+     * 清除模板的所有缓存结果
+     */
+    public void invalidateTemplate(Long templateId) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            Iterator<CacheEntry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CacheEntry entry = iterator.next();
+                if (entry.templateId.equals(templateId)) {
+                    iterator.remove();
+                    remove(entry);
+                }
+            }
+        }
+
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            String templateKey = REDIS_TEMPLATE_PREFIX + templateId;
+            Set<Object> keys = redisTemplate.opsForSet().members(templateKey);
+            List<String> deleteKeys = new ArrayList<>();
+            deleteKeys.add(templateKey);
+            if (keys != null) {
+                keys.forEach(key -> deleteKeys.add(REDIS_RESULT_PREFIX + key));
+            }
+            redisTemplate.delete(deleteKeys);
+        } catch (Exception e) {
+            logger.warn("清除Redis报表缓存失败: templateId={}, {}", templateId, e.getMessage());
+        }
+    }
+
+    /**
+     * 本地缓存占用的字节数
+     */
+    public synchronized long getTotalSize() {
+        return totalSize;
+    }
+
+    private synchronized CacheEntry getLocal(String key) {
+        CacheEntry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt < System.currentTimeMillis() || !entry.file.isFile()) {
+            entries.remove(key);
+            remove(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    private void putLocal(String key, Long templateId, File source, int dataRows) {
+        File cacheFile = new File(cachePath, key + "." + FileUtil.extName(source));
+        if (!copy(source, cacheFile)) {
+            return;
+        }
+
+        long maxSize = maxSizeMb * 1024 * 1024;
+        synchronized (this) {
+            CacheEntry previous = entries.remove(key);
+            if (previous != null) {
+                totalSize -= previous.size;
+            }
+            CacheEntry entry = new CacheEntry(templateId, cacheFile, cacheFile.length(), dataRows,
+                    System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttl));
+            entries.put(key, entry);
+            totalSize += entry.size;
+
+            // 超出容量时淘汰最久未使用的条目
+            Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+            while (totalSize > maxSize && iterator.hasNext()) {
+                Map.Entry<String, CacheEntry> eldest = iterator.next();
+                if (eldest.getValue() == entry) {
+                    continue;
+                }
+                iterator.remove();
+                remove(eldest.getValue());
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> getRemote(String key) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            Object value = redisTemplate.opsForValue().get(REDIS_RESULT_PREFIX + key);
+            return value instanceof Map ? (Map<String, Object>) value : null;
+        } catch (Exception e) {
+            logger.warn("读取Redis报表缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putRemote(String key, Long templateId, String fileKey, int dataRows) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            Map<String, Object> meta = new HashMap<>();
+            meta.put("templateId", templateId);
+            meta.put("fileName", fileKey);
+            meta.put("dataRows", dataRows);
+            redisTemplate.opsForValue().set(REDIS_RESULT_PREFIX + key, meta, ttl, TimeUnit.SECONDS);
+
+            String templateKey = REDIS_TEMPLATE_PREFIX + templateId;
+            redisTemplate.opsForSet().add(templateKey, key);
+            redisTemplate.expire(templateKey, ttl, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warn("写入Redis报表缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void remove(CacheEntry entry) {
+        totalSize -= entry.size;
+        FileUtil.del(entry.file);
+    }
+
+    private boolean store(File source, String targetKey) {
+        try {
+            reportStorage.store(targetKey, source);
+            return true;
+        } catch (Exception e) {
+            // 文件可能已被淘汰或删除，按未命中处理
+            logger.debug("恢复报表缓存文件失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean copy(File source, File target) {
+        try {
+            FileUtil.copyFile(source, target);
+            return true;
+        } catch (Exception e) {
+            // 文件可能已被淘汰或删除，按未命中处理
+            logger.debug("复制报表缓存文件失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 规范化的参数文本，取值相同的参数得到相同的文本（用于构建其他缓存的键）
+     */
+    public static String normalizeParams(Map<String, Object> params) {
+        return normalize(params);
+    }
+
+    /**
+     * 参数规范化：只合并绑定到SQL后取值相同的参数，即键的顺序和数值的格式（1、1.0、1.00）；
+     * 字符串保留首尾空白，空串、null 和缺少的参数互不相同。
+     * 字符串和键带长度前缀，值中的分隔符不会使不同的参数得到相同的文本
+     */
+    private static String normalize(Object value) {
+        StringBuilder text = new StringBuilder();
+        appendNormalized(text, value);
+        return text.toString();
+    }
+
+    private static void appendNormalized(StringBuilder text, Object value) {
+        if (value == null) {
+            text.append("null");
+        } else if (value instanceof Map<?, ?> map) {
+            TreeMap<String, Object> sorted = new TreeMap<>();
+            map.forEach((key, item) -> sorted.put(String.valueOf(key), item));
+            text.append('{');
+            sorted.forEach((key, item) -> {
+                appendString(text, key);
+                text.append('=');
+                appendNormalized(text, item);
+                text.append(',');
+            });
+            text.append('}');
+        } else if (value instanceof Collection<?> collection) {
+            text.append('[');
+            for (Object item : collection) {
+                appendNormalized(text, item);
+                text.append(',');
+            }
+            text.append(']');
+        } else if (value instanceof Number number) {
+            text.append('n');
+            try {
+                text.append(new BigDecimal(number.toString()).stripTrailingZeros().toPlainString());
+            } catch (NumberFormatException e) {
+                text.append(number);
+            }
+        } else if (value instanceof String string) {
+            appendString(text, string);
+        } else {
+            // 布尔值、日期等其他类型带上类型名，与内容相同的字符串区分
+            text.append(value.getClass().getSimpleName());
+            appendString(text, value.toString());
+        }
+    }
+
+    private static void appendString(StringBuilder text, String value) {
+        text.append('s').append(value.length()).append(':').append(value);
+    }
+
+    /**
+     * 本地缓存条目
+     */
+    private static final class CacheEntry {
+
+        private final Long templateId;
+        private final File file;
+        private final long size;
+        private final int dataRows;
+        private final long expireAt;
+
+        CacheEntry(Long templateId, File file, long size, int dataRows, long expireAt) {
+            this.templateId = templateId;
+            this.file = file;
+            this.size = size;
+            this.dataRows = dataRows;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.backend.report;
+
+import java.util.List;
+
+/**
+ * 报表数据行处理器
+ * 流式查询时按列式批次回调，结果集不会整体加载到内存
+ */
+public interface ReportRowHandler {
+
+    /**
+     * 结果集元数据就绪时回调（每次查询只调用一次，先于任何数据批次）
+     * @param columns 结果集列（按结果集列顺序）
+     */
+    void onStart(List<ReportColumn> columns);
+
+    /**
+     * 处理一批数据行
+     * @param batch 列式数据批次；批次对象在回调结束后会被清空复用，不可持有引用
+     */
+    void onBatch(RowBatch batch);
+
+    /**
+     * 数据读取完毕
+     * @param totalRows 总行数
+     */
+    default void onComplete(long totalRows) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.backend.report;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.BiConsumer;
+
+/**
+ * 报表文件存储
+ *
+ * 生成的报表文件、报表模板文件按存储键（相对路径，如 "3f/2b/3f2b7c1e-....xlsx"）读写，
+ * 生成记录只保存存储键，下载、预览和邮件附件都通过存储读取，不依赖生成文件的节点本地磁盘。
+ * 实现：本地磁盘（report.storage.type=local）、S3兼容对象存储（report.storage.type=s3）
+ */
+public interface ReportStorage {
+
+    /**
+     * 为新生成的文件分配存储键（UUID文件名，按UUID前缀分目录）
+     * @param extension 文件扩展名，不含点
+     */
+    String newKey(String extension);
+
+    /**
+     * 打开写入流，关闭后文件可读；生成过程中边写边上传。写入失败时调用 {@link StorageOutputStream#abort()} 放弃
+     */
+    StorageOutputStream openOutput(String key) throws IOException;
+
+    /**
+     * 保存本地文件
+     */
+    void store(String key, File source) throws IOException;
+
+    /**
+     * 读取文件
+     * @throws java.io.FileNotFoundException 文件不存在时抛出
+     */
+    InputStream openInput(String key) throws IOException;
+
+    /**
+     * 读取文件的一段（用于 Range 请求）
+     * @throws java.io.FileNotFoundException 文件不存在时抛出
+     */
+    InputStream openInput(String key, long start, long count) throws IOException;
+
+    /**
+     * 文件大小和修改时间
+     * @return 文件不存在时返回 null
+     */
+    StoredFile stat(String key);
+
+    /**
+     * 复制文件（对象存储在服务端复制）
+     * @return 源文件不存在或复制失败时返回 false
+     */
+    boolean copy(String sourceKey, String targetKey);
+
+    /**
+     * 删除文件，文件不存在时忽略
+     */
+    void delete(String key);
+
+    /**
+     * 本地文件路径，可直接交给容器零拷贝发送
+     * @return 非本地存储返回 null
+     */
+    File localFile(String key);
+
+    /**
+     * 下载到本地文件（邮件附件等需要本地文件的场景）
+     */
+    void download(String key, File target) throws IOException;
+
+    /**
+     * 逐个遍历存储中的所有文件（不一次性加载全部列表），用于孤立文件清理
+     * @param visitor 接收存储键和文件元信息
+     */
+    void walk(BiConsumer<String, StoredFile> visitor) throws IOException;
+
+    /**
+     * 存储中文件的元信息
+     */
+    final class StoredFile {
+
+        private final long size;
+        private final long lastModified;
+
+        public StoredFile(long size, long lastModified) {
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.backend.report;
+
+import org.springframework.jdbc.support.JdbcUtils;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 列式数据批次
+ * 每列按 {@link ReportColumn.Type} 使用原始类型数组存储，字符串在批次内字典编码，
+ * 避免每行一个 Map、每个数值一个包装对象。批次在 {@link #clear()} 后复用，数组只分配一次。
+ */
+public final class RowBatch {
+
+    private final List<ReportColumn> columns;
+
+    private final ColumnVector[] vectors;
+
+    private final int capacity;
+
+    private int size;
+
+    public RowBatch(List<ReportColumn> columns, int capacity) {
+        this.columns = columns;
+        this.capacity = Math.max(capacity, 1);
+        this.vectors = new ColumnVector[columns.size()];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = new ColumnVector(columns.get(i), this.capacity);
+        }
+    }
+
+    /**
+     * 从结果集当前行读取数据，按列类型调用对应的 getXxx，不经过 getObject 装箱
+     */
+    public void readRow(ResultSet rs) throws SQLException {
+        int row = size;
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].read(rs, i + 1, row);
+        }
+        size++;
+    }
+
+    /**
+     * 追加一行对象值（按列顺序），值类型需与列类型兼容
+     */
+    public void addRow(Object... values) {
+        int row = size;
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i].set(row, values[i]);
+        }
+        size++;
+    }
+
+    /**
+     * 重置批次以便复用
+     */
+    public void clear() {
+        for (ColumnVector vector : vectors) {
+            vector.clear(size);
+        }
+        size = 0;
+    }
+
+    public boolean isFull() {
+        return size >= capacity;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columnCount() {
+        return vectors.length;
+    }
+
+    public List<ReportColumn> getColumns() {
+        return columns;
+    }
+
+    public ReportColumn.Type type(int column) {
+        return vectors[column].type;
+    }
+
+    public boolean isNull(int row, int column) {
+        return vectors[column].nulls[row];
+    }
+
+    /**
+     * LONG/BOOLEAN/DATE/TIMESTAMP 列的原始值
+     */
+    public long getLong(int row, int column) {
+        return vectors[column].longs[row];
+    }
+
+    /**
+     * DOUBLE 列的原始值
+     */
+    public double getDouble(int row, int column) {
+        return vectors[column].doubles[row];
+    }
+
+    /**
+     * STRING 列的值（字典解码）
+     */
+    public String getString(int row, int column) {
+        ColumnVector vector = vectors[column];
+        return vector.nulls[row] ? null : vector.dictionary.get(vector.codes[row]);
+    }
+
+    /**
+     * 以对象形式获取值（写入Excel等需要对象的场景时装箱）
+     */
+    public Object getValue(int row, int column) {
+        return vectors[column].get(row);
+    }
+
+    /**
+     * 单列存储
+     */
+    private static final class ColumnVector {
+
+        private final ReportColumn column;
+        private final ReportColumn.Type type;
+        private final boolean[] nulls;
+        private long[] longs;
+        private double[] doubles;
+        private int[] codes;
+        private List<String> dictionary;
+        private Map<String, Integer> dictionaryIndex;
+        private Object[] objects;
+
+        ColumnVector(ReportColumn column, int capacity) {
+            this.column = column;
+            this.type = column.getType();
+            this.nulls = new boolean[capacity];
+            switch (type) {
+                case LONG, BOOLEAN, DATE, TIMESTAMP -> longs = new long[capacity];
+                case DOUBLE -> doubles = new double[capacity];
+                case STRING -> {
+                    codes = new int[capacity];
+                    dictionary = new ArrayList<>();
+                    dictionaryIndex = new HashMap<>();
+                }
+                default -> objects = new Object[capacity];
+            }
+        }
+
+        void read(ResultSet rs, int columnIndex, int row) throws SQLException {
+            switch (type) {
+                case LONG -> {
+                    longs[row] = rs.getLong(columnIndex);
+                    nulls[row] = rs.wasNull();
+                }
+                case DOUBLE -> {
+                    doubles[row] = column.isSinglePrecision()
+                            ? widen(rs.getFloat(columnIndex)) : rs.getDouble(columnIndex);
+                    nulls[row] = rs.wasNull();
+                }
+                case BOOLEAN -> {
+                    longs[row] = rs.getBoolean(columnIndex) ? 1 : 0;
+                    nulls[row] = rs.wasNull();
+                }
+                case DATE -> {
+                    Date date = rs.getDate(columnIndex);
+                    nulls[row] = date == null;
+                    longs[row] = date == null ? 0 : date.toLocalDate().toEpochDay();
+                }
+                case TIMESTAMP -> {
+                    Timestamp timestamp = rs.getTimestamp(columnIndex);
+                    nulls[row] = timestamp == null;
+                    longs[row] = timestamp == null ? 0 : timestamp.getTime();
+                }
+                case STRING -> setString(row, rs.getString(columnIndex));
+                case DECIMAL -> {
+                    objects[row] = rs.getBigDecimal(columnIndex);
+                    nulls[row] = objects[row] == null;
+                }
+                default -> {
+                    objects[row] = JdbcUtils.getResultSetValue(rs, columnIndex);
+                    nulls[row] = objects[row] == null;
+                }
+            }
+        }
+
+        void set(int row, Object value) {
+            nulls[row] = value == null;
+            if (value == null) {
+                if (objects != null) {
+                    objects[row] = null;
+                }
+                return;
+            }
+            switch (type) {
+                case LONG -> longs[row] = ((Number) value).longValue();
+                case DOUBLE -> doubles[row] = column.isSinglePrecision()
+                        ? widen(((Number) value).floatValue()) : ((Number) value).doubleValue();
+                case BOOLEAN -> longs[row] = Boolean.TRUE.equals(value) ? 1 : 0;
+                case DATE -> longs[row] = value instanceof LocalDate localDate
+                        ? localDate.toEpochDay() : ((Date) value).toLocalDate().toEpochDay();
+                case TIMESTAMP -> longs[row] = value instanceof LocalDateTime localDateTime
+                        ? Timestamp.valueOf(localDateTime).getTime() : ((java.util.Date) value).getTime();
+                case STRING -> setString(row, value.toString());
+                case DECIMAL -> objects[row] = value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+                default -> objects[row] = value;
+            }
+        }
+
+        /**
+         * 单精度值按其最短十进制表示转为 double（1.1f 存为 1.1 而不是 1.100000023841858），
+         * 各写入器按 double 输出时与 Float.toString 一致，装箱时再转回 float 也不损失精度
+         */
+        private static double widen(float value) {
+            return Float.isFinite(value) ? Double.parseDouble(Float.toString(value)) : value;
+        }
+
+        private void setString(int row, String value) {
+            nulls[row] = value == null;
+            if (value == null) {
+                return;
+            }
+            Integer code = dictionaryIndex.get(value);
+            if (code == null) {
+                code = dictionary.size();
+                dictionary.add(value);
+                dictionaryIndex.put(value, code);
+            }
+            codes[row] = code;
+        }
+
+        Object get(int row) {
+            if (nulls[row]) {
+                return null;
+            }
+            return switch (type) {
+                case LONG -> column.isIntSized() ? (Object) (int) longs[row] : (Object) longs[row];
+                case DOUBLE -> column.isSinglePrecision() ? (Object) (float) doubles[row] : (Object) doubles[row];
+                case BOOLEAN -> longs[row] != 0;
+                case DATE -> Date.valueOf(LocalDate.ofEpochDay(longs[row]));
+                case TIMESTAMP -> new Timestamp(longs[row]);
+                case STRING -> dictionary.get(codes[row]);
+                default -> objects[row];
+            };
+        }
+
+        void clear(int size) {
+            if (objects != null) {
+                // 释放对象引用，便于GC回收
+                Arrays.fill(objects, 0, size, null);
+            }
+            if (dictionary != null) {
+                // 字典按批次重建，避免高基数列的字典无限增长
+                dictionary.clear();
+                dictionaryIndex.clear();
+            }
+        }
+    }
+}
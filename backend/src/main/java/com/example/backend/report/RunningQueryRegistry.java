@@ -0,0 +1,109 @@
+package com.example.backend.report;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 正在执行的报表查询登记表
+ *
+ * 查询开始前按查询标识登记，创建语句后关联 Statement；取消时调用 Statement.cancel() 由数据库中止SQL并释放连接，
+ * 仅靠中断工作线程无法停止阻塞在数据库调用中的查询。语句创建前取消的查询在关联语句时直接失败。
+ */
+public class RunningQueryRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunningQueryRegistry.class);
+
+    private final Map<Long, RunningQuery> queries = new ConcurrentHashMap<>();
+
+    /**
+     * 登记查询
+     * @param queryId 查询标识，为空时返回不登记的句柄
+     */
+    public RunningQuery register(Long queryId) {
+        RunningQuery query = new RunningQuery(queryId);
+        if (queryId != null) {
+            queries.put(queryId, query);
+        }
+        return query;
+    }
+
+    /**
+     * 查询结束后移除登记
+     */
+    public void unregister(RunningQuery query) {
+        if (query.queryId != null) {
+            queries.remove(query.queryId, query);
+        }
+    }
+
+    /**
+     * 取消查询
+     * @return 查询正在执行时返回 true
+     */
+    public boolean cancel(Long queryId) {
+        RunningQuery query = queryId != null ? queries.get(queryId) : null;
+        if (query == null) {
+            return false;
+        }
+        query.cancel();
+        return true;
+    }
+
+    /**
+     * 正在执行的查询数
+     */
+    public int getRunningCount() {
+        return queries.size();
+    }
+
+    /**
+     * 正在执行的查询
+     */
+    public static final class RunningQuery {
+
+        private final Long queryId;
+
+        private Statement statement;
+
+        private volatile boolean cancelled;
+
+        RunningQuery(Long queryId) {
+            this.queryId = queryId;
+        }
+
+        /**
+         * 关联执行查询的语句
+         * @throws BusinessException 查询已被取消时抛出 REPORT_CANCELLED
+         */
+        public synchronized void attach(Statement statement) {
+            if (cancelled) {
+                throw new BusinessException(ResultCode.REPORT_CANCELLED);
+            }
+            this.statement = statement;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (statement == null) {
+                return;
+            }
+            try {
+                statement.cancel();
+                logger.info("已取消正在执行的报表查询: queryId={}", queryId);
+            } catch (SQLException e) {
+                logger.warn("取消报表查询失败: queryId={}, {}", queryId, e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.example.backend.report;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * S3兼容对象存储（AWS S3、MinIO 等），使用路径风格访问 endpoint/bucket/prefix+key
+ *
+ * 生成报表时按分片大小缓冲并以分片上传写入，内存占用不超过一个分片；
+ * 下载按 Range 读取对象，结果缓存复用时在服务端复制对象。
+ */
+@Component
+@ConditionalOnProperty(name = "report.storage.type", havingValue = "s3")
+public class S3ReportStorage extends AbstractReportStorage {
+
+    private static final Logger logger = LoggerFactory.getLogger(S3ReportStorage.class);
+
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    /**
+     * S3 分片上传要求除最后一片外每片不小于 5MB
+     */
+    private static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+
+    @Value("${report.storage.s3.endpoint:http://localhost:9000}")
+    private String endpoint;
+
+    @Value("${report.storage.s3.region:us-east-1}")
+    private String region;
+
+    @Value("${report.storage.s3.bucket:reports}")
+    private String bucket;
+
+    @Value("${report.storage.s3.access-key:}")
+    private String accessKey;
+
+    @Value("${report.storage.s3.secret-key:}")
+    private String secretKey;
+
+    @Value("${report.storage.s3.prefix:}")
+    private String prefix;
+
+    @Value("${report.storage.s3.part-size-mb:8}")
+    private int partSizeMb;
+
+    private int partSize;
+
+    private S3RequestSigner signer;
+
+    private HttpClient httpClient;
+
+    public S3ReportStorage() {
+    }
+
+    /**
+     * @param partSize 分片大小（字节），小于5MB时只用于测试
+     */
+    public S3ReportStorage(String endpoint, String region, String bucket, String accessKey, String secretKey,
+                           String prefix, int partSize) {
+        this.endpoint = endpoint;
+        this.region = region;
+        this.bucket = bucket;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.prefix = prefix;
+        createClient(partSize);
+    }
+
+    @PostConstruct
+    public void init() {
+        createClient(Math.max(partSizeMb * 1024 * 1024, MIN_PART_SIZE));
+        logger.info("报表存储使用S3兼容存储: endpoint={}, bucket={}", endpoint, bucket);
+    }
+
+    private void createClient(int partSize) {
+        this.partSize = partSize;
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.prefix = prefix == null ? "" : prefix;
+        this.signer = new S3RequestSigner(accessKey, secretKey, region);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public StorageOutputStream openOutput(String key) {
+        return new MultipartOutputStream(checkKey(key));
+    }
+
+    @Override
+    public void store(String key, File source) throws IOException {
+        if (source.length() > partSize) {
+            try (OutputStream out = openOutput(key)) {
+                Files.copy(source.toPath(), out);
+            }
+            return;
+        }
+        HttpResponse<String> response = send("PUT", checkKey(key), Map.of(), Map.of(),
+                HttpRequest.BodyPublishers.ofFile(source.toPath()), HttpResponse.BodyHandlers.ofString());
+        checkStatus(response, key);
+    }
+
+    @Override
+    public InputStream openInput(String key) throws IOException {
+        return get(checkKey(key), Map.of());
+    }
+
+    @Override
+    public InputStream openInput(String key, long start, long count) throws IOException {
+        if (count <= 0) {
+            return InputStream.nullInputStream();
+        }
+        return get(checkKey(key), Map.of("range", "bytes=" + start + "-" + (start + count - 1)));
+    }
+
+    @Override
+    public StoredFile stat(String key) {
+        try {
+            HttpResponse<Void> response = send("HEAD", checkKey(key), Map.of(), Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() == 404) {
+                return null;
+            }
+            if (response.statusCode() >= 300) {
+                logger.warn("读取对象信息失败: key={}, status={}", key, response.statusCode());
+                return null;
+            }
+            long size = response.headers().firstValueAsLong("content-length").orElse(0L);
+            long lastModified = response.headers().firstValue("last-modified")
+                    .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                    .orElse(0L);
+            return new StoredFile(size, lastModified);
+        } catch (IOException e) {
+            logger.warn("读取对象信息失败: key={}, {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean copy(String sourceKey, String targetKey) {
+        try {
+            String copySource = "/" + bucket + "/" + S3RequestSigner.encode(prefix + checkKey(sourceKey), false);
+            HttpResponse<String> response = send("PUT", checkKey(targetKey), Map.of(),
+                    Map.of("x-amz-copy-source", copySource),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() < 300 && !response.body().contains("<Error>");
+        } catch (IOException e) {
+            logger.debug("复制对象失败: {} -> {}, {}", sourceKey, targetKey, e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            HttpResponse<String> response = send("DELETE", checkKey(key), Map.of(), Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() >= 300 && response.statusCode() != 404) {
+                logger.warn("删除对象失败: key={}, status={}", key, response.statusCode());
+            }
+        } catch (IOException e) {
+            logger.warn("删除对象失败: key={}, {}", key, e.getMessage());
+        }
+    }
+
+    @Override
+    public File localFile(String key) {
+        return null;
+    }
+
+    @Override
+    public void download(String key, File target) throws IOException {
+        try (InputStream in = openInput(key)) {
+            Files.copy(in, target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private InputStream get(String key, Map<String, String> headers) throws IOException {
+        HttpResponse<InputStream> response = send("GET", key, Map.of(), headers,
+                HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() >= 300) {
+            try (InputStream body = response.body()) {
+                String message = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                if (response.statusCode() == 404) {
+                    throw new FileNotFoundException("报表文件不存在: " + key);
+                }
+                throw new IOException("S3请求失败: status=" + response.statusCode() + ", " + message);
+            }
+        }
+        return response.body();
+    }
+
+    @Override
+    public void walk(BiConsumer<String, StoredFile> visitor) throws IOException {
+        String continuationToken = null;
+        do {
+            Map<String, String> query = new HashMap<>();
+            query.put("list-type", "2");
+            query.put("prefix", prefix);
+            if (continuationToken != null) {
+                query.put("continuation-token", continuationToken);
+            }
+            HttpResponse<String> response = request("GET", "/" + bucket, query, Map.of(),
+                    HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+            checkStatus(response, prefix);
+            String xml = response.body();
+
+            // 每页最多1000个对象，处理完一页再请求下一页
+            int from = 0;
+            while ((from = xml.indexOf("<Contents>", from)) >= 0) {
+                int to = xml.indexOf("</Contents>", from);
+                String contents = xml.substring(from, to);
+                from = to;
+                String key = unescapeXml(xmlValue(contents, "Key"));
+                if (!key.startsWith(prefix) || key.endsWith("/")) {
+                    continue;
+                }
+                visitor.accept(key.substring(prefix.length()), new StoredFile(
+                        Long.parseLong(xmlValue(contents, "Size")),
+                        Instant.parse(xmlValue(contents, "LastModified")).toEpochMilli()));
+            }
+            continuationToken = "true".equals(xmlValue(xml, "IsTruncated"))
+                    ? unescapeXml(xmlValue(xml, "NextContinuationToken")) : null;
+        } while (continuationToken != null);
+    }
+
+    /**
+     * 发送对象请求
+     * @param headers 额外的请求头，参与签名
+     */
+    private <T> HttpResponse<T> send(String method, String key, Map<String, String> query, Map<String, String> headers,
+                                     HttpRequest.BodyPublisher body, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        return request(method, "/" + bucket + "/" + S3RequestSigner.encode(prefix + key, false), query, headers,
+                body, handler);
+    }
+
+    /**
+     * 发送签名请求
+     * @param canonicalUri 已编码的路径
+     * @param headers 额外的请求头，参与签名
+     */
+    private <T> HttpResponse<T> request(String method, String canonicalUri, Map<String, String> query,
+                                        Map<String, String> headers, HttpRequest.BodyPublisher body,
+                                        HttpResponse.BodyHandler<T> handler) throws IOException {
+        StringJoiner queryString = new StringJoiner("&");
+        new TreeMap<>(query).forEach((name, value) ->
+                queryString.add(S3RequestSigner.encode(name, true) + "=" + S3RequestSigner.encode(value, true)));
+        URI uri = URI.create(endpoint + canonicalUri + (query.isEmpty() ? "" : "?" + queryString));
+
+        String amzDate = ZonedDateTime.now(ZoneOffset.UTC).format(AMZ_DATE);
+        Map<String, String> signedHeaders = new LinkedHashMap<>(headers);
+        signedHeaders.put("host", uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort());
+        signedHeaders.put("x-amz-date", amzDate);
+        signedHeaders.put("x-amz-content-sha256", S3RequestSigner.UNSIGNED_PAYLOAD);
+        String authorization = signer.authorization(method, canonicalUri, query, signedHeaders,
+                S3RequestSigner.UNSIGNED_PAYLOAD, amzDate);
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(Duration.ofMinutes(5))
+                .method(method, body)
+                .header("Authorization", authorization);
+        signedHeaders.forEach((name, value) -> {
+            if (!"host".equals(name)) {
+                builder.header(name, value);
+            }
+        });
+
+        try {
+            return httpClient.send(builder.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3请求被中断: " + canonicalUri);
+        }
+    }
+
+    private static void checkStatus(HttpResponse<String> response, String key) throws IOException {
+        if (response.statusCode() >= 300 || response.body().contains("<Error>")) {
+            throw new IOException("S3请求失败: key=" + key + ", status=" + response.statusCode() + ", " + response.body());
+        }
+    }
+
+    private static String xmlValue(String xml, String tag) {
+        int start = xml.indexOf("<" + tag + ">");
+        int end = xml.indexOf("</" + tag + ">");
+        return start >= 0 && end > start ? xml.substring(start + tag.length() + 2, end) : null;
+    }
+
+    private static String unescapeXml(String value) {
+        if (value == null || value.indexOf('&') < 0) {
+            return value;
+        }
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"")
+                .replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    /**
+     * 分片上传输出流：缓冲满一个分片后上传，小文件关闭时直接上传整个对象；放弃时取消分片上传，剩余数据不再上传
+     */
+    private final class MultipartOutputStream extends StorageOutputStream {
+
+        private final String key;
+
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        private final List<String> partEtags = new ArrayList<>();
+
+        private String uploadId;
+
+        private boolean closed;
+
+        MultipartOutputStream(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            uploadPartIfFull();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            buffer.write(b, off, len);
+            uploadPartIfFull();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                if (uploadId == null) {
+                    HttpResponse<String> response = send("PUT", key, Map.of(), Map.of(),
+                            HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray()),
+                            HttpResponse.BodyHandlers.ofString());
+                    checkStatus(response, key);
+                    return;
+                }
+                if (buffer.size() > 0) {
+                    uploadPart();
+                }
+                complete();
+            } catch (IOException | RuntimeException e) {
+                abortUpload();
+                throw e;
+            } finally {
+                buffer.reset();
+            }
+        }
+
+        private void uploadPartIfFull() throws IOException {
+            if (buffer.size() < partSize) {
+                return;
+            }
+            try {
+                uploadPart();
+            } catch (IOException | RuntimeException e) {
+                closed = true;
+                abortUpload();
+                throw e;
+            }
+        }
+
+        private void uploadPart() throws IOException {
+            if (uploadId == null) {
+                HttpResponse<String> response = send("POST", key, Map.of("uploads", ""), Map.of(),
+                        HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.ofString());
+                checkStatus(response, key);
+                uploadId = xmlValue(response.body(), "UploadId");
+                if (uploadId == null) {
+                    throw new IOException("创建分片上传失败: " + response.body());
+                }
+            }
+            int partNumber = partEtags.size() + 1;
+            HttpResponse<String> response = send("PUT", key,
+                    Map.of("partNumber", String.valueOf(partNumber), "uploadId", uploadId), Map.of(),
+                    HttpRequest.BodyPublishers.ofByteArray(buffer.toByteArray()), HttpResponse.BodyHandlers.ofString());
+            checkStatus(response, key);
+            partEtags.add(response.headers().firstValue("etag").orElse(""));
+            buffer.reset();
+        }
+
+        private void complete() throws IOException {
+            StringBuilder xml = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < partEtags.size(); i++) {
+                xml.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(partEtags.get(i)).append("</ETag></Part>");
+            }
+            xml.append("</CompleteMultipartUpload>");
+            HttpResponse<String> response = send("POST", key, Map.of("uploadId", uploadId), Map.of(),
+                    HttpRequest.BodyPublishers.ofString(xml.toString()), HttpResponse.BodyHandlers.ofString());
+            checkStatus(response, key);
+        }
+
+        @Override
+        public void abort() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.reset();
+            abortUpload();
+        }
+
+        private void abortUpload() {
+            if (uploadId == null) {
+                return;
+            }
+            try {
+                send("DELETE", key, Map.of("uploadId", uploadId), Collections.emptyMap(),
+                        HttpRequest.BodyPublishers.noBody(), HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                logger.warn("取消分片上传失败: key={}, {}", key, e.getMessage());
+            }
+        }
+    }
+}
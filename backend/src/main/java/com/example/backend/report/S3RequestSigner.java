@@ -0,0 +1,113 @@
+package com.example.backend.report;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * S3 请求签名（AWS Signature Version 4）
+ * 请求体不参与签名（UNSIGNED-PAYLOAD），上传时可以边生成边发送
+ */
+public class S3RequestSigner {
+
+    public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+
+    private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+
+    private static final String SERVICE = "s3";
+
+    private final String accessKey;
+
+    private final String secretKey;
+
+    private final String region;
+
+    public S3RequestSigner(String accessKey, String secretKey, String region) {
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.region = region;
+    }
+
+    /**
+     * 计算 Authorization 请求头
+     * @param method HTTP方法
+     * @param canonicalUri 已编码的路径
+     * @param query 查询参数（未编码），无值的参数值为空字符串
+     * @param headers 参与签名的请求头（需包含 host、x-amz-date、x-amz-content-sha256）
+     * @param payloadHash 请求体SHA256，或 UNSIGNED-PAYLOAD
+     * @param amzDate 请求时间，格式 yyyyMMdd'T'HHmmss'Z'
+     */
+    public String authorization(String method, String canonicalUri, Map<String, String> query,
+                                Map<String, String> headers, String payloadHash, String amzDate) {
+        TreeMap<String, String> sortedHeaders = new TreeMap<>();
+        headers.forEach((name, value) -> sortedHeaders.put(name.toLowerCase(), value.trim()));
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        StringJoiner signedHeaders = new StringJoiner(";");
+        sortedHeaders.forEach((name, value) -> {
+            canonicalHeaders.append(name).append(':').append(value).append('\n');
+            signedHeaders.add(name);
+        });
+
+        StringJoiner canonicalQuery = new StringJoiner("&");
+        new TreeMap<>(query).forEach((name, value) -> canonicalQuery.add(encode(name, true) + "=" + encode(value, true)));
+
+        String canonicalRequest = method + "\n" + canonicalUri + "\n" + canonicalQuery + "\n"
+                + canonicalHeaders + "\n" + signedHeaders + "\n" + payloadHash;
+
+        String date = amzDate.substring(0, 8);
+        String scope = date + "/" + region + "/" + SERVICE + "/aws4_request";
+        String stringToSign = ALGORITHM + "\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, SERVICE);
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return ALGORITHM + " Credential=" + accessKey + "/" + scope
+                + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature;
+    }
+
+    /**
+     * RFC 3986 编码，路径中的 "/" 可保留
+     */
+    public static String encode(String value, boolean encodeSlash) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~' || (c == '/' && !encodeSlash)) {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xff));
+            }
+        }
+        return encoded.toString();
+    }
+
+    public static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.backend.report;
+
+import com.example.backend.exception.BusinessException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 分页SQL方言
+ *
+ * 在已绑定参数的模板SQL上追加分页子句，偏移量和行数以占位符追加到参数末尾，数据库只返回当前页的数据。
+ * SQL本身没有顶层分页子句时直接追加（结果中有同名列时也能执行），已有分页子句时包装为子查询后再分页。
+ * 与 buildJdbcUrl 支持的数据源类型一一对应：1-MySQL 2-PostgreSQL 3-Oracle（12c及以上） 4-SQLServer
+ */
+public enum SqlPageDialect {
+
+    MYSQL {
+        @Override
+        String pageSql(String sql) {
+            return limitOffset(sql);
+        }
+
+        @Override
+        boolean limitFirst() {
+            return true;
+        }
+    },
+
+    POSTGRESQL {
+        @Override
+        String pageSql(String sql) {
+            return limitOffset(sql);
+        }
+
+        @Override
+        boolean limitFirst() {
+            return true;
+        }
+    },
+
+    ORACLE {
+        @Override
+        String pageSql(String sql) {
+            if (!hasTopLevelLimit(sql)) {
+                return sql + "\nOFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+            }
+            return "SELECT * FROM (" + sql + "\n) OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+        }
+    },
+
+    SQLSERVER {
+        /**
+         * SQL Server 的子查询中不能单独使用 ORDER BY，也不能包含 WITH，分页子句直接追加在语句末尾；
+         * OFFSET 必须跟在 ORDER BY 之后，没有顶层排序时按 (SELECT NULL) 排序（不改变返回顺序）
+         */
+        @Override
+        String pageSql(String sql) {
+            String orderBy = hasTopLevelOrderBy(sql) ? "" : "\nORDER BY (SELECT NULL)";
+            return sql + orderBy + "\nOFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+        }
+    };
+
+    /**
+     * 按数据源类型获取方言
+     * @throws BusinessException 数据源类型不支持分页查询时抛出
+     */
+    public static SqlPageDialect of(Integer datasourceType) {
+        if (datasourceType != null) {
+            switch (datasourceType) {
+                case 1:
+                    return MYSQL;
+                case 2:
+                    return POSTGRESQL;
+                case 3:
+                    return ORACLE;
+                case 4:
+                    return SQLSERVER;
+                default:
+                    break;
+            }
+        }
+        throw new BusinessException("该数据源类型不支持分页查询");
+    }
+
+    /**
+     * 追加分页子句
+     * @param boundSql 已绑定参数的SQL
+     * @param offset 跳过的行数
+     * @param limit 返回的最大行数
+     */
+    public ParsedSql.BoundSql page(ParsedSql.BoundSql boundSql, long offset, int limit) {
+        Object[] source = boundSql.getArgs();
+        Object[] args = Arrays.copyOf(source, source.length + 2);
+        args[source.length] = limitFirst() ? limit : offset;
+        args[source.length + 1] = limitFirst() ? offset : limit;
+        return new ParsedSql.BoundSql(pageSql(trimStatement(boundSql.getSql())), args);
+    }
+
+    abstract String pageSql(String sql);
+
+    /**
+     * 行数占位符是否在偏移量之前
+     */
+    boolean limitFirst() {
+        return false;
+    }
+
+    /**
+     * 去掉末尾的分号和空白，使分页子句可以追加在语句末尾或包装为子查询
+     */
+    static String trimStatement(String sql) {
+        int end = sql.length();
+        while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+            end--;
+        }
+        return sql.substring(0, end);
+    }
+
+    /**
+     * LIMIT/OFFSET 分页（MySQL、PostgreSQL）
+     */
+    private static String limitOffset(String sql) {
+        if (!hasTopLevelLimit(sql)) {
+            return sql + "\nLIMIT ? OFFSET ?";
+        }
+        return "SELECT * FROM (" + sql + "\n) page_t LIMIT ? OFFSET ?";
+    }
+
+    /**
+     * 是否包含顶层的分页子句（LIMIT、OFFSET 或 FETCH）
+     */
+    static boolean hasTopLevelLimit(String sql) {
+        List<String> words = topLevelWords(sql);
+        return words.contains("LIMIT") || words.contains("OFFSET") || words.contains("FETCH");
+    }
+
+    /**
+     * 是否包含顶层的 ORDER BY
+     */
+    static boolean hasTopLevelOrderBy(String sql) {
+        List<String> words = topLevelWords(sql);
+        for (int i = 0; i + 1 < words.size(); i++) {
+            if ("ORDER".equals(words.get(i)) && "BY".equals(words.get(i + 1))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 顶层（不在括号、字符串、带引号的标识符和注释中）的单词，转为大写
+     */
+    private static List<String> topLevelWords(String sql) {
+        List<String> words = new ArrayList<>();
+        int length = sql.length();
+        int depth = 0;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`' || c == '[') {
+                char close = c == '[' ? ']' : c;
+                int end = sql.indexOf(close, i + 1);
+                i = end < 0 ? length : end + 1;
+            } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? length : end;
+            } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (isWordChar(c)) {
+                int end = i + 1;
+                while (end < length && isWordChar(sql.charAt(end))) {
+                    end++;
+                }
+                if (depth == 0) {
+                    words.add(sql.substring(i, end).toUpperCase(Locale.ROOT));
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return words;
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '@' || c == '#';
+    }
+}
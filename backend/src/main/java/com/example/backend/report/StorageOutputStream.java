@@ -0,0 +1,53 @@
+package com.example.backend.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 报表存储的写入流
+ * close() 提交文件（写入完成后文件可读），写入失败时调用 abort() 放弃，不发布不完整的文件
+ */
+public abstract class StorageOutputStream extends OutputStream {
+
+    /**
+     * 放弃写入：丢弃已写入的数据（S3取消分片上传，本地删除文件），之后 close() 不再提交；已关闭时忽略
+     */
+    public abstract void abort();
+
+    /**
+     * 关闭时只刷新不提交的视图，交给会在异常时关闭输出流的写入器；
+     * 由调用方在写入成功后 close() 提交，失败时 abort()
+     */
+    public OutputStream uncommitted() {
+        return new UncommittedView(this);
+    }
+
+    private static final class UncommittedView extends OutputStream {
+
+        private final StorageOutputStream target;
+
+        UncommittedView(StorageOutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.flush();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.backend.report;
+
+import cn.hutool.core.util.StrUtil;
+import com.example.backend.entity.ReportTemplate;
+import com.example.backend.mapper.ReportTemplateMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 模板字段布局缓存
+ *
+ * 按模板ID缓存编译后的布局并记录模板版本，模板保存后版本号递增，下次生成时重新读取；
+ * 模板修改或删除时移除该模板的条目，已删除模板的布局不会一直留在内存中。
+ * 未命中时读取模板的 compiled_layout 列；升级前保存的模板该列为空，按模板配置现场编译
+ */
+@Component
+public class TemplateLayoutCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateLayoutCache.class);
+
+    @Autowired
+    private ReportTemplateMapper templateMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 获取模板的字段布局
+     * @param template 模板（需包含ID、版本号和模板配置）
+     */
+    public CompiledTemplateLayout get(ReportTemplate template) {
+        if (template.getId() == null) {
+            return CompiledTemplateLayout.compile(template.getTemplateConfig());
+        }
+        Entry entry = entries.get(template.getId());
+        if (entry != null && Objects.equals(entry.version, template.getVersion())) {
+            return entry.layout;
+        }
+        CompiledTemplateLayout layout = load(template);
+        entries.put(template.getId(), new Entry(template.getVersion(), layout));
+        return layout;
+    }
+
+    /**
+     * 移除模板的缓存布局
+     */
+    public void invalidate(Long templateId) {
+        entries.remove(templateId);
+    }
+
+    private CompiledTemplateLayout load(ReportTemplate template) {
+        try {
+            String json = templateMapper.selectCompiledLayout(template.getId());
+            if (StrUtil.isNotBlank(json)) {
+                return objectMapper.readValue(json, CompiledTemplateLayout.class);
+            }
+        } catch (Exception e) {
+            logger.warn("读取模板编译布局失败，按模板配置重新编译: templateId={}", template.getId(), e);
+        }
+        return CompiledTemplateLayout.compile(template.getTemplateConfig());
+    }
+
+    private static final class Entry {
+
+        private final Integer version;
+        private final CompiledTemplateLayout layout;
+
+        Entry(Integer version, CompiledTemplateLayout layout) {
+            this.version = version;
+            this.layout = layout;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.backend.report;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热门模板排行榜（Redis有序集合）
+ *
+ * 全局排行榜和每个用户的排行榜分别保存模板成功生成次数，生成成功时递增。
+ * 排行榜只在已存在时递增，不存在时由调用方从统计表重建，避免只含部分计数的排行榜被当作完整结果；
+ * 排行榜按TTL过期后重新从统计表重建，修正与统计表之间的偏差。Redis不可用时返回 null，由调用方查询数据库。
+ */
+@Component
+public class TemplateLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemplateLeaderboard.class);
+
+    private static final String GLOBAL_KEY = "report:leaderboard:template";
+
+    private static final String USER_KEY_PREFIX = "report:leaderboard:template:user:";
+
+    /**
+     * 排行榜存在时才递增
+     */
+    private static final DefaultRedisScript<Long> INCREMENT_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then "
+                    + "redis.call('ZINCRBY', KEYS[1], ARGV[2], ARGV[1]) return 1 end return 0", Long.class);
+
+    @Value("${report.leaderboard.ttl:86400}")
+    private long ttl;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 调整模板的成功生成次数（全局排行榜和用户排行榜）
+     * @param templateId 模板ID
+     * @param userId 生成人ID，为空时只调整全局排行榜
+     * @param delta 增量，删除成功记录时为负数
+     */
+    public void increment(Long templateId, Long userId, long delta) {
+        if (redisTemplate == null || templateId == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute(INCREMENT_IF_EXISTS, Collections.singletonList(GLOBAL_KEY), templateId, delta);
+            if (userId != null) {
+                redisTemplate.execute(INCREMENT_IF_EXISTS, Collections.singletonList(key(userId)), templateId, delta);
+            }
+        } catch (Exception e) {
+            logger.warn("更新模板排行榜失败: templateId={}, {}", templateId, e.getMessage());
+        }
+    }
+
+    /**
+     * 读取排行榜
+     * @param userId 用户ID，为空时读取全局排行榜
+     * @return 按次数降序排列的模板ID及次数；排行榜不存在或Redis不可用时返回 null
+     */
+    public Map<Long, Long> ranking(Long userId) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> tuples =
+                    redisTemplate.opsForZSet().reverseRangeWithScores(key(userId), 0, -1);
+            if (tuples == null || tuples.isEmpty()) {
+                // 空排行榜和不存在的排行榜都按未命中处理
+                return null;
+            }
+            Map<Long, Long> ranking = new LinkedHashMap<>();
+            for (ZSetOperations.TypedTuple<Object> tuple : tuples) {
+                long score = tuple.getScore() != null ? tuple.getScore().longValue() : 0L;
+                if (tuple.getValue() instanceof Number templateId && score > 0) {
+                    ranking.put(templateId.longValue(), score);
+                }
+            }
+            return ranking;
+        } catch (Exception e) {
+            logger.warn("读取模板排行榜失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 用统计表中的次数重建排行榜
+     * @param userId 用户ID，为空时重建全局排行榜
+     * @param counts 模板ID及成功生成次数
+     */
+    public void rebuild(Long userId, Map<Long, Long> counts) {
+        if (redisTemplate == null || counts.isEmpty()) {
+            return;
+        }
+        try {
+            Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+            counts.forEach((templateId, count) ->
+                    tuples.add(ZSetOperations.TypedTuple.of(templateId, count.doubleValue())));
+            String key = key(userId);
+            redisTemplate.delete(key);
+            redisTemplate.opsForZSet().add(key, tuples);
+            redisTemplate.expire(key, ttl, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            logger.warn("重建模板排行榜失败: {}", e.getMessage());
+        }
+    }
+
+    private static String key(Long userId) {
+        return userId == null ? GLOBAL_KEY : USER_KEY_PREFIX + userId;
+    }
+}
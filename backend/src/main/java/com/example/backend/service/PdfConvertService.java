@@ -1,11 +1,14 @@
 package com.example.backend.service;
 
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.PdfReportWriter;
+
 import java.io.InputStream;
 import java.io.OutputStream;
 
 /**
  * PDF转换服务接口
- * 负责将Excel文件转换为PDF格式
+ * 负责将Excel文件转换为PDF格式，以及创建直接输出PDF的报表写入器
  */
 public interface PdfConvertService {
 
@@ -24,4 +27,18 @@ public interface PdfConvertService {
      * @throws com.example.backend.exception.BusinessException 转换失败时抛出
      */
     void convertExcelToPdf(InputStream excelInputStream, OutputStream pdfOutputStream);
+
+    /**
+     * 创建直接从查询结果流式写入PDF的报表写入器（不经过中间Excel文件）
+     * @param pdfPath 输出PDF文件路径
+     * @param layout 设计器字段布局，为空时输出全部列
+     */
+    PdfReportWriter createReportWriter(String pdfPath, CompiledTemplateLayout layout);
+
+    /**
+     * 创建写入输出流的PDF报表写入器，写入器关闭时一并关闭输出流
+     * @param outputStream PDF输出流
+     * @param layout 设计器字段布局，为空时输出全部列
+     */
+    PdfReportWriter createReportWriter(OutputStream outputStream, CompiledTemplateLayout layout);
 }
@@ -1,6 +1,8 @@
 package com.example.backend.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 权限服务接口
@@ -85,4 +87,17 @@ public interface PermissionService {
      * @return 权限数组 [canView, canGenerate, canDownload, canEdit]
      */
     boolean[] getTemplatePermissions(Long templateId);
+
+    /**
+     * 批量获取当前用户对多个模板的所有权限
+     * @param templateIds 模板ID集合
+     * @return 模板ID → 权限数组 [canView, canGenerate, canDownload, canEdit]
+     */
+    Map<Long, boolean[]> getTemplatePermissions(Collection<Long> templateIds);
+
+    /**
+     * 清除用户的权限缓存（角色、角色权限或用户角色变更后调用），并通知其他节点
+     * @param userId 用户ID，为空时清除所有用户
+     */
+    void evictPermissionCache(Long userId);
 }
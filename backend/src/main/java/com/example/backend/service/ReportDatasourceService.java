@@ -3,6 +3,9 @@ package com.example.backend.service;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.example.backend.dto.ReportDatasourceDTO;
 import com.example.backend.entity.ReportDatasource;
+import com.example.backend.report.QueryOptions;
+import com.example.backend.report.ReportRowHandler;
+import com.example.backend.vo.DatasourcePoolStatsVO;
 import com.example.backend.vo.ReportDatasourceVO;
 
 import java.util.List;
@@ -48,6 +51,42 @@ public interface ReportDatasourceService extends IService<ReportDatasource> {
      */
     List<Map<String, Object>> executeQuery(Long datasourceId, String sql, Map<String, Object> params);
 
+    /**
+     * 流式执行SQL查询（用于大数据量报表生成）
+     * 使用服务端游标按 fetchSize 分批读取，数据按批次回调给处理器，读取过程中检查行数上限；
+     * 超过超时时间的SQL由驱动中止，带查询标识的查询可以通过 {@link #cancelQuery(Long)} 取消
+     * @param datasourceId 数据源ID
+     * @param sql 查询SQL
+     * @param params SQL参数
+     * @param options 执行选项（行数上限、批次大小、拉取行数、超时时间、查询标识）
+     * @param handler 数据行处理器
+     * @return 读取的总行数
+     */
+    long executeStreamQuery(Long datasourceId, String sql, Map<String, Object> params,
+                            QueryOptions options, ReportRowHandler handler);
+
+    /**
+     * 分页执行SQL查询（用于数据预览）
+     * 按数据源类型包装分页子句，数据库只返回当前页的数据，结果按一个批次回调给处理器
+     * @param datasourceId 数据源ID
+     * @param sql 查询SQL
+     * @param params SQL参数
+     * @param offset 跳过的行数
+     * @param limit 返回的最大行数
+     * @param options 执行选项（超时时间）
+     * @param handler 数据行处理器
+     * @return 读取的行数
+     */
+    long executePageQuery(Long datasourceId, String sql, Map<String, Object> params, long offset, int limit,
+                          QueryOptions options, ReportRowHandler handler);
+
+    /**
+     * 取消正在执行的流式查询（调用 Statement.cancel()）
+     * @param queryId 查询标识
+     * @return 查询正在执行时返回 true
+     */
+    boolean cancelQuery(Long queryId);
+
     /**
      * 获取数据源的表列表
      */
@@ -57,4 +96,9 @@ public interface ReportDatasourceService extends IService<ReportDatasource> {
      * 获取表的字段列表
      */
     List<Map<String, Object>> getTableColumns(Long datasourceId, String tableName);
+
+    /**
+     * 获取已创建的数据源连接池状态
+     */
+    List<DatasourcePoolStatsVO> getPoolStats();
 }
@@ -3,10 +3,14 @@ package com.example.backend.service;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.example.backend.dto.ReportGenerateDTO;
+import com.example.backend.dto.ReportPreviewDataDTO;
 import com.example.backend.dto.ReportRecordQueryDTO;
 import com.example.backend.entity.ReportRecord;
+import com.example.backend.report.GeneratePriority;
+import com.example.backend.vo.ReportPreviewDataVO;
 import com.example.backend.vo.ReportRecordVO;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 /**
@@ -19,20 +23,37 @@ public interface ReportGenerateService extends IService<ReportRecord> {
      */
     ReportRecordVO generateReport(ReportGenerateDTO generateDTO);
 
+    /**
+     * 按指定优先级生成报表（同步等待生成调度器执行完成）
+     */
+    ReportRecordVO generateReport(ReportGenerateDTO generateDTO, GeneratePriority priority);
+
     /**
      * 生成报表（异步）
+     * @return 报表记录ID
      */
     Long generateReportAsync(ReportGenerateDTO generateDTO);
 
     /**
-     * 预览报表
+     * 取消排队中或生成中的报表
+     */
+    void cancelGenerate(Long recordId);
+
+    /**
+     * 分页预览报表数据（不生成文件）
+     * 按模板SQL和参数只查询当前页的数据，相同模板、参数和页码的结果短时间内直接返回
+     */
+    ReportPreviewDataVO previewData(ReportPreviewDataDTO previewDTO);
+
+    /**
+     * 预览报表（支持 Range 和条件请求）
      */
-    void previewReport(Long recordId, HttpServletResponse response);
+    void previewReport(Long recordId, HttpServletRequest request, HttpServletResponse response);
 
     /**
-     * 下载报表
+     * 下载报表（支持 Range 断点续传和条件请求）
      */
-    void downloadReport(Long recordId, HttpServletResponse response);
+    void downloadReport(Long recordId, HttpServletRequest request, HttpServletResponse response);
 
     /**
      * 查询生成记录
@@ -0,0 +1,30 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.ReportRecord;
+
+/**
+ * 报表生成记录统计服务接口
+ * 在生成记录状态变化时增量维护日统计表，仪表盘统计从日统计表查询
+ */
+public interface ReportRecordStatService {
+
+    /**
+     * 创建生成记录后调用，累加生成次数
+     */
+    void recordCreated(ReportRecord record);
+
+    /**
+     * 生成成功或失败后调用，累加成功/失败次数、文件大小和耗时
+     */
+    void recordFinished(ReportRecord record);
+
+    /**
+     * 下载报表后调用，累加下载次数（先在内存中累加，定时批量写入）
+     */
+    void recordDownloaded(ReportRecord record);
+
+    /**
+     * 删除生成记录后调用，扣减该记录计入的所有统计
+     */
+    void recordDeleted(ReportRecord record);
+}
@@ -0,0 +1,32 @@
+package com.example.backend.service;
+
+/**
+ * 生成文件保留与清理服务接口
+ * 由定时任务在单个执行器上调用，各步骤按批次处理，中途失败时下次执行继续
+ */
+public interface ReportRetentionService {
+
+    /**
+     * 删除超过保留天数的生成记录及其文件（模板未配置保留天数时使用全局配置）
+     * @return 删除的记录数
+     */
+    int purgeExpiredRecords();
+
+    /**
+     * 将超过压缩天数的CSV文件压缩为 .csv.gz，下载时以gzip编码发送
+     * @return 压缩的文件数
+     */
+    int compressOldFiles();
+
+    /**
+     * 清理存储中没有生成记录或模板引用的文件（超过宽限期的才清理，避免误删正在生成的文件）
+     * @return 删除的文件数
+     */
+    int sweepOrphanFiles();
+
+    /**
+     * 清理临时目录中过期的文件（如PDF转换失败保留的临时Excel）
+     * @return 删除的文件数
+     */
+    int cleanTempFiles();
+}
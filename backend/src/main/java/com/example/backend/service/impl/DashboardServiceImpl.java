@@ -1,16 +1,19 @@
 package com.example.backend.service.impl;
 
-import cn.dev33.satoken.stp.StpUtil;
 import cn.hutool.core.bean.BeanUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.example.backend.common.UserContext;
 import com.example.backend.entity.ReportDatasource;
 import com.example.backend.entity.ReportRecord;
+import com.example.backend.entity.ReportRecordDailyStat;
 import com.example.backend.entity.ReportSchedule;
 import com.example.backend.entity.ReportTemplate;
 import com.example.backend.mapper.ReportDatasourceMapper;
+import com.example.backend.mapper.ReportRecordDailyStatMapper;
 import com.example.backend.mapper.ReportRecordMapper;
 import com.example.backend.mapper.ReportScheduleMapper;
 import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.TemplateLeaderboard;
 import com.example.backend.service.DashboardService;
 import com.example.backend.service.PermissionService;
 import com.example.backend.vo.DashboardStatsVO;
@@ -21,11 +24,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,6 +47,9 @@ public class DashboardServiceImpl implements DashboardService {
     @Autowired
     private ReportRecordMapper reportRecordMapper;
 
+    @Autowired
+    private ReportRecordDailyStatMapper dailyStatMapper;
+
     @Autowired
     private ReportDatasourceMapper reportDatasourceMapper;
 
@@ -49,11 +59,14 @@ public class DashboardServiceImpl implements DashboardService {
     @Autowired
     private PermissionService permissionService;
 
+    @Autowired
+    private TemplateLeaderboard templateLeaderboard;
+
     @Override
     public DashboardStatsVO getStats() {
         DashboardStatsVO stats = new DashboardStatsVO();
         boolean isAdmin = permissionService.isCurrentUserAdmin();
-        Long currentUserId = StpUtil.getLoginIdAsLong();
+        Long currentUserId = UserContext.getUserId();
 
         // 统计模板总数（管理员看所有，普通用户看有权限的）
         if (isAdmin) {
@@ -74,15 +87,6 @@ public class DashboardServiceImpl implements DashboardService {
             }
         }
 
-        // 统计报表总数（管理员看所有，普通用户看自己创建的）
-        if (isAdmin) {
-            stats.setReportCount(reportRecordMapper.selectCount(null));
-        } else {
-            LambdaQueryWrapper<ReportRecord> recordWrapper = new LambdaQueryWrapper<>();
-            recordWrapper.eq(ReportRecord::getCreateBy, currentUserId);
-            stats.setReportCount(reportRecordMapper.selectCount(recordWrapper));
-        }
-
         // 统计数据源总数（只有管理员能看数据源）
         if (isAdmin) {
             stats.setDatasourceCount(reportDatasourceMapper.selectCount(null));
@@ -99,32 +103,14 @@ public class DashboardServiceImpl implements DashboardService {
             stats.setScheduleCount(reportScheduleMapper.selectCount(scheduleWrapper));
         }
 
-        // 今日生成报表数
-        LocalDateTime todayStart = LocalDate.now().atStartOfDay();
-        LambdaQueryWrapper<ReportRecord> todayWrapper = new LambdaQueryWrapper<>();
-        todayWrapper.ge(ReportRecord::getCreateTime, todayStart);
-        if (!isAdmin) {
-            todayWrapper.eq(ReportRecord::getCreateBy, currentUserId);
-        }
-        stats.setTodayReportCount(reportRecordMapper.selectCount(todayWrapper));
-
-        // 本周生成报表数
-        LocalDateTime weekStart = LocalDate.now().minusDays(LocalDate.now().getDayOfWeek().getValue() - 1).atStartOfDay();
-        LambdaQueryWrapper<ReportRecord> weekWrapper = new LambdaQueryWrapper<>();
-        weekWrapper.ge(ReportRecord::getCreateTime, weekStart);
-        if (!isAdmin) {
-            weekWrapper.eq(ReportRecord::getCreateBy, currentUserId);
-        }
-        stats.setWeekReportCount(reportRecordMapper.selectCount(weekWrapper));
-
-        // 本月生成报表数
-        LocalDateTime monthStart = LocalDate.now().withDayOfMonth(1).atStartOfDay();
-        LambdaQueryWrapper<ReportRecord> monthWrapper = new LambdaQueryWrapper<>();
-        monthWrapper.ge(ReportRecord::getCreateTime, monthStart);
-        if (!isAdmin) {
-            monthWrapper.eq(ReportRecord::getCreateBy, currentUserId);
-        }
-        stats.setMonthReportCount(reportRecordMapper.selectCount(monthWrapper));
+        // 报表总数及今日、本周、本月生成数从日统计表一次查询（管理员看所有，普通用户看自己创建的）
+        LocalDate today = LocalDate.now();
+        Map<String, Object> summary = dailyStatMapper.selectGenerateSummary(isAdmin ? null : currentUserId,
+                today, today.minusDays(today.getDayOfWeek().getValue() - 1), today.withDayOfMonth(1));
+        stats.setReportCount(longValue(summary, "total_count"));
+        stats.setTodayReportCount(longValue(summary, "today_count"));
+        stats.setWeekReportCount(longValue(summary, "week_count"));
+        stats.setMonthReportCount(longValue(summary, "month_count"));
 
         return stats;
     }
@@ -132,7 +118,7 @@ public class DashboardServiceImpl implements DashboardService {
     @Override
     public List<ReportRecordVO> getRecentReports(int limit) {
         boolean isAdmin = permissionService.isCurrentUserAdmin();
-        Long currentUserId = StpUtil.getLoginIdAsLong();
+        Long currentUserId = UserContext.getUserId();
 
         LambdaQueryWrapper<ReportRecord> wrapper = new LambdaQueryWrapper<>();
         // 非管理员只能看自己创建的记录
@@ -156,46 +142,25 @@ public class DashboardServiceImpl implements DashboardService {
     @Override
     public List<ReportTemplateVO> getPopularTemplates(int limit) {
         boolean isAdmin = permissionService.isCurrentUserAdmin();
-        Long currentUserId = StpUtil.getLoginIdAsLong();
 
-        // 按生成次数统计模板使用情况
-        LambdaQueryWrapper<ReportRecord> wrapper = new LambdaQueryWrapper<>();
-        wrapper.select(ReportRecord::getTemplateId);
-        // 非管理员只统计自己创建的记录
-        if (!isAdmin) {
-            wrapper.eq(ReportRecord::getCreateBy, currentUserId);
-        }
-        List<ReportRecord> records = reportRecordMapper.selectList(wrapper);
-
-        // 统计每个模板的使用次数
-        Map<Long, Long> countMap = records.stream()
-                .filter(r -> r.getTemplateId() != null)
-                .collect(Collectors.groupingBy(ReportRecord::getTemplateId, Collectors.counting()));
-
-        // 获取用户有权限的模板ID列表
-        List<Long> permittedTemplateIds = permissionService.getCurrentUserPermittedTemplateIds(1);
+        // 非管理员只统计自己生成的记录，只能看有权限的模板（null表示不限制）
+        Long userId = isAdmin ? null : UserContext.getUserId();
+        List<Long> permittedTemplateIds = isAdmin ? null : permissionService.getCurrentUserPermittedTemplateIds(1);
+        Map<Long, Long> ranking = rankTemplates(userId, permittedTemplateIds, limit);
+        List<Long> topTemplateIds = new ArrayList<>(ranking.keySet());
 
-        // 按使用次数排序，并过滤用户有权限的模板
-        List<Long> topTemplateIds = countMap.entrySet().stream()
-                .filter(entry -> {
-                    if (isAdmin || permittedTemplateIds == null) {
-                        return true; // 管理员或不限制的用户可以看所有
-                    }
-                    return permittedTemplateIds.contains(entry.getKey());
-                })
-                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed())
-                .limit(limit)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
-
-        // 获取模板详情
+        // 一次查询获取模板详情，按排行顺序输出
         List<ReportTemplateVO> result = new ArrayList<>();
-        for (Long templateId : topTemplateIds) {
-            ReportTemplate template = reportTemplateMapper.selectById(templateId);
-            if (template != null) {
-                ReportTemplateVO vo = BeanUtil.copyProperties(template, ReportTemplateVO.class);
-                vo.setUseCount(countMap.get(templateId).intValue());
-                result.add(vo);
+        if (!topTemplateIds.isEmpty()) {
+            Map<Long, ReportTemplate> templateMap = reportTemplateMapper.selectBatchIds(topTemplateIds).stream()
+                    .collect(Collectors.toMap(ReportTemplate::getId, Function.identity()));
+            for (Long templateId : topTemplateIds) {
+                ReportTemplate template = templateMap.get(templateId);
+                if (template != null) {
+                    ReportTemplateVO vo = BeanUtil.copyProperties(template, ReportTemplateVO.class);
+                    vo.setUseCount(ranking.get(templateId).intValue());
+                    result.add(vo);
+                }
             }
         }
 
@@ -226,111 +191,117 @@ public class DashboardServiceImpl implements DashboardService {
         return result;
     }
 
+    /**
+     * 热门模板排行：优先读取Redis排行榜，按权限集合过滤；排行榜不存在时从统计表分组查询并重建排行榜
+     * @return 按成功生成次数降序排列的模板ID及次数，最多 limit 条
+     */
+    private Map<Long, Long> rankTemplates(Long userId, List<Long> permittedTemplateIds, int limit) {
+        Map<Long, Long> ranking = new LinkedHashMap<>();
+        if (permittedTemplateIds != null && permittedTemplateIds.isEmpty()) {
+            return ranking;
+        }
+
+        Map<Long, Long> leaderboardRanking = templateLeaderboard.ranking(userId);
+        if (leaderboardRanking != null) {
+            Set<Long> permitted = permittedTemplateIds != null ? new HashSet<>(permittedTemplateIds) : null;
+            for (Map.Entry<Long, Long> entry : leaderboardRanking.entrySet()) {
+                if (ranking.size() >= limit) {
+                    break;
+                }
+                if (permitted == null || permitted.contains(entry.getKey())) {
+                    ranking.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return ranking;
+        }
+
+        // 排行榜未命中：数据库分组排序后只返回前 limit 条
+        for (ReportRecordDailyStat stat : dailyStatMapper.selectTemplateRanking(userId, permittedTemplateIds, limit)) {
+            ranking.put(stat.getTemplateId(), (long) intValue(stat.getSuccessCount()));
+        }
+
+        // 重建排行榜（不限权限和条数，所有模板的次数）
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (ReportRecordDailyStat stat : dailyStatMapper.selectTemplateRanking(userId, null, null)) {
+            counts.put(stat.getTemplateId(), (long) intValue(stat.getSuccessCount()));
+        }
+        templateLeaderboard.rebuild(userId, counts);
+        return ranking;
+    }
+
     @Override
     public ReportTrendVO getReportTrend(String period) {
         boolean isAdmin = permissionService.isCurrentUserAdmin();
-        Long currentUserId = StpUtil.getLoginIdAsLong();
-
-        ReportTrendVO trend = new ReportTrendVO();
-        List<String> dates = new ArrayList<>();
-        List<Long> counts = new ArrayList<>();
-        List<Long> downloadCounts = new ArrayList<>();
+        // 非管理员只统计自己创建的记录
+        Long userId = isAdmin ? null : UserContext.getUserId();
 
         LocalDate today = LocalDate.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd");
-
-        int days;
-        switch (period) {
-            case "month":
-                days = 30;
-                break;
-            case "year":
-                days = 365;
-                formatter = DateTimeFormatter.ofPattern("yyyy-MM");
-                break;
-            case "week":
-            default:
-                days = 7;
-                break;
+        boolean byMonth = "year".equals(period);
+        int days = "month".equals(period) ? 30 : 7;
+        LocalDate startDate = byMonth ? today.minusMonths(11).withDayOfMonth(1) : today.minusDays(days - 1);
+
+        // 从日统计表一次查询区间内每天的生成数和下载数，再按天或按月归并
+        Map<LocalDate, ReportRecordDailyStat> daily = new HashMap<>();
+        for (ReportRecordDailyStat stat : dailyStatMapper.selectDailyTotals(userId, startDate)) {
+            daily.put(stat.getStatDate(), stat);
         }
 
-        if ("year".equals(period)) {
+        List<String> dates = new ArrayList<>();
+        List<Long> counts = new ArrayList<>();
+        List<Long> downloadCounts = new ArrayList<>();
+        if (byMonth) {
             // 按月统计
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM");
             for (int i = 11; i >= 0; i--) {
                 LocalDate monthStart = today.minusMonths(i).withDayOfMonth(1);
-                LocalDate monthEnd = monthStart.plusMonths(1);
-
-                LambdaQueryWrapper<ReportRecord> wrapper = new LambdaQueryWrapper<>();
-                wrapper.ge(ReportRecord::getCreateTime, monthStart.atStartOfDay())
-                        .lt(ReportRecord::getCreateTime, monthEnd.atStartOfDay());
-                // 非管理员只统计自己创建的记录
-                if (!isAdmin) {
-                    wrapper.eq(ReportRecord::getCreateBy, currentUserId);
-                }
-                Long count = reportRecordMapper.selectCount(wrapper);
-
-                // 统计下载次数
-                LambdaQueryWrapper<ReportRecord> downloadWrapper = new LambdaQueryWrapper<>();
-                downloadWrapper.ge(ReportRecord::getCreateTime, monthStart.atStartOfDay())
-                        .lt(ReportRecord::getCreateTime, monthEnd.atStartOfDay());
-                if (!isAdmin) {
-                    downloadWrapper.eq(ReportRecord::getCreateBy, currentUserId);
+                long count = 0;
+                long downloadCount = 0;
+                for (LocalDate date = monthStart; date.isBefore(monthStart.plusMonths(1)); date = date.plusDays(1)) {
+                    ReportRecordDailyStat stat = daily.get(date);
+                    if (stat != null) {
+                        count += intValue(stat.getGenerateCount());
+                        downloadCount += intValue(stat.getDownloadCount());
+                    }
                 }
-                List<ReportRecord> records = reportRecordMapper.selectList(downloadWrapper);
-                Long downloadCount = records.stream()
-                        .mapToLong(r -> r.getDownloadCount() != null ? r.getDownloadCount() : 0)
-                        .sum();
-
                 dates.add(monthStart.format(formatter));
                 counts.add(count);
                 downloadCounts.add(downloadCount);
             }
         } else {
             // 按天统计
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM-dd");
             for (int i = days - 1; i >= 0; i--) {
                 LocalDate date = today.minusDays(i);
-                LocalDateTime dayStart = date.atStartOfDay();
-                LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
-
-                LambdaQueryWrapper<ReportRecord> wrapper = new LambdaQueryWrapper<>();
-                wrapper.ge(ReportRecord::getCreateTime, dayStart)
-                        .lt(ReportRecord::getCreateTime, dayEnd);
-                // 非管理员只统计自己创建的记录
-                if (!isAdmin) {
-                    wrapper.eq(ReportRecord::getCreateBy, currentUserId);
-                }
-                Long count = reportRecordMapper.selectCount(wrapper);
-
-                // 统计下载次数
-                LambdaQueryWrapper<ReportRecord> downloadWrapper = new LambdaQueryWrapper<>();
-                downloadWrapper.ge(ReportRecord::getCreateTime, dayStart)
-                        .lt(ReportRecord::getCreateTime, dayEnd);
-                if (!isAdmin) {
-                    downloadWrapper.eq(ReportRecord::getCreateBy, currentUserId);
-                }
-                List<ReportRecord> records = reportRecordMapper.selectList(downloadWrapper);
-                Long downloadCount = records.stream()
-                        .mapToLong(r -> r.getDownloadCount() != null ? r.getDownloadCount() : 0)
-                        .sum();
-
+                ReportRecordDailyStat stat = daily.get(date);
                 dates.add(date.format(formatter));
-                counts.add(count);
-                downloadCounts.add(downloadCount);
+                counts.add(stat != null ? (long) intValue(stat.getGenerateCount()) : 0L);
+                downloadCounts.add(stat != null ? (long) intValue(stat.getDownloadCount()) : 0L);
             }
         }
 
+        ReportTrendVO trend = new ReportTrendVO();
         trend.setDates(dates);
         trend.setCounts(counts);
         trend.setDownloadCounts(downloadCounts);
         return trend;
     }
 
+    private static long longValue(Map<String, Object> row, String column) {
+        Object value = row != null ? row.get(column) : null;
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+
+    private static int intValue(Integer value) {
+        return value != null ? value : 0;
+    }
+
     private String getStatusName(Integer status) {
         if (status == null) return "未知";
         return switch (status) {
             case 0 -> "生成中";
             case 1 -> "成功";
             case 2 -> "失败";
+            case 3 -> "已取消";
             default -> "未知";
         };
     }
@@ -1,9 +1,9 @@
 package com.example.backend.service.impl;
 
-import cn.dev33.satoken.stp.StpUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.backend.common.UserContext;
 import com.example.backend.entity.SysNotification;
 import com.example.backend.entity.User;
 import com.example.backend.mapper.SysNotificationMapper;
@@ -63,7 +63,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public Page<SysNotification> getMyNotifications(int page, int size) {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         Page<SysNotification> pageParam = new Page<>(page, size);
         LambdaQueryWrapper<SysNotification> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SysNotification::getUserId, userId)
@@ -73,7 +73,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public Long getUnreadCount() {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         LambdaQueryWrapper<SysNotification> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SysNotification::getUserId, userId)
                 .eq(SysNotification::getIsRead, 0);
@@ -82,7 +82,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public List<SysNotification> getRecentUnread(int limit) {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         LambdaQueryWrapper<SysNotification> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SysNotification::getUserId, userId)
                 .eq(SysNotification::getIsRead, 0)
@@ -93,7 +93,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public void markAsRead(Long id) {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         LambdaUpdateWrapper<SysNotification> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(SysNotification::getId, id)
                 .eq(SysNotification::getUserId, userId)
@@ -103,7 +103,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public void markAllAsRead() {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         LambdaUpdateWrapper<SysNotification> wrapper = new LambdaUpdateWrapper<>();
         wrapper.eq(SysNotification::getUserId, userId)
                 .eq(SysNotification::getIsRead, 0)
@@ -113,7 +113,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public void delete(Long id) {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         LambdaQueryWrapper<SysNotification> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SysNotification::getId, id)
                 .eq(SysNotification::getUserId, userId);
@@ -122,7 +122,7 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     public void clearRead() {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         LambdaQueryWrapper<SysNotification> wrapper = new LambdaQueryWrapper<>();
         wrapper.eq(SysNotification::getUserId, userId)
                 .eq(SysNotification::getIsRead, 1);
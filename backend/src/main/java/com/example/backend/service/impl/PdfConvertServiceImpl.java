@@ -1,15 +1,18 @@
 package com.example.backend.service.impl;
 
 import com.example.backend.exception.BusinessException;
+import com.example.backend.report.PdfFontCache;
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.PdfReportWriter;
 import com.example.backend.service.PdfConvertService;
-import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.kernel.colors.ColorConstants;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.font.PdfFont;
-import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
 import com.itextpdf.kernel.pdf.PdfWriter;
+import com.itextpdf.kernel.utils.PdfMerger;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.borders.Border;
 import com.itextpdf.layout.borders.DashedBorder;
@@ -21,23 +24,27 @@ import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
+import jakarta.annotation.PreDestroy;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * PDF转换服务实现
- * 使用Apache POI读取Excel，iText7生成PDF
+ * 使用Apache POI读取Excel，iText7生成PDF；无模板文件的报表由 PdfReportWriter 直接流式生成
  */
 @Service
 public class PdfConvertServiceImpl implements PdfConvertService {
@@ -47,6 +54,30 @@ public class PdfConvertServiceImpl implements PdfConvertService {
     private static final float DEFAULT_FONT_SIZE = 10f;
     private static final float CELL_PADDING = 5f;
 
+    /**
+     * 没有Excel单元格的位置使用浅灰色细边框
+     */
+    private static final Border EMPTY_CELL_BORDER = new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f);
+
+    private final PdfFontCache fontCache;
+
+    /**
+     * 多工作表并行转换的线程数上限，小于等于1时按顺序转换
+     */
+    @Value("${report.pdf.sheet-parallelism:4}")
+    private int sheetParallelism = 4;
+
+    private ForkJoinPool sheetPool;
+
+    @Autowired
+    public PdfConvertServiceImpl(PdfFontCache fontCache) {
+        this.fontCache = fontCache;
+    }
+
+    public PdfConvertServiceImpl() {
+        this(new PdfFontCache());
+    }
+
     @Override
     public void convertExcelToPdf(String excelPath, String pdfPath) {
         File excelFile = new File(excelPath);
@@ -68,28 +99,18 @@ public class PdfConvertServiceImpl implements PdfConvertService {
     @Override
     public void convertExcelToPdf(InputStream excelInputStream, OutputStream pdfOutputStream) {
         try (Workbook workbook = new XSSFWorkbook(excelInputStream)) {
-            PdfWriter writer = new PdfWriter(pdfOutputStream);
-            PdfDocument pdfDoc = new PdfDocument(writer);
-            Document document = new Document(pdfDoc, PageSize.A4.rotate());
-            document.setMargins(20, 20, 20, 20);
-
-            // Create font for this specific PDF document (fonts cannot be shared across documents)
-            PdfFont chineseFont = createChineseFont();
-
+            List<Integer> sheetIndexes = new ArrayList<>();
             for (int sheetIndex = 0; sheetIndex < workbook.getNumberOfSheets(); sheetIndex++) {
-                Sheet sheet = workbook.getSheetAt(sheetIndex);
-                if (sheet.getPhysicalNumberOfRows() == 0) {
-                    continue;
-                }
-
-                if (sheetIndex > 0) {
-                    document.add(new com.itextpdf.layout.element.AreaBreak());
+                if (workbook.getSheetAt(sheetIndex).getPhysicalNumberOfRows() > 0) {
+                    sheetIndexes.add(sheetIndex);
                 }
-
-                processSheet(document, sheet, chineseFont);
             }
 
-            document.close();
+            if (sheetParallelism > 1 && sheetIndexes.size() > 1) {
+                convertSheetsInParallel(workbook, sheetIndexes, pdfOutputStream);
+            } else {
+                convertSheets(workbook, sheetIndexes, pdfOutputStream);
+            }
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -99,159 +120,120 @@ public class PdfConvertServiceImpl implements PdfConvertService {
     }
 
     /**
-     * 创建中文字体（每个PDF文档需要独立的字体实例）
-     * 按优先级尝试加载字体：
-     * 1. 系统字体 (SimSun/SimHei)
-     * 2. 类路径下的嵌入字体
-     * 3. iText内置的CJK字体 (STSong-Light)
-     * 4. 默认字体作为最后备用
+     * 按顺序将工作表写入同一个PDF文档，每个工作表从新的一页开始
      */
-    private PdfFont createChineseFont() {
-        // 1. 尝试加载系统字体
-        PdfFont font = tryLoadSystemFonts();
-        if (font != null) {
-            return font;
-        }
-
-        // 2. 尝试加载类路径下的嵌入字体
-        font = tryLoadClasspathFonts();
-        if (font != null) {
-            return font;
-        }
-
-        // 3. 使用iText内置的CJK字体作为备用
-        font = tryLoadBuiltInCjkFonts();
-        if (font != null) {
-            return font;
+    private void convertSheets(Workbook workbook, List<Integer> sheetIndexes, OutputStream pdfOutputStream) {
+        PdfWriter writer = new PdfWriter(pdfOutputStream);
+        PdfDocument pdfDoc = new PdfDocument(writer);
+        Document document = new Document(pdfDoc, PageSize.A4.rotate());
+        document.setMargins(20, 20, 20, 20);
+
+        // Create font for this specific PDF document (fonts cannot be shared across documents)
+        PdfFont chineseFont = fontCache.createFont();
+        StyleCache styleCache = new StyleCache(workbook);
+
+        for (int i = 0; i < sheetIndexes.size(); i++) {
+            if (i > 0) {
+                document.add(new com.itextpdf.layout.element.AreaBreak());
+            }
+            processSheet(document, snapshotSheet(workbook.getSheetAt(sheetIndexes.get(i)), styleCache), chineseFont);
         }
 
-        // 4. 最后备用：使用默认字体
-        return createDefaultFont();
+        document.close();
     }
 
     /**
-     * 尝试加载系统字体 (SimSun/SimHei)
+     * 多工作表并行转换：每个工作表在线程池中渲染为独立的PDF片段，再按工作表顺序合并
+     * POI工作簿不是线程安全的（样式表、共享字符串等在工作表间共享），单元格值、合并区域和样式
+     * 由调用线程读取为工作表快照，共用同一个样式缓存；工作线程只做iText排版和渲染，字体按片段创建
      */
-    private PdfFont tryLoadSystemFonts() {
-        // 系统字体路径列表，按优先级排序
-        String[][] systemFontPaths = {
-            // Windows系统字体
-            {"C:/Windows/Fonts/simsun.ttc,0", "SimSun"},
-            {"C:/Windows/Fonts/simhei.ttf", "SimHei"},
-            {"C:/Windows/Fonts/msyh.ttc,0", "Microsoft YaHei"},
-            {"C:/Windows/Fonts/msyhbd.ttc,0", "Microsoft YaHei Bold"},
-            // Linux系统字体
-            {"/usr/share/fonts/truetype/wqy/wqy-zenhei.ttc,0", "WenQuanYi Zen Hei"},
-            {"/usr/share/fonts/truetype/wqy/wqy-microhei.ttc,0", "WenQuanYi Micro Hei"},
-            {"/usr/share/fonts/opentype/noto/NotoSansCJK-Regular.ttc,0", "Noto Sans CJK"},
-            {"/usr/share/fonts/truetype/droid/DroidSansFallbackFull.ttf", "Droid Sans Fallback"},
-            // macOS系统字体
-            {"/System/Library/Fonts/PingFang.ttc,0", "PingFang SC"},
-            {"/System/Library/Fonts/STHeiti Light.ttc,0", "STHeiti Light"},
-            {"/Library/Fonts/Songti.ttc,0", "Songti SC"}
-        };
+    private void convertSheetsInParallel(Workbook workbook, List<Integer> sheetIndexes,
+                                         OutputStream pdfOutputStream) throws IOException {
+        ForkJoinPool pool = getSheetPool();
+        StyleCache styleCache = new StyleCache(workbook);
+        List<ForkJoinTask<byte[]>> fragments = new ArrayList<>(sheetIndexes.size());
+        try {
+            for (Integer sheetIndex : sheetIndexes) {
+                // 读取下一个工作表时，已提交的工作表在线程池中渲染
+                SheetSnapshot snapshot = snapshotSheet(workbook.getSheetAt(sheetIndex), styleCache);
+                fragments.add(pool.submit(() -> renderSheet(snapshot)));
+            }
 
-        for (String[] fontInfo : systemFontPaths) {
-            String fontPath = fontInfo[0];
-            String fontName = fontInfo[1];
-            try {
-                File fontFile = new File(fontPath.contains(",") ? fontPath.substring(0, fontPath.lastIndexOf(",")) : fontPath);
-                if (fontFile.exists()) {
-                    PdfFont font = PdfFontFactory.createFont(fontPath, PdfEncodings.IDENTITY_H,
-                            PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-                    logger.info("成功加载系统中文字体: {} ({})", fontName, fontPath);
-                    return font;
+            PdfDocument pdfDoc = new PdfDocument(new PdfWriter(pdfOutputStream));
+            PdfMerger merger = new PdfMerger(pdfDoc);
+            for (ForkJoinTask<byte[]> fragment : fragments) {
+                byte[] bytes = joinFragment(fragment);
+                try (PdfDocument source = new PdfDocument(new PdfReader(new ByteArrayInputStream(bytes)))) {
+                    merger.merge(source, 1, source.getNumberOfPages());
                 }
-            } catch (Exception e) {
-                logger.debug("系统字体加载失败: {} - {}", fontName, e.getMessage());
             }
+            pdfDoc.close();
+        } catch (RuntimeException | IOException e) {
+            fragments.forEach(fragment -> fragment.cancel(true));
+            throw e;
         }
-        
-        logger.debug("未找到可用的系统中文字体");
-        return null;
     }
 
     /**
-     * 尝试加载类路径下的嵌入字体
+     * 将单个工作表快照渲染为PDF片段
      */
-    private PdfFont tryLoadClasspathFonts() {
-        String[] classpathFonts = {
-            "fonts/simsun.ttf",
-            "fonts/simhei.ttf",
-            "fonts/NotoSansSC-Regular.ttf"
-        };
+    private byte[] renderSheet(SheetSnapshot snapshot) {
+        ByteArrayOutputStream fragment = new ByteArrayOutputStream();
+        PdfDocument pdfDoc = new PdfDocument(new PdfWriter(fragment));
+        Document document = new Document(pdfDoc, PageSize.A4.rotate());
+        document.setMargins(20, 20, 20, 20);
+
+        processSheet(document, snapshot, fontCache.createFont());
+        if (pdfDoc.getNumberOfPages() == 0) {
+            // 没有可输出的列时保留一个空白页，与顺序转换的分页保持一致
+            pdfDoc.addNewPage();
+        }
+        document.close();
+        return fragment.toByteArray();
+    }
 
-        for (String fontResource : classpathFonts) {
-            try {
-                ClassPathResource resource = new ClassPathResource(fontResource);
-                if (resource.exists()) {
-                    // 将字体文件复制到临时目录
-                    Path tempFont = Files.createTempFile("font_", ".ttf");
-                    try (InputStream is = resource.getInputStream();
-                         OutputStream os = Files.newOutputStream(tempFont)) {
-                        is.transferTo(os);
-                    }
-                    
-                    PdfFont font = PdfFontFactory.createFont(tempFont.toString(), PdfEncodings.IDENTITY_H,
-                            PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
-                    logger.info("成功加载嵌入中文字体: {}", fontResource);
-                    
-                    // 注册临时文件在JVM退出时删除
-                    tempFont.toFile().deleteOnExit();
-                    return font;
-                }
-            } catch (Exception e) {
-                logger.debug("嵌入字体加载失败: {} - {}", fontResource, e.getMessage());
+    private static byte[] joinFragment(ForkJoinTask<byte[]> fragment) {
+        try {
+            return fragment.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException("PDF转换被中断");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
+            throw new BusinessException("PDF转换失败: " + cause.getMessage());
         }
-        
-        logger.debug("未找到可用的嵌入中文字体");
-        return null;
     }
 
     /**
-     * 尝试加载iText内置的CJK字体
+     * 工作表转换线程池，首次并行转换时创建
      */
-    private PdfFont tryLoadBuiltInCjkFonts() {
-        // iText内置CJK字体列表
-        String[][] builtInFonts = {
-            {"STSong-Light", "UniGB-UCS2-H"},      // 简体中文宋体
-            {"STSongStd-Light", "UniGB-UCS2-H"},   // 简体中文宋体标准
-            {"MHei-Medium", "UniCNS-UCS2-H"},      // 繁体中文黑体
-            {"MSung-Light", "UniCNS-UCS2-H"}       // 繁体中文宋体
-        };
-
-        for (String[] fontInfo : builtInFonts) {
-            String fontName = fontInfo[0];
-            String encoding = fontInfo[1];
-            try {
-                PdfFont font = PdfFontFactory.createFont(fontName, encoding,
-                        PdfFontFactory.EmbeddingStrategy.PREFER_NOT_EMBEDDED);
-                logger.info("成功加载iText内置CJK字体: {}", fontName);
-                return font;
-            } catch (Exception e) {
-                logger.debug("内置CJK字体加载失败: {} - {}", fontName, e.getMessage());
-            }
+    private synchronized ForkJoinPool getSheetPool() {
+        if (sheetPool == null) {
+            sheetPool = new ForkJoinPool(sheetParallelism);
         }
-        
-        logger.warn("无法加载任何内置CJK字体");
-        return null;
+        return sheetPool;
     }
 
-    /**
-     * 创建默认字体作为最后备用
-     */
-    private PdfFont createDefaultFont() {
-        try {
-            PdfFont font = PdfFontFactory.createFont();
-            logger.warn("使用默认字体，中文字符可能无法正确显示");
-            return font;
-        } catch (Exception e) {
-            logger.error("默认字体创建失败: {}", e.getMessage());
-            throw new BusinessException("字体初始化失败: 无法创建任何可用字体");
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (sheetPool != null) {
+            sheetPool.shutdownNow();
         }
     }
 
+    @Override
+    public PdfReportWriter createReportWriter(String pdfPath, CompiledTemplateLayout layout) {
+        return new PdfReportWriter(pdfPath, layout, fontCache.createFont());
+    }
+
+    @Override
+    public PdfReportWriter createReportWriter(OutputStream outputStream, CompiledTemplateLayout layout) {
+        return new PdfReportWriter(outputStream, layout, fontCache.createFont());
+    }
+
     /**
      * 检查当前字体是否支持中文
      * @param font 要检查的字体
@@ -277,53 +259,68 @@ public class PdfConvertServiceImpl implements PdfConvertService {
 
 
     /**
-     * 处理单个工作表
+     * 将工作表快照输出为表格
      */
-    private void processSheet(Document document, Sheet sheet, PdfFont chineseFont) {
+    private void processSheet(Document document, SheetSnapshot snapshot, PdfFont chineseFont) {
+        if (snapshot.columnWidths.length == 0) {
+            return;
+        }
+
+        Table table = new Table(UnitValue.createPointArray(snapshot.columnWidths));
+        table.setWidth(UnitValue.createPercentValue(100));
+        for (CellSnapshot cell : snapshot.cells) {
+            table.addCell(createCell(cell, chineseFont));
+        }
+
+        document.add(table);
+    }
+
+    /**
+     * 读取工作表的列宽、单元格值、合并区域和解析后的样式
+     */
+    private SheetSnapshot snapshotSheet(Sheet sheet, StyleCache styleCache) {
         int lastRowNum = sheet.getLastRowNum();
         int maxColNum = getMaxColumnNum(sheet);
         
         if (maxColNum == 0) {
-            return;
+            return new SheetSnapshot(new float[0], List.of());
         }
 
-        // 获取合并单元格信息
-        Map<String, CellRangeAddress> mergedRegions = getMergedRegions(sheet);
-        Map<String, Boolean> processedMergedCells = new HashMap<>();
+        // 合并单元格按行扫描，不再为每个单元格构造字符串键查找
+        MergedRegionIndex mergedRegions = new MergedRegionIndex(sheet, maxColNum);
 
         // 计算列宽
         float[] columnWidths = calculateColumnWidths(sheet, maxColNum);
-        Table table = new Table(UnitValue.createPointArray(columnWidths));
-        table.setWidth(UnitValue.createPercentValue(100));
+        List<CellSnapshot> cells = new ArrayList<>();
 
         for (int rowIndex = 0; rowIndex <= lastRowNum; rowIndex++) {
             Row row = sheet.getRow(rowIndex);
+            mergedRegions.startRow(rowIndex);
             
             for (int colIndex = 0; colIndex < maxColNum; colIndex++) {
-                String cellKey = rowIndex + "," + colIndex;
-                
+                CellRangeAddress mergedRegion = mergedRegions.anchorAt(colIndex);
+
                 // 检查是否是已处理的合并单元格的一部分
-                if (processedMergedCells.containsKey(cellKey)) {
+                if (mergedRegion == null && mergedRegions.isCovered(rowIndex, colIndex)) {
                     continue;
                 }
 
                 org.apache.poi.ss.usermodel.Cell excelCell = (row != null) ? row.getCell(colIndex) : null;
-                CellRangeAddress mergedRegion = mergedRegions.get(cellKey);
+                ResolvedStyle style = excelCell != null ? styleCache.get(excelCell.getCellStyle()) : null;
 
-                Cell pdfCell;
                 if (mergedRegion != null) {
                     // 处理合并单元格
-                    pdfCell = createMergedCell(excelCell, mergedRegion, sheet, chineseFont);
-                    markMergedCellsAsProcessed(mergedRegion, processedMergedCells);
+                    cells.add(new CellSnapshot(getCellValue(excelCell),
+                            mergedRegion.getLastRow() - mergedRegion.getFirstRow() + 1,
+                            mergedRegion.getLastColumn() - mergedRegion.getFirstColumn() + 1, style));
+                    mergedRegions.markMerged(mergedRegion);
                 } else {
-                    pdfCell = createCell(excelCell, chineseFont);
+                    cells.add(new CellSnapshot(getCellValue(excelCell), 1, 1, style));
                 }
-
-                table.addCell(pdfCell);
             }
         }
 
-        document.add(table);
+        return new SheetSnapshot(columnWidths, cells);
     }
 
     /**
@@ -340,19 +337,6 @@ public class PdfConvertServiceImpl implements PdfConvertService {
         return maxCol;
     }
 
-    /**
-     * 获取合并单元格区域映射
-     */
-    private Map<String, CellRangeAddress> getMergedRegions(Sheet sheet) {
-        Map<String, CellRangeAddress> mergedRegions = new HashMap<>();
-        for (int i = 0; i < sheet.getNumMergedRegions(); i++) {
-            CellRangeAddress region = sheet.getMergedRegion(i);
-            String key = region.getFirstRow() + "," + region.getFirstColumn();
-            mergedRegions.put(key, region);
-        }
-        return mergedRegions;
-    }
-
     /**
      * 计算列宽
      */
@@ -380,17 +364,12 @@ public class PdfConvertServiceImpl implements PdfConvertService {
 
 
     /**
-     * 创建合并单元格
+     * 创建单元格（合并单元格按快照中的行列跨度创建）
      */
-    private Cell createMergedCell(org.apache.poi.ss.usermodel.Cell excelCell, 
-                                   CellRangeAddress region, Sheet sheet, PdfFont chineseFont) {
-        String cellValue = getCellValue(excelCell);
-        Cell pdfCell = new Cell(
-                region.getLastRow() - region.getFirstRow() + 1,
-                region.getLastColumn() - region.getFirstColumn() + 1
-        );
+    private Cell createCell(CellSnapshot cell, PdfFont chineseFont) {
+        Cell pdfCell = new Cell(cell.rowspan, cell.colspan);
         
-        Paragraph paragraph = new Paragraph(cellValue);
+        Paragraph paragraph = new Paragraph(cell.value);
         if (chineseFont != null) {
             paragraph.setFont(chineseFont);
         }
@@ -398,41 +377,7 @@ public class PdfConvertServiceImpl implements PdfConvertService {
         pdfCell.add(paragraph);
         pdfCell.setPadding(CELL_PADDING);
         
-        applyCellStyle(pdfCell, excelCell);
-        
-        return pdfCell;
-    }
-
-    /**
-     * 标记合并单元格区域为已处理
-     */
-    private void markMergedCellsAsProcessed(CellRangeAddress region, 
-                                             Map<String, Boolean> processedCells) {
-        for (int r = region.getFirstRow(); r <= region.getLastRow(); r++) {
-            for (int c = region.getFirstColumn(); c <= region.getLastColumn(); c++) {
-                if (r != region.getFirstRow() || c != region.getFirstColumn()) {
-                    processedCells.put(r + "," + c, true);
-                }
-            }
-        }
-    }
-
-    /**
-     * 创建普通单元格
-     */
-    private Cell createCell(org.apache.poi.ss.usermodel.Cell excelCell, PdfFont chineseFont) {
-        String cellValue = getCellValue(excelCell);
-        Cell pdfCell = new Cell();
-        
-        Paragraph paragraph = new Paragraph(cellValue);
-        if (chineseFont != null) {
-            paragraph.setFont(chineseFont);
-        }
-        paragraph.setFontSize(DEFAULT_FONT_SIZE);
-        pdfCell.add(paragraph);
-        pdfCell.setPadding(CELL_PADDING);
-        
-        applyCellStyle(pdfCell, excelCell);
+        applyCellStyle(pdfCell, cell.style);
         
         return pdfCell;
     }
@@ -475,28 +420,45 @@ public class PdfConvertServiceImpl implements PdfConvertService {
 
 
     /**
-     * 应用单元格样式
+     * 应用单元格样式（样式按 CellStyle 索引解析一次后复用），没有Excel单元格时为 null
      */
-    private void applyCellStyle(Cell pdfCell, org.apache.poi.ss.usermodel.Cell excelCell) {
-        if (excelCell == null) {
-            pdfCell.setBorder(new SolidBorder(ColorConstants.LIGHT_GRAY, 0.5f));
+    private void applyCellStyle(Cell pdfCell, ResolvedStyle style) {
+        if (style == null) {
+            pdfCell.setBorder(EMPTY_CELL_BORDER);
             return;
         }
 
-        CellStyle style = excelCell.getCellStyle();
-        
-        // 应用对齐方式
-        HorizontalAlignment hAlign = style.getAlignment();
-        switch (hAlign) {
-            case CENTER -> pdfCell.setTextAlignment(TextAlignment.CENTER);
-            case RIGHT -> pdfCell.setTextAlignment(TextAlignment.RIGHT);
-            default -> pdfCell.setTextAlignment(TextAlignment.LEFT);
+        pdfCell.setTextAlignment(style.alignment);
+        pdfCell.setBorderTop(style.borderTop);
+        pdfCell.setBorderBottom(style.borderBottom);
+        pdfCell.setBorderLeft(style.borderLeft);
+        pdfCell.setBorderRight(style.borderRight);
+        if (style.background != null) {
+            pdfCell.setBackgroundColor(style.background);
         }
+    }
 
-        // 应用边框样式
-        applyBorderStyle(pdfCell, style);
+    /**
+     * 将Excel单元格样式解析为iText的对齐方式、边框和背景色
+     */
+    private ResolvedStyle resolveStyle(CellStyle style) {
+        ResolvedStyle resolved = new ResolvedStyle();
+
+        // 对齐方式
+        HorizontalAlignment hAlign = style.getAlignment();
+        resolved.alignment = switch (hAlign) {
+            case CENTER -> TextAlignment.CENTER;
+            case RIGHT -> TextAlignment.RIGHT;
+            default -> TextAlignment.LEFT;
+        };
 
-        // 应用背景色
+        // 边框样式
+        resolved.borderTop = convertBorder(style.getBorderTop(), getBorderColor(style, BorderSide.TOP));
+        resolved.borderBottom = convertBorder(style.getBorderBottom(), getBorderColor(style, BorderSide.BOTTOM));
+        resolved.borderLeft = convertBorder(style.getBorderLeft(), getBorderColor(style, BorderSide.LEFT));
+        resolved.borderRight = convertBorder(style.getBorderRight(), getBorderColor(style, BorderSide.RIGHT));
+
+        // 背景色
         short bgColorIndex = style.getFillForegroundColor();
         if (bgColorIndex != IndexedColors.AUTOMATIC.getIndex()) {
             try {
@@ -504,36 +466,14 @@ public class PdfConvertServiceImpl implements PdfConvertService {
                 if (bgColor instanceof org.apache.poi.xssf.usermodel.XSSFColor xssfColor) {
                     byte[] rgb = xssfColor.getRGB();
                     if (rgb != null && rgb.length >= 3) {
-                        pdfCell.setBackgroundColor(new DeviceRgb(
-                                rgb[0] & 0xFF, rgb[1] & 0xFF, rgb[2] & 0xFF));
+                        resolved.background = new DeviceRgb(rgb[0] & 0xFF, rgb[1] & 0xFF, rgb[2] & 0xFF);
                     }
                 }
             } catch (Exception e) {
                 // 忽略颜色转换错误
             }
         }
-    }
-
-    /**
-     * 应用边框样式
-     */
-    private void applyBorderStyle(Cell pdfCell, CellStyle style) {
-        // 获取边框颜色
-        com.itextpdf.kernel.colors.Color topColor = getBorderColor(style, BorderSide.TOP);
-        com.itextpdf.kernel.colors.Color bottomColor = getBorderColor(style, BorderSide.BOTTOM);
-        com.itextpdf.kernel.colors.Color leftColor = getBorderColor(style, BorderSide.LEFT);
-        com.itextpdf.kernel.colors.Color rightColor = getBorderColor(style, BorderSide.RIGHT);
-
-        // 转换边框样式
-        Border topBorder = convertBorder(style.getBorderTop(), topColor);
-        Border bottomBorder = convertBorder(style.getBorderBottom(), bottomColor);
-        Border leftBorder = convertBorder(style.getBorderLeft(), leftColor);
-        Border rightBorder = convertBorder(style.getBorderRight(), rightColor);
-
-        pdfCell.setBorderTop(topBorder);
-        pdfCell.setBorderBottom(bottomBorder);
-        pdfCell.setBorderLeft(leftBorder);
-        pdfCell.setBorderRight(rightBorder);
+        return resolved;
     }
 
     /**
@@ -612,4 +552,143 @@ public class PdfConvertServiceImpl implements PdfConvertService {
             default -> new SolidBorder(borderColor, 0.5f);
         };
     }
+
+    /**
+     * 解析后的单元格样式（边框、颜色对象在同一样式的单元格间共享）
+     * 边框和颜色是不绑定PDF文档的值对象，创建后只读，可由多个PDF片段同时使用
+     */
+    private static final class ResolvedStyle {
+
+        private TextAlignment alignment;
+        private Border borderTop;
+        private Border borderBottom;
+        private Border borderLeft;
+        private Border borderRight;
+        private com.itextpdf.kernel.colors.Color background;
+    }
+
+    /**
+     * 单次转换内的样式缓存，按 CellStyle 索引存放；只在读取工作簿的线程中使用
+     */
+    private final class StyleCache {
+
+        private final ResolvedStyle[] styles;
+
+        StyleCache(Workbook workbook) {
+            this.styles = new ResolvedStyle[workbook.getNumCellStyles()];
+        }
+
+        ResolvedStyle get(CellStyle style) {
+            int index = style.getIndex() & 0xFFFF;
+            if (index >= styles.length) {
+                return resolveStyle(style);
+            }
+            ResolvedStyle resolved = styles[index];
+            if (resolved == null) {
+                resolved = resolveStyle(style);
+                styles[index] = resolved;
+            }
+            return resolved;
+        }
+    }
+
+    /**
+     * 工作表快照：列宽和按输出顺序排列的单元格（被合并区域覆盖的单元格不输出）
+     */
+    private static final class SheetSnapshot {
+
+        private final float[] columnWidths;
+        private final List<CellSnapshot> cells;
+
+        SheetSnapshot(float[] columnWidths, List<CellSnapshot> cells) {
+            this.columnWidths = columnWidths;
+            this.cells = cells;
+        }
+    }
+
+    /**
+     * 单元格快照：显示文本、行列跨度和解析后的样式（没有Excel单元格时为 null）
+     */
+    private static final class CellSnapshot {
+
+        private final String value;
+        private final int rowspan;
+        private final int colspan;
+        private final ResolvedStyle style;
+
+        CellSnapshot(String value, int rowspan, int colspan, ResolvedStyle style) {
+            this.value = value;
+            this.rowspan = rowspan;
+            this.colspan = colspan;
+            this.style = style;
+        }
+    }
+
+    /**
+     * 合并单元格索引
+     * 合并区域按起始行排序后随行号推进，每列记录被合并区域覆盖到的最后一行
+     */
+    private static final class MergedRegionIndex {
+
+        private final CellRangeAddress[] regions;
+
+        /**
+         * 当前行各列作为合并区域左上角的区域
+         */
+        private final CellRangeAddress[] rowAnchors;
+
+        /**
+         * 各列被合并区域覆盖到的最后一行，-1 表示未覆盖（左上角单元格先按 rowAnchors 判断）
+         */
+        private final int[] coveredThroughRow;
+
+        private int next;
+
+        MergedRegionIndex(Sheet sheet, int maxColNum) {
+            this.regions = new CellRangeAddress[sheet.getNumMergedRegions()];
+            for (int i = 0; i < regions.length; i++) {
+                regions[i] = sheet.getMergedRegion(i);
+            }
+            Arrays.sort(regions, (a, b) -> a.getFirstRow() != b.getFirstRow()
+                    ? Integer.compare(a.getFirstRow(), b.getFirstRow())
+                    : Integer.compare(a.getFirstColumn(), b.getFirstColumn()));
+            this.rowAnchors = new CellRangeAddress[maxColNum];
+            this.coveredThroughRow = new int[maxColNum];
+            Arrays.fill(coveredThroughRow, -1);
+        }
+
+        /**
+         * 进入新的一行，加载以该行为起始行的合并区域
+         */
+        void startRow(int row) {
+            Arrays.fill(rowAnchors, null);
+            while (next < regions.length && regions[next].getFirstRow() < row) {
+                next++;
+            }
+            while (next < regions.length && regions[next].getFirstRow() == row) {
+                CellRangeAddress region = regions[next++];
+                if (region.getFirstColumn() < rowAnchors.length) {
+                    rowAnchors[region.getFirstColumn()] = region;
+                }
+            }
+        }
+
+        CellRangeAddress anchorAt(int col) {
+            return rowAnchors[col];
+        }
+
+        boolean isCovered(int row, int col) {
+            return coveredThroughRow[col] >= row;
+        }
+
+        /**
+         * 标记合并区域内除左上角外的单元格为已处理
+         */
+        void markMerged(CellRangeAddress region) {
+            int lastCol = Math.min(region.getLastColumn(), coveredThroughRow.length - 1);
+            for (int c = region.getFirstColumn(); c <= lastCol; c++) {
+                coveredThroughRow[c] = Math.max(coveredThroughRow[c], region.getLastRow());
+            }
+        }
+    }
 }
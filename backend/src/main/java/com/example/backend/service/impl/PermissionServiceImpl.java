@@ -1,13 +1,33 @@
 package com.example.backend.service.impl;
 
-import cn.dev33.satoken.stp.StpUtil;
+import com.example.backend.common.UserContext;
 import com.example.backend.mapper.ReportPermissionMapper;
 import com.example.backend.service.PermissionService;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 权限服务实现
@@ -20,141 +40,311 @@ import java.util.List;
  * 3. REPORT_USER (报表用户): 查看和生成报表（1,2）
  * 4. REPORT_VIEWER (报表查看员): 只能查看报表（1）
  * 5. 部门主管角色: 通过 report_permission 表配置特定模板的权限
+ *
+ * 用户的角色编码和模板权限一次查询加载为权限快照，缓存在本地（LRU + TTL）；
+ * 角色、角色权限或用户角色变更时清除缓存，并通过 Redis 发布消息通知其他节点清除
  */
 @Service
 public class PermissionServiceImpl implements PermissionService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PermissionServiceImpl.class);
+
+    /**
+     * 权限缓存失效通知频道，消息内容为用户ID，"*" 表示所有用户
+     */
+    private static final String EVICT_CHANNEL = "report:permission:evict";
+
+    private static final String EVICT_ALL = "*";
+
     @Autowired
     private ReportPermissionMapper reportPermissionMapper;
 
+    @Autowired(required = false)
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Value("${report.permission.cache.ttl:300}")
+    private long cacheTtl = 300;
+
+    @Value("${report.permission.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+
     /**
-     * 检查用户是否有指定角色（兼容有无 ROLE_ 前缀）
+     * 用户权限快照，按访问顺序排列用于LRU淘汰
      */
-    private boolean hasRole(Long userId, String... roleCodes) {
-        for (String roleCode : roleCodes) {
-            if (reportPermissionMapper.checkUserHasRole(userId, roleCode) > 0) {
-                return true;
-            }
-            // 兼容 ROLE_ 前缀
-            if (!roleCode.startsWith("ROLE_")) {
-                if (reportPermissionMapper.checkUserHasRole(userId, "ROLE_" + roleCode) > 0) {
-                    return true;
-                }
-            } else {
-                // 如果是 ROLE_XXX，也检查 XXX
-                String shortCode = roleCode.substring(5);
-                if (reportPermissionMapper.checkUserHasRole(userId, shortCode) > 0) {
-                    return true;
-                }
-            }
+    private final LinkedHashMap<Long, CachedSnapshot> snapshots = new LinkedHashMap<>(64, 0.75f, true);
+
+    /**
+     * 缓存清除次数，加载期间发生清除时不缓存加载结果，避免缓存清除前读取的旧数据
+     */
+    private long evictGeneration;
+
+    @PostConstruct
+    public void init() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener((Message message, byte[] pattern) ->
+                    evictLocal(new String(message.getBody(), StandardCharsets.UTF_8)), new ChannelTopic(EVICT_CHANNEL));
         }
-        return false;
     }
 
     @Override
     public boolean checkPermission(Long userId, Long templateId, Integer permissionType) {
-        // 1. 系统管理员拥有所有权限
-        if (isAdmin(userId)) {
-            return true;
-        }
-
-        // 2. 报表管理员拥有所有报表的编辑权限（包含查看、生成、下载、编辑）
-        if (isReportManager(userId)) {
-            return true;
-        }
-
-        // 3. 报表用户拥有查看(1)和生成(2)权限
-        if (isReportUser(userId) && permissionType <= 2) {
-            return true;
-        }
-
-        // 4. 报表查看员只能查看(1)
-        if (isReportViewer(userId) && permissionType == 1) {
-            return true;
-        }
-
-        // 5. 其他角色通过 report_permission 表检查权限
-        return reportPermissionMapper.checkUserPermission(userId, templateId, permissionType) > 0;
+        return getSnapshot(userId).hasPermission(templateId, permissionType);
     }
 
     @Override
     public boolean checkCurrentUserPermission(Long templateId, Integer permissionType) {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         return checkPermission(userId, templateId, permissionType);
     }
 
     @Override
     public boolean isAdmin(Long userId) {
-        return hasRole(userId, "ADMIN", "ROLE_ADMIN");
+        return getSnapshot(userId).hasRole("ADMIN");
     }
 
     @Override
     public boolean isCurrentUserAdmin() {
-        Long userId = StpUtil.getLoginIdAsLong();
-        return isAdmin(userId);
+        // 请求上下文中已判断过是否管理员
+        UserContext context = UserContext.get();
+        return context != null ? context.admin() : isAdmin(UserContext.getUserId());
     }
 
     @Override
     public boolean isReportManager(Long userId) {
-        return hasRole(userId, "REPORT_MANAGER", "ROLE_REPORT_MANAGER");
+        return getSnapshot(userId).hasRole("REPORT_MANAGER");
     }
 
     @Override
     public boolean isReportUser(Long userId) {
-        return hasRole(userId, "REPORT_USER", "ROLE_REPORT_USER");
+        return getSnapshot(userId).hasRole("REPORT_USER");
     }
 
     /**
      * 检查用户是否是报表查看员（只读权限）
      */
     public boolean isReportViewer(Long userId) {
-        return hasRole(userId, "REPORT_VIEWER", "ROLE_REPORT_VIEWER");
+        return getSnapshot(userId).hasRole("REPORT_VIEWER");
     }
 
     @Override
     public List<Long> getUserPermittedTemplateIds(Long userId, Integer permissionType) {
-        // 管理员和报表管理员可以访问所有模板，返回null表示不限制
-        if (isAdmin(userId) || isReportManager(userId)) {
-            return null;
-        }
-
-        // 报表用户可以查看和生成所有已发布模板
-        if (isReportUser(userId) && permissionType <= 2) {
-            return null;
-        }
-
-        // 报表查看员只能查看所有已发布模板
-        if (isReportViewer(userId) && permissionType == 1) {
+        // 管理员、报表管理员、报表用户（查看/生成）、报表查看员（查看）可以访问所有模板，返回null表示不限制
+        PermissionSnapshot snapshot = getSnapshot(userId);
+        if (snapshot.hasRolePermission(permissionType)) {
             return null;
         }
 
         // 其他角色根据配置返回
-        List<Long> templateIds = reportPermissionMapper.selectTemplateIdsByUserId(userId, permissionType);
-        return templateIds != null ? templateIds : Collections.emptyList();
+        return snapshot.templateIds(permissionType);
     }
 
     @Override
     public List<Long> getCurrentUserPermittedTemplateIds(Integer permissionType) {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         return getUserPermittedTemplateIds(userId, permissionType);
     }
 
     @Override
     public List<String> getUserRoleCodes(Long userId) {
-        return reportPermissionMapper.selectUserRoleCodes(userId);
+        return new ArrayList<>(getSnapshot(userId).roleCodes);
     }
 
     @Override
     public boolean[] getTemplatePermissions(Long templateId) {
-        Long userId = StpUtil.getLoginIdAsLong();
-        boolean[] permissions = new boolean[4];
-
-        // 权限类型: 1-查看 2-生成 3-下载 4-编辑
-        permissions[0] = checkPermission(userId, templateId, 1); // canView
-        permissions[1] = checkPermission(userId, templateId, 2); // canGenerate
-        permissions[2] = checkPermission(userId, templateId, 3); // canDownload
-        permissions[3] = checkPermission(userId, templateId, 4); // canEdit
+        Long userId = UserContext.getUserId();
+        return getSnapshot(userId).templatePermissions(templateId);
+    }
 
+    @Override
+    public Map<Long, boolean[]> getTemplatePermissions(Collection<Long> templateIds) {
+        Long userId = UserContext.getUserId();
+        PermissionSnapshot snapshot = getSnapshot(userId);
+        Map<Long, boolean[]> permissions = new HashMap<>();
+        for (Long templateId : templateIds) {
+            permissions.put(templateId, snapshot.templatePermissions(templateId));
+        }
         return permissions;
     }
+
+    @Override
+    public void evictPermissionCache(Long userId) {
+        String target = userId == null ? EVICT_ALL : String.valueOf(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务提交后再清除，避免其他请求在提交前重新加载旧的权限
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(target);
+                }
+            });
+        } else {
+            evict(target);
+        }
+    }
+
+    private void evict(String target) {
+        evictLocal(target);
+        if (stringRedisTemplate == null) {
+            return;
+        }
+        try {
+            stringRedisTemplate.convertAndSend(EVICT_CHANNEL, target);
+        } catch (Exception e) {
+            logger.warn("发布权限缓存失效通知失败: {}, {}", target, e.getMessage());
+        }
+    }
+
+    private synchronized void evictLocal(String target) {
+        evictGeneration++;
+        if (EVICT_ALL.equals(target)) {
+            snapshots.clear();
+            return;
+        }
+        try {
+            snapshots.remove(Long.valueOf(target));
+        } catch (NumberFormatException e) {
+            snapshots.clear();
+        }
+    }
+
+    /**
+     * 获取用户的权限快照，缓存未命中或过期时加载
+     */
+    private PermissionSnapshot getSnapshot(Long userId) {
+        long generation;
+        synchronized (this) {
+            CachedSnapshot cached = snapshots.get(userId);
+            if (cached != null && cached.expireAt > System.currentTimeMillis()) {
+                return cached.snapshot;
+            }
+            generation = evictGeneration;
+        }
+
+        PermissionSnapshot snapshot = PermissionSnapshot.load(reportPermissionMapper.selectUserPermissionRows(userId));
+
+        synchronized (this) {
+            if (generation == evictGeneration) {
+                snapshots.put(userId, new CachedSnapshot(snapshot,
+                        System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(cacheTtl)));
+                if (snapshots.size() > cacheMaxSize) {
+                    snapshots.remove(snapshots.keySet().iterator().next());
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private static final class CachedSnapshot {
+
+        private final PermissionSnapshot snapshot;
+        private final long expireAt;
+
+        CachedSnapshot(PermissionSnapshot snapshot, long expireAt) {
+            this.snapshot = snapshot;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 用户权限快照：角色编码及角色配置的模板权限
+     */
+    static final class PermissionSnapshot {
+
+        /**
+         * 启用角色的原始角色编码
+         */
+        private final List<String> roleCodes;
+
+        /**
+         * 去掉 ROLE_ 前缀的角色编码，兼容有无前缀两种写法
+         */
+        private final Set<String> normalizedRoles;
+
+        /**
+         * 模板ID → 已配置的权限类型位掩码（第 n 位表示权限类型 n）
+         */
+        private final Map<Long, Integer> templateMasks;
+
+        private PermissionSnapshot(List<String> roleCodes, Map<Long, Integer> templateMasks) {
+            this.roleCodes = roleCodes;
+            this.templateMasks = templateMasks;
+            this.normalizedRoles = new HashSet<>();
+            for (String roleCode : roleCodes) {
+                normalizedRoles.add(normalize(roleCode));
+            }
+        }
+
+        static PermissionSnapshot load(List<Map<String, Object>> rows) {
+            Set<String> roleCodes = new LinkedHashSet<>();
+            Map<Long, Integer> templateMasks = new HashMap<>();
+            for (Map<String, Object> row : rows) {
+                Object roleCode = row.get("role_code");
+                if (roleCode != null) {
+                    roleCodes.add(roleCode.toString());
+                }
+                if (row.get("template_id") instanceof Number templateId
+                        && row.get("permission_type") instanceof Number permissionType) {
+                    templateMasks.merge(templateId.longValue(), 1 << permissionType.intValue(), (a, b) -> a | b);
+                }
+            }
+            return new PermissionSnapshot(new ArrayList<>(roleCodes), templateMasks);
+        }
+
+        boolean hasRole(String roleCode) {
+            return normalizedRoles.contains(normalize(roleCode));
+        }
+
+        /**
+         * 内置角色是否拥有所有模板的该类权限
+         */
+        boolean hasRolePermission(Integer permissionType) {
+            // 1. 系统管理员拥有所有权限
+            // 2. 报表管理员拥有所有报表的编辑权限（包含查看、生成、下载、编辑）
+            if (hasRole("ADMIN") || hasRole("REPORT_MANAGER")) {
+                return true;
+            }
+            // 3. 报表用户拥有查看(1)和生成(2)权限
+            if (hasRole("REPORT_USER") && permissionType <= 2) {
+                return true;
+            }
+            // 4. 报表查看员只能查看(1)
+            return hasRole("REPORT_VIEWER") && permissionType == 1;
+        }
+
+        boolean hasPermission(Long templateId, Integer permissionType) {
+            if (hasRolePermission(permissionType)) {
+                return true;
+            }
+            // 5. 其他角色通过 report_permission 表检查权限（精确匹配权限类型）
+            Integer mask = templateMasks.get(templateId);
+            return mask != null && (mask & (1 << permissionType)) != 0;
+        }
+
+        boolean[] templatePermissions(Long templateId) {
+            // 权限类型: 1-查看 2-生成 3-下载 4-编辑
+            boolean[] permissions = new boolean[4];
+            for (int i = 0; i < permissions.length; i++) {
+                permissions[i] = hasPermission(templateId, i + 1);
+            }
+            return permissions;
+        }
+
+        List<Long> templateIds(Integer permissionType) {
+            List<Long> templateIds = new ArrayList<>();
+            int bit = 1 << permissionType;
+            templateMasks.forEach((templateId, mask) -> {
+                if ((mask & bit) != 0) {
+                    templateIds.add(templateId);
+                }
+            });
+            return templateIds.isEmpty() ? Collections.emptyList() : templateIds;
+        }
+
+        private static String normalize(String roleCode) {
+            return roleCode.startsWith("ROLE_") ? roleCode.substring(5) : roleCode;
+        }
+    }
 }
@@ -3,20 +3,44 @@ package com.example.backend.service.impl;
 import cn.hutool.core.bean.BeanUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.example.backend.common.ResultCode;
 import com.example.backend.dto.ReportDatasourceDTO;
 import com.example.backend.entity.ReportDatasource;
 import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.ReportDatasourceMapper;
+import com.example.backend.report.ParsedSql;
+import com.example.backend.report.PoolMetricsTracker;
+import com.example.backend.report.QueryOptions;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.ReportRowHandler;
+import com.example.backend.report.RowBatch;
+import com.example.backend.report.RunningQueryRegistry;
+import com.example.backend.report.SqlPageDialect;
 import com.example.backend.service.ReportDatasourceService;
+import com.example.backend.vo.DatasourcePoolStatsVO;
 import com.example.backend.vo.ReportDatasourceVO;
 import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariConfigMXBean;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -29,10 +53,54 @@ public class ReportDatasourceServiceImpl extends ServiceImpl<ReportDatasourceMap
 
     private static final Logger logger = LoggerFactory.getLogger(ReportDatasourceServiceImpl.class);
 
+    private static final int PARSED_SQL_CACHE_SIZE = 512;
+
     /**
      * 数据源连接池缓存
      */
-    private final Map<Long, HikariDataSource> dataSourceCache = new ConcurrentHashMap<>();
+    private final Map<Long, ManagedPool> dataSourceCache = new ConcurrentHashMap<>();
+
+    /**
+     * 已解析的模板SQL，按SQL文本缓存，超出容量时淘汰最久未使用的
+     */
+    private final Map<String, ParsedSql> parsedSqlCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
+            return size() > PARSED_SQL_CACHE_SIZE;
+        }
+    };
+
+    /**
+     * 正在执行的流式查询，用于取消
+     */
+    private final RunningQueryRegistry runningQueries = new RunningQueryRegistry();
+
+    /**
+     * 流式查询每次从数据库拉取的行数（模板和数据源未单独配置时）
+     */
+    @Value("${report.generate.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * SQL执行超时时间（秒，模板和数据源未单独配置时），0表示不限制
+     */
+    @Value("${report.generate.query-timeout:300}")
+    private int queryTimeout;
+
+    /**
+     * 数据源未单独配置时的连接池大小
+     */
+    @Value("${report.datasource.pool.max-size:5}")
+    private int defaultPoolMaxSize;
+
+    @Value("${report.datasource.pool.min-idle:1}")
+    private int defaultPoolMinIdle;
+
+    /**
+     * 自适应模式下，采样区间内平均等待时间超过该值（毫秒）时扩容
+     */
+    @Value("${report.datasource.pool.grow-wait-millis:100}")
+    private long growWaitMillis;
 
     @Override
     public Long createDatasource(ReportDatasourceDTO datasourceDTO) {
@@ -118,18 +186,123 @@ public class ReportDatasourceServiceImpl extends ServiceImpl<ReportDatasourceMap
             throw new BusinessException("数据源不存在");
         }
 
+        int timeout = resolveQueryTimeout(null, datasource);
+        try {
+            HikariDataSource ds = getOrCreateDataSource(datasource);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(ds);
+            jdbcTemplate.setQueryTimeout(timeout);
+
+            // 参数以占位符绑定，缺少必需参数时抛出异常
+            ParsedSql.BoundSql boundSql = bindSql(sql, params);
+            logger.debug("执行SQL: {}", boundSql.getSql());
+
+            return jdbcTemplate.queryForList(boundSql.getSql(), boundSql.getArgs());
+        } catch (QueryTimeoutException e) {
+            logger.warn("SQL执行超时: datasourceId={}, timeout={}s", datasourceId, timeout);
+            throw new BusinessException("SQL执行超时（超过" + timeout + "秒）");
+        } catch (com.zaxxer.hikari.pool.HikariPool.PoolInitializationException e) {
+            logger.error("数据源连接失败: {}:{}", datasource.getHost(), datasource.getPort(), e);
+            throw new BusinessException(String.format(
+                "数据源[%s]连接失败,无法连接到 %s:%d,请检查网络连接或数据源配置", 
+                datasource.getDatasourceName(), datasource.getHost(), datasource.getPort()));
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("SQL执行失败", e);
+            throw new BusinessException("SQL执行失败: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public long executeStreamQuery(Long datasourceId, String sql, Map<String, Object> params,
+                                   QueryOptions options, ReportRowHandler handler) {
+        ReportDatasource datasource = getById(datasourceId);
+        if (datasource == null) {
+            throw new BusinessException("数据源不存在");
+        }
+
+        int timeout = resolveQueryTimeout(options.getQueryTimeout(), datasource);
+        RunningQueryRegistry.RunningQuery runningQuery = runningQueries.register(options.getQueryId());
         try {
             HikariDataSource ds = getOrCreateDataSource(datasource);
             JdbcTemplate jdbcTemplate = new JdbcTemplate(ds);
+            jdbcTemplate.setFetchSize(resolveFetchSize(options.getFetchSize(), datasource));
+            jdbcTemplate.setQueryTimeout(timeout);
+            int maxRows = options.getMaxRows();
+            if (maxRows > 0) {
+                // 多取一行用于判断是否超出上限，数据库侧也不会返回更多数据
+                jdbcTemplate.setMaxRows(maxRows + 1);
+            }
+
+            ParsedSql.BoundSql boundSql = bindSql(sql, params);
+            logger.debug("流式执行SQL: {}", boundSql.getSql());
+
+            StreamingResultSetExtractor extractor = new StreamingResultSetExtractor(handler, maxRows,
+                    options.getBatchSize());
+            Long rowCount;
+            if (datasource.getDatasourceType() == 2) {
+                // PostgreSQL 只在非自动提交模式下使用服务端游标按 fetchSize 拉取，否则驱动会一次性读取全部结果
+                TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(ds));
+                transactionTemplate.setReadOnly(true);
+                rowCount = transactionTemplate.execute(status ->
+                        streamQuery(jdbcTemplate, boundSql, runningQuery, extractor));
+            } else {
+                rowCount = streamQuery(jdbcTemplate, boundSql, runningQuery, extractor);
+            }
+            return rowCount != null ? rowCount : 0L;
+        } catch (QueryTimeoutException e) {
+            if (runningQuery.isCancelled()) {
+                throw new BusinessException(ResultCode.REPORT_CANCELLED);
+            }
+            logger.warn("SQL执行超时: datasourceId={}, timeout={}s", datasourceId, timeout);
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "SQL执行超时（超过" + timeout + "秒）");
+        } catch (com.zaxxer.hikari.pool.HikariPool.PoolInitializationException e) {
+            logger.error("数据源连接失败: {}:{}", datasource.getHost(), datasource.getPort(), e);
+            throw new BusinessException(String.format(
+                "数据源[%s]连接失败,无法连接到 %s:%d,请检查网络连接或数据源配置", 
+                datasource.getDatasourceName(), datasource.getHost(), datasource.getPort()));
+        } catch (BusinessException e) {
+            throw e;
+        } catch (Exception e) {
+            if (runningQuery.isCancelled()) {
+                // 取消时驱动中止SQL并抛出异常
+                throw new BusinessException(ResultCode.REPORT_CANCELLED);
+            }
+            logger.error("SQL执行失败", e);
+            throw new BusinessException("SQL执行失败: " + e.getMessage());
+        } finally {
+            runningQueries.unregister(runningQuery);
+        }
+    }
 
-            // 检查SQL中的参数占位符,确保所有必需的参数都已提供
-            validateSqlParams(sql, params);
-            
-            // 处理参数替换
-            String execSql = replaceSqlParams(sql, params);
-            logger.debug("执行SQL: {}", execSql);
+    @Override
+    public long executePageQuery(Long datasourceId, String sql, Map<String, Object> params, long offset, int limit,
+                                 QueryOptions options, ReportRowHandler handler) {
+        ReportDatasource datasource = getById(datasourceId);
+        if (datasource == null) {
+            throw new BusinessException("数据源不存在");
+        }
+        SqlPageDialect dialect = SqlPageDialect.of(datasource.getDatasourceType());
 
-            return jdbcTemplate.queryForList(execSql);
+        int timeout = resolveQueryTimeout(options.getQueryTimeout(), datasource);
+        RunningQueryRegistry.RunningQuery runningQuery = runningQueries.register(options.getQueryId());
+        try {
+            HikariDataSource ds = getOrCreateDataSource(datasource);
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(ds);
+            jdbcTemplate.setFetchSize(limit);
+            jdbcTemplate.setQueryTimeout(timeout);
+            // 分页子句已限制返回行数，这里防止驱动忽略子句时读取过多数据
+            jdbcTemplate.setMaxRows(limit);
+
+            ParsedSql.BoundSql boundSql = dialect.page(bindSql(sql, params), offset, limit);
+            logger.debug("分页执行SQL: {}", boundSql.getSql());
+
+            Long rowCount = streamQuery(jdbcTemplate, boundSql, runningQuery,
+                    new StreamingResultSetExtractor(handler, 0, limit));
+            return rowCount != null ? rowCount : 0L;
+        } catch (QueryTimeoutException e) {
+            logger.warn("SQL执行超时: datasourceId={}, timeout={}s", datasourceId, timeout);
+            throw new BusinessException("SQL执行超时（超过" + timeout + "秒）");
         } catch (com.zaxxer.hikari.pool.HikariPool.PoolInitializationException e) {
             logger.error("数据源连接失败: {}:{}", datasource.getHost(), datasource.getPort(), e);
             throw new BusinessException(String.format(
@@ -140,9 +313,60 @@ public class ReportDatasourceServiceImpl extends ServiceImpl<ReportDatasourceMap
         } catch (Exception e) {
             logger.error("SQL执行失败", e);
             throw new BusinessException("SQL执行失败: " + e.getMessage());
+        } finally {
+            runningQueries.unregister(runningQuery);
         }
     }
 
+    @Override
+    public boolean cancelQuery(Long queryId) {
+        return runningQueries.cancel(queryId);
+    }
+
+    /**
+     * 使用只进只读游标执行查询，创建的语句关联到查询登记以便取消
+     */
+    private Long streamQuery(JdbcTemplate jdbcTemplate, ParsedSql.BoundSql boundSql,
+                             RunningQueryRegistry.RunningQuery runningQuery, StreamingResultSetExtractor extractor) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(boundSql.getSql(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            try {
+                runningQuery.attach(ps);
+            } catch (BusinessException e) {
+                JdbcUtils.closeStatement(ps);
+                throw e;
+            }
+            return ps;
+        }, new ArgumentPreparedStatementSetter(boundSql.getArgs()), extractor);
+    }
+
+    /**
+     * 拉取行数：模板配置 → 数据源配置 → 全局默认
+     */
+    private int resolveFetchSize(Integer templateFetchSize, ReportDatasource datasource) {
+        if (templateFetchSize != null && templateFetchSize > 0) {
+            return templateFetchSize;
+        }
+        if (datasource.getFetchSize() != null && datasource.getFetchSize() > 0) {
+            return datasource.getFetchSize();
+        }
+        return fetchSize;
+    }
+
+    /**
+     * 超时时间（秒）：模板配置 → 数据源配置 → 全局默认
+     */
+    private int resolveQueryTimeout(Integer templateTimeout, ReportDatasource datasource) {
+        if (templateTimeout != null && templateTimeout > 0) {
+            return templateTimeout;
+        }
+        if (datasource.getQueryTimeout() != null && datasource.getQueryTimeout() > 0) {
+            return datasource.getQueryTimeout();
+        }
+        return Math.max(queryTimeout, 0);
+    }
+
     @Override
     public List<String> getTables(Long datasourceId) {
         ReportDatasource datasource = getById(datasourceId);
@@ -188,27 +412,130 @@ public class ReportDatasourceServiceImpl extends ServiceImpl<ReportDatasourceMap
      */
     private HikariDataSource getOrCreateDataSource(ReportDatasource datasource) {
         return dataSourceCache.computeIfAbsent(datasource.getId(), id -> {
+            int maxPoolSize = datasource.getPoolMaxSize() != null ? datasource.getPoolMaxSize() : defaultPoolMaxSize;
+            int minIdle = datasource.getPoolMinIdle() != null ? datasource.getPoolMinIdle() : defaultPoolMinIdle;
+            PoolMetricsTracker metrics = new PoolMetricsTracker();
+
             HikariConfig config = new HikariConfig();
+            config.setPoolName("report-ds-" + id);
             config.setJdbcUrl(buildJdbcUrl(datasource));
             config.setUsername(datasource.getUsername());
             config.setPassword(datasource.getPassword());
-            config.setMaximumPoolSize(5);
-            config.setMinimumIdle(1);
+            config.setMaximumPoolSize(maxPoolSize);
+            config.setMinimumIdle(Math.min(minIdle, maxPoolSize));
             config.setConnectionTimeout(30000);
             config.setIdleTimeout(600000);
             config.setMaxLifetime(1800000);
-            return new HikariDataSource(config);
+            config.setMetricsTrackerFactory(metrics);
+            configureStatementCache(config, datasource.getDatasourceType());
+
+            boolean adaptive = Boolean.TRUE.equals(datasource.getPoolAdaptive());
+            int adaptiveMaxSize = datasource.getPoolAdaptiveMaxSize() != null
+                    ? Math.max(datasource.getPoolAdaptiveMaxSize(), maxPoolSize) : maxPoolSize * 2;
+            return new ManagedPool(datasource.getDatasourceName(), new HikariDataSource(config), metrics,
+                    maxPoolSize, adaptive, adaptiveMaxSize);
+        }).dataSource;
+    }
+
+    @Override
+    public List<DatasourcePoolStatsVO> getPoolStats() {
+        List<DatasourcePoolStatsVO> stats = new ArrayList<>();
+        dataSourceCache.forEach((id, pool) -> {
+            HikariPoolMXBean poolBean = pool.dataSource.getHikariPoolMXBean();
+            HikariConfigMXBean configBean = pool.dataSource.getHikariConfigMXBean();
+            DatasourcePoolStatsVO vo = new DatasourcePoolStatsVO();
+            vo.setDatasourceId(id);
+            vo.setDatasourceName(pool.name);
+            vo.setMaxPoolSize(configBean.getMaximumPoolSize());
+            vo.setMinIdle(configBean.getMinimumIdle());
+            vo.setAdaptive(pool.adaptive);
+            if (poolBean != null) {
+                vo.setActive(poolBean.getActiveConnections());
+                vo.setIdle(poolBean.getIdleConnections());
+                vo.setTotal(poolBean.getTotalConnections());
+                vo.setPending(poolBean.getThreadsAwaitingConnection());
+            }
+            vo.setAcquireCount(pool.metrics.getAcquireCount());
+            vo.setAvgWaitMillis(pool.metrics.getAverageWaitMillis());
+            vo.setMaxWaitMillis(pool.metrics.getMaxWaitMillis());
+            vo.setTimeoutCount(pool.metrics.getTimeoutCount());
+            stats.add(vo);
+        });
+        stats.sort(Comparator.comparing(DatasourcePoolStatsVO::getDatasourceId));
+        return stats;
+    }
+
+    /**
+     * 自适应调整连接池大小
+     * 有线程等待连接或平均等待时间超过阈值时扩容（每次增加约1/4，不超过上限）；
+     * 连接使用率低于一半且无等待时逐个缩容，不低于数据源配置的最大连接数
+     */
+    @Scheduled(fixedDelayString = "${report.datasource.pool.adaptive-interval:30000}")
+    public void adjustPoolSizes() {
+        dataSourceCache.forEach((id, pool) -> {
+            if (!pool.adaptive || pool.dataSource.isClosed()) {
+                return;
+            }
+            HikariPoolMXBean poolBean = pool.dataSource.getHikariPoolMXBean();
+            if (poolBean == null) {
+                return;
+            }
+            HikariConfigMXBean configBean = pool.dataSource.getHikariConfigMXBean();
+            int current = configBean.getMaximumPoolSize();
+            int pending = poolBean.getThreadsAwaitingConnection();
+            int active = poolBean.getActiveConnections();
+            double avgWait = pool.metrics.sampleAverageWaitMillis();
+
+            int target = current;
+            if ((pending > 0 || avgWait > growWaitMillis) && current < pool.adaptiveMaxSize) {
+                target = Math.min(pool.adaptiveMaxSize, current + Math.max(1, current / 4));
+            } else if (pending == 0 && avgWait < growWaitMillis / 10.0 && active * 2 < current
+                    && current > pool.baseMaxSize) {
+                target = current - 1;
+            }
+            if (target != current) {
+                configBean.setMaximumPoolSize(target);
+                logger.info("数据源[{}]连接池大小调整: {} -> {}（等待线程: {}, 平均等待: {}ms）",
+                        pool.name, current, target, pending, String.format("%.1f", avgWait));
+            }
         });
     }
 
+    /**
+     * 开启驱动的预编译语句缓存，相同SQL在同一连接上复用服务端预编译语句
+     */
+    private void configureStatementCache(HikariConfig config, Integer datasourceType) {
+        switch (datasourceType) {
+            case 1 -> {
+                config.addDataSourceProperty("useServerPrepStmts", "true");
+                config.addDataSourceProperty("cachePrepStmts", "true");
+                config.addDataSourceProperty("prepStmtCacheSize", "250");
+                config.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+            }
+            case 2 -> {
+                config.addDataSourceProperty("prepareThreshold", "1");
+                config.addDataSourceProperty("preparedStatementCacheQueries", "256");
+            }
+            case 3 -> config.addDataSourceProperty("oracle.jdbc.implicitStatementCacheSize", "50");
+            case 4 -> {
+                config.addDataSourceProperty("disableStatementPooling", "false");
+                config.addDataSourceProperty("statementPoolingCacheSize", "50");
+            }
+            default -> {
+            }
+        }
+    }
+
     /**
      * 构建JDBC URL
      */
     private String buildJdbcUrl(ReportDatasource datasource) {
         return switch (datasource.getDatasourceType()) {
-            case 1 -> String.format("jdbc:mysql://%s:%d/%s?useUnicode=true&characterEncoding=utf-8&serverTimezone=Asia/Shanghai",
+            // useCursorFetch 使设置了 fetchSize 的查询走服务端游标，否则驱动会一次性读取全部结果
+            case 1 -> String.format("jdbc:mysql://%s:%d/%s?useUnicode=true&characterEncoding=utf-8&serverTimezone=Asia/Shanghai&useCursorFetch=true",
                     datasource.getHost(), datasource.getPort(), datasource.getDatabaseName());
-            case 2 -> String.format("jdbc:postgresql://%s:%d/%s",
+            // stringtype=unspecified 使绑定的字符串参数按上下文推断类型（如与日期列比较），与原先的字面量写法一致
+            case 2 -> String.format("jdbc:postgresql://%s:%d/%s?stringtype=unspecified",
                     datasource.getHost(), datasource.getPort(), datasource.getDatabaseName());
             case 3 -> String.format("jdbc:oracle:thin:@%s:%d:%s",
                     datasource.getHost(), datasource.getPort(), datasource.getDatabaseName());
@@ -222,75 +549,24 @@ public class ReportDatasourceServiceImpl extends ServiceImpl<ReportDatasourceMap
      * 关闭数据源连接池
      */
     private void closeDataSource(Long id) {
-        HikariDataSource ds = dataSourceCache.remove(id);
-        if (ds != null) {
-            ds.close();
+        ManagedPool pool = dataSourceCache.remove(id);
+        if (pool != null) {
+            pool.dataSource.close();
         }
     }
 
     /**
-     * 验证SQL参数
+     * 解析模板SQL（带缓存）并绑定参数
      */
-    private void validateSqlParams(String sql, Map<String, Object> params) {
+    private ParsedSql.BoundSql bindSql(String sql, Map<String, Object> params) {
         if (sql == null) {
-            return;
-        }
-        
-        // 查找所有 :paramName 格式的参数
-        java.util.regex.Pattern colonPattern = java.util.regex.Pattern.compile(":(\\w+)");
-        java.util.regex.Matcher colonMatcher = colonPattern.matcher(sql);
-        while (colonMatcher.find()) {
-            String paramName = colonMatcher.group(1);
-            if (params == null || !params.containsKey(paramName)) {
-                throw new BusinessException("缺少必需的SQL参数: " + paramName);
-            }
-        }
-        
-        // 查找所有 ${paramName} 格式的参数
-        java.util.regex.Pattern dollarPattern = java.util.regex.Pattern.compile("\\$\\{(\\w+)\\}");
-        java.util.regex.Matcher dollarMatcher = dollarPattern.matcher(sql);
-        while (dollarMatcher.find()) {
-            String paramName = dollarMatcher.group(1);
-            if (params == null || !params.containsKey(paramName)) {
-                throw new BusinessException("缺少必需的SQL参数: " + paramName);
-            }
+            throw new BusinessException("SQL不能为空");
         }
-    }
-
-    /**
-     * 替换SQL参数
-     * 支持两种格式: ${paramName} 和 :paramName
-     */
-    private String replaceSqlParams(String sql, Map<String, Object> params) {
-        if (params == null || params.isEmpty()) {
-            return sql;
-        }
-
-        String result = sql;
-        for (Map.Entry<String, Object> entry : params.entrySet()) {
-            String key = entry.getKey();
-            Object value = entry.getValue();
-            
-            // 根据值类型生成替换字符串
-            String replacement;
-            if (value == null) {
-                replacement = "NULL";
-            } else if (value instanceof Number) {
-                replacement = value.toString();
-            } else {
-                // 字符串类型需要加单引号,并转义单引号
-                replacement = "'" + value.toString().replace("'", "''") + "'";
-            }
-            
-            // 替换 ${paramName} 格式
-            String dollarPlaceholder = "${" + key + "}";
-            result = result.replace(dollarPlaceholder, replacement);
-            
-            // 替换 :paramName 格式
-            String colonPlaceholder = ":" + key;
-            result = result.replace(colonPlaceholder, replacement);
+        ParsedSql parsedSql;
+        synchronized (parsedSqlCache) {
+            parsedSql = parsedSqlCache.computeIfAbsent(sql, ParsedSql::parse);
         }
-        return result;
+        return parsedSql.bind(params);
     }
 
     private ReportDatasourceVO convertToVO(ReportDatasource datasource) {
@@ -315,4 +591,82 @@ public class ReportDatasourceServiceImpl extends ServiceImpl<ReportDatasourceMap
 
         return vo;
     }
+
+    /**
+     * 缓存的连接池及其统计信息
+     */
+    private static class ManagedPool {
+
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final PoolMetricsTracker metrics;
+        /**
+         * 数据源配置的最大连接数，自适应缩容的下限
+         */
+        private final int baseMaxSize;
+        private final boolean adaptive;
+        private final int adaptiveMaxSize;
+
+        ManagedPool(String name, HikariDataSource dataSource, PoolMetricsTracker metrics,
+                    int baseMaxSize, boolean adaptive, int adaptiveMaxSize) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.metrics = metrics;
+            this.baseMaxSize = baseMaxSize;
+            this.adaptive = adaptive;
+            this.adaptiveMaxSize = adaptiveMaxSize;
+        }
+    }
+
+    /**
+     * 按批次缓冲结果集行并回调处理器，同时在读取过程中检查行数上限
+     */
+    private static class StreamingResultSetExtractor implements ResultSetExtractor<Long> {
+
+        private final ReportRowHandler handler;
+        private final int maxRows;
+        private final int batchSize;
+
+        StreamingResultSetExtractor(ReportRowHandler handler, int maxRows, int batchSize) {
+            this.handler = handler;
+            this.maxRows = maxRows;
+            this.batchSize = Math.max(batchSize, 1);
+        }
+
+        @Override
+        public Long extractData(ResultSet rs) throws SQLException {
+            // 列元数据只解析一次，决定每列的原始类型存储方式
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            List<ReportColumn> columns = new ArrayList<>(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                columns.add(ReportColumn.of(metaData, i, JdbcUtils.lookupColumnName(metaData, i + 1)));
+            }
+            handler.onStart(columns);
+
+            RowBatch batch = new RowBatch(columns, batchSize);
+            long rowCount = 0;
+            while (rs.next()) {
+                // 生成任务被取消时工作线程会被中断
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new BusinessException(ResultCode.REPORT_CANCELLED);
+                }
+                if (maxRows > 0 && rowCount >= maxRows) {
+                    throw new BusinessException(ResultCode.REPORT_TOO_LARGE,
+                            "数据量超过限制，最大: " + maxRows + "行");
+                }
+                batch.readRow(rs);
+                rowCount++;
+                if (batch.isFull()) {
+                    handler.onBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                handler.onBatch(batch);
+            }
+            handler.onComplete(rowCount);
+            return rowCount;
+        }
+    }
 }
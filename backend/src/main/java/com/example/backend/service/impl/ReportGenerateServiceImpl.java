@@ -1,48 +1,87 @@
 package com.example.backend.service.impl;
 
-import cn.dev33.satoken.stp.StpUtil;
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.io.IoUtil;
-import com.alibaba.excel.EasyExcel;
-import com.alibaba.excel.ExcelWriter;
-import com.alibaba.excel.write.metadata.WriteSheet;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.common.ResultCode;
+import com.example.backend.common.UserContext;
 import com.example.backend.dto.ReportGenerateDTO;
+import com.example.backend.dto.ReportPreviewDataDTO;
 import com.example.backend.dto.ReportRecordQueryDTO;
 import com.example.backend.entity.ReportRecord;
 import com.example.backend.entity.ReportTemplate;
 import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.ReportRecordMapper;
+import com.example.backend.report.AbstractReportWriter;
+import com.example.backend.report.ArrowReportWriter;
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.CsvReportWriter;
+import com.example.backend.report.ExcelReportWriter;
+import com.example.backend.report.GeneratePriority;
+import com.example.backend.report.JxlsRenderer;
+import com.example.backend.report.JxlsTemplate;
+import com.example.backend.report.JxlsTemplateCache;
+import com.example.backend.report.ListRowCollector;
+import com.example.backend.report.ParallelXlsxReportWriter;
+import com.example.backend.report.ParquetReportWriter;
+import com.example.backend.report.PdfReportWriter;
+import com.example.backend.report.PreviewRowCollector;
+import com.example.backend.report.QueryOptions;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.ReportCounters;
+import com.example.backend.report.ReportFileSender;
+import com.example.backend.report.ReportGenerateExecutor;
+import com.example.backend.report.ReportResultCache;
+import com.example.backend.report.ReportRowHandler;
+import com.example.backend.report.ReportStorage;
+import com.example.backend.report.StorageOutputStream;
+import com.example.backend.report.TemplateLayoutCache;
 import com.example.backend.service.PdfConvertService;
 import com.example.backend.service.PermissionService;
 import com.example.backend.service.ReportDatasourceService;
+import com.example.backend.service.ReportRecordStatService;
 import com.example.backend.service.ReportGenerateService;
 import com.example.backend.service.ReportTemplateService;
+import com.example.backend.vo.ReportPreviewDataVO;
 import com.example.backend.vo.ReportRecordVO;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.apache.commons.lang3.StringUtils;
 import org.jxls.common.Context;
-import org.jxls.util.JxlsHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
 import java.io.*;
+import java.math.BigDecimal;
 import java.net.URLEncoder;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 报表生成服务实现
@@ -52,6 +91,13 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
 
     private static final Logger logger = LoggerFactory.getLogger(ReportGenerateServiceImpl.class);
 
+    private static final Set<String> SUPPORTED_FILE_TYPES = Set.of("xlsx", "pdf", "csv", "parquet", "arrow");
+
+    /**
+     * 列式文件类型，只能下载，不支持在线预览
+     */
+    private static final Set<String> COLUMNAR_FILE_TYPES = Set.of("parquet", "arrow");
+
     @Autowired
     private ReportTemplateService templateService;
 
@@ -64,29 +110,190 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
     @Autowired
     private PermissionService permissionService;
 
-    @Value("${report.storage.path:./upload/reports}")
-    private String storagePath;
+    @Autowired
+    private ReportGenerateExecutor generateExecutor;
+
+    @Autowired
+    private ReportResultCache resultCache;
+
+    @Autowired
+    private ReportRecordStatService recordStatService;
+
+    @Autowired
+    private ReportCounters reportCounters;
+
+    @Autowired
+    private ReportStorage reportStorage;
+
+    @Autowired
+    private TemplateLayoutCache layoutCache;
+
+    @Autowired
+    private JxlsTemplateCache jxlsTemplateCache;
+
+    @Autowired
+    private JxlsRenderer jxlsRenderer;
 
-    @Value("${report.generate.max-rows:100000}")
+    @Value("${report.storage.temp-path:./upload/temp}")
+    private String tempPath;
+
+    @Value("${report.generate.max-rows:5000000}")
     private int maxRows;
 
+    @Value("${report.generate.max-memory-rows:100000}")
+    private int maxMemoryRows;
+
+    @Value("${report.excel.sheet-max-rows:1000000}")
+    private int sheetMaxRows;
+
+    @Value("${report.excel.parallel:false}")
+    private boolean excelParallel;
+
+    @Value("${report.excel.parallelism:4}")
+    private int excelParallelism;
+
+    @Value("${report.csv.delimiter:,}")
+    private String csvDelimiter;
+
+    @Value("${report.csv.charset:UTF-8}")
+    private String csvCharset;
+
+    @Value("${report.csv.gzip:false}")
+    private boolean csvGzip;
+
+    @Value("${report.parquet.compression:gzip}")
+    private String parquetCompression;
+
+    @Value("${report.parquet.row-group-size-mb:64}")
+    private long parquetRowGroupSizeMb;
+
+    /**
+     * 数据预览结果的缓存时间（秒），0表示不缓存
+     */
+    @Value("${report.preview.cache-ttl:60}")
+    private long previewCacheTtl;
+
+    @Value("${report.preview.cache-max-entries:256}")
+    private int previewCacheMaxEntries;
+
+    /**
+     * 数据预览的SQL执行超时时间（秒），模板配置的超时时间更短时使用模板配置
+     */
+    @Value("${report.preview.query-timeout:30}")
+    private int previewQueryTimeout;
+
     @Value("${report.generate.page-size:5000}")
     private int pageSize;
 
+    @Value("${report.generate.timeout:300000}")
+    private long generateTimeout;
+
+    /**
+     * 最近的数据预览结果，按访问顺序排列，超出容量时淘汰最久未使用的
+     */
+    private final Map<String, PreviewEntry> previewCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreviewEntry> eldest) {
+            return size() > previewCacheMaxEntries;
+        }
+    };
+
     @Override
     public ReportRecordVO generateReport(ReportGenerateDTO generateDTO) {
-        // 获取模板
-        ReportTemplate template = templateService.getById(generateDTO.getTemplateId());
+        return generateReport(generateDTO, GeneratePriority.INTERACTIVE);
+    }
+
+    @Override
+    public ReportRecordVO generateReport(ReportGenerateDTO generateDTO, GeneratePriority priority) {
+        ReportTemplate template = getGenerateTemplate(generateDTO.getTemplateId());
+        ReportRecord record = createRecord(template, generateDTO);
+
+        // 在生成调度器中执行，等待完成；超时后任务继续在后台执行，返回生成中的记录
+        Future<Void> future = submitGenerate(template, record, generateDTO.getParams(), priority);
+        try {
+            future.get(generateTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("报表生成等待超时，转为后台生成: recordId={}", record.getId());
+            return convertToVO(getById(record.getId()));
+        } catch (CancellationException e) {
+            throw new BusinessException(ResultCode.REPORT_CANCELLED);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, cause.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "报表生成等待被中断");
+        }
+
+        return convertToVO(record);
+    }
+
+    @Override
+    public Long generateReportAsync(ReportGenerateDTO generateDTO) {
+        ReportTemplate template = getGenerateTemplate(generateDTO.getTemplateId());
+        ReportRecord record = createRecord(template, generateDTO);
+
+        // 提交到生成调度器后立即返回记录ID
+        submitGenerate(template, record, generateDTO.getParams(), GeneratePriority.INTERACTIVE);
+        return record.getId();
+    }
+
+    @Override
+    public void cancelGenerate(Long recordId) {
+        ReportRecord record = getById(recordId);
+        if (record == null) {
+            throw new BusinessException(ResultCode.RECORD_NOT_FOUND);
+        }
+
+        // 非管理员只能取消自己提交的任务
+        if (!permissionService.isCurrentUserAdmin()
+                && !Objects.equals(record.getCreateBy(), UserContext.getUserId())) {
+            throw new BusinessException(ResultCode.FORBIDDEN, "您没有权限取消该报表");
+        }
+
+        generateExecutor.cancel(recordId);
+        // 中断工作线程无法停止阻塞在数据库中的查询，需要由数据库中止正在执行的SQL并释放连接
+        datasourceService.cancelQuery(recordId);
+
+        // 只有生成中的记录可以取消；状态写入记录后，其他节点上排队的任务开始执行前也会跳过
+        LocalDateTime endTime = LocalDateTime.now();
+        boolean updated = lambdaUpdate()
+                .eq(ReportRecord::getId, recordId)
+                .eq(ReportRecord::getStatus, 0)
+                .set(ReportRecord::getStatus, 3)
+                .set(ReportRecord::getErrorMsg, ResultCode.REPORT_CANCELLED.getMessage())
+                .set(ReportRecord::getEndTime, endTime)
+                .set(record.getStartTime() != null, ReportRecord::getDuration,
+                        record.getStartTime() != null ? java.time.Duration.between(record.getStartTime(), endTime).toMillis() : null)
+                .update();
+        if (!updated) {
+            throw new BusinessException("报表已生成结束，无法取消");
+        }
+    }
+
+    /**
+     * 获取模板并检查生成权限
+     */
+    private ReportTemplate getGenerateTemplate(Long templateId) {
+        ReportTemplate template = templateService.getById(templateId);
         if (template == null) {
             throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
         }
 
         // 权限检查：检查用户是否有生成权限（permissionType >= 2）
-        if (!permissionService.checkCurrentUserPermission(generateDTO.getTemplateId(), 2)) {
+        if (!permissionService.checkCurrentUserPermission(templateId, 2)) {
             throw new BusinessException(ResultCode.FORBIDDEN, "您没有权限生成该报表");
         }
+        return template;
+    }
 
-        // 创建生成记录
+    /**
+     * 创建生成记录（在请求线程中保存，以便填充创建人）
+     */
+    private ReportRecord createRecord(ReportTemplate template, ReportGenerateDTO generateDTO) {
         ReportRecord record = new ReportRecord();
         record.setTemplateId(template.getId());
         record.setTemplateName(template.getTemplateName());
@@ -94,166 +301,233 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
                 ? generateDTO.getReportName() 
                 : template.getTemplateName() + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
         record.setGenerateParams(generateDTO.getParams());
-        record.setFileType(generateDTO.getFileType());
+        record.setFileType(resolveFileType(template, generateDTO.getFileType()));
         record.setStatus(0); // 生成中
         record.setStartTime(LocalDateTime.now());
         save(record);
+        recordStatService.recordCreated(record);
+        return record;
+    }
+
+    /**
+     * 生成的文件类型：请求未指定时使用模板的默认文件类型，都未设置时为xlsx
+     */
+    private static String resolveFileType(ReportTemplate template, String fileType) {
+        String resolved = StringUtils.isNotBlank(fileType) ? fileType
+                : StringUtils.defaultIfBlank(template.getDefaultFileType(), "xlsx");
+        resolved = resolved.toLowerCase();
+        if (!SUPPORTED_FILE_TYPES.contains(resolved)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "不支持的文件类型: " + fileType);
+        }
+        return resolved;
+    }
 
+    /**
+     * 提交生成任务到调度器，队列已满时删除记录并拒绝
+     */
+    private Future<Void> submitGenerate(ReportTemplate template, ReportRecord record, Map<String, Object> params,
+                                        GeneratePriority priority) {
         try {
-            // 查询数据
-            List<Map<String, Object>> dataList = queryReportData(template, generateDTO.getParams());
-            record.setDataRows(dataList.size());
-
-            // 检查数据量
-            if (dataList.size() > maxRows) {
-                throw new BusinessException(ResultCode.REPORT_TOO_LARGE, 
-                        "数据量超过限制，当前: " + dataList.size() + "行，最大: " + maxRows + "行");
-            }
+            return generateExecutor.submit(record.getId(), record.getFileType(), record.getCreateBy(),
+                    template.getDatasourceId(), priority, () -> executeGenerate(template, record, params));
+        } catch (BusinessException e) {
+            removeById(record.getId());
+            recordStatService.recordDeleted(record);
+            throw e;
+        }
+    }
 
-            // 生成报表文件
-            String fileName = generateReportFile(template, dataList, generateDTO.getFileType());
-            record.setFilePath(fileName);
-            
-            File file = new File(storagePath, fileName);
-            record.setFileSize(file.length());
-            record.setStatus(1); // 成功
-            record.setEndTime(LocalDateTime.now());
-            record.setDuration(java.time.Duration.between(record.getStartTime(), record.getEndTime()).toMillis());
+    /**
+     * 执行报表生成并更新记录状态（在生成调度器的工作线程中执行）
+     */
+    private void executeGenerate(ReportTemplate template, ReportRecord record, Map<String, Object> params) {
+        // 记录在排队期间可能已被取消（包括在其他节点上取消）
+        ReportRecord current = getById(record.getId());
+        if (current == null || current.getStatus() != 0) {
+            throw new BusinessException(ResultCode.REPORT_CANCELLED);
+        }
 
-            // 增加模板使用次数
-            templateService.incrementUseCount(template.getId());
+        try {
+            // 相同模板版本和参数的结果直接复用缓存，否则流式查询数据并生成报表文件
+            String fileKey = generateWithCache(template, params, record);
+            record.setFilePath(fileKey);
 
-        } catch (BusinessException e) {
-            record.setStatus(2); // 失败
-            record.setErrorMsg(e.getMessage());
+            ReportStorage.StoredFile storedFile = reportStorage.stat(fileKey);
+            record.setFileSize(storedFile != null ? storedFile.getSize() : 0L);
+            record.setStatus(1); // 成功
             record.setEndTime(LocalDateTime.now());
             record.setDuration(java.time.Duration.between(record.getStartTime(), record.getEndTime()).toMillis());
-            updateById(record);
+        } catch (BusinessException e) {
+            markFailed(record, e);
             throw e;
         } catch (Exception e) {
             logger.error("报表生成失败", e);
-            record.setStatus(2);
-            record.setErrorMsg(e.getMessage());
-            record.setEndTime(LocalDateTime.now());
-            record.setDuration(java.time.Duration.between(record.getStartTime(), record.getEndTime()).toMillis());
-            updateById(record);
+            markFailed(record, e);
             throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, e.getMessage());
         }
 
-        updateById(record);
-        return convertToVO(record);
-    }
-
-    @Override
-    @Async
-    public Long generateReportAsync(ReportGenerateDTO generateDTO) {
-        // 创建记录
-        ReportTemplate template = templateService.getById(generateDTO.getTemplateId());
-        if (template == null) {
-            throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
+        if (generateExecutor.isCancelled(record.getId()) || !updateIfGenerating(record)) {
+            // 生成完成前被取消（包括在其他节点上取消），记录状态已由取消操作写入
+            reportStorage.delete(record.getFilePath());
+            throw new BusinessException(ResultCode.REPORT_CANCELLED);
         }
+        recordStatService.recordFinished(record);
 
-        // 权限检查：检查用户是否有生成权限（permissionType >= 2）
-        if (!permissionService.checkCurrentUserPermission(generateDTO.getTemplateId(), 2)) {
-            throw new BusinessException(ResultCode.FORBIDDEN, "您没有权限生成该报表");
+        // 增加模板使用次数
+        templateService.incrementUseCount(template.getId());
+    }
+
+    /**
+     * 生成报表文件，优先使用结果缓存
+     * @return 生成文件的存储键，数据行数写入 record
+     */
+    private String generateWithCache(ReportTemplate template, Map<String, Object> params, ReportRecord record) {
+        String cacheKey = resultCache.buildKey(template, params, fileExtension(record.getFileType()));
+        if (cacheKey != null) {
+            String fileKey = reportStorage.newKey(fileExtension(record.getFileType()));
+            Integer dataRows = resultCache.restore(cacheKey, fileKey);
+            if (dataRows != null) {
+                logger.info("报表结果缓存命中: templateId={}, recordId={}", template.getId(), record.getId());
+                record.setDataRows(dataRows);
+                return fileKey;
+            }
         }
 
-        ReportRecord record = new ReportRecord();
-        record.setTemplateId(template.getId());
-        record.setTemplateName(template.getTemplateName());
-        record.setReportName(StringUtils.isNotBlank(generateDTO.getReportName()) 
-                ? generateDTO.getReportName() 
-                : template.getTemplateName() + "_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
-        record.setGenerateParams(generateDTO.getParams());
-        record.setFileType(generateDTO.getFileType());
-        record.setStatus(0);
-        record.setStartTime(LocalDateTime.now());
-        save(record);
+        String fileKey = generateReportFile(template, params, record.getFileType(), record);
+        resultCache.put(cacheKey, template.getId(), fileKey, record.getDataRows());
+        return fileKey;
+    }
 
-        // 异步执行生成
-        try {
-            List<Map<String, Object>> dataList = queryReportData(template, generateDTO.getParams());
-            record.setDataRows(dataList.size());
+    /**
+     * 标记生成失败；已被取消的任务保留取消状态
+     */
+    private void markFailed(ReportRecord record, Exception e) {
+        if (generateExecutor.isCancelled(record.getId())) {
+            return;
+        }
+        record.setStatus(2); // 失败
+        record.setErrorMsg(e.getMessage());
+        record.setEndTime(LocalDateTime.now());
+        record.setDuration(java.time.Duration.between(record.getStartTime(), record.getEndTime()).toMillis());
+        if (updateIfGenerating(record)) {
+            recordStatService.recordFinished(record);
+        }
+    }
 
-            String fileName = generateReportFile(template, dataList, generateDTO.getFileType());
-            record.setFilePath(fileName);
+    /**
+     * 仅在记录仍为生成中时写入最终状态
+     * @return 记录已被取消（包括在其他节点上取消）时返回 false，不覆盖取消状态
+     */
+    private boolean updateIfGenerating(ReportRecord record) {
+        return update(record, new LambdaUpdateWrapper<ReportRecord>()
+                .eq(ReportRecord::getId, record.getId())
+                .eq(ReportRecord::getStatus, 0));
+    }
 
-            File file = new File(storagePath, fileName);
-            record.setFileSize(file.length());
-            record.setStatus(1);
-            record.setEndTime(LocalDateTime.now());
-            record.setDuration(java.time.Duration.between(record.getStartTime(), record.getEndTime()).toMillis());
+    @Override
+    public ReportPreviewDataVO previewData(ReportPreviewDataDTO previewDTO) {
+        // 预览执行模板SQL，与生成报表需要相同的权限
+        ReportTemplate template = getGenerateTemplate(previewDTO.getTemplateId());
+        if (template.getDatasourceId() == null || StringUtils.isBlank(template.getQuerySql())) {
+            throw new BusinessException("模板数据源或SQL未配置");
+        }
+        int pageNum = previewDTO.getPageNum() != null ? previewDTO.getPageNum() : 1;
+        int size = previewDTO.getPageSize() != null ? previewDTO.getPageSize() : 50;
+
+        // 模板保存后版本号递增，旧的预览结果不再命中
+        String cacheKey = template.getId() + "|" + template.getVersion() + "|" + template.getDatasourceId()
+                + "|" + pageNum + "|" + size + "|" + ReportResultCache.normalizeParams(previewDTO.getParams());
+        ReportPreviewDataVO cached = getPreviewPage(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        int timeout = template.getQueryTimeout() != null && template.getQueryTimeout() > 0
+                ? Math.min(template.getQueryTimeout(), previewQueryTimeout) : previewQueryTimeout;
+        // 多取一行用于判断是否还有下一页
+        QueryOptions options = new QueryOptions(0, size + 1).setQueryTimeout(timeout);
+        PreviewRowCollector collector = new PreviewRowCollector(layoutCache.get(template));
+        datasourceService.executePageQuery(template.getDatasourceId(), template.getQuerySql(),
+                typedParams(template, previewDTO.getParams()), (long) (pageNum - 1) * size, size + 1,
+                options, collector);
+
+        List<List<Object>> rows = collector.getRows();
+        ReportPreviewDataVO vo = new ReportPreviewDataVO();
+        vo.setTemplateId(template.getId());
+        vo.setPageNum(pageNum);
+        vo.setPageSize(size);
+        vo.setHasMore(rows.size() > size);
+        vo.setRows(rows.size() > size ? new ArrayList<>(rows.subList(0, size)) : rows);
+        List<ReportPreviewDataVO.Column> columns = new ArrayList<>(collector.getHeaders().size());
+        for (int i = 0; i < collector.getHeaders().size(); i++) {
+            ReportPreviewDataVO.Column column = new ReportPreviewDataVO.Column();
+            column.setName(collector.getHeaders().get(i));
+            ReportColumn.Type type = collector.getTypes().get(i);
+            column.setType(type == ReportColumn.Type.OBJECT ? ReportColumn.Type.STRING.name() : type.name());
+            columns.add(column);
+        }
+        vo.setColumns(columns);
+        putPreviewPage(cacheKey, vo);
+        return vo;
+    }
 
-            // 增加模板使用次数
-            templateService.incrementUseCount(template.getId());
-        } catch (Exception e) {
-            logger.error("异步报表生成失败", e);
-            record.setStatus(2);
-            record.setErrorMsg(e.getMessage());
-            record.setEndTime(LocalDateTime.now());
-            record.setDuration(java.time.Duration.between(record.getStartTime(), record.getEndTime()).toMillis());
+    private ReportPreviewDataVO getPreviewPage(String key) {
+        if (previewCacheTtl <= 0) {
+            return null;
+        }
+        synchronized (previewCache) {
+            PreviewEntry entry = previewCache.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt < System.currentTimeMillis()) {
+                previewCache.remove(key);
+                return null;
+            }
+            return entry.page;
         }
-        updateById(record);
+    }
 
-        return record.getId();
+    private void putPreviewPage(String key, ReportPreviewDataVO page) {
+        if (previewCacheTtl <= 0) {
+            return;
+        }
+        synchronized (previewCache) {
+            previewCache.put(key, new PreviewEntry(page, System.currentTimeMillis() + previewCacheTtl * 1000));
+        }
     }
 
     @Override
-    public void previewReport(Long recordId, HttpServletResponse response) {
+    public void previewReport(Long recordId, HttpServletRequest request, HttpServletResponse response) {
         ReportRecord record = getById(recordId);
         if (record == null || record.getStatus() != 1) {
             throw new BusinessException("报表不存在或未生成完成");
         }
 
-        File file = new File(storagePath, record.getFilePath());
-        if (!file.exists()) {
+        if (reportStorage.stat(record.getFilePath()) == null) {
             throw new BusinessException("报表文件不存在");
         }
 
-        try {
-            String fileType = record.getFileType().toLowerCase();
-            String contentType;
-            String extension;
-
-            switch (fileType) {
-                case "pdf":
-                    contentType = "application/pdf";
-                    extension = ".pdf";
-                    break;
-                case "xlsx":
-                    contentType = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-                    extension = ".xlsx";
-                    break;
-                case "csv":
-                    contentType = "text/csv; charset=UTF-8";
-                    extension = ".csv";
-                    break;
-                default:
-                    throw new BusinessException("不支持的文件格式预览: " + fileType);
-            }
+        String fileType = record.getFileType().toLowerCase();
+        String contentType = contentType(fileType);
+        if (contentType == null || COLUMNAR_FILE_TYPES.contains(fileType)) {
+            throw new BusinessException("不支持的文件格式预览: " + fileType);
+        }
 
+        try {
             response.setContentType(contentType);
-
-            String encodedFileName = URLEncoder.encode(record.getReportName() + extension, StandardCharsets.UTF_8)
+            String encodedFileName = URLEncoder.encode(record.getReportName() + "." + fileType, StandardCharsets.UTF_8)
                     .replace("+", "%20");
             response.setHeader("Content-Disposition", "inline; filename=\"" + encodedFileName + "\"");
-            response.setContentLengthLong(file.length());
-            response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
-            response.setHeader("Pragma", "no-cache");
-            response.setDateHeader("Expires", 0);
-
-            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(file))) {
-                IoUtil.copy(inputStream, response.getOutputStream());
-                response.getOutputStream().flush();
-            }
+            ReportFileSender.send(reportStorage, record.getFilePath(), request, response);
         } catch (IOException e) {
-            logger.error("预览失败: recordId={}, file={}", recordId, file.getAbsolutePath(), e);
+            logger.error("预览失败: recordId={}, file={}", recordId, record.getFilePath(), e);
             throw new BusinessException("预览失败: " + e.getMessage());
         }
     }
 
     @Override
-    public void downloadReport(Long recordId, HttpServletResponse response) {
+    public void downloadReport(Long recordId, HttpServletRequest request, HttpServletResponse response) {
         ReportRecord record = getById(recordId);
         if (record == null || record.getStatus() != 1) {
             throw new BusinessException("报表不存在或未生成完成");
@@ -264,28 +538,40 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
             throw new BusinessException(ResultCode.FORBIDDEN, "您没有权限下载该报表");
         }
 
-        File file = new File(storagePath, record.getFilePath());
-        if (!file.exists()) {
+        if (reportStorage.stat(record.getFilePath()) == null) {
             throw new BusinessException("报表文件不存在");
         }
 
         try {
-            String contentType = "xlsx".equals(record.getFileType()) 
-                    ? "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"
-                    : "application/pdf";
-            response.setContentType(contentType);
-            response.setHeader("Content-Disposition", "attachment; filename=" + 
+            String contentType = contentType(record.getFileType().toLowerCase());
+            response.setContentType(contentType != null ? contentType : "application/octet-stream");
+            response.setHeader("Content-Disposition", "attachment; filename=" +
                     URLEncoder.encode(record.getReportName() + "." + record.getFileType(), StandardCharsets.UTF_8));
-            IoUtil.copy(new FileInputStream(file), response.getOutputStream());
 
-            // 更新下载次数
-            record.setDownloadCount(record.getDownloadCount() == null ? 1 : record.getDownloadCount() + 1);
-            updateById(record);
+            // 断点续传的后续片段和未修改的缓存校验不计入下载次数
+            if (ReportFileSender.send(reportStorage, record.getFilePath(), request, response)) {
+                reportCounters.recordDownload(record.getId());
+                recordStatService.recordDownloaded(record);
+            }
         } catch (IOException e) {
             throw new BusinessException("下载失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 报表文件的 Content-Type，不支持的类型返回 null
+     */
+    private static String contentType(String fileType) {
+        return switch (fileType) {
+            case "pdf" -> "application/pdf";
+            case "xlsx" -> "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+            case "csv" -> "text/csv; charset=UTF-8";
+            case "parquet" -> "application/vnd.apache.parquet";
+            case "arrow" -> "application/vnd.apache.arrow.file";
+            default -> null;
+        };
+    }
+
     @Override
     public IPage<ReportRecordVO> pageRecords(ReportRecordQueryDTO queryDTO) {
         Page<ReportRecord> page = new Page<>(queryDTO.getPageNum(), queryDTO.getPageSize());
@@ -300,7 +586,7 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
 
         // 非管理员只能查看自己创建的记录
         if (!permissionService.isCurrentUserAdmin()) {
-            wrapper.eq(ReportRecord::getCreateBy, StpUtil.getLoginIdAsLong());
+            wrapper.eq(ReportRecord::getCreateBy, UserContext.getUserId());
         }
 
         wrapper.orderByDesc(ReportRecord::getCreateTime);
@@ -323,10 +609,11 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
         ReportRecord record = getById(id);
         if (record != null && StringUtils.isNotBlank(record.getFilePath())) {
             // 删除文件
-            File file = new File(storagePath, record.getFilePath());
-            FileUtil.del(file);
+            reportStorage.delete(record.getFilePath());
+        }
+        if (removeById(id) && record != null) {
+            recordStatService.recordDeleted(record);
         }
-        removeById(id);
     }
 
     @Override
@@ -346,68 +633,227 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
     }
 
     /**
-     * 查询报表数据
+     * 流式查询报表数据，按批次回调给处理器
+     * @return 数据行数
      */
-    private List<Map<String, Object>> queryReportData(ReportTemplate template, Map<String, Object> params) {
+    private long streamReportData(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                                  ReportRowHandler handler) {
         if (template.getDatasourceId() == null || StringUtils.isBlank(template.getQuerySql())) {
             throw new BusinessException("模板数据源或SQL未配置");
         }
-        return datasourceService.executeQuery(template.getDatasourceId(), template.getQuerySql(), params);
+        return datasourceService.executeStreamQuery(template.getDatasourceId(), template.getQuerySql(),
+                typedParams(template, params), options, handler);
+    }
+
+    /**
+     * 按模板参数配置的控件类型转换参数值，使绑定到SQL的参数类型与列类型一致
+     * number → BigDecimal，date → java.sql.Date，multiselect 的逗号分隔字符串 → 列表（展开为 IN 条件）
+     */
+    private Map<String, Object> typedParams(ReportTemplate template, Map<String, Object> params) {
+        if (params == null || params.isEmpty() || template.getParamConfig() == null) {
+            return params;
+        }
+        Map<String, Object> typed = new HashMap<>(params);
+        for (Map<String, Object> config : template.getParamConfig()) {
+            Object name = config.get("name");
+            Object value = name != null ? typed.get(name.toString()) : null;
+            if (!(value instanceof String text) || StringUtils.isBlank(text)) {
+                continue;
+            }
+            String type = String.valueOf(config.get("type"));
+            try {
+                switch (type) {
+                    case "number" -> typed.put(name.toString(), new BigDecimal(text.trim()));
+                    case "date" -> {
+                        if (text.trim().length() == 10) {
+                            typed.put(name.toString(), java.sql.Date.valueOf(LocalDate.parse(text.trim())));
+                        }
+                    }
+                    case "multiselect" -> typed.put(name.toString(), Arrays.stream(text.split(","))
+                            .map(String::trim)
+                            .filter(StringUtils::isNotEmpty)
+                            .collect(Collectors.toList()));
+                    default -> {
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 无法转换时按原始字符串绑定
+                logger.debug("参数类型转换失败: {}={}, {}", name, text, e.getMessage());
+            }
+        }
+        return typed;
     }
 
     /**
-     * 生成报表文件
+     * 生成报表文件，写入报表存储
+     * @return 生成文件的存储键，数据行数写入 record
      */
-    private String generateReportFile(ReportTemplate template, List<Map<String, Object>> dataList, String fileType) {
-        // 确保目录存在
-        FileUtil.mkdir(storagePath);
+    private String generateReportFile(ReportTemplate template, Map<String, Object> params, String fileType,
+                                      ReportRecord record) {
+        if (!SUPPORTED_FILE_TYPES.contains(fileType)) {
+            throw new BusinessException(ResultCode.PARAM_ERROR, "不支持的文件类型: " + fileType);
+        }
+        String fileKey = reportStorage.newKey(fileExtension(fileType));
 
-        String fileName = UUID.randomUUID().toString() + "." + fileType;
-        String filePath = storagePath + File.separator + fileName;
+        // 查询以生成记录ID登记，取消生成时可中止正在执行的SQL；拉取行数和超时时间优先使用模板配置
+        QueryOptions options = new QueryOptions(maxRows, pageSize)
+                .setQueryId(record.getId())
+                .setFetchSize(template.getFetchSize())
+                .setQueryTimeout(template.getQueryTimeout());
 
-        if ("xlsx".equals(fileType)) {
-            // 如果有模板文件，使用Jxls渲染；否则使用EasyExcel
-            if (StringUtils.isNotBlank(template.getTemplateFile())) {
-                generateExcelWithJxls(template, dataList, filePath);
-            } else {
-                generateExcel(template, dataList, filePath);
-            }
-        } else if ("pdf".equals(fileType)) {
-            // 先生成Excel再转PDF
-            String tempExcel = storagePath + File.separator + UUID.randomUUID().toString() + ".xlsx";
-            if (StringUtils.isNotBlank(template.getTemplateFile())) {
-                generateExcelWithJxls(template, dataList, tempExcel);
-            } else {
-                generateExcel(template, dataList, tempExcel);
+        long dataRows;
+        StorageOutputStream storageOutput = null;
+        try {
+            storageOutput = reportStorage.openOutput(fileKey);
+            // 写入器出错时也会关闭输出流，交给写入器的流关闭时不提交文件，全部写入成功后才提交
+            OutputStream outputStream = storageOutput.uncommitted();
+            dataRows = switch (fileType) {
+                case "xlsx" -> writeExcel(template, params, options, outputStream);
+                case "pdf" -> writePdf(template, params, options, outputStream);
+                case "parquet" -> writeParquet(template, params, options, outputStream);
+                case "arrow" -> writeArrow(template, params, options, outputStream);
+                default -> writeCsv(template, params, options, outputStream);
+            };
+            storageOutput.close();
+        } catch (IOException e) {
+            discardOutput(storageOutput, fileKey);
+            throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "报表文件写入失败: " + e.getMessage());
+        } catch (RuntimeException e) {
+            // 查询中断、取消或生成失败时放弃上传，不发布未写完的文件
+            discardOutput(storageOutput, fileKey);
+            throw e;
+        }
+
+        record.setDataRows((int) dataRows);
+        return fileKey;
+    }
+
+    /**
+     * 放弃未写完的文件：S3取消分片上传，不再上传剩余数据或提交对象
+     */
+    private void discardOutput(StorageOutputStream storageOutput, String fileKey) {
+        if (storageOutput != null) {
+            storageOutput.abort();
+        }
+        reportStorage.delete(fileKey);
+    }
+
+    /**
+     * 生成Excel文件
+     * 有模板文件时使用Jxls渲染；否则按批次流式写入，超过工作表行数上限时自动分工作表。
+     * 开启并行编码时使用 ParallelXlsxReportWriter 在多个线程上编码压缩工作表数据，否则使用EasyExcel
+     * @return 数据行数
+     */
+    private long writeExcel(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                            OutputStream outputStream) throws IOException {
+        if (StringUtils.isNotBlank(template.getTemplateFile())) {
+            return generateExcelWithJxls(template, params, options, outputStream);
+        }
+
+        CompiledTemplateLayout layout = layoutCache.get(template);
+        if (!layout.isEmpty()) {
+            logger.info("使用设计器布局生成报表，字段数: {}", layout.getFields().size());
+        } else {
+            logger.info("未找到设计器布局，使用全部字段生成报表");
+        }
+
+        try (AbstractReportWriter writer = excelParallel
+                ? new ParallelXlsxReportWriter(outputStream, layout, sheetMaxRows, excelParallelism)
+                : new ExcelReportWriter(outputStream, layout, sheetMaxRows)) {
+            return streamReportData(template, params, options, writer);
+        }
+    }
+
+    /**
+     * 生成PDF文件
+     * 有模板文件时先用Jxls生成本地临时Excel再转PDF（保留模板样式）；否则直接按批次流式写入PDF
+     * @return 数据行数
+     */
+    private long writePdf(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                          OutputStream outputStream) throws IOException {
+        if (StringUtils.isNotBlank(template.getTemplateFile())) {
+            File tempExcel = new File(tempPath, UUID.randomUUID().toString() + ".xlsx");
+            FileUtil.mkParentDirs(tempExcel);
+            long dataRows;
+            try (OutputStream excelStream = new FileOutputStream(tempExcel)) {
+                // 转换PDF时整个工作簿和PDF表格都在内存中构建，无论Jxls是否流式渲染都按内存行数上限限制
+                dataRows = writeExcel(template, params, options.setMaxRows(memoryMaxRows(options.getMaxRows())),
+                        excelStream);
+            } catch (IOException | RuntimeException e) {
+                FileUtil.del(tempExcel);
+                throw e;
             }
 
             // 转换PDF，成功后清理临时文件，失败时保留用于调试
-            convertToPdfWithCleanup(tempExcel, filePath);
-        } else if ("csv".equals(fileType)) {
-            generateCsv(dataList, filePath);
+            convertToPdfWithCleanup(tempExcel, outputStream);
+            return dataRows;
         }
 
-        return fileName;
+        try (PdfReportWriter writer = pdfConvertService.createReportWriter(outputStream, layoutCache.get(template))) {
+            return streamReportData(template, params, options, writer);
+        }
     }
 
     /**
-     * 使用Jxls模板引擎生成Excel
-     * 模板中使用 jx:each 标签定义循环区域
-     * 示例: jx:each(items="dataList" var="item" lastCell="D2")
+     * 生成文件的扩展名，开启CSV压缩时CSV文件存储为 .csv.gz（下载时以gzip编码发送）
+     */
+    private String fileExtension(String fileType) {
+        return csvGzip && "csv".equals(fileType) ? "csv.gz" : fileType;
+    }
+
+    /**
+     * 生成CSV文件（按批次流式写入，按设计器布局输出列）
+     * @return 数据行数
      */
-    private void generateExcelWithJxls(ReportTemplate template, List<Map<String, Object>> dataList, String outputPath) {
-        String templatePath = storagePath + File.separator + template.getTemplateFile();
-        File templateFile = new File(templatePath);
+    private long writeCsv(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                          OutputStream outputStream) throws IOException {
+        OutputStream target = csvGzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+        char delimiter = StringUtils.isNotEmpty(csvDelimiter) ? csvDelimiter.charAt(0) : CsvReportWriter.DEFAULT_DELIMITER;
+        try (CsvReportWriter writer = new CsvReportWriter(target, layoutCache.get(template), delimiter,
+                Charset.forName(csvCharset))) {
+            return streamReportData(template, params, options, writer);
+        }
+    }
+
+    /**
+     * 生成Parquet文件（按批次流式写入，按设计器布局输出列，列类型取自结果集元数据）
+     * @return 数据行数
+     */
+    private long writeParquet(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                              OutputStream outputStream) throws IOException {
+        ParquetReportWriter.Codec codec = "none".equalsIgnoreCase(parquetCompression)
+                ? ParquetReportWriter.Codec.UNCOMPRESSED : ParquetReportWriter.Codec.GZIP;
+        try (ParquetReportWriter writer = new ParquetReportWriter(outputStream, layoutCache.get(template), codec,
+                parquetRowGroupSizeMb * 1024 * 1024)) {
+            return streamReportData(template, params, options, writer);
+        }
+    }
 
-        if (!templateFile.exists()) {
-            throw new BusinessException(ResultCode.TEMPLATE_FILE_NOT_FOUND, "模板文件不存在: " + template.getTemplateFile());
+    /**
+     * 生成Arrow IPC文件（每个数据批次一个记录批次，按设计器布局输出列）
+     * @return 数据行数
+     */
+    private long writeArrow(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                            OutputStream outputStream) throws IOException {
+        try (ArrowReportWriter writer = new ArrowReportWriter(outputStream, layoutCache.get(template))) {
+            return streamReportData(template, params, options, writer);
         }
+    }
 
-        try (InputStream is = new FileInputStream(templateFile);
-             OutputStream os = new FileOutputStream(outputPath)) {
+    /**
+     * 使用Jxls模板引擎生成Excel，模板文件从报表存储读取（按模板缓存）
+     * 模板中使用 jx:each 标签定义循环区域
+     * 示例: jx:each(items="dataList" var="item" lastCell="D2")
+     * 模板可以流式渲染时边查询边写出，否则先收集完整数据集再渲染
+     * @return 数据行数
+     */
+    private long generateExcelWithJxls(ReportTemplate template, Map<String, Object> params, QueryOptions options,
+                                       OutputStream outputStream) {
+        String templateKey = template.getTemplateFile();
+        try {
+            JxlsTemplate jxlsTemplate = jxlsTemplateCache.get(template);
 
             Context context = new Context();
-            context.putVar("dataList", dataList);
             context.putVar("reportName", template.getTemplateName());
             context.putVar("generateTime", LocalDateTime.now());
 
@@ -422,219 +868,77 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
                 }
             }
 
-            JxlsHelper.getInstance().processTemplate(is, os, context);
-            logger.info("Jxls模板渲染完成: template={}, output={}", templatePath, outputPath);
+            long dataRows;
+            boolean streaming = jxlsRenderer.isStreaming(jxlsTemplate);
+            if (streaming) {
+                dataRows = jxlsRenderer.renderStreaming(jxlsTemplate, context, outputStream,
+                        handler -> streamReportData(template, params, options, handler));
+            } else {
+                // 内存模式需要完整数据集，行数上限单独限制
+                ListRowCollector collector = new ListRowCollector();
+                streamReportData(template, params, options.setMaxRows(memoryMaxRows(options.getMaxRows())), collector);
+                context.putVar(JxlsTemplate.DATA_VAR, collector.getRows());
+                jxlsRenderer.render(jxlsTemplate, context, outputStream);
+                dataRows = collector.getRows().size();
+            }
+            logger.info("Jxls模板渲染完成: template={}, streaming={}", templateKey, streaming);
+            return dataRows;
 
+        } catch (FileNotFoundException e) {
+            throw new BusinessException(ResultCode.TEMPLATE_FILE_NOT_FOUND, "模板文件不存在: " + templateKey);
         } catch (IOException e) {
-            logger.error("Jxls模板渲染失败: template={}", templatePath, e);
+            logger.error("Jxls模板渲染失败: template={}", templateKey, e);
             throw new BusinessException(ResultCode.REPORT_GENERATE_ERROR, "模板渲染失败: " + e.getMessage());
         }
     }
 
+    private int memoryMaxRows(int limit) {
+        if (maxMemoryRows <= 0) {
+            return limit;
+        }
+        return limit <= 0 ? maxMemoryRows : Math.min(limit, maxMemoryRows);
+    }
+
     /**
      * 将Excel转换为PDF，并处理临时文件清理
      * 成功时删除临时Excel文件，失败时保留用于调试
-     * @param tempExcelPath 临时Excel文件路径
-     * @param pdfPath PDF输出路径
+     * @param tempExcel 临时Excel文件
+     * @param pdfStream PDF输出流
      * @throws BusinessException 转换失败时抛出PDF_CONVERT_ERROR
      */
-    private void convertToPdfWithCleanup(String tempExcelPath, String pdfPath) {
+    private void convertToPdfWithCleanup(File tempExcel, OutputStream pdfStream) {
         try {
-            convertToPdf(tempExcelPath, pdfPath);
+            convertToPdf(tempExcel, pdfStream);
             // 转换成功，删除临时Excel文件
-            boolean deleted = FileUtil.del(tempExcelPath);
+            boolean deleted = FileUtil.del(tempExcel);
             if (deleted) {
-                logger.info("临时Excel文件已清理: {}", tempExcelPath);
+                logger.info("临时Excel文件已清理: {}", tempExcel);
             } else {
-                logger.warn("临时Excel文件清理失败: {}", tempExcelPath);
+                logger.warn("临时Excel文件清理失败: {}", tempExcel);
             }
         } catch (BusinessException e) {
             // 转换失败，保留临时文件用于调试
-            logger.error("PDF转换失败，保留临时Excel文件用于调试: {}", tempExcelPath, e);
+            logger.error("PDF转换失败，保留临时Excel文件用于调试: {}", tempExcel, e);
             // Re-throw with specific PDF conversion error code
             throw new BusinessException(ResultCode.PDF_CONVERT_ERROR, e.getMessage());
         } catch (Exception e) {
             // 转换失败，保留临时文件用于调试
-            logger.error("PDF转换失败，保留临时Excel文件用于调试: {}", tempExcelPath, e);
+            logger.error("PDF转换失败，保留临时Excel文件用于调试: {}", tempExcel, e);
             throw new BusinessException(ResultCode.PDF_CONVERT_ERROR, "PDF转换失败: " + e.getMessage());
         }
     }
 
-    /**
-     * 从模板配置中提取字段布局
-     * @param template 报表模板
-     * @return 字段布局列表，每个元素包含 field(字段名) 和 label(显示名称)
-     */
-    private List<Map<String, String>> extractFieldLayout(ReportTemplate template) {
-        Map<String, Object> templateConfig = template.getTemplateConfig();
-        if (templateConfig == null) {
-            return null;
-        }
-
-        // 尝试从 spreadsheetData.cellData 中提取字段布局
-        Map<String, Object> spreadsheetData = (Map<String, Object>) templateConfig.get("spreadsheetData");
-        if (spreadsheetData == null) {
-            // 兼容旧格式：直接从 cellData 中提取
-            spreadsheetData = (Map<String, Object>) templateConfig.get("cellData");
-            if (spreadsheetData == null) {
-                return null;
-            }
-        }
-
-        Map<String, Object> cellData = (Map<String, Object>) spreadsheetData.get("cellData");
-        if (cellData == null) {
-            cellData = spreadsheetData; // 兼容直接存储 cellData 的情况
-        }
-
-        // 解析单元格数据，提取字段映射
-        List<Map<String, String>> fieldMappings = new java.util.ArrayList<>();
-        java.util.regex.Pattern fieldPattern = java.util.regex.Pattern.compile("\\$\\{(\\w+)\\}");
-
-        for (Map.Entry<String, Object> entry : cellData.entrySet()) {
-            String cellRef = entry.getKey();
-            Object value = entry.getValue();
-            if (value == null) continue;
-
-            String cellValue = value.toString();
-            java.util.regex.Matcher matcher = fieldPattern.matcher(cellValue);
-            if (matcher.find()) {
-                String fieldName = matcher.group(1);
-
-                // 提取列号
-                String col = cellRef.replaceAll("\\d+", "");
-                int row = Integer.parseInt(cellRef.replaceAll("[A-Z]+", ""));
-
-                // 查找该列的表头（假设表头在第1行）
-                String headerCell = col + "1";
-                Object headerValue = cellData.get(headerCell);
-                String label = fieldName;
-                if (headerValue != null) {
-                    String headerStr = headerValue.toString();
-                    if (!headerStr.startsWith("${")) {
-                        label = headerStr;
-                    }
-                }
-
-                Map<String, String> mapping = new java.util.HashMap<>();
-                mapping.put("field", fieldName);
-                mapping.put("label", label);
-                mapping.put("col", col);
-                fieldMappings.add(mapping);
-            }
-        }
-
-        // 按列排序
-        String colOrder = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-        fieldMappings.sort((a, b) -> colOrder.indexOf(a.get("col")) - colOrder.indexOf(b.get("col")));
-
-        return fieldMappings.isEmpty() ? null : fieldMappings;
-    }
-
-    /**
-     * 生成Excel文件（使用EasyExcel流式写入）
-     */
-    private void generateExcel(ReportTemplate template, List<Map<String, Object>> dataList, String filePath) {
-        if (dataList.isEmpty()) {
-            // 空数据时创建空文件
-            try (ExcelWriter excelWriter = EasyExcel.write(filePath).build()) {
-                WriteSheet writeSheet = EasyExcel.writerSheet("报表数据").build();
-                excelWriter.write(List.of(), writeSheet);
-            }
-            return;
-        }
-
-        // 尝试从模板配置中提取字段布局
-        List<Map<String, String>> fieldLayout = extractFieldLayout(template);
-
-        List<String> headers;
-        List<String> fields;
-
-        if (fieldLayout != null && !fieldLayout.isEmpty()) {
-            // 使用设计器布局
-            headers = fieldLayout.stream().map(f -> f.get("label")).toList();
-            fields = fieldLayout.stream().map(f -> f.get("field")).toList();
-            logger.info("使用设计器布局生成报表，字段数: {}", fields.size());
-        } else {
-            // 没有设计器布局，使用所有字段
-            headers = new java.util.ArrayList<>(dataList.get(0).keySet());
-            fields = headers;
-            logger.info("未找到设计器布局，使用全部字段生成报表，字段数: {}", fields.size());
-        }
-
-        try (ExcelWriter excelWriter = EasyExcel.write(filePath).build()) {
-            WriteSheet writeSheet = EasyExcel.writerSheet("报表数据").build();
-
-            // 先写入表头行
-            List<List<Object>> headerRow = List.of(headers.stream().map(h -> (Object) h).toList());
-            excelWriter.write(headerRow, writeSheet);
-
-            // 分页写入数据，避免内存溢出
-            int totalSize = dataList.size();
-            int pages = (totalSize + pageSize - 1) / pageSize;
-
-            for (int i = 0; i < pages; i++) {
-                int fromIndex = i * pageSize;
-                int toIndex = Math.min(fromIndex + pageSize, totalSize);
-                List<Map<String, Object>> pageData = dataList.subList(fromIndex, toIndex);
-
-                // 转换为List<List<Object>>格式，按字段顺序获取值
-                List<String> finalFields = fields;
-                List<List<Object>> writeData = pageData.stream()
-                        .map(row -> finalFields.stream().map(f -> row.get(f)).toList())
-                        .toList();
-
-                excelWriter.write(writeData, writeSheet);
-            }
-        }
-    }
-
-    /**
-     * 生成CSV文件
-     */
-    private void generateCsv(List<Map<String, Object>> dataList, String filePath) {
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.OutputStreamWriter(
-                new java.io.FileOutputStream(filePath), java.nio.charset.StandardCharsets.UTF_8))) {
-            // 写入BOM以支持Excel正确识别UTF-8
-            writer.write('\ufeff');
-
-            if (dataList.isEmpty()) {
-                return;
-            }
-
-            // 写入表头
-            List<String> headers = new java.util.ArrayList<>(dataList.get(0).keySet());
-            writer.println(String.join(",", headers));
-
-            // 写入数据行
-            for (Map<String, Object> row : dataList) {
-                List<String> values = headers.stream()
-                        .map(h -> {
-                            Object val = row.get(h);
-                            if (val == null) return "";
-                            String str = val.toString();
-                            // 处理包含逗号、引号或换行的值
-                            if (str.contains(",") || str.contains("\"") || str.contains("\n")) {
-                                return "\"" + str.replace("\"", "\"\"") + "\"";
-                            }
-                            return str;
-                        })
-                        .toList();
-                writer.println(String.join(",", values));
-            }
-        } catch (java.io.IOException e) {
-            throw new BusinessException("CSV文件生成失败: " + e.getMessage());
-        }
-    }
-
     /**
      * 将Excel转换为PDF
-     * @param excelPath Excel文件路径
-     * @param pdfPath PDF输出路径
+     * @param excelFile Excel文件
+     * @param pdfStream PDF输出流
      */
-    private void convertToPdf(String excelPath, String pdfPath) {
-        logger.info("开始将Excel转换为PDF: {} -> {}", excelPath, pdfPath);
-        pdfConvertService.convertExcelToPdf(excelPath, pdfPath);
-        logger.info("PDF转换完成: {}", pdfPath);
+    private void convertToPdf(File excelFile, OutputStream pdfStream) throws IOException {
+        logger.info("开始将Excel转换为PDF: {}", excelFile);
+        try (InputStream excelStream = new FileInputStream(excelFile)) {
+            pdfConvertService.convertExcelToPdf(excelStream, pdfStream);
+        }
+        logger.info("PDF转换完成: {}", excelFile);
     }
 
     private ReportRecordVO convertToVO(ReportRecord record) {
@@ -642,7 +946,7 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
 
         // 设置状态名称
         if (record.getStatus() != null) {
-            String[] statusNames = {"生成中", "成功", "失败"};
+            String[] statusNames = {"生成中", "成功", "失败", "已取消"};
             vo.setStatusName(statusNames[record.getStatus()]);
         }
 
@@ -671,4 +975,18 @@ public class ReportGenerateServiceImpl extends ServiceImpl<ReportRecordMapper, R
         if (millis < 60000) return String.format("%.2fs", millis / 1000.0);
         return String.format("%.2fmin", millis / 60000.0);
     }
+
+    /**
+     * 缓存的数据预览结果
+     */
+    private static class PreviewEntry {
+
+        private final ReportPreviewDataVO page;
+        private final long expireAt;
+
+        PreviewEntry(ReportPreviewDataVO page, long expireAt) {
+            this.page = page;
+            this.expireAt = expireAt;
+        }
+    }
 }
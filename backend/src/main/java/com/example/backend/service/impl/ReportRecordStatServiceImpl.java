@@ -0,0 +1,188 @@
+package com.example.backend.service.impl;
+
+import com.example.backend.entity.ReportRecord;
+import com.example.backend.entity.ReportRecordDailyStat;
+import com.example.backend.mapper.ReportRecordDailyStatMapper;
+import com.example.backend.report.BatchedCounter;
+import com.example.backend.report.TemplateLeaderboard;
+import com.example.backend.service.ReportRecordStatService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 报表生成记录统计服务实现
+ * 统计计入记录创建日期所在的统计行，成功生成的次数同时计入热门模板排行榜；
+ * 统计更新失败只记录日志，不影响报表生成和下载；
+ * 下载次数先在内存中按统计行累加，定时批量写入，热门报表集中下载时不逐次锁定同一统计行
+ */
+@Service
+public class ReportRecordStatServiceImpl implements ReportRecordStatService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportRecordStatServiceImpl.class);
+
+    @Autowired
+    private ReportRecordDailyStatMapper dailyStatMapper;
+
+    @Autowired
+    private TemplateLeaderboard templateLeaderboard;
+
+    private final BatchedCounter<StatKey> downloadCounter = new BatchedCounter<>();
+
+    @Override
+    public void recordCreated(ReportRecord record) {
+        ReportRecordDailyStat delta = newDelta(record);
+        delta.setGenerateCount(1);
+        apply(delta);
+    }
+
+    @Override
+    public void recordFinished(ReportRecord record) {
+        ReportRecordDailyStat delta = newDelta(record);
+        if (Integer.valueOf(1).equals(record.getStatus())) {
+            delta.setSuccessCount(1);
+            delta.setTotalBytes(valueOf(record.getFileSize()));
+            delta.setTotalDuration(valueOf(record.getDuration()));
+            templateLeaderboard.increment(record.getTemplateId(), record.getCreateBy(), 1);
+        } else if (Integer.valueOf(2).equals(record.getStatus())) {
+            delta.setFailCount(1);
+        } else {
+            return;
+        }
+        apply(delta);
+    }
+
+    @Override
+    public void recordDownloaded(ReportRecord record) {
+        downloadCounter.increment(StatKey.of(record));
+    }
+
+    /**
+     * 将累加的下载次数写入日统计表，每个统计行一次更新；写入失败的增量放回，下次重试
+     */
+    @Scheduled(fixedDelayString = "${report.counter.flush-interval:5000}")
+    public void flushDownloads() {
+        for (Map.Entry<StatKey, Long> entry : downloadCounter.drain().entrySet()) {
+            ReportRecordDailyStat delta = newDelta(entry.getKey());
+            delta.setDownloadCount(entry.getValue().intValue());
+            try {
+                dailyStatMapper.upsertDelta(delta);
+            } catch (Exception e) {
+                downloadCounter.add(entry.getKey(), entry.getValue());
+                logger.warn("写入下载次数统计失败，下次重试: date={}, userId={}, templateId={}, {}",
+                        delta.getStatDate(), delta.getUserId(), delta.getTemplateId(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushDownloads();
+    }
+
+    @Override
+    public void recordDeleted(ReportRecord record) {
+        ReportRecordDailyStat delta = newDelta(record);
+        delta.setGenerateCount(-1);
+        if (Integer.valueOf(1).equals(record.getStatus())) {
+            delta.setSuccessCount(-1);
+            delta.setTotalBytes(-valueOf(record.getFileSize()));
+            delta.setTotalDuration(-valueOf(record.getDuration()));
+            templateLeaderboard.increment(record.getTemplateId(), record.getCreateBy(), -1);
+        } else if (Integer.valueOf(2).equals(record.getStatus())) {
+            delta.setFailCount(-1);
+        }
+        delta.setDownloadCount(-(record.getDownloadCount() != null ? record.getDownloadCount() : 0));
+        apply(delta);
+    }
+
+    private void apply(ReportRecordDailyStat delta) {
+        try {
+            dailyStatMapper.upsertDelta(delta);
+        } catch (Exception e) {
+            logger.warn("更新报表生成统计失败: date={}, userId={}, templateId={}, {}",
+                    delta.getStatDate(), delta.getUserId(), delta.getTemplateId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 创建该记录所属统计行的空增量
+     */
+    private static ReportRecordDailyStat newDelta(ReportRecord record) {
+        return newDelta(StatKey.of(record));
+    }
+
+    private static ReportRecordDailyStat newDelta(StatKey key) {
+        ReportRecordDailyStat delta = new ReportRecordDailyStat();
+        delta.setStatDate(key.statDate);
+        delta.setUserId(key.userId);
+        delta.setTemplateId(key.templateId);
+        delta.setGenerateCount(0);
+        delta.setSuccessCount(0);
+        delta.setFailCount(0);
+        delta.setDownloadCount(0);
+        delta.setTotalBytes(0L);
+        delta.setTotalDuration(0L);
+        return delta;
+    }
+
+    private static LocalDate statDate(ReportRecord record) {
+        if (record.getCreateTime() != null) {
+            return record.getCreateTime().toLocalDate();
+        }
+        if (record.getStartTime() != null) {
+            return record.getStartTime().toLocalDate();
+        }
+        return LocalDate.now();
+    }
+
+    private static long valueOf(Long value) {
+        return value != null ? value : 0L;
+    }
+
+    /**
+     * 统计行的唯一键（统计日期、创建人、模板）
+     */
+    private static final class StatKey {
+
+        private final LocalDate statDate;
+        private final Long userId;
+        private final Long templateId;
+
+        private StatKey(LocalDate statDate, Long userId, Long templateId) {
+            this.statDate = statDate;
+            this.userId = userId;
+            this.templateId = templateId;
+        }
+
+        static StatKey of(ReportRecord record) {
+            return new StatKey(statDate(record),
+                    record.getCreateBy() != null ? record.getCreateBy() : 0L,
+                    record.getTemplateId() != null ? record.getTemplateId() : 0L);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof StatKey other)) {
+                return false;
+            }
+            return statDate.equals(other.statDate) && userId.equals(other.userId)
+                    && templateId.equals(other.templateId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(statDate, userId, templateId);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.backend.service.impl;
+
+import cn.hutool.core.io.FileUtil;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
+import com.example.backend.entity.ReportRecord;
+import com.example.backend.entity.ReportTemplate;
+import com.example.backend.mapper.ReportRecordMapper;
+import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.ReportStorage;
+import com.example.backend.report.StorageOutputStream;
+import com.example.backend.service.ReportRetentionService;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 生成文件保留与清理服务实现
+ *
+ * 过期记录先删除记录再删除文件，文件删除失败时由孤立文件清理兜底；
+ * 日统计表不扣减，仪表盘的历史统计不受保留期影响。
+ */
+@Service
+public class ReportRetentionServiceImpl implements ReportRetentionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportRetentionServiceImpl.class);
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    @Autowired
+    private ReportRecordMapper recordMapper;
+
+    @Autowired
+    private ReportTemplateMapper templateMapper;
+
+    @Autowired
+    private ReportStorage reportStorage;
+
+    @Value("${report.storage.temp-path:./upload/temp}")
+    private String tempPath;
+
+    @Value("${report.retention.default-days:90}")
+    private int defaultDays;
+
+    @Value("${report.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${report.retention.compress-after-days:7}")
+    private int compressAfterDays;
+
+    @Value("${report.retention.orphan-grace-hours:24}")
+    private int orphanGraceHours;
+
+    @Value("${report.retention.temp-max-age-hours:24}")
+    private int tempMaxAgeHours;
+
+    @Override
+    public int purgeExpiredRecords() {
+        List<ReportTemplate> customTemplates = templateMapper.selectList(new LambdaQueryWrapper<ReportTemplate>()
+                .select(ReportTemplate::getId, ReportTemplate::getRetentionDays)
+                .isNotNull(ReportTemplate::getRetentionDays));
+        Map<Integer, List<Long>> templatesByDays = customTemplates.stream()
+                .collect(Collectors.groupingBy(ReportTemplate::getRetentionDays, TreeMap::new,
+                        Collectors.mapping(ReportTemplate::getId, Collectors.toList())));
+        List<Long> customIds = customTemplates.stream().map(ReportTemplate::getId).collect(Collectors.toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        int purged = 0;
+        for (Map.Entry<Integer, List<Long>> entry : templatesByDays.entrySet()) {
+            if (entry.getKey() > 0) {
+                purged += purge(wrapper -> wrapper.in(ReportRecord::getTemplateId, entry.getValue()),
+                        now.minusDays(entry.getKey()));
+            }
+        }
+        if (defaultDays > 0) {
+            purged += purge(wrapper -> wrapper.notIn(!customIds.isEmpty(), ReportRecord::getTemplateId, customIds),
+                    now.minusDays(defaultDays));
+        }
+        logger.info("过期报表记录清理完成: {} 条", purged);
+        return purged;
+    }
+
+    /**
+     * 按批次删除创建时间早于 cutoff 的记录及文件
+     */
+    private int purge(Consumer<LambdaQueryWrapper<ReportRecord>> scope, LocalDateTime cutoff) {
+        int purged = 0;
+        while (true) {
+            LambdaQueryWrapper<ReportRecord> wrapper = new LambdaQueryWrapper<ReportRecord>()
+                    .select(ReportRecord::getId, ReportRecord::getFilePath)
+                    .lt(ReportRecord::getCreateTime, cutoff);
+            scope.accept(wrapper);
+            wrapper.last("LIMIT " + batchSize);
+
+            List<ReportRecord> batch = recordMapper.selectList(wrapper);
+            if (batch.isEmpty()) {
+                break;
+            }
+            recordMapper.deleteBatchIds(batch.stream().map(ReportRecord::getId).collect(Collectors.toList()));
+            for (ReportRecord record : batch) {
+                if (StringUtils.isNotBlank(record.getFilePath())) {
+                    reportStorage.delete(record.getFilePath());
+                }
+            }
+            purged += batch.size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return purged;
+    }
+
+    @Override
+    public int compressOldFiles() {
+        if (compressAfterDays <= 0) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(compressAfterDays);
+        int compressed = 0;
+        long lastId = 0;
+        while (true) {
+            List<ReportRecord> batch = recordMapper.selectList(new LambdaQueryWrapper<ReportRecord>()
+                    .select(ReportRecord::getId, ReportRecord::getFilePath)
+                    .eq(ReportRecord::getStatus, 1)
+                    .eq(ReportRecord::getFileType, "csv")
+                    .lt(ReportRecord::getCreateTime, cutoff)
+                    .notLike(ReportRecord::getFilePath, ".gz")
+                    .gt(ReportRecord::getId, lastId)
+                    .orderByAsc(ReportRecord::getId)
+                    .last("LIMIT " + batchSize));
+            for (ReportRecord record : batch) {
+                if (compress(record)) {
+                    compressed++;
+                }
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+        logger.info("CSV文件压缩完成: {} 个", compressed);
+        return compressed;
+    }
+
+    /**
+     * 压缩为新的存储键后切换记录的文件路径，记录已被删除或修改时放弃压缩结果
+     * 文件大小保持原始大小（用户下载得到的文件大小）
+     */
+    private boolean compress(ReportRecord record) {
+        String sourceKey = record.getFilePath();
+        if (StringUtils.isBlank(sourceKey)) {
+            return false;
+        }
+        String targetKey = reportStorage.newKey("csv.gz");
+        StorageOutputStream target = null;
+        try (InputStream in = reportStorage.openInput(sourceKey)) {
+            target = reportStorage.openOutput(targetKey);
+            // 压缩失败时放弃写入，不提交不完整的压缩文件
+            try (OutputStream out = new GZIPOutputStream(target.uncommitted(), GZIP_BUFFER_SIZE)) {
+                in.transferTo(out);
+            }
+            target.close();
+        } catch (FileNotFoundException e) {
+            logger.debug("待压缩的报表文件不存在: recordId={}, file={}", record.getId(), sourceKey);
+            return false;
+        } catch (IOException e) {
+            logger.warn("压缩报表文件失败: recordId={}, file={}, {}", record.getId(), sourceKey, e.getMessage());
+            if (target != null) {
+                target.abort();
+            }
+            reportStorage.delete(targetKey);
+            return false;
+        }
+
+        int updated = recordMapper.update(null, new LambdaUpdateWrapper<ReportRecord>()
+                .eq(ReportRecord::getId, record.getId())
+                .eq(ReportRecord::getFilePath, sourceKey)
+                .set(ReportRecord::getFilePath, targetKey));
+        if (updated == 0) {
+            reportStorage.delete(targetKey);
+            return false;
+        }
+        reportStorage.delete(sourceKey);
+        return true;
+    }
+
+    @Override
+    public int sweepOrphanFiles() {
+        long threshold = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(orphanGraceHours);
+        List<String> candidates = new ArrayList<>();
+        int[] deleted = {0};
+        try {
+            // 边遍历边按批次核对，不把整个存储的文件列表加载到内存
+            reportStorage.walk((key, file) -> {
+                if (file.getLastModified() > threshold) {
+                    return;
+                }
+                candidates.add(key);
+                if (candidates.size() >= batchSize) {
+                    deleted[0] += deleteOrphans(candidates);
+                    candidates.clear();
+                }
+            });
+            deleted[0] += deleteOrphans(candidates);
+        } catch (IOException e) {
+            logger.error("遍历报表存储失败: {}", e.getMessage(), e);
+        }
+        logger.info("孤立报表文件清理完成: {} 个", deleted[0]);
+        return deleted[0];
+    }
+
+    private int deleteOrphans(List<String> keys) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        Set<String> referenced = new HashSet<>();
+        recordMapper.selectList(new LambdaQueryWrapper<ReportRecord>()
+                        .select(ReportRecord::getFilePath)
+                        .in(ReportRecord::getFilePath, keys))
+                .forEach(record -> referenced.add(record.getFilePath()));
+        templateMapper.selectList(new LambdaQueryWrapper<ReportTemplate>()
+                        .select(ReportTemplate::getTemplateFile)
+                        .in(ReportTemplate::getTemplateFile, keys))
+                .forEach(template -> referenced.add(template.getTemplateFile()));
+
+        int deleted = 0;
+        for (String key : keys) {
+            if (!referenced.contains(key)) {
+                reportStorage.delete(key);
+                logger.debug("删除孤立报表文件: {}", key);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public int cleanTempFiles() {
+        File[] files = new File(tempPath).listFiles(File::isFile);
+        if (files == null) {
+            return 0;
+        }
+        long threshold = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(tempMaxAgeHours);
+        int deleted = 0;
+        for (File file : files) {
+            if (file.lastModified() < threshold && FileUtil.del(file)) {
+                deleted++;
+            }
+        }
+        logger.info("临时文件清理完成: {} 个", deleted);
+        return deleted;
+    }
+}
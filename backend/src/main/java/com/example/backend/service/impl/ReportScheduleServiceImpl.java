@@ -1,12 +1,13 @@
 package com.example.backend.service.impl;
 
-import cn.dev33.satoken.stp.StpUtil;
 import cn.hutool.core.bean.BeanUtil;
+import cn.hutool.core.io.FileUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.common.ResultCode;
+import com.example.backend.common.UserContext;
 import com.example.backend.dto.ReportEmailRequest;
 import com.example.backend.dto.ReportGenerateDTO;
 import com.example.backend.dto.ReportScheduleDTO;
@@ -18,6 +19,8 @@ import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.ReportScheduleLogMapper;
 import com.example.backend.mapper.ReportScheduleMapper;
 import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.GeneratePriority;
+import com.example.backend.report.ReportStorage;
 import com.example.backend.service.EmailService;
 import com.example.backend.service.PermissionService;
 import com.example.backend.service.ReportGenerateService;
@@ -65,8 +68,11 @@ public class ReportScheduleServiceImpl extends ServiceImpl<ReportScheduleMapper,
     @Autowired
     private PermissionService permissionService;
 
-    @Value("${report.storage.path:./upload/reports}")
-    private String storagePath;
+    @Autowired
+    private ReportStorage reportStorage;
+
+    @Value("${report.storage.temp-path:./upload/temp}")
+    private String tempPath;
 
     @Override
     @Transactional(rollbackFor = Exception.class)
@@ -159,7 +165,7 @@ public class ReportScheduleServiceImpl extends ServiceImpl<ReportScheduleMapper,
 
         // 非管理员只能查看自己创建的任务
         if (!permissionService.isCurrentUserAdmin()) {
-            wrapper.eq(ReportSchedule::getCreateBy, StpUtil.getLoginIdAsLong());
+            wrapper.eq(ReportSchedule::getCreateBy, UserContext.getUserId());
         }
 
         wrapper.orderByDesc(ReportSchedule::getCreateTime);
@@ -222,10 +228,11 @@ public class ReportScheduleServiceImpl extends ServiceImpl<ReportScheduleMapper,
             generateDTO.setReportName(schedule.getTaskName() + "_" + 
                     LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
             generateDTO.setParams(schedule.getGenerateParams());
-            generateDTO.setFileType(StringUtils.isNotBlank(schedule.getFileType()) ? schedule.getFileType() : "xlsx");
+            // 未指定文件类型时使用模板的默认文件类型
+            generateDTO.setFileType(schedule.getFileType());
 
             // 执行报表生成
-            reportRecord = reportGenerateService.generateReport(generateDTO);
+            reportRecord = reportGenerateService.generateReport(generateDTO, GeneratePriority.SCHEDULED);
             
             log.setStatus(1); // 成功
             log.setReportRecordId(reportRecord.getId());
@@ -263,6 +270,7 @@ public class ReportScheduleServiceImpl extends ServiceImpl<ReportScheduleMapper,
      * @param template 报表模板
      */
     private void sendReportEmail(ReportSchedule schedule, ReportRecordVO reportRecord, ReportTemplate template) {
+        File tempAttachment = null;
         try {
             // 解析收件人列表（逗号分隔）
             List<String> recipients = Arrays.stream(schedule.getEmailReceivers().split(","))
@@ -275,9 +283,18 @@ public class ReportScheduleServiceImpl extends ServiceImpl<ReportScheduleMapper,
                 return;
             }
 
-            // 构建附件路径
-            String attachmentPath = storagePath + File.separator + reportRecord.getFilePath();
-            String attachmentName = reportRecord.getReportName() + "." + reportRecord.getFileType();
+            // 构建附件路径，远程存储的报表先下载到临时目录；gzip压缩的文件保留 .gz 扩展名
+            String extension = reportRecord.getFileType()
+                    + (reportRecord.getFilePath().endsWith(".gz") ? ".gz" : "");
+            File attachment = reportStorage.localFile(reportRecord.getFilePath());
+            if (attachment == null) {
+                tempAttachment = new File(tempPath, UUID.randomUUID() + "." + extension);
+                FileUtil.mkParentDirs(tempAttachment);
+                reportStorage.download(reportRecord.getFilePath(), tempAttachment);
+                attachment = tempAttachment;
+            }
+            String attachmentPath = attachment.getPath();
+            String attachmentName = reportRecord.getReportName() + "." + extension;
 
             // 构建邮件主题
             String subject = StringUtils.isNotBlank(schedule.getEmailSubject()) 
@@ -301,6 +318,10 @@ public class ReportScheduleServiceImpl extends ServiceImpl<ReportScheduleMapper,
         } catch (Exception e) {
             // 邮件发送失败不影响任务执行状态，只记录日志
             logger.error("报表邮件发送失败: taskId={}, error={}", schedule.getId(), e.getMessage(), e);
+        } finally {
+            if (tempAttachment != null) {
+                FileUtil.del(tempAttachment);
+            }
         }
     }
 
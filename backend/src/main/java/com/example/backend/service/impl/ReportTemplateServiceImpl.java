@@ -11,6 +11,11 @@ import com.example.backend.dto.ReportTemplateQueryDTO;
 import com.example.backend.entity.ReportTemplate;
 import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.JxlsTemplateCache;
+import com.example.backend.report.ReportCounters;
+import com.example.backend.report.ReportResultCache;
+import com.example.backend.report.TemplateLayoutCache;
 import com.example.backend.service.PermissionService;
 import com.example.backend.service.ReportTemplateService;
 import com.example.backend.vo.ReportTemplateVO;
@@ -37,6 +42,18 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
     @Autowired
     private PermissionService permissionService;
 
+    @Autowired
+    private ReportResultCache resultCache;
+
+    @Autowired
+    private TemplateLayoutCache layoutCache;
+
+    @Autowired
+    private JxlsTemplateCache jxlsTemplateCache;
+
+    @Autowired
+    private ReportCounters reportCounters;
+
     @Override
     public Long createTemplate(ReportTemplateDTO templateDTO) {
         // 检查模板编码是否重复
@@ -49,6 +66,7 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
         ReportTemplate template = BeanUtil.copyProperties(templateDTO, ReportTemplate.class);
         template.setStatus(0); // 草稿状态
         template.setVersion(1);
+        template.setCompiledLayout(CompiledTemplateLayout.compile(template.getTemplateConfig()));
         save(template);
         return template.getId();
     }
@@ -61,7 +79,14 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
         }
 
         BeanUtil.copyProperties(templateDTO, template, "id", "templateCode", "status", "version");
+        template.setVersion(nextVersion(template));
+        if (template.getTemplateConfig() != null) {
+            template.setCompiledLayout(CompiledTemplateLayout.compile(template.getTemplateConfig()));
+        }
         updateById(template);
+        resultCache.invalidateTemplate(id);
+        layoutCache.invalidate(id);
+        jxlsTemplateCache.invalidate(id);
     }
 
     @Override
@@ -71,6 +96,9 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
             throw new BusinessException(ResultCode.TEMPLATE_NOT_FOUND);
         }
         removeById(id);
+        resultCache.invalidateTemplate(id);
+        layoutCache.invalidate(id);
+        jxlsTemplateCache.invalidate(id);
     }
 
     @Override
@@ -154,6 +182,7 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
         target.setTemplateCode(source.getTemplateCode() + "_copy_" + System.currentTimeMillis());
         target.setStatus(0);
         target.setVersion(1);
+        target.setCompiledLayout(CompiledTemplateLayout.compile(source.getTemplateConfig()));
         target.setCreateTime(null);
         target.setUpdateTime(null);
         save(target);
@@ -221,8 +250,14 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
 
             // 保存完整的模板配置（包含 spreadsheetData 等设计器数据）
             template.setTemplateConfig(config);
+            // 字段布局在保存时编译一次，生成报表时直接使用
+            template.setCompiledLayout(CompiledTemplateLayout.compile(config));
+            template.setVersion(nextVersion(template));
 
             updateById(template);
+            resultCache.invalidateTemplate(id);
+            layoutCache.invalidate(id);
+            jxlsTemplateCache.invalidate(id);
         } catch (Exception e) {
             throw new BusinessException(ResultCode.TEMPLATE_PARSE_ERROR, "模板配置解析失败: " + e.getMessage());
         }
@@ -252,9 +287,11 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
                 .map(this::convertToVO)
                 .collect(Collectors.toList());
 
-        // 为每个模板设置细粒度权限
+        // 为每个模板设置细粒度权限（一次取得所有模板的权限）
+        Map<Long, boolean[]> permissionMap = permissionService.getTemplatePermissions(
+                voList.stream().map(ReportTemplateVO::getId).collect(Collectors.toList()));
         for (ReportTemplateVO vo : voList) {
-            boolean[] permissions = permissionService.getTemplatePermissions(vo.getId());
+            boolean[] permissions = permissionMap.get(vo.getId());
             vo.setCanView(permissions[0]);
             vo.setCanGenerate(permissions[1]);
             vo.setCanDownload(permissions[2]);
@@ -273,6 +310,13 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
         return permissionService.checkCurrentUserPermission(templateId, permissionType);
     }
 
+    /**
+     * 模板修改后的版本号，用于区分报表结果缓存
+     */
+    private Integer nextVersion(ReportTemplate template) {
+        return template.getVersion() == null ? 1 : template.getVersion() + 1;
+    }
+
     private ReportTemplateVO convertToVO(ReportTemplate template) {
         ReportTemplateVO vo = BeanUtil.copyProperties(template, ReportTemplateVO.class);
         
@@ -304,11 +348,7 @@ public class ReportTemplateServiceImpl extends ServiceImpl<ReportTemplateMapper,
 
     @Override
     public void incrementUseCount(Long id) {
-        ReportTemplate template = getById(id);
-        if (template != null) {
-            Integer currentCount = template.getUseCount();
-            template.setUseCount(currentCount == null ? 1 : currentCount + 1);
-            updateById(template);
-        }
+        // 累加到内存计数器，定时批量写入
+        reportCounters.recordTemplateUse(id);
     }
 }
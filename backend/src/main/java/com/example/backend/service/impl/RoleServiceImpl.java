@@ -18,6 +18,7 @@ import com.example.backend.mapper.ReportPermissionMapper;
 import com.example.backend.mapper.RoleMapper;
 import com.example.backend.mapper.UserMapper;
 import com.example.backend.mapper.UserRoleMapper;
+import com.example.backend.service.PermissionService;
 import com.example.backend.service.RoleService;
 import com.example.backend.vo.RoleVO;
 import com.example.backend.vo.UserVO;
@@ -44,6 +45,9 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private PermissionService permissionService;
+
     @Override
     @Transactional(rollbackFor = Exception.class)
     public Long createRole(RoleDTO roleDTO) {
@@ -83,6 +87,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
 
         BeanUtil.copyProperties(roleDTO, role, "id");
         updateById(role);
+        permissionService.evictPermissionCache(null);
     }
 
     @Override
@@ -114,6 +119,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
 
         // 删除角色
         removeById(id);
+        permissionService.evictPermissionCache(null);
     }
 
     @Override
@@ -182,6 +188,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
         }
         role.setStatus(status);
         updateById(role);
+        permissionService.evictPermissionCache(null);
     }
 
     @Override
@@ -216,6 +223,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
                 }
             }
         }
+        permissionService.evictPermissionCache(null);
     }
 
     @Override
@@ -279,6 +287,7 @@ public class RoleServiceImpl extends ServiceImpl<RoleMapper, Role> implements Ro
                 }
             }
         }
+        permissionService.evictPermissionCache(null);
     }
 
     /**
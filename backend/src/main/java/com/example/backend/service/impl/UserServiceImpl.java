@@ -8,6 +8,7 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.backend.common.ResultCode;
+import com.example.backend.common.UserContext;
 import com.example.backend.dto.LoginDTO;
 import com.example.backend.dto.UserDTO;
 import com.example.backend.dto.UserQueryDTO;
@@ -16,6 +17,7 @@ import com.example.backend.entity.UserRole;
 import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.UserMapper;
 import com.example.backend.mapper.UserRoleMapper;
+import com.example.backend.service.PermissionService;
 import com.example.backend.service.UserService;
 import com.example.backend.vo.LoginVO;
 import com.example.backend.vo.UserVO;
@@ -36,6 +38,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
     @Autowired
     private UserRoleMapper userRoleMapper;
 
+    @Autowired
+    private PermissionService permissionService;
+
     @Override
     public LoginVO login(LoginDTO loginDTO) {
         // 查询用户
@@ -83,7 +88,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
 
     @Override
     public UserVO getCurrentUser() {
-        Long userId = StpUtil.getLoginIdAsLong();
+        Long userId = UserContext.getUserId();
         User user = getById(userId);
         if (user == null) {
             throw new BusinessException(ResultCode.USER_NOT_EXIST);
@@ -142,12 +147,14 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
                 userRole.setRoleId(roleId);
                 userRoleMapper.insert(userRole);
             }
+            permissionService.evictPermissionCache(id);
         }
     }
 
     @Override
     public void deleteUser(Long id) {
         removeById(id);
+        permissionService.evictPermissionCache(id);
     }
 
     @Override
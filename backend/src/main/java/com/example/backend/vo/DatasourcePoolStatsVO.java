@@ -0,0 +1,63 @@
+package com.example.backend.vo;
+
+import lombok.Data;
+
+/**
+ * 数据源连接池状态VO
+ */
+@Data
+public class DatasourcePoolStatsVO {
+
+    private Long datasourceId;
+
+    private String datasourceName;
+
+    /**
+     * 当前最大连接数（自适应模式下会动态调整）
+     */
+    private Integer maxPoolSize;
+
+    private Integer minIdle;
+
+    private Boolean adaptive;
+
+    /**
+     * 活动连接数
+     */
+    private Integer active;
+
+    /**
+     * 空闲连接数
+     */
+    private Integer idle;
+
+    /**
+     * 总连接数
+     */
+    private Integer total;
+
+    /**
+     * 等待获取连接的线程数
+     */
+    private Integer pending;
+
+    /**
+     * 累计获取连接次数
+     */
+    private Long acquireCount;
+
+    /**
+     * 平均等待时间（毫秒）
+     */
+    private Double avgWaitMillis;
+
+    /**
+     * 最长等待时间（毫秒）
+     */
+    private Double maxWaitMillis;
+
+    /**
+     * 获取连接超时次数
+     */
+    private Long timeoutCount;
+}
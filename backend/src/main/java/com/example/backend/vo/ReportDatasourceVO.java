@@ -47,5 +47,17 @@ public class ReportDatasourceVO {
 
     private String testResultName;
 
+    private Integer poolMaxSize;
+
+    private Integer poolMinIdle;
+
+    private Boolean poolAdaptive;
+
+    private Integer poolAdaptiveMaxSize;
+
+    private Integer fetchSize;
+
+    private Integer queryTimeout;
+
     private LocalDateTime createTime;
 }
@@ -0,0 +1,47 @@
+package com.example.backend.vo;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 报表数据预览VO
+ */
+@Data
+public class ReportPreviewDataVO {
+
+    private Long templateId;
+
+    private Integer pageNum;
+
+    private Integer pageSize;
+
+    /**
+     * 是否还有下一页
+     */
+    private Boolean hasMore;
+
+    /**
+     * 输出列（与生成的报表文件表头一致）
+     */
+    private List<Column> columns;
+
+    /**
+     * 当前页数据，每行的值与 columns 顺序一致
+     */
+    private List<List<Object>> rows;
+
+    /**
+     * 预览列
+     */
+    @Data
+    public static class Column {
+
+        private String name;
+
+        /**
+         * 值类型：LONG、DOUBLE、DECIMAL、BOOLEAN、DATE、TIMESTAMP、STRING
+         */
+        private String type;
+    }
+}
@@ -62,6 +62,14 @@ public class ReportTemplateVO {
      */
     private Integer useCount;
 
+    private Integer fetchSize;
+
+    private Integer queryTimeout;
+
+    private Integer retentionDays;
+
+    private String defaultFileType;
+
     /**
      * 细粒度权限 - 是否可查看
      */
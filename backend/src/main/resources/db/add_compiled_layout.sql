@@ -0,0 +1,4 @@
+-- 为报表模板添加编译后的字段布局（保存设计时生成，生成报表时直接使用）
+-- 执行时间: 适用于已有数据库的升级；旧模板在首次生成时按模板配置编译
+
+ALTER TABLE report_template ADD COLUMN IF NOT EXISTS compiled_layout JSON COMMENT '编译后的字段布局' AFTER template_config;
@@ -0,0 +1,7 @@
+-- 为数据源表添加连接池配置字段
+-- 执行时间: 适用于已有数据库的升级
+
+ALTER TABLE report_datasource ADD COLUMN IF NOT EXISTS pool_max_size INT COMMENT '连接池最大连接数' AFTER test_result;
+ALTER TABLE report_datasource ADD COLUMN IF NOT EXISTS pool_min_idle INT COMMENT '连接池最小空闲连接数' AFTER pool_max_size;
+ALTER TABLE report_datasource ADD COLUMN IF NOT EXISTS pool_adaptive TINYINT DEFAULT 0 COMMENT '是否自适应调整连接池大小' AFTER pool_min_idle;
+ALTER TABLE report_datasource ADD COLUMN IF NOT EXISTS pool_adaptive_max_size INT COMMENT '自适应模式下的最大连接数上限' AFTER pool_adaptive;
@@ -0,0 +1,4 @@
+-- 为报表模板添加默认文件类型（生成请求未指定文件类型时使用）
+-- 执行时间: 适用于已有数据库的升级
+
+ALTER TABLE report_template ADD COLUMN IF NOT EXISTS default_file_type VARCHAR(10) COMMENT '默认文件类型（xlsx/pdf/csv/parquet/arrow，为空时为xlsx）' AFTER retention_days;
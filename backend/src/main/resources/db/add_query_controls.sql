@@ -0,0 +1,8 @@
+-- 为数据源表和报表模板表添加查询拉取行数和超时配置字段
+-- 执行时间: 适用于已有数据库的升级
+
+ALTER TABLE report_datasource ADD COLUMN IF NOT EXISTS fetch_size INT COMMENT '流式查询每次拉取的行数' AFTER pool_adaptive_max_size;
+ALTER TABLE report_datasource ADD COLUMN IF NOT EXISTS query_timeout INT COMMENT 'SQL执行超时时间（秒）' AFTER fetch_size;
+
+ALTER TABLE report_template ADD COLUMN IF NOT EXISTS fetch_size INT COMMENT '流式查询每次拉取的行数' AFTER use_count;
+ALTER TABLE report_template ADD COLUMN IF NOT EXISTS query_timeout INT COMMENT 'SQL执行超时时间（秒）' AFTER fetch_size;
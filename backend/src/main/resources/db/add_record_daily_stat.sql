@@ -0,0 +1,38 @@
+-- 创建报表生成记录日统计表，并从已有生成记录回填
+-- 执行时间: 适用于已有数据库的升级（可重复执行，回填结果覆盖已有统计）
+
+CREATE TABLE IF NOT EXISTS report_record_daily_stat (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    stat_date DATE NOT NULL COMMENT '统计日期（记录创建日期）',
+    user_id BIGINT NOT NULL DEFAULT 0 COMMENT '创建人ID',
+    template_id BIGINT NOT NULL DEFAULT 0 COMMENT '模板ID',
+    generate_count INT NOT NULL DEFAULT 0 COMMENT '生成次数',
+    success_count INT NOT NULL DEFAULT 0 COMMENT '成功次数',
+    fail_count INT NOT NULL DEFAULT 0 COMMENT '失败次数',
+    download_count INT NOT NULL DEFAULT 0 COMMENT '下载次数',
+    total_bytes BIGINT NOT NULL DEFAULT 0 COMMENT '成功生成的文件总大小（字节）',
+    total_duration BIGINT NOT NULL DEFAULT 0 COMMENT '成功生成的总耗时（毫秒）',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_date_user_template (stat_date, user_id, template_id),
+    INDEX idx_user_date (user_id, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='报表生成记录日统计表';
+
+INSERT INTO report_record_daily_stat (stat_date, user_id, template_id, generate_count, success_count,
+                                      fail_count, download_count, total_bytes, total_duration)
+SELECT DATE(create_time), COALESCE(create_by, 0), COALESCE(template_id, 0),
+       COUNT(*),
+       SUM(CASE WHEN status = 1 THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 2 THEN 1 ELSE 0 END),
+       SUM(COALESCE(download_count, 0)),
+       SUM(CASE WHEN status = 1 THEN COALESCE(file_size, 0) ELSE 0 END),
+       SUM(CASE WHEN status = 1 THEN COALESCE(duration, 0) ELSE 0 END)
+FROM report_record
+WHERE deleted = 0 AND create_time IS NOT NULL
+GROUP BY DATE(create_time), COALESCE(create_by, 0), COALESCE(template_id, 0)
+ON DUPLICATE KEY UPDATE
+    generate_count = VALUES(generate_count),
+    success_count = VALUES(success_count),
+    fail_count = VALUES(fail_count),
+    download_count = VALUES(download_count),
+    total_bytes = VALUES(total_bytes),
+    total_duration = VALUES(total_duration);
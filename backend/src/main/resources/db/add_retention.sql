@@ -0,0 +1,6 @@
+-- 为报表模板添加生成文件保留天数，为生成记录的文件路径添加索引（孤立文件清理按文件路径批量查询）
+-- 执行时间: 适用于已有数据库的升级
+
+ALTER TABLE report_template ADD COLUMN IF NOT EXISTS retention_days INT COMMENT '生成文件保留天数（为空使用全局配置，0表示永久保留）' AFTER query_timeout;
+
+CREATE INDEX idx_file_path ON report_record (file_path);
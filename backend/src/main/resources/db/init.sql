@@ -105,6 +105,12 @@ CREATE TABLE IF NOT EXISTS report_datasource (
     status TINYINT DEFAULT 1 COMMENT '状态 0-禁用 1-正常',
     last_test_time DATETIME COMMENT '最后测试时间',
     test_result TINYINT COMMENT '测试结果 0-失败 1-成功',
+    pool_max_size INT COMMENT '连接池最大连接数',
+    pool_min_idle INT COMMENT '连接池最小空闲连接数',
+    pool_adaptive TINYINT DEFAULT 0 COMMENT '是否自适应调整连接池大小',
+    pool_adaptive_max_size INT COMMENT '自适应模式下的最大连接数上限',
+    fetch_size INT COMMENT '流式查询每次拉取的行数',
+    query_timeout INT COMMENT 'SQL执行超时时间（秒）',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     create_by BIGINT COMMENT '创建人ID',
@@ -122,6 +128,7 @@ CREATE TABLE IF NOT EXISTS report_template (
     category_id BIGINT COMMENT '模板分类ID',
     description VARCHAR(500) COMMENT '模板描述',
     template_config JSON COMMENT '模板配置（Univer设计器JSON）',
+    compiled_layout JSON COMMENT '编译后的字段布局',
     template_file VARCHAR(255) COMMENT '模板文件路径',
     datasource_id BIGINT COMMENT '数据源ID',
     query_sql TEXT COMMENT '查询SQL',
@@ -132,6 +139,10 @@ CREATE TABLE IF NOT EXISTS report_template (
     need_audit TINYINT DEFAULT 0 COMMENT '是否需要审核',
     sort INT DEFAULT 0 COMMENT '排序',
     use_count INT DEFAULT 0 COMMENT '使用次数',
+    fetch_size INT COMMENT '流式查询每次拉取的行数',
+    query_timeout INT COMMENT 'SQL执行超时时间（秒）',
+    retention_days INT COMMENT '生成文件保留天数（为空使用全局配置，0表示永久保留）',
+    default_file_type VARCHAR(10) COMMENT '默认文件类型（xlsx/pdf/csv/parquet/arrow，为空时为xlsx）',
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     create_by BIGINT COMMENT '创建人ID',
@@ -153,7 +164,7 @@ CREATE TABLE IF NOT EXISTS report_record (
     file_path VARCHAR(255) COMMENT '文件路径',
     file_size BIGINT COMMENT '文件大小（字节）',
     data_rows INT COMMENT '数据行数',
-    status TINYINT DEFAULT 0 COMMENT '状态 0-生成中 1-成功 2-失败',
+    status TINYINT DEFAULT 0 COMMENT '状态 0-生成中 1-成功 2-失败 3-已取消',
     error_msg VARCHAR(500) COMMENT '错误信息',
     start_time DATETIME COMMENT '生成开始时间',
     end_time DATETIME COMMENT '生成结束时间',
@@ -167,9 +178,27 @@ CREATE TABLE IF NOT EXISTS report_record (
     INDEX idx_template_id (template_id),
     INDEX idx_create_by (create_by),
     INDEX idx_status (status),
-    INDEX idx_create_time (create_time)
+    INDEX idx_create_time (create_time),
+    INDEX idx_file_path (file_path)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='报表生成记录表';
 
+-- 报表生成记录日统计表（按天、用户、模板汇总，随记录状态变化增量维护）
+CREATE TABLE IF NOT EXISTS report_record_daily_stat (
+    id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
+    stat_date DATE NOT NULL COMMENT '统计日期（记录创建日期）',
+    user_id BIGINT NOT NULL DEFAULT 0 COMMENT '创建人ID',
+    template_id BIGINT NOT NULL DEFAULT 0 COMMENT '模板ID',
+    generate_count INT NOT NULL DEFAULT 0 COMMENT '生成次数',
+    success_count INT NOT NULL DEFAULT 0 COMMENT '成功次数',
+    fail_count INT NOT NULL DEFAULT 0 COMMENT '失败次数',
+    download_count INT NOT NULL DEFAULT 0 COMMENT '下载次数',
+    total_bytes BIGINT NOT NULL DEFAULT 0 COMMENT '成功生成的文件总大小（字节）',
+    total_duration BIGINT NOT NULL DEFAULT 0 COMMENT '成功生成的总耗时（毫秒）',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY uk_date_user_template (stat_date, user_id, template_id),
+    INDEX idx_user_date (user_id, stat_date)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='报表生成记录日统计表';
+
 -- 定时报表任务表
 CREATE TABLE IF NOT EXISTS report_schedule (
     id BIGINT PRIMARY KEY AUTO_INCREMENT COMMENT '主键ID',
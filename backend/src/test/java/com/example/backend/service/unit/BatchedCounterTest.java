@@ -0,0 +1,83 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.BatchedCounter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批量计数器单元测试
+ */
+class BatchedCounterTest {
+
+    @Test
+    @DisplayName("取出增量后清零")
+    void drainTest() {
+        BatchedCounter<Long> counter = new BatchedCounter<>();
+        counter.increment(1L);
+        counter.increment(1L);
+        counter.increment(2L);
+
+        assertEquals(2L, counter.pending(1L));
+        assertEquals(Map.of(1L, 2L, 2L, 1L), counter.drain());
+        assertTrue(counter.drain().isEmpty());
+        assertEquals(0L, counter.pending(1L));
+
+        counter.increment(1L);
+        assertEquals(Map.of(1L, 1L), counter.drain());
+    }
+
+    @Test
+    @DisplayName("写入失败时放回增量")
+    void restoreTest() {
+        BatchedCounter<Long> counter = new BatchedCounter<>();
+        counter.increment(1L);
+        Map<Long, Long> deltas = counter.drain();
+
+        counter.increment(1L);
+        counter.restore(deltas);
+
+        assertEquals(Map.of(1L, 2L), counter.drain());
+    }
+
+    @Test
+    @DisplayName("并发递增与取出不丢失计数")
+    void concurrentTest() throws Exception {
+        BatchedCounter<Long> counter = new BatchedCounter<>();
+        int threads = 8;
+        int perThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        AtomicBoolean running = new AtomicBoolean(true);
+        long total = 0;
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        counter.increment((long) (i % 4));
+                    }
+                }));
+            }
+            while (running.get()) {
+                total += counter.drain().values().stream().mapToLong(Long::longValue).sum();
+                running.set(futures.stream().anyMatch(f -> !f.isDone()));
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+        total += counter.drain().values().stream().mapToLong(Long::longValue).sum();
+
+        assertEquals((long) threads * perThread, total);
+    }
+}
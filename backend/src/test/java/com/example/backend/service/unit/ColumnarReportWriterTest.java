@@ -0,0 +1,200 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.AbstractReportWriter;
+import com.example.backend.report.ArrowReportWriter;
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.ParquetReportWriter;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.RowBatch;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 列式文件（Parquet、Arrow IPC）写入器单元测试
+ */
+class ColumnarReportWriterTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 3, 15, 8, 30, 15);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Parquet写入 - 多个行组，类型与空值可被读取")
+    void parquetWriterWritesTypedColumns() throws Exception {
+        Path file = tempDir.resolve("report.parquet");
+        int total = 30000;
+        try (OutputStream out = new FileOutputStream(file.toFile());
+             ParquetReportWriter writer = new ParquetReportWriter(out, null, ParquetReportWriter.Codec.GZIP,
+                     256 * 1024)) {
+            writeRows(writer, total, 1000);
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             Statement statement = connection.createStatement()) {
+            String source = "read_parquet('" + file + "')";
+            try (ResultSet rs = statement.executeQuery("SELECT count(*), count(day), sum(id) FROM " + source)) {
+                assertTrue(rs.next());
+                assertEquals(total, rs.getLong(1));
+                assertEquals(total - total / 10, rs.getLong(2));
+                assertEquals((long) total * (total - 1) / 2, rs.getLong(3));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT * FROM " + source + " WHERE id = 12345")) {
+                assertTrue(rs.next());
+                assertEquals(12345, rs.getInt("id"));
+                assertEquals(12345L * 1_000_000_000L, rs.getLong("big"));
+                assertEquals(new BigDecimal("12345.25"), rs.getBigDecimal("amount"));
+                assertEquals(new BigDecimal("-12345.1234"), rs.getBigDecimal("total"));
+                assertEquals(12345 / 4.0, rs.getDouble("rate"));
+                assertFalse(rs.getBoolean("enabled"));
+                assertEquals(DAY.plusDays(12345), rs.getDate("day").toLocalDate());
+                assertEquals(CREATED, rs.getTimestamp("created").toLocalDateTime());
+                assertEquals("名称12345", rs.getString("name"));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT column_name, column_type FROM (DESCRIBE SELECT * FROM "
+                    + source + ") ORDER BY column_name")) {
+                StringBuilder types = new StringBuilder();
+                while (rs.next()) {
+                    types.append(rs.getString(1)).append(':').append(rs.getString(2)).append(';');
+                }
+                assertEquals("amount:DECIMAL(10,2);big:BIGINT;created:TIMESTAMP;day:DATE;enabled:BOOLEAN;"
+                        + "id:INTEGER;name:VARCHAR;rate:DOUBLE;total:DECIMAL(30,4);", types.toString());
+            }
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT count(DISTINCT row_group_id) FROM parquet_metadata('" + file + "')")) {
+                assertTrue(rs.next());
+                assertTrue(rs.getInt(1) > 1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Parquet写入 - 不压缩时数据页按页大小切分，布局中缺失的字段为空字符串列")
+    void parquetWriterSplitsPages() throws Exception {
+        Path file = tempDir.resolve("pages.parquet");
+        CompiledTemplateLayout layout = new CompiledTemplateLayout(List.of(
+                new CompiledTemplateLayout.Field("name", "名称", 0, 2, null, null),
+                new CompiledTemplateLayout.Field("missing", "缺失", 1, 2, null, null)));
+        String padding = "x".repeat(100);
+        List<ReportColumn> columns = List.of(column(0, "name", Types.VARCHAR));
+        try (OutputStream out = new FileOutputStream(file.toFile());
+             ParquetReportWriter writer = new ParquetReportWriter(out, layout,
+                     ParquetReportWriter.Codec.UNCOMPRESSED, 64L * 1024 * 1024)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 5000);
+            for (int i = 0; i < 20000; i++) {
+                batch.addRow(padding + i);
+                if (batch.isFull()) {
+                    writer.onBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        try (Connection connection = DriverManager.getConnection("jdbc:duckdb:");
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT count(*), count(\"缺失\"), max(\"名称\") FROM read_parquet('"
+                    + file + "')")) {
+                assertTrue(rs.next());
+                assertEquals(20000, rs.getLong(1));
+                assertEquals(0, rs.getLong(2));
+                assertEquals(padding + 9999, rs.getString(3));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT count(DISTINCT row_group_id), max(total_uncompressed_size)"
+                    + " FROM parquet_metadata('" + file + "')")) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+                assertTrue(rs.getLong(2) > 1024 * 1024);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Arrow IPC写入 - 每个数据批次一个记录批次")
+    void arrowWriterWritesRecordBatches() throws Exception {
+        Path file = tempDir.resolve("report.arrow");
+        int total = 2500;
+        try (OutputStream out = new FileOutputStream(file.toFile());
+             ArrowReportWriter writer = new ArrowReportWriter(out, null)) {
+            writeRows(writer, total, 1000);
+        }
+
+        try (RootAllocator allocator = new RootAllocator();
+             FileInputStream in = new FileInputStream(file.toFile());
+             ArrowFileReader reader = new ArrowFileReader(in.getChannel(), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(new ArrowType.Decimal(30, 4, 128), root.getSchema().findField("total").getType());
+            assertEquals(3, reader.getRecordBlocks().size());
+
+            assertTrue(reader.loadNextBatch());
+            assertTrue(reader.loadNextBatch());
+            assertEquals(1000, root.getRowCount());
+            assertEquals(1005, ((IntVector) root.getVector("id")).get(5));
+            assertEquals(1005L * 1_000_000_000L, ((BigIntVector) root.getVector("big")).get(5));
+            assertEquals(new BigDecimal("-1005.1234"), ((DecimalVector) root.getVector("total")).getObject(5));
+            assertEquals(CREATED, ((TimeStampMilliVector) root.getVector("created")).getObject(5));
+            assertEquals("名称1005", ((VarCharVector) root.getVector("name")).getObject(5).toString());
+            assertTrue(root.getVector("day").isNull(0));
+
+            assertTrue(reader.loadNextBatch());
+            assertEquals(500, root.getRowCount());
+            assertFalse(reader.loadNextBatch());
+        }
+    }
+
+    private static void writeRows(AbstractReportWriter writer, int total, int batchSize) {
+        List<ReportColumn> columns = List.of(
+                column(0, "id", Types.INTEGER),
+                column(1, "big", Types.BIGINT),
+                new ReportColumn(2, "amount", Types.DECIMAL, ReportColumn.Type.DECIMAL, 10, 2),
+                new ReportColumn(3, "total", Types.DECIMAL, ReportColumn.Type.DECIMAL, 30, 4),
+                column(4, "rate", Types.DOUBLE),
+                column(5, "enabled", Types.BOOLEAN),
+                column(6, "day", Types.DATE),
+                column(7, "created", Types.TIMESTAMP),
+                column(8, "name", Types.VARCHAR));
+        writer.onStart(columns);
+        RowBatch batch = new RowBatch(columns, batchSize);
+        for (int id = 0; id < total; id++) {
+            batch.addRow(id, id * 1_000_000_000L, new BigDecimal(id + ".25"), new BigDecimal("-" + id + ".1234"),
+                    id / 4.0, id % 2 == 0, id % 10 == 0 ? null : DAY.plusDays(id), CREATED, "名称" + id);
+            if (batch.isFull()) {
+                writer.onBatch(batch);
+                batch.clear();
+            }
+        }
+        writer.onBatch(batch);
+    }
+
+    private static ReportColumn column(int index, String name, int sqlType) {
+        return new ReportColumn(index, name, sqlType, ReportColumn.resolveType(sqlType));
+    }
+}
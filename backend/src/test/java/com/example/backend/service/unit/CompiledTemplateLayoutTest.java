@@ -0,0 +1,95 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.CompiledTemplateLayout;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 模板字段布局编译单元测试
+ */
+class CompiledTemplateLayoutTest {
+
+    @Test
+    @DisplayName("按列号排序字段，Z之后的列排在Z后面")
+    void compileColumnOrderTest() {
+        Map<String, Object> cellData = new HashMap<>();
+        cellData.put("AB1", "备注");
+        cellData.put("AB2", "${remark}");
+        cellData.put("AA2", "${amount}");
+        cellData.put("Z1", "名称");
+        cellData.put("Z2", "${name}");
+        cellData.put("B2", "${id}");
+
+        CompiledTemplateLayout layout = CompiledTemplateLayout.compile(Map.of("spreadsheetData", Map.of("cellData", cellData)));
+
+        List<CompiledTemplateLayout.Field> fields = layout.getFields();
+        assertEquals(List.of("id", "name", "amount", "remark"), fields.stream().map(CompiledTemplateLayout.Field::getField).toList());
+        assertEquals(List.of("id", "名称", "amount", "备注"), fields.stream().map(CompiledTemplateLayout.Field::getLabel).toList());
+        assertEquals(26, fields.get(2).getColumn());
+        assertEquals(2, fields.get(2).getRow());
+    }
+
+    @Test
+    @DisplayName("读取设计器单元格对象的值、类型和数字格式")
+    void compileCellObjectTest() {
+        Map<String, Object> cellData = Map.of(
+                "A1", Map.of("v", "金额"),
+                "A2", Map.of("v", "${amount}", "t", 2, "s", Map.of("n", Map.of("pattern", "#,##0.00"))),
+                "B2", Map.of("v", "${enabled}", "t", 3),
+                "C2", Map.of("v", "固定文本"));
+
+        CompiledTemplateLayout layout = CompiledTemplateLayout.compile(Map.of("cellData", cellData));
+
+        assertEquals(2, layout.getFields().size());
+        CompiledTemplateLayout.Field amount = layout.getFields().get(0);
+        assertEquals("金额", amount.getLabel());
+        assertEquals("number", amount.getType());
+        assertEquals("#,##0.00", amount.getFormat());
+        assertEquals("boolean", layout.getFields().get(1).getType());
+        assertNull(layout.getFields().get(1).getFormat());
+    }
+
+    @Test
+    @DisplayName("没有字段占位符或配置为空时返回空布局")
+    void compileEmptyTest() {
+        assertSame(CompiledTemplateLayout.EMPTY, CompiledTemplateLayout.compile(null));
+        assertSame(CompiledTemplateLayout.EMPTY, CompiledTemplateLayout.compile(Map.of("other", 1)));
+        assertTrue(CompiledTemplateLayout.compile(Map.of("cellData", Map.of("A1", "标题", "sheet1", "${x}"))).isEmpty());
+    }
+
+    @Test
+    @DisplayName("列名与列号互转")
+    void columnIndexTest() {
+        assertEquals(0, CompiledTemplateLayout.columnIndex("A"));
+        assertEquals(25, CompiledTemplateLayout.columnIndex("Z"));
+        assertEquals(26, CompiledTemplateLayout.columnIndex("AA"));
+        assertEquals(701, CompiledTemplateLayout.columnIndex("ZZ"));
+    }
+
+    @Test
+    @DisplayName("布局可序列化为JSON并还原")
+    void jsonRoundTripTest() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        CompiledTemplateLayout layout = new CompiledTemplateLayout(List.of(
+                new CompiledTemplateLayout.Field("amount", "金额", 26, 2, "number", "0.00")));
+
+        String json = objectMapper.writeValueAsString(layout);
+        assertFalse(json.contains("empty"));
+        CompiledTemplateLayout restored = objectMapper.readValue(json, CompiledTemplateLayout.class);
+
+        CompiledTemplateLayout.Field field = restored.getFields().get(0);
+        assertEquals("amount", field.getField());
+        assertEquals("金额", field.getLabel());
+        assertEquals(26, field.getColumn());
+        assertEquals(2, field.getRow());
+        assertEquals("number", field.getType());
+        assertEquals("0.00", field.getFormat());
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.entity.ReportRecord;
+import com.example.backend.entity.ReportRecordDailyStat;
+import com.example.backend.entity.ReportTemplate;
+import com.example.backend.mapper.ReportRecordDailyStatMapper;
+import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.TemplateLeaderboard;
+import com.example.backend.service.PermissionService;
+import com.example.backend.service.impl.DashboardServiceImpl;
+import com.example.backend.service.impl.ReportRecordStatServiceImpl;
+import com.example.backend.vo.ReportTemplateVO;
+import com.example.backend.vo.ReportTrendVO;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * 仪表盘统计单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class DashboardServiceTest {
+
+    @Mock
+    private ReportRecordDailyStatMapper dailyStatMapper;
+
+    @Mock
+    private ReportTemplateMapper reportTemplateMapper;
+
+    @Mock
+    private PermissionService permissionService;
+
+    @Mock
+    private TemplateLeaderboard templateLeaderboard;
+
+    @InjectMocks
+    private DashboardServiceImpl dashboardService;
+
+    @Test
+    @DisplayName("年度趋势按月归并日统计，只查询一次")
+    void yearTrendTest() {
+        LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+        when(permissionService.isCurrentUserAdmin()).thenReturn(true);
+        when(dailyStatMapper.selectDailyTotals(isNull(), eq(thisMonth.minusMonths(11)))).thenReturn(List.of(
+                stat(thisMonth, 3, 1),
+                stat(thisMonth.plusDays(1), 2, 4),
+                stat(thisMonth.minusMonths(1), 5, 0)));
+
+        ReportTrendVO trend = dashboardService.getReportTrend("year");
+
+        assertEquals(12, trend.getDates().size());
+        assertEquals(thisMonth.format(DateTimeFormatter.ofPattern("yyyy-MM")), trend.getDates().get(11));
+        assertEquals(5L, trend.getCounts().get(11));
+        assertEquals(5L, trend.getDownloadCounts().get(11));
+        assertEquals(5L, trend.getCounts().get(10));
+        assertEquals(0L, trend.getCounts().get(0));
+        verify(dailyStatMapper, times(1)).selectDailyTotals(any(), any());
+    }
+
+    @Test
+    @DisplayName("周趋势缺少统计的日期补0")
+    void weekTrendTest() {
+        LocalDate today = LocalDate.now();
+        when(permissionService.isCurrentUserAdmin()).thenReturn(true);
+        when(dailyStatMapper.selectDailyTotals(isNull(), eq(today.minusDays(6))))
+                .thenReturn(List.of(stat(today, 7, 2)));
+
+        ReportTrendVO trend = dashboardService.getReportTrend("week");
+
+        assertEquals(7, trend.getDates().size());
+        assertEquals(List.of(0L, 0L, 0L, 0L, 0L, 0L, 7L), trend.getCounts());
+        assertEquals(2L, trend.getDownloadCounts().get(6));
+    }
+
+    @Test
+    @DisplayName("删除记录时扣减该记录计入的统计")
+    void recordDeletedDeltaTest() {
+        ReportRecordStatServiceImpl statService = new ReportRecordStatServiceImpl();
+        ReflectionTestUtils.setField(statService, "dailyStatMapper", dailyStatMapper);
+        ReflectionTestUtils.setField(statService, "templateLeaderboard", templateLeaderboard);
+
+        ReportRecord record = new ReportRecord();
+        record.setTemplateId(8L);
+        record.setCreateBy(9L);
+        record.setCreateTime(LocalDateTime.of(2024, 3, 1, 10, 0));
+        record.setStatus(1);
+        record.setFileSize(2048L);
+        record.setDuration(300L);
+        record.setDownloadCount(3);
+        statService.recordDeleted(record);
+
+        ArgumentCaptor<ReportRecordDailyStat> captor = ArgumentCaptor.forClass(ReportRecordDailyStat.class);
+        verify(dailyStatMapper).upsertDelta(captor.capture());
+        ReportRecordDailyStat delta = captor.getValue();
+        assertEquals(LocalDate.of(2024, 3, 1), delta.getStatDate());
+        assertEquals(9L, delta.getUserId());
+        assertEquals(8L, delta.getTemplateId());
+        assertEquals(-1, delta.getGenerateCount());
+        assertEquals(-1, delta.getSuccessCount());
+        assertEquals(0, delta.getFailCount());
+        assertEquals(-3, delta.getDownloadCount());
+        assertEquals(-2048L, delta.getTotalBytes());
+        assertEquals(-300L, delta.getTotalDuration());
+        verify(templateLeaderboard).increment(8L, 9L, -1);
+    }
+
+    @Test
+    @DisplayName("下载次数按统计行累加，定时一次写入")
+    void recordDownloadedBatchTest() {
+        ReportRecordStatServiceImpl statService = new ReportRecordStatServiceImpl();
+        ReflectionTestUtils.setField(statService, "dailyStatMapper", dailyStatMapper);
+
+        ReportRecord record = new ReportRecord();
+        record.setTemplateId(8L);
+        record.setCreateBy(9L);
+        record.setCreateTime(LocalDateTime.of(2024, 3, 1, 10, 0));
+        ReportRecord sameRow = new ReportRecord();
+        sameRow.setTemplateId(8L);
+        sameRow.setCreateBy(9L);
+        sameRow.setCreateTime(LocalDateTime.of(2024, 3, 1, 18, 0));
+        statService.recordDownloaded(record);
+        statService.recordDownloaded(record);
+        statService.recordDownloaded(sameRow);
+        verify(dailyStatMapper, never()).upsertDelta(any());
+
+        statService.flushDownloads();
+
+        ArgumentCaptor<ReportRecordDailyStat> captor = ArgumentCaptor.forClass(ReportRecordDailyStat.class);
+        verify(dailyStatMapper).upsertDelta(captor.capture());
+        ReportRecordDailyStat delta = captor.getValue();
+        assertEquals(LocalDate.of(2024, 3, 1), delta.getStatDate());
+        assertEquals(9L, delta.getUserId());
+        assertEquals(8L, delta.getTemplateId());
+        assertEquals(3, delta.getDownloadCount());
+        assertEquals(0, delta.getGenerateCount());
+
+        statService.flushDownloads();
+        verify(dailyStatMapper, times(1)).upsertDelta(any());
+    }
+
+    @Test
+    @DisplayName("热门模板优先读取排行榜，按排行顺序一次查询模板详情")
+    void popularTemplatesFromLeaderboardTest() {
+        Map<Long, Long> ranking = new LinkedHashMap<>();
+        ranking.put(3L, 30L);
+        ranking.put(1L, 20L);
+        ranking.put(2L, 10L);
+        when(permissionService.isCurrentUserAdmin()).thenReturn(true);
+        when(templateLeaderboard.ranking(null)).thenReturn(ranking);
+        when(reportTemplateMapper.selectBatchIds(List.of(3L, 1L))).thenReturn(List.of(template(1L), template(3L)));
+
+        List<ReportTemplateVO> result = dashboardService.getPopularTemplates(2);
+
+        assertEquals(List.of(3L, 1L), result.stream().map(ReportTemplateVO::getId).toList());
+        assertEquals(30, result.get(0).getUseCount());
+        verify(dailyStatMapper, never()).selectTemplateRanking(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("排行榜不存在时从统计表分组查询并重建排行榜")
+    void popularTemplatesRebuildTest() {
+        when(permissionService.isCurrentUserAdmin()).thenReturn(true);
+        when(templateLeaderboard.ranking(null)).thenReturn(null);
+        when(dailyStatMapper.selectTemplateRanking(null, null, 1)).thenReturn(List.of(rankingStat(5L, 9)));
+        when(dailyStatMapper.selectTemplateRanking(null, null, null))
+                .thenReturn(List.of(rankingStat(5L, 9), rankingStat(6L, 4)));
+        when(reportTemplateMapper.selectBatchIds(List.of(5L))).thenReturn(List.of(template(5L)));
+
+        List<ReportTemplateVO> result = dashboardService.getPopularTemplates(1);
+
+        assertEquals(1, result.size());
+        assertEquals(9, result.get(0).getUseCount());
+        verify(templateLeaderboard).rebuild(null, Map.of(5L, 9L, 6L, 4L));
+    }
+
+    private static ReportRecordDailyStat rankingStat(Long templateId, int successCount) {
+        ReportRecordDailyStat stat = new ReportRecordDailyStat();
+        stat.setTemplateId(templateId);
+        stat.setSuccessCount(successCount);
+        return stat;
+    }
+
+    private static ReportTemplate template(Long id) {
+        ReportTemplate template = new ReportTemplate();
+        template.setId(id);
+        template.setTemplateName("模板" + id);
+        return template;
+    }
+
+    private static ReportRecordDailyStat stat(LocalDate date, int generateCount, int downloadCount) {
+        ReportRecordDailyStat stat = new ReportRecordDailyStat();
+        stat.setStatDate(date);
+        stat.setGenerateCount(generateCount);
+        stat.setDownloadCount(downloadCount);
+        return stat;
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.entity.ReportTemplate;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.report.JxlsRenderer;
+import com.example.backend.report.JxlsTemplate;
+import com.example.backend.report.JxlsTemplateCache;
+import com.example.backend.report.ListRowCollector;
+import com.example.backend.report.LocalReportStorage;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.RowBatch;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.ClientAnchor;
+import org.apache.poi.ss.usermodel.Comment;
+import org.apache.poi.ss.usermodel.CreationHelper;
+import org.apache.poi.ss.usermodel.Drawing;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.jxls.common.Context;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Jxls模板渲染与模板缓存单元测试
+ */
+class JxlsRendererTest {
+
+    @TempDir
+    Path tempDir;
+
+    private JxlsRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new JxlsRenderer();
+        ReflectionTestUtils.setField(renderer, "streaming", true);
+        ReflectionTestUtils.setField(renderer, "rowAccessWindow", 50);
+        ReflectionTestUtils.setField(renderer, "queueBatches", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.destroy();
+    }
+
+    @Test
+    @DisplayName("分析模板是否可以流式渲染")
+    void streamableTest() throws Exception {
+        assertTrue(new JxlsTemplate("t.xlsx", "x", template("", false)).isStreamable());
+
+        JxlsTemplate ordered = new JxlsTemplate("t.xlsx", "x", template(" orderBy=\"row.name DESC\"", false));
+        assertFalse(ordered.isStreamable());
+        assertTrue(ordered.getNonStreamableReason().contains("orderBy"));
+
+        assertFalse(new JxlsTemplate("t.xlsx", "x", template("", true)).isStreamable());
+    }
+
+    @Test
+    @DisplayName("流式渲染超过行窗口的数据，输出替换模板工作表")
+    void renderStreamingTest() throws Exception {
+        JxlsTemplate template = new JxlsTemplate("t.xlsx", "x", template("", false));
+        int total = 1000;
+        Context context = new Context();
+        context.putVar("reportName", "销售报表");
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long rows = renderer.renderStreaming(template, context, output, handler -> {
+            List<ReportColumn> columns = List.of(column(0, "name", Types.VARCHAR), column(1, "amount", Types.INTEGER));
+            handler.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 100);
+            for (int i = 1; i <= total; i++) {
+                batch.addRow("n" + i, i);
+                if (batch.isFull()) {
+                    handler.onBatch(batch);
+                    batch.clear();
+                }
+            }
+            return total;
+        });
+
+        assertEquals(total, rows);
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEquals(1, workbook.getNumberOfSheets());
+            Sheet sheet = workbook.getSheet("数据");
+            assertEquals("销售报表", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("金额", sheet.getRow(1).getCell(1).getStringCellValue());
+            assertEquals("n1", sheet.getRow(2).getCell(0).getStringCellValue());
+            assertEquals(total, (int) sheet.getRow(total + 1).getCell(1).getNumericCellValue());
+            assertEquals(total + 1, sheet.getLastRowNum());
+        }
+    }
+
+    @Test
+    @DisplayName("大写列名（Oracle）按模板中的小写字段名取值")
+    void caseInsensitiveFieldTest() throws Exception {
+        List<ReportColumn> columns = List.of(column(0, "NAME", Types.VARCHAR), column(1, "AMOUNT", Types.INTEGER));
+        RowBatch batch = new RowBatch(columns, 2);
+        batch.addRow("n1", 1);
+        batch.addRow("n2", 2);
+
+        ListRowCollector collector = new ListRowCollector();
+        collector.onStart(columns);
+        collector.onBatch(batch);
+        assertEquals("n1", collector.getRows().get(0).get("name"));
+        assertEquals(2, collector.getRows().get(1).get("Amount"));
+
+        JxlsTemplate template = new JxlsTemplate("t.xlsx", "x", template("", false));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        renderer.renderStreaming(template, new Context(), output, handler -> {
+            handler.onStart(columns);
+            handler.onBatch(batch);
+            return batch.size();
+        });
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("数据");
+            assertEquals("n1", sheet.getRow(2).getCell(0).getStringCellValue());
+            assertEquals(2, (int) sheet.getRow(3).getCell(1).getNumericCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("查询失败时渲染线程结束并抛出查询异常")
+    void queryFailureTest() throws Exception {
+        JxlsTemplate template = new JxlsTemplate("t.xlsx", "x", template("", false));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> renderer.renderStreaming(template,
+                new Context(), OutputStream.nullOutputStream(), handler -> {
+                    throw new BusinessException("查询超时");
+                }));
+        assertEquals("查询超时", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("模板文件未变化时复用缓存，替换后重新读取")
+    void templateCacheTest() throws Exception {
+        LocalReportStorage storage = new LocalReportStorage(tempDir.toString());
+        JxlsTemplateCache cache = new JxlsTemplateCache();
+        ReflectionTestUtils.setField(cache, "reportStorage", storage);
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 64L);
+        Path file = tempDir.resolve("t.xlsx");
+        Files.write(file, template("", false));
+        ReportTemplate reportTemplate = new ReportTemplate();
+        reportTemplate.setId(1L);
+        reportTemplate.setTemplateFile("t.xlsx");
+
+        JxlsTemplate first = cache.get(reportTemplate);
+        assertSame(first, cache.get(reportTemplate));
+
+        Files.write(file, template(" orderBy=\"row.name\"", false));
+        file.toFile().setLastModified(System.currentTimeMillis() + 2000);
+        JxlsTemplate replaced = cache.get(reportTemplate);
+        assertNotSame(first, replaced);
+        assertNotEquals(first.getChecksum(), replaced.getChecksum());
+        assertFalse(replaced.isStreamable());
+    }
+
+    private static ReportColumn column(int index, String name, int sqlType) {
+        return new ReportColumn(index, name, sqlType, ReportColumn.resolveType(sqlType));
+    }
+
+    /**
+     * 标题行、表头行和一个 jx:each 数据行
+     * @param eachOptions jx:each 的附加属性
+     * @param formula 数据行是否包含公式
+     */
+    private static byte[] template(String eachOptions, boolean formula) throws Exception {
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet("数据");
+            Row title = sheet.createRow(0);
+            Cell titleCell = title.createCell(0);
+            titleCell.setCellValue("${reportName}");
+            comment(sheet, titleCell, "jx:area(lastCell=\"C3\")");
+            Row header = sheet.createRow(1);
+            header.createCell(0).setCellValue("名称");
+            header.createCell(1).setCellValue("金额");
+            Row data = sheet.createRow(2);
+            Cell dataCell = data.createCell(0);
+            dataCell.setCellValue("${row.name}");
+            data.createCell(1).setCellValue("${row.amount}");
+            if (formula) {
+                data.createCell(2).setCellFormula("B3*2");
+            }
+            comment(sheet, dataCell, "jx:each(items=\"dataList\" var=\"row\" lastCell=\"C3\"" + eachOptions + ")");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            workbook.write(out);
+            return out.toByteArray();
+        }
+    }
+
+    private static void comment(Sheet sheet, Cell cell, String text) {
+        CreationHelper helper = sheet.getWorkbook().getCreationHelper();
+        Drawing<?> drawing = sheet.createDrawingPatriarch();
+        ClientAnchor anchor = helper.createClientAnchor();
+        anchor.setRow1(cell.getRowIndex());
+        anchor.setCol1(cell.getColumnIndex());
+        anchor.setRow2(cell.getRowIndex() + 2);
+        anchor.setCol2(cell.getColumnIndex() + 2);
+        Comment comment = drawing.createCellComment(anchor);
+        comment.setString(helper.createRichTextString(text));
+        cell.setCellComment(comment);
+    }
+}
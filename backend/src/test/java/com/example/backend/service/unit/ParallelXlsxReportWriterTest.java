@@ -0,0 +1,104 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.ParallelXlsxReportWriter;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.RowBatch;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 多线程编码XLSX写入器单元测试
+ */
+class ParallelXlsxReportWriterTest {
+
+    @Test
+    @DisplayName("多线程编码写入 - 分工作表并保持行顺序和单元格类型")
+    void writesOrderedRowsAcrossSheets() throws Exception {
+        List<ReportColumn> columns = List.of(
+                column(0, "id", Types.INTEGER),
+                column(1, "name", Types.VARCHAR),
+                column(2, "amount", Types.DECIMAL),
+                column(3, "rate", Types.DOUBLE),
+                column(4, "enabled", Types.BOOLEAN),
+                column(5, "day", Types.DATE),
+                column(6, "created", Types.TIMESTAMP));
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        LocalDateTime created = LocalDateTime.of(2024, 3, 15, 8, 30, 15);
+        int total = 2500;
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParallelXlsxReportWriter writer = new ParallelXlsxReportWriter(output, null, 1000, 3)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 300);
+            for (int id = 0; id < total; id++) {
+                batch.addRow(id, "名称<" + id + "> & \u0001", new BigDecimal(id + ".25"), id / 4.0,
+                        id % 2 == 0, id % 10 == 0 ? null : day.plusDays(id), created);
+                if (batch.isFull()) {
+                    writer.onBatch(batch);
+                    batch.clear();
+                }
+            }
+            writer.onBatch(batch);
+            assertEquals(3, writer.getSheetCount());
+        }
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("报表数据2", workbook.getSheetName(1));
+            assertEquals(1000, workbook.getSheetAt(0).getLastRowNum());
+            assertEquals(500, workbook.getSheetAt(2).getLastRowNum());
+
+            Sheet second = workbook.getSheetAt(1);
+            assertEquals("created", second.getRow(0).getCell(6).getStringCellValue());
+            Row row = second.getRow(2);
+            assertEquals(1001, (int) row.getCell(0).getNumericCellValue());
+            assertEquals("名称<1001> & ", row.getCell(1).getStringCellValue());
+            assertEquals(1001.25, row.getCell(2).getNumericCellValue());
+            assertEquals(250.25, row.getCell(3).getNumericCellValue());
+            assertEquals(CellType.BOOLEAN, row.getCell(4).getCellType());
+            assertFalse(row.getCell(4).getBooleanCellValue());
+            assertTrue(DateUtil.isCellDateFormatted(row.getCell(5)));
+            assertEquals(day.plusDays(1001).atStartOfDay(), row.getCell(5).getLocalDateTimeCellValue());
+            assertEquals(created, row.getCell(6).getLocalDateTimeCellValue());
+            assertNull(second.getRow(1).getCell(5));
+
+            Row last = workbook.getSheetAt(2).getRow(500);
+            assertEquals(total - 1, (int) last.getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("没有数据时也生成带表头的工作簿")
+    void writesEmptyWorkbook() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ParallelXlsxReportWriter writer = new ParallelXlsxReportWriter(output, null, 0, 2)) {
+            writer.onStart(List.of(column(0, "id", Types.INTEGER)));
+        }
+
+        try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(output.toByteArray()))) {
+            assertEquals(1, workbook.getNumberOfSheets());
+            assertEquals("id", workbook.getSheetAt(0).getRow(0).getCell(0).getStringCellValue());
+            assertEquals(0, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    private static ReportColumn column(int index, String name, int sqlType) {
+        return new ReportColumn(index, name, sqlType, ReportColumn.resolveType(sqlType));
+    }
+}
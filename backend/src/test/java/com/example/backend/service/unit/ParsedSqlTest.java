@@ -0,0 +1,73 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.exception.BusinessException;
+import com.example.backend.report.ParsedSql;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报表SQL解析单元测试
+ */
+class ParsedSqlTest {
+
+    @Test
+    @DisplayName("两种参数格式替换为占位符，字符串和注释中的内容保持不变")
+    void parsePlaceholdersTest() {
+        ParsedSql parsedSql = ParsedSql.parse(
+                "SELECT id, amount::numeric, '10:30 ${x}' AS t -- :comment\n"
+                        + "FROM orders /* :block */ WHERE create_date >= ${startDate} AND status = :status AND dept = :status");
+
+        assertEquals("SELECT id, amount::numeric, '10:30 ${x}' AS t -- :comment\n"
+                        + "FROM orders /* :block */ WHERE create_date >= ? AND status = ? AND dept = ?",
+                parsedSql.getSql());
+        assertEquals(List.of("startDate", "status", "status"), parsedSql.getParameterNames());
+    }
+
+    @Test
+    @DisplayName("绑定参数值，SQL文本与参数值无关")
+    void bindTest() {
+        ParsedSql parsedSql = ParsedSql.parse("SELECT * FROM t WHERE name = :name AND code = ${code}");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("name", "O'Brien");
+        params.put("code", null);
+        ParsedSql.BoundSql boundSql = parsedSql.bind(params);
+
+        assertEquals("SELECT * FROM t WHERE name = ? AND code = ?", boundSql.getSql());
+        assertArrayEquals(new Object[]{"O'Brien", null}, boundSql.getArgs());
+
+        params.put("name", "other");
+        assertSame(parsedSql.getSql(), parsedSql.bind(params).getSql());
+    }
+
+    @Test
+    @DisplayName("集合参数展开为多个占位符")
+    void bindCollectionTest() {
+        ParsedSql parsedSql = ParsedSql.parse("SELECT * FROM t WHERE a = :a AND region IN (:regions) AND b = :b");
+
+        Map<String, Object> params = new HashMap<>();
+        params.put("a", 1);
+        params.put("regions", Arrays.asList("华东", "华北", "华南"));
+        params.put("b", 2);
+        ParsedSql.BoundSql boundSql = parsedSql.bind(params);
+
+        assertEquals("SELECT * FROM t WHERE a = ? AND region IN (?, ?, ?) AND b = ?", boundSql.getSql());
+        assertArrayEquals(new Object[]{1, "华东", "华北", "华南", 2}, boundSql.getArgs());
+    }
+
+    @Test
+    @DisplayName("缺少参数时抛出异常")
+    void missingParamTest() {
+        ParsedSql parsedSql = ParsedSql.parse("SELECT * FROM t WHERE id = :id");
+
+        BusinessException e = assertThrows(BusinessException.class, () -> parsedSql.bind(Map.of()));
+        assertTrue(e.getMessage().contains("id"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.service.impl.PdfConvertServiceImpl;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PDF转换服务单元测试
+ */
+class PdfConvertServiceTest {
+
+    private final PdfConvertServiceImpl pdfConvertService = new PdfConvertServiceImpl();
+
+    @Test
+    @DisplayName("合并单元格只输出左上角内容，其余单元格位置不错位")
+    void mergedRegionsAndSharedStylesTest() throws Exception {
+        ByteArrayOutputStream excel = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle bordered = workbook.createCellStyle();
+            bordered.setBorderTop(BorderStyle.THIN);
+            bordered.setBorderBottom(BorderStyle.THIN);
+
+            Sheet sheet = workbook.createSheet("数据");
+            for (int r = 0; r < 4; r++) {
+                Row row = sheet.createRow(r);
+                for (int c = 0; c < 4; c++) {
+                    row.createCell(c).setCellValue("R" + r + "C" + c);
+                    row.getCell(c).setCellStyle(bordered);
+                }
+            }
+            sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 1));
+            sheet.addMergedRegion(new CellRangeAddress(2, 2, 2, 3));
+            workbook.write(excel);
+        }
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        pdfConvertService.convertExcelToPdf(new ByteArrayInputStream(excel.toByteArray()), pdf);
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            String text = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1));
+            assertTrue(text.contains("R0C0"));
+            assertFalse(text.contains("R0C1"));
+            assertFalse(text.contains("R1C0"));
+            assertFalse(text.contains("R1C1"));
+            assertTrue(text.contains("R1C3"));
+            assertTrue(text.contains("R2C2"));
+            assertFalse(text.contains("R2C3"));
+            assertTrue(text.contains("R3C3"));
+        }
+    }
+
+    @Test
+    @DisplayName("多工作表并行转换后按工作表顺序合并")
+    void parallelSheetsMergedInOrderTest() throws Exception {
+        ByteArrayOutputStream excel = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            for (int i = 0; i < 6; i++) {
+                Sheet sheet = workbook.createSheet("Sheet" + i);
+                if (i == 3) {
+                    // 空工作表不输出页面
+                    continue;
+                }
+                for (int r = 0; r < 5; r++) {
+                    sheet.createRow(r).createCell(0).setCellValue("S" + i + "R" + r);
+                }
+            }
+            workbook.write(excel);
+        }
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        pdfConvertService.convertExcelToPdf(new ByteArrayInputStream(excel.toByteArray()), pdf);
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf.toByteArray())))) {
+            assertEquals(5, pdfDoc.getNumberOfPages());
+            int[] sheets = {0, 1, 2, 4, 5};
+            for (int page = 1; page <= sheets.length; page++) {
+                String text = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(page));
+                assertTrue(text.contains("S" + sheets[page - 1] + "R0"));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("并行转换与顺序转换的输出内容一致，样式在工作表间共用")
+    void parallelMatchesSequentialTest() throws Exception {
+        ByteArrayOutputStream excel = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            CellStyle bordered = workbook.createCellStyle();
+            bordered.setBorderTop(BorderStyle.THIN);
+            bordered.setBorderLeft(BorderStyle.MEDIUM);
+            for (int i = 0; i < 8; i++) {
+                Sheet sheet = workbook.createSheet("Sheet" + i);
+                for (int r = 0; r < 12; r++) {
+                    Row row = sheet.createRow(r);
+                    for (int c = 0; c < 3; c++) {
+                        row.createCell(c).setCellValue("S" + i + "R" + r + "C" + c);
+                        row.getCell(c).setCellStyle(bordered);
+                    }
+                }
+                sheet.addMergedRegion(new CellRangeAddress(0, 1, 0, 2));
+            }
+            workbook.write(excel);
+        }
+
+        PdfConvertServiceImpl sequentialService = new PdfConvertServiceImpl();
+        ReflectionTestUtils.setField(sequentialService, "sheetParallelism", 1);
+        ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+        sequentialService.convertExcelToPdf(new ByteArrayInputStream(excel.toByteArray()), sequential);
+
+        ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        pdfConvertService.convertExcelToPdf(new ByteArrayInputStream(excel.toByteArray()), parallel);
+
+        List<String> expected = pageTexts(sequential.toByteArray());
+        assertEquals(8, expected.size());
+        assertFalse(expected.get(0).contains("S0R0C1"));
+        assertTrue(expected.get(7).contains("S7R11C2"));
+        assertEquals(expected, pageTexts(parallel.toByteArray()));
+    }
+
+    private static List<String> pageTexts(byte[] pdf) throws Exception {
+        List<String> texts = new ArrayList<>();
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)))) {
+            for (int page = 1; page <= pdfDoc.getNumberOfPages(); page++) {
+                texts.add(PdfTextExtractor.getTextFromPage(pdfDoc.getPage(page)));
+            }
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.PdfFontCache;
+import com.itextpdf.kernel.font.PdfFont;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PDF字体缓存单元测试
+ */
+class PdfFontCacheTest {
+
+    @Test
+    @DisplayName("字体只解析一次，每个文档获得独立的字体实例")
+    void fontProgramParsedOnceTest() {
+        PdfFontCache fontCache = new PdfFontCache();
+
+        PdfFont first = fontCache.createFont();
+        long loadCount = fontCache.getLoadCount();
+        PdfFont second = fontCache.createFont();
+        PdfFont third = fontCache.createFont();
+
+        assertNotNull(first);
+        assertNotSame(first, second);
+        assertNotSame(second, third);
+        assertEquals(loadCount, fontCache.getLoadCount());
+        if (loadCount > 0) {
+            assertTrue(fontCache.getHitCount() >= 2);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.common.UserContext;
+import com.example.backend.mapper.ReportPermissionMapper;
+import com.example.backend.service.impl.PermissionServiceImpl;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 权限服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class PermissionServiceTest {
+
+    @Mock
+    private ReportPermissionMapper reportPermissionMapper;
+
+    @InjectMocks
+    private PermissionServiceImpl permissionService;
+
+    @Test
+    @DisplayName("同一用户的多次权限检查只查询一次数据库")
+    void snapshotCachedTest() {
+        when(reportPermissionMapper.selectUserPermissionRows(1L)).thenReturn(List.of(
+                row("DEPT_LEADER", 10L, 1),
+                row("DEPT_LEADER", 10L, 3),
+                row("DEPT_LEADER", 20L, 1)));
+
+        assertTrue(permissionService.checkPermission(1L, 10L, 1));
+        assertFalse(permissionService.checkPermission(1L, 10L, 2));
+        assertTrue(permissionService.checkPermission(1L, 10L, 3));
+        assertFalse(permissionService.checkPermission(1L, 30L, 1));
+        assertFalse(permissionService.isAdmin(1L));
+        assertEquals(List.of("DEPT_LEADER"), permissionService.getUserRoleCodes(1L));
+        assertEquals(2, permissionService.getUserPermittedTemplateIds(1L, 1).size());
+        assertEquals(List.of(10L), permissionService.getUserPermittedTemplateIds(1L, 3));
+
+        verify(reportPermissionMapper, times(1)).selectUserPermissionRows(1L);
+    }
+
+    @Test
+    @DisplayName("角色编码兼容 ROLE_ 前缀")
+    void rolePrefixTest() {
+        when(reportPermissionMapper.selectUserPermissionRows(1L)).thenReturn(List.of(row("ROLE_ADMIN", null, null)));
+        when(reportPermissionMapper.selectUserPermissionRows(2L)).thenReturn(List.of(row("REPORT_USER", null, null)));
+
+        assertTrue(permissionService.isAdmin(1L));
+        assertTrue(permissionService.checkPermission(1L, 10L, 4));
+        assertNull(permissionService.getUserPermittedTemplateIds(1L, 4));
+
+        assertTrue(permissionService.isReportUser(2L));
+        assertTrue(permissionService.checkPermission(2L, 10L, 2));
+        assertFalse(permissionService.checkPermission(2L, 10L, 3));
+        assertNull(permissionService.getUserPermittedTemplateIds(2L, 2));
+        assertTrue(permissionService.getUserPermittedTemplateIds(2L, 3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("清除缓存后重新加载权限")
+    void evictTest() {
+        when(reportPermissionMapper.selectUserPermissionRows(1L))
+                .thenReturn(List.of(row("DEPT_LEADER", 10L, 1)))
+                .thenReturn(List.of(row("DEPT_LEADER", 10L, 1), row("DEPT_LEADER", 10L, 2)));
+
+        assertFalse(permissionService.checkPermission(1L, 10L, 2));
+
+        permissionService.evictPermissionCache(1L);
+        assertTrue(permissionService.checkPermission(1L, 10L, 2));
+
+        permissionService.evictPermissionCache(null);
+        assertTrue(permissionService.checkPermission(1L, 10L, 2));
+        verify(reportPermissionMapper, times(3)).selectUserPermissionRows(1L);
+    }
+
+    @Test
+    @DisplayName("缓存超过容量时淘汰最久未使用的用户")
+    void lruEvictionTest() {
+        ReflectionTestUtils.setField(permissionService, "cacheMaxSize", 2);
+        when(reportPermissionMapper.selectUserPermissionRows(anyLong())).thenReturn(List.of());
+
+        permissionService.isAdmin(1L);
+        permissionService.isAdmin(2L);
+        permissionService.isAdmin(1L);
+        permissionService.isAdmin(3L);
+        permissionService.isAdmin(1L);
+        permissionService.isAdmin(2L);
+
+        verify(reportPermissionMapper, times(1)).selectUserPermissionRows(1L);
+        verify(reportPermissionMapper, times(2)).selectUserPermissionRows(2L);
+        verify(reportPermissionMapper, times(1)).selectUserPermissionRows(3L);
+    }
+
+    @Test
+    @DisplayName("当前用户的判断使用请求上下文，不读取会话和数据库")
+    void userContextTest() {
+        when(reportPermissionMapper.selectUserPermissionRows(5L)).thenReturn(List.of(row("DEPT_LEADER", 10L, 2)));
+        UserContext.set(new UserContext(5L, List.of("DEPT_LEADER"), false));
+        try {
+            assertFalse(permissionService.isCurrentUserAdmin());
+            assertTrue(permissionService.checkCurrentUserPermission(10L, 2));
+            assertEquals(List.of(10L), permissionService.getCurrentUserPermittedTemplateIds(2));
+            assertArrayEquals(new boolean[]{false, true, false, false},
+                    permissionService.getTemplatePermissions(List.of(10L)).get(10L));
+        } finally {
+            UserContext.clear();
+        }
+        verify(reportPermissionMapper, times(1)).selectUserPermissionRows(5L);
+    }
+
+    private static Map<String, Object> row(String roleCode, Long templateId, Integer permissionType) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("role_code", roleCode);
+        row.put("template_id", templateId);
+        row.put("permission_type", permissionType);
+        return row;
+    }
+}
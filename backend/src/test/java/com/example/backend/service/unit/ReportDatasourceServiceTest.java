@@ -1,16 +1,24 @@
 package com.example.backend.service.unit;
 
+import com.example.backend.common.ResultCode;
 import com.example.backend.entity.ReportDatasource;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.report.PoolMetricsTracker;
+import com.example.backend.report.RunningQueryRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.sql.Statement;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 /**
  * 数据源服务单元测试
@@ -95,4 +103,57 @@ class ReportDatasourceServiceTest {
         testDatasource.setStatus(0);
         assertEquals(0, testDatasource.getStatus());
     }
+
+    @Test
+    @DisplayName("连接池等待时间统计测试")
+    void poolMetricsTrackerTest() {
+        PoolMetricsTracker tracker = new PoolMetricsTracker();
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(30));
+        tracker.recordConnectionTimeout();
+
+        assertEquals(2, tracker.getAcquireCount());
+        assertEquals(20.0, tracker.getAverageWaitMillis(), 0.001);
+        assertEquals(30.0, tracker.getMaxWaitMillis(), 0.001);
+        assertEquals(1, tracker.getTimeoutCount());
+
+        // 采样区间只统计上次采样之后的等待时间
+        assertEquals(20.0, tracker.sampleAverageWaitMillis(), 0.001);
+        assertEquals(0.0, tracker.sampleAverageWaitMillis(), 0.001);
+        tracker.recordConnectionAcquiredNanos(TimeUnit.MILLISECONDS.toNanos(4));
+        assertEquals(4.0, tracker.sampleAverageWaitMillis(), 0.001);
+    }
+
+    @Test
+    @DisplayName("取消正在执行的查询时调用Statement.cancel")
+    void cancelRunningQueryTest() throws Exception {
+        RunningQueryRegistry registry = new RunningQueryRegistry();
+        RunningQueryRegistry.RunningQuery query = registry.register(100L);
+        Statement statement = mock(Statement.class);
+        query.attach(statement);
+        assertEquals(1, registry.getRunningCount());
+
+        assertTrue(registry.cancel(100L));
+        verify(statement).cancel();
+        assertTrue(query.isCancelled());
+
+        registry.unregister(query);
+        assertEquals(0, registry.getRunningCount());
+        assertFalse(registry.cancel(100L));
+    }
+
+    @Test
+    @DisplayName("语句创建前已取消的查询不再执行")
+    void cancelBeforeStatementTest() {
+        RunningQueryRegistry registry = new RunningQueryRegistry();
+        RunningQueryRegistry.RunningQuery query = registry.register(200L);
+        assertTrue(registry.cancel(200L));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> query.attach(mock(Statement.class)));
+        assertEquals(ResultCode.REPORT_CANCELLED.getCode(), e.getCode());
+
+        // 没有查询标识的查询不登记
+        registry.register(null);
+        assertEquals(1, registry.getRunningCount());
+    }
 }
@@ -0,0 +1,155 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.LocalReportStorage;
+import com.example.backend.report.ReportFileSender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报表文件发送单元测试
+ */
+class ReportFileSenderTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @TempDir
+    Path tempDir;
+
+    private File file;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = tempDir.resolve("3f2b7c1e-0d4a-4a8e-9c55-1f6e2a7b9d10.pdf").toFile();
+        Files.writeString(file.toPath(), CONTENT);
+        request = new MockHttpServletRequest("GET", "/report/generate/1/preview");
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    @DisplayName("完整发送文件并设置ETag和缓存头")
+    void fullContentTest() throws Exception {
+        assertTrue(ReportFileSender.send(file, request, response));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals(CONTENT.length(), response.getContentLengthLong());
+        assertEquals("\"3f2b7c1e-0d4a-4a8e-9c55-1f6e2a7b9d10\"", response.getHeader("ETag"));
+        assertEquals("bytes", response.getHeader("Accept-Ranges"));
+        assertTrue(response.getHeader("Cache-Control").contains("max-age"));
+    }
+
+    @Test
+    @DisplayName("Range请求只返回指定片段")
+    void rangeTest() throws Exception {
+        request.addHeader("Range", "bytes=5-9");
+
+        assertFalse(ReportFileSender.send(file, request, response));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("56789", response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("bytes 5-9/20", response.getHeader("Content-Range"));
+        assertEquals(5, response.getContentLengthLong());
+    }
+
+    @Test
+    @DisplayName("后缀Range返回文件末尾")
+    void suffixRangeTest() throws Exception {
+        request.addHeader("Range", "bytes=-3");
+
+        ReportFileSender.send(file, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("hij", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("ETag匹配时返回304")
+    void notModifiedTest() throws Exception {
+        request.addHeader("If-None-Match", ReportFileSender.etag(file.getName()));
+
+        assertFalse(ReportFileSender.send(file, request, response));
+
+        assertEquals(304, response.getStatus());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("超出文件长度的Range返回416")
+    void unsatisfiableRangeTest() throws Exception {
+        request.addHeader("Range", "bytes=100-200");
+
+        assertFalse(ReportFileSender.send(file, request, response));
+
+        assertEquals(416, response.getStatus());
+        assertEquals("bytes */20", response.getHeader("Content-Range"));
+    }
+
+    @Test
+    @DisplayName("If-Range不匹配时返回完整文件")
+    void ifRangeMismatchTest() throws Exception {
+        request.addHeader("Range", "bytes=5-9");
+        request.addHeader("If-Range", "\"other\"");
+
+        assertTrue(ReportFileSender.send(file, request, response));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(CONTENT, response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("非本地存储按请求范围读取后发送")
+    void remoteStorageRangeTest() throws Exception {
+        LocalReportStorage remote = new LocalReportStorage(tempDir.toString()) {
+            @Override
+            public File localFile(String key) {
+                return null;
+            }
+        };
+        request.addHeader("Range", "bytes=10-");
+
+        assertFalse(ReportFileSender.send(remote, file.getName(), request, response));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("abcdefghij", response.getContentAsString(StandardCharsets.UTF_8));
+        assertEquals("bytes 10-19/20", response.getHeader("Content-Range"));
+        assertEquals("\"3f2b7c1e-0d4a-4a8e-9c55-1f6e2a7b9d10\"", response.getHeader("ETag"));
+    }
+
+    @Test
+    @DisplayName("压缩归档的文件按客户端是否支持gzip发送")
+    void gzipArchiveTest() throws Exception {
+        String key = "3f2b7c1e-0d4a-4a8e-9c55-1f6e2a7b9d10.csv.gz";
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempDir.resolve(key)))) {
+            out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+        }
+        LocalReportStorage storage = new LocalReportStorage(tempDir.toString());
+
+        request.addHeader("Accept-Encoding", "gzip, deflate");
+        assertTrue(ReportFileSender.send(storage, key, request, response));
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertEquals(Files.size(tempDir.resolve(key)), response.getContentLengthLong());
+
+        MockHttpServletRequest plainRequest = new MockHttpServletRequest("GET", "/report/generate/1/download");
+        MockHttpServletResponse plainResponse = new MockHttpServletResponse();
+        assertTrue(ReportFileSender.send(storage, key, plainRequest, plainResponse));
+        assertNull(plainResponse.getHeader("Content-Encoding"));
+        assertEquals(CONTENT, plainResponse.getContentAsString(StandardCharsets.UTF_8));
+    }
+}
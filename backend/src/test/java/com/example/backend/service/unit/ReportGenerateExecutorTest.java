@@ -0,0 +1,126 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.common.ResultCode;
+import com.example.backend.exception.BusinessException;
+import com.example.backend.report.GeneratePriority;
+import com.example.backend.report.ReportGenerateExecutor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报表生成调度器单元测试
+ */
+class ReportGenerateExecutorTest {
+
+    private ReportGenerateExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ReportGenerateExecutor();
+        ReflectionTestUtils.setField(executor, "xlsxWorkers", 1);
+        ReflectionTestUtils.setField(executor, "csvWorkers", 1);
+        ReflectionTestUtils.setField(executor, "pdfWorkers", 1);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 2);
+        ReflectionTestUtils.setField(executor, "userConcurrency", 1);
+        ReflectionTestUtils.setField(executor, "datasourceConcurrency", 4);
+        executor.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("交互生成优先于定时生成执行")
+    void interactiveBeforeScheduledTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> order = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> blocker = executor.submit(1L, "xlsx", null, null,
+                GeneratePriority.SCHEDULED, () -> await(release));
+        CompletableFuture<Void> scheduled = executor.submit(2L, "xlsx", null, null,
+                GeneratePriority.SCHEDULED, () -> order.add(2L));
+        CompletableFuture<Void> interactive = executor.submit(3L, "xlsx", null, null,
+                GeneratePriority.INTERACTIVE, () -> order.add(3L));
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, scheduled, interactive).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of(3L, 2L), order);
+    }
+
+    @Test
+    @DisplayName("队列已满时拒绝新任务")
+    void queueFullTest() {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(1L, "xlsx", null, null, GeneratePriority.INTERACTIVE, () -> await(release));
+        executor.submit(2L, "xlsx", null, null, GeneratePriority.INTERACTIVE, () -> { });
+        executor.submit(3L, "xlsx", null, null, GeneratePriority.INTERACTIVE, () -> { });
+
+        BusinessException e = assertThrows(BusinessException.class, () ->
+                executor.submit(4L, "xlsx", null, null, GeneratePriority.INTERACTIVE, () -> { }));
+        assertEquals(ResultCode.TOO_MANY_REQUESTS.getCode(), e.getCode());
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("同一用户超出并发上限的任务不阻塞其他用户")
+    void userConcurrencyTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = executor.submit(1L, "csv", 100L, null,
+                GeneratePriority.INTERACTIVE, () -> await(release));
+        CompletableFuture<Void> sameUser = executor.submit(2L, "pdf", 100L, null,
+                GeneratePriority.INTERACTIVE, () -> { });
+        CompletableFuture<Void> otherUser = executor.submit(3L, "pdf", 200L, null,
+                GeneratePriority.INTERACTIVE, () -> { });
+
+        otherUser.get(5, TimeUnit.SECONDS);
+        assertFalse(sameUser.isDone());
+
+        release.countDown();
+        CompletableFuture.allOf(first, sameUser).get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("取消排队中和执行中的任务")
+    void cancelTest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> running = executor.submit(1L, "xlsx", null, null,
+                GeneratePriority.INTERACTIVE, () -> {
+                    started.countDown();
+                    await(new CountDownLatch(1));
+                });
+        CompletableFuture<Void> queued = executor.submit(2L, "xlsx", null, null,
+                GeneratePriority.INTERACTIVE, () -> { });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertTrue(executor.cancel(2L));
+        assertThrows(CancellationException.class, () -> queued.get(5, TimeUnit.SECONDS));
+
+        assertTrue(executor.cancel(1L));
+        assertThrows(CancellationException.class, () -> running.get(5, TimeUnit.SECONDS));
+        assertFalse(executor.cancel(1L));
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ResultCode.REPORT_CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.backend.service.unit;
+
+import cn.hutool.core.io.FileUtil;
+import com.example.backend.entity.ReportTemplate;
+import com.example.backend.report.LocalReportStorage;
+import com.example.backend.report.ReportResultCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报表结果缓存单元测试
+ */
+class ReportResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private ReportResultCache cache;
+
+    private ReportTemplate template;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ReportResultCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "ttl", 3600L);
+        ReflectionTestUtils.setField(cache, "cachePath", tempDir.resolve("cache").toString());
+        ReflectionTestUtils.setField(cache, "maxSizeMb", 1L);
+        ReflectionTestUtils.setField(cache, "reportStorage", new LocalReportStorage(tempDir.resolve("reports").toString()));
+        cache.init();
+
+        template = new ReportTemplate();
+        template.setId(1L);
+        template.setVersion(1);
+        template.setDatasourceId(1L);
+    }
+
+    @Test
+    @DisplayName("启动时只清理缓存写入的文件")
+    void initDeletesOnlyCacheFiles() {
+        File cacheDir = tempDir.resolve("shared").toFile();
+        String key = cache.buildKey(template, Map.of("status", 1), "xlsx");
+        File cacheFile = FileUtil.writeString("cached", new File(cacheDir, key + ".xlsx"), StandardCharsets.UTF_8);
+        File otherFile = FileUtil.writeString("upload", new File(cacheDir, "contract.pdf"), StandardCharsets.UTF_8);
+        File nestedFile = FileUtil.writeString("nested", new File(cacheDir, key + "/" + key + ".csv"),
+                StandardCharsets.UTF_8);
+
+        ReflectionTestUtils.setField(cache, "cachePath", cacheDir.toString());
+        cache.init();
+
+        assertFalse(cacheFile.exists());
+        assertTrue(otherFile.isFile());
+        assertTrue(nestedFile.isFile());
+    }
+
+    @Test
+    @DisplayName("参数顺序和数值格式不影响缓存键")
+    void normalizedKeyTest() {
+        Map<String, Object> params1 = new LinkedHashMap<>();
+        params1.put("startDate", "2024-01-01");
+        params1.put("status", 1);
+        params1.put("regions", List.of("华东", "华北"));
+
+        Map<String, Object> params2 = new LinkedHashMap<>();
+        params2.put("regions", List.of("华东", "华北"));
+        params2.put("status", 1.0);
+        params2.put("startDate", "2024-01-01");
+
+        String key = cache.buildKey(template, params1, "xlsx");
+        assertEquals(key, cache.buildKey(template, params2, "xlsx"));
+        assertNotEquals(key, cache.buildKey(template, params1, "csv"));
+
+        template.setVersion(2);
+        assertNotEquals(key, cache.buildKey(template, params1, "xlsx"));
+    }
+
+    @Test
+    @DisplayName("绑定到SQL后取值不同的参数使用不同的缓存键")
+    void distinctBindingsTest() {
+        List<Map<String, Object>> variants = new ArrayList<>();
+        variants.add(Map.of("name", "a"));
+        variants.add(Map.of("name", " a"));
+        variants.add(Map.of("name", ""));
+        variants.add(Map.of());
+        Map<String, Object> nullValue = new HashMap<>();
+        nullValue.put("name", null);
+        variants.add(nullValue);
+        variants.add(Map.of("name", "1"));
+        variants.add(Map.of("name", 1));
+        variants.add(Map.of("name", true));
+        variants.add(Map.of("name", "true"));
+        // 值中包含分隔符时不与多个参数混淆
+        variants.add(Map.of("name", "1, b=2"));
+        variants.add(Map.of("name", "1", "b", "2"));
+        variants.add(Map.of("name", List.of("a,b")));
+        variants.add(Map.of("name", List.of("a", "b")));
+
+        Set<String> keys = new HashSet<>();
+        for (Map<String, Object> params : variants) {
+            keys.add(cache.buildKey(template, params, "xlsx"));
+        }
+        assertEquals(variants.size(), keys.size());
+    }
+
+    @Test
+    @DisplayName("缓存命中时复制文件并返回数据行数")
+    void restoreTest() {
+        String key = cache.buildKey(template, new HashMap<>(), "csv");
+        File source = writeFile("reports/a.csv", "id,name\r\n1,a\r\n");
+        File target = tempDir.resolve("reports/b.csv").toFile();
+
+        assertNull(cache.restore(key, "b.csv"));
+        cache.put(key, 1L, "a.csv", 1);
+
+        assertEquals(1, cache.restore(key, "b.csv"));
+        assertEquals(FileUtil.readString(source, StandardCharsets.UTF_8),
+                FileUtil.readString(target, StandardCharsets.UTF_8));
+
+        cache.invalidateTemplate(1L);
+        assertNull(cache.restore(key, "c.csv"));
+        assertEquals(0, cache.getTotalSize());
+    }
+
+    @Test
+    @DisplayName("超出容量时淘汰最久未使用的结果")
+    void lruEvictionTest() {
+        String content = "x".repeat(400 * 1024);
+        String key1 = cache.buildKey(template, Map.of("p", 1), "csv");
+        String key2 = cache.buildKey(template, Map.of("p", 2), "csv");
+        String key3 = cache.buildKey(template, Map.of("p", 3), "csv");
+
+        writeFile("reports/1.csv", content);
+        cache.put(key1, 1L, "1.csv", 1);
+        writeFile("reports/2.csv", content);
+        cache.put(key2, 1L, "2.csv", 2);
+        // 访问 key1，使 key2 成为最久未使用
+        assertNotNull(cache.restore(key1, "r1.csv"));
+        writeFile("reports/3.csv", content);
+        cache.put(key3, 1L, "3.csv", 3);
+
+        assertNull(cache.restore(key2, "r2.csv"));
+        assertEquals(1, cache.restore(key1, "r3.csv"));
+        assertEquals(3, cache.restore(key3, "r4.csv"));
+        assertTrue(cache.getTotalSize() <= 1024 * 1024);
+    }
+
+    private File writeFile(String path, String content) {
+        return FileUtil.writeString(content, tempDir.resolve(path).toFile(), StandardCharsets.UTF_8);
+    }
+}
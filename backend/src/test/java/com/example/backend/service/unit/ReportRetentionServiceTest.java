@@ -0,0 +1,186 @@
+package com.example.backend.service.unit;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.backend.entity.ReportRecord;
+import com.example.backend.entity.ReportTemplate;
+import com.example.backend.mapper.ReportRecordMapper;
+import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.LocalReportStorage;
+import com.example.backend.service.impl.ReportRetentionServiceImpl;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+/**
+ * 生成文件保留与清理服务单元测试
+ */
+@ExtendWith(MockitoExtension.class)
+class ReportRetentionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ReportRecordMapper recordMapper;
+
+    @Mock
+    private ReportTemplateMapper templateMapper;
+
+    @InjectMocks
+    private ReportRetentionServiceImpl retentionService;
+
+    private LocalReportStorage storage;
+
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, ReportRecord.class);
+        TableInfoHelper.initTableInfo(assistant, ReportTemplate.class);
+    }
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalReportStorage(tempDir.resolve("reports").toString());
+        ReflectionTestUtils.setField(retentionService, "reportStorage", storage);
+        ReflectionTestUtils.setField(retentionService, "tempPath", tempDir.resolve("temp").toString());
+        ReflectionTestUtils.setField(retentionService, "defaultDays", 30);
+        ReflectionTestUtils.setField(retentionService, "batchSize", 500);
+        ReflectionTestUtils.setField(retentionService, "compressAfterDays", 7);
+        ReflectionTestUtils.setField(retentionService, "orphanGraceHours", 24);
+        ReflectionTestUtils.setField(retentionService, "tempMaxAgeHours", 24);
+    }
+
+    @Test
+    @DisplayName("按模板保留天数和全局配置删除过期记录及文件，永久保留的模板跳过")
+    @SuppressWarnings("unchecked")
+    void purgeExpiredRecordsTest() throws Exception {
+        when(templateMapper.selectList(any())).thenReturn(List.of(template(1L, 7), template(2L, 0)));
+        writeFile("reports/a.xlsx", "a");
+        writeFile("reports/b.xlsx", "b");
+        when(recordMapper.selectList(any())).thenReturn(List.of(record(10L, "a.xlsx")), List.of(record(11L, "b.xlsx")));
+
+        assertEquals(2, retentionService.purgeExpiredRecords());
+
+        // 模板1（7天）和其他模板（全局30天）各查询一次，模板2永久保留
+        verify(recordMapper, times(2)).selectList(any());
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(recordMapper, times(2)).deleteBatchIds(ids.capture());
+        assertEquals(List.of(List.of(10L), List.of(11L)), ids.getAllValues());
+        assertNull(storage.stat("a.xlsx"));
+        assertNull(storage.stat("b.xlsx"));
+    }
+
+    @Test
+    @DisplayName("压缩旧CSV并切换记录文件路径")
+    void compressOldFilesTest() throws Exception {
+        String content = "id,name\r\n1,张三\r\n";
+        writeFile("reports/c.csv", content);
+        when(recordMapper.selectList(any())).thenReturn(List.of(record(12L, "c.csv")));
+        when(recordMapper.update(isNull(), any())).thenReturn(1);
+
+        assertEquals(1, retentionService.compressOldFiles());
+
+        assertNull(storage.stat("c.csv"));
+        String[] compressed = {null};
+        storage.walk((key, file) -> compressed[0] = key);
+        assertTrue(compressed[0].endsWith(".csv.gz"));
+        try (InputStream in = new GZIPInputStream(storage.openInput(compressed[0]))) {
+            assertEquals(content, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("记录在压缩期间被删除时放弃压缩结果")
+    void compressConflictTest() throws Exception {
+        writeFile("reports/d.csv", "id\r\n1\r\n");
+        when(recordMapper.selectList(any())).thenReturn(List.of(record(13L, "d.csv")));
+        when(recordMapper.update(isNull(), any())).thenReturn(0);
+
+        assertEquals(0, retentionService.compressOldFiles());
+
+        assertNotNull(storage.stat("d.csv"));
+        int[] files = {0};
+        storage.walk((key, file) -> files[0]++);
+        assertEquals(1, files[0]);
+    }
+
+    @Test
+    @DisplayName("只清理超过宽限期且没有记录或模板引用的文件")
+    void sweepOrphanFilesTest() throws Exception {
+        long old = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(48);
+        writeFile("reports/ab/cd/referenced.xlsx", "1").setLastModified(old);
+        writeFile("reports/ab/cd/template.xlsx", "2").setLastModified(old);
+        writeFile("reports/ab/cd/orphan.xlsx", "3").setLastModified(old);
+        writeFile("reports/ab/cd/generating.xlsx", "4");
+        when(recordMapper.selectList(any())).thenReturn(List.of(record(14L, "ab/cd/referenced.xlsx")));
+        ReportTemplate template = new ReportTemplate();
+        template.setTemplateFile("ab/cd/template.xlsx");
+        when(templateMapper.selectList(any())).thenReturn(List.of(template));
+
+        assertEquals(1, retentionService.sweepOrphanFiles());
+
+        assertNull(storage.stat("ab/cd/orphan.xlsx"));
+        assertNotNull(storage.stat("ab/cd/referenced.xlsx"));
+        assertNotNull(storage.stat("ab/cd/template.xlsx"));
+        assertNotNull(storage.stat("ab/cd/generating.xlsx"));
+    }
+
+    @Test
+    @DisplayName("清理过期的临时文件")
+    void cleanTempFilesTest() throws Exception {
+        File expired = writeFile("temp/expired.xlsx", "1");
+        expired.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(25));
+        File recent = writeFile("temp/recent.xlsx", "2");
+
+        assertEquals(1, retentionService.cleanTempFiles());
+
+        assertFalse(expired.exists());
+        assertTrue(recent.exists());
+    }
+
+    private File writeFile(String path, String content) throws Exception {
+        Path file = tempDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file.toFile();
+    }
+
+    private static ReportTemplate template(Long id, int retentionDays) {
+        ReportTemplate template = new ReportTemplate();
+        template.setId(id);
+        template.setRetentionDays(retentionDays);
+        return template;
+    }
+
+    private static ReportRecord record(Long id, String filePath) {
+        ReportRecord record = new ReportRecord();
+        record.setId(id);
+        record.setFilePath(filePath);
+        return record;
+    }
+}
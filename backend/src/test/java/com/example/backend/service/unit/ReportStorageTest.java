@@ -0,0 +1,93 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.LocalReportStorage;
+import com.example.backend.report.ReportStorage;
+import com.example.backend.report.StorageOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 本地报表存储单元测试
+ */
+class ReportStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalReportStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalReportStorage(tempDir.toString());
+    }
+
+    @Test
+    @DisplayName("存储键按UUID前缀分两层目录")
+    void shardedKeyTest() {
+        String key = storage.newKey("xlsx");
+
+        assertTrue(key.matches("[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f-]{36}\\.xlsx"), key);
+        String uuid = key.substring(6);
+        assertEquals(uuid.substring(0, 2), key.substring(0, 2));
+        assertEquals(uuid.substring(2, 4), key.substring(3, 5));
+    }
+
+    @Test
+    @DisplayName("写入、范围读取、复制和删除")
+    void readWriteTest() throws Exception {
+        String key = storage.newKey("csv");
+        try (OutputStream out = storage.openOutput(key)) {
+            out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+        }
+
+        ReportStorage.StoredFile stat = storage.stat(key);
+        assertNotNull(stat);
+        assertEquals(10, stat.getSize());
+        try (InputStream in = storage.openInput(key, 3, 4)) {
+            assertEquals("3456", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        String copyKey = storage.newKey("csv");
+        assertTrue(storage.copy(key, copyKey));
+        storage.delete(key);
+
+        assertNull(storage.stat(key));
+        assertThrows(FileNotFoundException.class, () -> storage.openInput(key));
+        assertFalse(storage.copy(key, storage.newKey("csv")));
+        try (InputStream in = storage.openInput(copyKey)) {
+            assertEquals("0123456789", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("放弃写入时删除未写完的文件")
+    void abortTest() throws Exception {
+        String key = storage.newKey("csv");
+        StorageOutputStream output = storage.openOutput(key);
+        output.write("partial".getBytes(StandardCharsets.UTF_8));
+        output.abort();
+        output.close();
+
+        assertNull(storage.stat(key));
+    }
+
+    @Test
+    @DisplayName("拒绝越出存储目录的存储键")
+    void illegalKeyTest() {
+        assertThrows(IllegalArgumentException.class, () -> storage.stat("../application.yml"));
+        assertThrows(IllegalArgumentException.class, () -> storage.stat("/etc/passwd"));
+        assertThrows(IllegalArgumentException.class, () -> storage.stat("C:/report.pdf"));
+        // 旧记录中不带目录的文件名仍然可用
+        assertNull(storage.stat("3f2b7c1e-0d4a-4a8e-9c55-1f6e2a7b9d10.pdf"));
+    }
+}
@@ -6,6 +6,7 @@ import com.example.backend.dto.ReportTemplateDTO;
 import com.example.backend.entity.ReportTemplate;
 import com.example.backend.exception.BusinessException;
 import com.example.backend.mapper.ReportTemplateMapper;
+import com.example.backend.report.ReportResultCache;
 import com.example.backend.service.PermissionService;
 import com.example.backend.service.impl.ReportTemplateServiceImpl;
 import com.example.backend.vo.ReportTemplateVO;
@@ -35,6 +36,9 @@ class ReportTemplateServiceTest {
     @Mock
     private PermissionService permissionService;
 
+    @Mock
+    private ReportResultCache resultCache;
+
     @Spy
     private ObjectMapper objectMapper = new ObjectMapper();
 
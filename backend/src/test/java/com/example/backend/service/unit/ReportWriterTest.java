@@ -0,0 +1,215 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.CsvReportWriter;
+import com.example.backend.report.ExcelReportWriter;
+import com.example.backend.report.PdfReportWriter;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.RowBatch;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.kernel.pdf.canvas.parser.PdfTextExtractor;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Types;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 报表流式写入器单元测试
+ */
+class ReportWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Excel分批写入 - 按设计器布局投影列")
+    void excelWriterProjectsFieldLayout() throws Exception {
+        Path file = tempDir.resolve("report.xlsx");
+        CompiledTemplateLayout layout = new CompiledTemplateLayout(List.of(
+                new CompiledTemplateLayout.Field("AMOUNT", "金额", 0, 2, null, null),
+                new CompiledTemplateLayout.Field("name", "名称", 1, 2, null, null),
+                new CompiledTemplateLayout.Field("missing", "缺失", 2, 2, null, null)));
+
+        List<ReportColumn> columns = List.of(
+                column(0, "id", Types.INTEGER),
+                column(1, "name", Types.VARCHAR),
+                column(2, "amount", Types.BIGINT));
+        try (ExcelReportWriter writer = new ExcelReportWriter(file.toString(), layout)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 100);
+            for (int page = 0; page < 3; page++) {
+                for (int i = 0; i < 100; i++) {
+                    int id = page * 100 + i;
+                    batch.addRow(id, "row" + id, id * 10L);
+                }
+                writer.onBatch(batch);
+                batch.clear();
+            }
+        }
+
+        try (Workbook workbook = new XSSFWorkbook(new FileInputStream(file.toFile()))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals(300, sheet.getLastRowNum());
+            Row header = sheet.getRow(0);
+            assertEquals("金额", header.getCell(0).getStringCellValue());
+            assertEquals("名称", header.getCell(1).getStringCellValue());
+            Row last = sheet.getRow(300);
+            assertEquals(2990, (int) last.getCell(0).getNumericCellValue());
+            assertEquals("row299", last.getCell(1).getStringCellValue());
+            assertTrue(last.getCell(2) == null || last.getCell(2).getStringCellValue().isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Excel分批写入 - 超过工作表行数上限时分工作表并重复表头")
+    void excelWriterRollsOverSheets() throws Exception {
+        Path file = tempDir.resolve("rollover.xlsx");
+
+        List<ReportColumn> columns = List.of(column(0, "id", Types.INTEGER));
+        try (ExcelReportWriter writer = new ExcelReportWriter(file.toString(), null, 100)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 70);
+            for (int id = 0; id < 250; id++) {
+                batch.addRow(id);
+                if (batch.isFull()) {
+                    writer.onBatch(batch);
+                    batch.clear();
+                }
+            }
+            writer.onBatch(batch);
+            assertEquals(3, writer.getSheetCount());
+        }
+
+        try (Workbook workbook = new XSSFWorkbook(new FileInputStream(file.toFile()))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("报表数据", workbook.getSheetName(0));
+            assertEquals("报表数据3", workbook.getSheetName(2));
+            assertEquals(100, workbook.getSheetAt(0).getLastRowNum());
+            assertEquals(50, workbook.getSheetAt(2).getLastRowNum());
+            Sheet second = workbook.getSheetAt(1);
+            assertEquals("id", second.getRow(0).getCell(0).getStringCellValue());
+            assertEquals(100, (int) second.getRow(1).getCell(0).getNumericCellValue());
+            assertEquals(249, (int) workbook.getSheetAt(2).getRow(50).getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    @DisplayName("CSV分批写入 - 表头与转义")
+    void csvWriterWritesHeaderAndEscapes() throws Exception {
+        Path file = tempDir.resolve("report.csv");
+
+        List<ReportColumn> columns = List.of(
+                column(0, "id", Types.INTEGER),
+                column(1, "remark", Types.VARCHAR));
+        try (CsvReportWriter writer = new CsvReportWriter(file.toString(), null)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 10);
+            batch.addRow(1, "a,b");
+            batch.addRow(2, null);
+            writer.onBatch(batch);
+        }
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("\ufeffid,remark", lines.get(0));
+        assertEquals("1,\"a,b\"", lines.get(1));
+        assertEquals("2,", lines.get(2));
+    }
+
+    @Test
+    @DisplayName("CSV分批写入 - 浮点数不使用科学计数法")
+    void csvWriterWritesPlainDoubles() throws Exception {
+        List<ReportColumn> columns = List.of(column(0, "amount", Types.DOUBLE));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (CsvReportWriter writer = new CsvReportWriter(output, null, ',', StandardCharsets.UTF_8)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 10);
+            for (double value : new double[]{12345678.0, 1.5, 0.00001, -2.5E20, 1.0, Double.NaN,
+                    Double.NEGATIVE_INFINITY}) {
+                batch.addRow(value);
+            }
+            writer.onBatch(batch);
+        }
+
+        assertEquals("\ufeffamount\r\n12345678\r\n1.5\r\n0.00001\r\n-250000000000000000000\r\n1.0\r\n"
+                + "NaN\r\n-Infinity\r\n", output.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("CSV分批写入 - CRLF换行、自定义分隔符和编码、跨缓冲区写入")
+    void csvWriterUsesRfc4180LineEndsAndCharset() throws Exception {
+        List<ReportColumn> columns = List.of(
+                column(0, "id", Types.BIGINT),
+                column(1, "remark", Types.VARCHAR),
+                column(2, "enabled", Types.BOOLEAN));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Charset gbk = Charset.forName("GBK");
+        int total = 20000;
+        try (CsvReportWriter writer = new CsvReportWriter(output, null, ';', gbk)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 1000);
+            for (int id = 0; id < total; id++) {
+                batch.addRow(-id, id == 1 ? "说\"明\";\r\n" : "备注a,b", id % 2 == 0);
+                if (batch.isFull()) {
+                    writer.onBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        String content = output.toString(gbk);
+        assertTrue(content.startsWith("id;remark;enabled\r\n0;备注a,b;true\r\n-1;\"说\"\"明\"\";\r\n\";false\r\n"));
+        assertTrue(content.endsWith("-19999;备注a,b;false\r\n"));
+        // 表头、数据行、值中的一个换行以及末尾的空串
+        assertEquals(total + 3, content.split("\r\n", -1).length);
+    }
+
+    @Test
+    @DisplayName("PDF分批写入 - 大表格模式跨页并重复表头")
+    void pdfWriterStreamsRowsAcrossPages() throws Exception {
+        Path file = tempDir.resolve("report.pdf");
+
+        List<ReportColumn> columns = List.of(
+                column(0, "id", Types.INTEGER),
+                column(1, "amount", Types.DOUBLE));
+        try (PdfReportWriter writer = new PdfReportWriter(file.toString(), null, null)) {
+            writer.onStart(columns);
+            RowBatch batch = new RowBatch(columns, 250);
+            for (int page = 0; page < 2; page++) {
+                for (int i = 0; i < 250; i++) {
+                    int id = page * 250 + i;
+                    batch.addRow(id, id * 1.5);
+                }
+                writer.onBatch(batch);
+                batch.clear();
+            }
+        }
+
+        try (PdfDocument pdfDoc = new PdfDocument(new PdfReader(file.toString()))) {
+            assertTrue(pdfDoc.getNumberOfPages() > 1);
+            String firstPage = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(1));
+            String lastPage = PdfTextExtractor.getTextFromPage(pdfDoc.getPage(pdfDoc.getNumberOfPages()));
+            assertTrue(lastPage.contains("amount"));
+            assertTrue(firstPage.contains("3"));
+            assertTrue(lastPage.contains("748.5"));
+        }
+    }
+
+    private static ReportColumn column(int index, String name, int sqlType) {
+        return new ReportColumn(index, name, sqlType, ReportColumn.resolveType(sqlType));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.RowBatch;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 列式数据批次单元测试
+ */
+class RowBatchTest {
+
+    private final List<ReportColumn> columns = List.of(
+            column(0, "id", Types.INTEGER),
+            column(1, "amount", Types.DOUBLE),
+            column(2, "price", Types.DECIMAL),
+            column(3, "dept", Types.VARCHAR),
+            column(4, "biz_date", Types.DATE),
+            column(5, "create_time", Types.TIMESTAMP));
+
+    @Test
+    @DisplayName("JDBC类型映射测试")
+    void resolveTypeTest() {
+        assertEquals(ReportColumn.Type.LONG, ReportColumn.resolveType(Types.BIGINT));
+        assertEquals(ReportColumn.Type.DOUBLE, ReportColumn.resolveType(Types.REAL));
+        assertEquals(ReportColumn.Type.DECIMAL, ReportColumn.resolveType(Types.NUMERIC));
+        assertEquals(ReportColumn.Type.STRING, ReportColumn.resolveType(Types.NVARCHAR));
+        assertEquals(ReportColumn.Type.OBJECT, ReportColumn.resolveType(Types.BLOB));
+    }
+
+    @Test
+    @DisplayName("原始类型存储与装箱取值测试")
+    void typedValuesRoundTrip() {
+        RowBatch batch = new RowBatch(columns, 4);
+        LocalDateTime createTime = LocalDateTime.of(2024, 1, 31, 8, 30, 15);
+        batch.addRow(1, 12.5, new BigDecimal("99.99"), "销售部", LocalDate.of(2024, 1, 31), createTime);
+        batch.addRow(2, null, null, "销售部", null, null);
+
+        assertEquals(2, batch.size());
+        assertEquals(1L, batch.getLong(0, 0));
+        assertEquals(Integer.valueOf(1), batch.getValue(0, 0));
+        assertEquals(12.5, batch.getDouble(0, 1));
+        assertEquals(new BigDecimal("99.99"), batch.getValue(0, 2));
+        assertEquals("销售部", batch.getString(1, 3));
+        assertEquals(Date.valueOf("2024-01-31"), batch.getValue(0, 4));
+        assertEquals(Timestamp.valueOf(createTime), batch.getValue(0, 5));
+
+        assertTrue(batch.isNull(1, 1));
+        assertNull(batch.getValue(1, 2));
+        assertNull(batch.getValue(1, 4));
+    }
+
+    @Test
+    @DisplayName("批次复用测试")
+    void clearResetsBatch() {
+        RowBatch batch = new RowBatch(columns, 1);
+        batch.addRow(1, 1.0, BigDecimal.ONE, "A", null, null);
+        assertTrue(batch.isFull());
+
+        batch.clear();
+        assertTrue(batch.isEmpty());
+        batch.addRow(2, 2.0, BigDecimal.TEN, "B", null, null);
+        assertEquals("B", batch.getString(0, 3));
+        assertEquals(BigDecimal.TEN, batch.getValue(0, 2));
+    }
+
+    @Test
+    @DisplayName("无符号INT列超出int范围的值按Long取值")
+    void unsignedIntAboveIntRange() throws Exception {
+        ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+        when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+        when(metaData.isSigned(1)).thenReturn(false);
+        when(metaData.getColumnType(2)).thenReturn(Types.INTEGER);
+        when(metaData.isSigned(2)).thenReturn(true);
+        ReportColumn unsignedColumn = ReportColumn.of(metaData, 0, "uid");
+        ReportColumn signedColumn = ReportColumn.of(metaData, 1, "id");
+        assertTrue(unsignedColumn.isUnsigned());
+        assertEquals(ReportColumn.Type.LONG, unsignedColumn.getType());
+
+        RowBatch batch = new RowBatch(List.of(unsignedColumn, signedColumn), 2);
+        long value = Integer.MAX_VALUE + 10L;
+        batch.addRow(value, 7);
+
+        assertEquals(Long.valueOf(value), batch.getValue(0, 0));
+        assertEquals(Integer.valueOf(7), batch.getValue(0, 1));
+    }
+
+    private static ReportColumn column(int index, String name, int sqlType) {
+        return new ReportColumn(index, name, sqlType, ReportColumn.resolveType(sqlType));
+    }
+
+    @Test
+    @DisplayName("单精度REAL列按Float取值，输出不带双精度尾数")
+    void realColumnKeepsSinglePrecision() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:row_batch_real;DB_CLOSE_DELAY=-1");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_rate (rate REAL, amount DOUBLE PRECISION)");
+            statement.execute("INSERT INTO t_rate VALUES (1.1, 1.1), (NULL, NULL)");
+
+            try (ResultSet rs = statement.executeQuery("SELECT rate, amount FROM t_rate ORDER BY rate NULLS LAST")) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                ReportColumn rate = ReportColumn.of(metaData, 0, "rate");
+                ReportColumn amount = ReportColumn.of(metaData, 1, "amount");
+                assertEquals(ReportColumn.Type.DOUBLE, rate.getType());
+                assertTrue(rate.isSinglePrecision());
+                assertFalse(amount.isSinglePrecision());
+
+                RowBatch batch = new RowBatch(List.of(rate, amount), 4);
+                while (rs.next()) {
+                    batch.readRow(rs);
+                }
+
+                assertEquals(Float.valueOf(1.1f), batch.getValue(0, 0));
+                assertEquals("1.1", Double.toString(batch.getDouble(0, 0)));
+                assertEquals(Double.valueOf(1.1), batch.getValue(0, 1));
+                assertTrue(batch.isNull(1, 0));
+                assertNull(batch.getValue(1, 0));
+            }
+        }
+    }
+}
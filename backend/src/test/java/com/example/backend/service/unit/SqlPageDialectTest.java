@@ -0,0 +1,151 @@
+package com.example.backend.service.unit;
+
+import com.example.backend.exception.BusinessException;
+import com.example.backend.report.CompiledTemplateLayout;
+import com.example.backend.report.ParsedSql;
+import com.example.backend.report.PreviewRowCollector;
+import com.example.backend.report.ReportColumn;
+import com.example.backend.report.RowBatch;
+import com.example.backend.report.SqlPageDialect;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分页SQL方言与数据预览单元测试
+ */
+class SqlPageDialectTest {
+
+    @Test
+    @DisplayName("按数据源类型包装分页子句并追加参数")
+    void pageSqlByDatasourceType() {
+        ParsedSql.BoundSql boundSql = ParsedSql.parse("SELECT * FROM t_order WHERE dept = :dept;  ")
+                .bind(Map.of("dept", "销售部"));
+
+        ParsedSql.BoundSql mysql = SqlPageDialect.of(1).page(boundSql, 100, 51);
+        assertEquals("SELECT * FROM t_order WHERE dept = ?\nLIMIT ? OFFSET ?", mysql.getSql());
+        assertArrayEquals(new Object[]{"销售部", 51L, 100L}, mysql.getArgs());
+
+        assertEquals(mysql.getSql(), SqlPageDialect.of(2).page(boundSql, 100, 51).getSql());
+
+        ParsedSql.BoundSql oracle = SqlPageDialect.of(3).page(boundSql, 100, 51);
+        assertEquals("SELECT * FROM t_order WHERE dept = ?\nOFFSET ? ROWS FETCH NEXT ? ROWS ONLY", oracle.getSql());
+        assertArrayEquals(new Object[]{"销售部", 100L, 51L}, oracle.getArgs());
+
+        // 已有顶层分页子句时包装为子查询，子查询和字符串中的 LIMIT 不影响
+        assertEquals("SELECT * FROM (SELECT * FROM t_order ORDER BY id LIMIT 1000\n) page_t LIMIT ? OFFSET ?",
+                SqlPageDialect.MYSQL.page(bind("SELECT * FROM t_order ORDER BY id LIMIT 1000"), 0, 10).getSql());
+        assertEquals("SELECT * FROM t WHERE id IN (SELECT id FROM t2 LIMIT 5) AND `limit` = 'limit'\nLIMIT ? OFFSET ?",
+                SqlPageDialect.MYSQL.page(bind("SELECT * FROM t WHERE id IN (SELECT id FROM t2 LIMIT 5)"
+                        + " AND `limit` = 'limit'"), 0, 10).getSql());
+        assertTrue(SqlPageDialect.ORACLE.page(bind("SELECT * FROM t FETCH FIRST 100 ROWS ONLY"), 0, 10).getSql()
+                .startsWith("SELECT * FROM (SELECT * FROM t FETCH FIRST 100 ROWS ONLY\n)"));
+
+        BusinessException e = assertThrows(BusinessException.class, () -> SqlPageDialect.of(5));
+        assertEquals("该数据源类型不支持分页查询", e.getMessage());
+    }
+
+    @Test
+    @DisplayName("SQLServer 分页子句追加在顶层 ORDER BY 之后")
+    void sqlServerOrderBy() {
+        SqlPageDialect dialect = SqlPageDialect.SQLSERVER;
+
+        String ordered = dialect.page(bind("SELECT id, amount FROM t_order ORDER BY id DESC"), 0, 10).getSql();
+        assertEquals("SELECT id, amount FROM t_order ORDER BY id DESC\nOFFSET ? ROWS FETCH NEXT ? ROWS ONLY", ordered);
+
+        // 子查询、字符串和注释中的 ORDER BY 不是顶层排序
+        String unordered = dialect.page(bind("SELECT * FROM (SELECT TOP 10 id FROM t ORDER BY id) a"
+                + " WHERE note <> 'order by' -- order by id"), 0, 10).getSql();
+        assertTrue(unordered.endsWith("-- order by id\nORDER BY (SELECT NULL)\nOFFSET ? ROWS FETCH NEXT ? ROWS ONLY"));
+
+        String cte = dialect.page(bind("WITH a AS (SELECT id FROM t) SELECT id AS border_by FROM a"), 0, 10).getSql();
+        assertTrue(cte.startsWith("WITH a AS"));
+        assertTrue(cte.contains("ORDER BY (SELECT NULL)"));
+    }
+
+    @Test
+    @DisplayName("分页查询只返回当前页，收集器输出带类型的行")
+    void executePagedQuery() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:page_dialect;DB_CLOSE_DELAY=-1");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_order (id INT, dept VARCHAR(20), amount DECIMAL(10,2), biz_date DATE)");
+            statement.execute("INSERT INTO t_order SELECT X, CASE WHEN MOD(X, 2) = 0 THEN '销售部' ELSE '市场部' END,"
+                    + " X * 1.5, DATEADD('DAY', X, DATE '2024-01-01') FROM SYSTEM_RANGE(1, 25)");
+
+            ParsedSql.BoundSql boundSql = ParsedSql.parse("SELECT id, dept, amount, biz_date FROM t_order"
+                    + " WHERE dept = ${dept} ORDER BY id").bind(Map.of("dept", "销售部"));
+            for (SqlPageDialect dialect : List.of(SqlPageDialect.MYSQL, SqlPageDialect.ORACLE)) {
+                // 第3页（每页5行，多取1行判断是否还有下一页）
+                PreviewRowCollector collector = query(connection, dialect.page(boundSql, 10, 6));
+
+                assertEquals(List.of("ID", "DEPT", "AMOUNT", "BIZ_DATE"), collector.getHeaders());
+                assertEquals(List.of(ReportColumn.Type.LONG, ReportColumn.Type.STRING, ReportColumn.Type.DECIMAL,
+                        ReportColumn.Type.DATE), collector.getTypes());
+                List<List<Object>> rows = collector.getRows();
+                assertEquals(2, rows.size());
+                assertEquals(List.of(22, "销售部", new BigDecimal("33.00"), LocalDate.of(2024, 1, 23)), rows.get(0));
+                assertEquals(24, rows.get(1).get(0));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("结果中有同名列的关联查询可以分页")
+    void duplicateColumnJoin() throws Exception {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:page_join;MODE=MySQL;DB_CLOSE_DELAY=-1");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE t_a (id INT, name VARCHAR(20))");
+            statement.execute("CREATE TABLE t_b (id INT, a_id INT)");
+            statement.execute("INSERT INTO t_a SELECT X, 'a' || X FROM SYSTEM_RANGE(1, 10)");
+            statement.execute("INSERT INTO t_b SELECT X + 100, X FROM SYSTEM_RANGE(1, 10)");
+
+            ParsedSql.BoundSql boundSql = bind("SELECT a.*, b.* FROM t_a a JOIN t_b b ON b.a_id = a.id ORDER BY a.id");
+            PreviewRowCollector collector = query(connection, SqlPageDialect.MYSQL.page(boundSql, 4, 3));
+
+            assertEquals(List.of("ID", "NAME", "ID", "A_ID"), collector.getHeaders());
+            assertEquals(3, collector.getRows().size());
+            assertEquals(List.of(5, "a5", 105, 5), collector.getRows().get(0));
+        }
+    }
+
+    private static ParsedSql.BoundSql bind(String sql) {
+        return ParsedSql.parse(sql).bind(Map.of());
+    }
+
+    private static PreviewRowCollector query(Connection connection, ParsedSql.BoundSql boundSql) throws Exception {
+        PreviewRowCollector collector = new PreviewRowCollector(CompiledTemplateLayout.EMPTY);
+        try (PreparedStatement ps = connection.prepareStatement(boundSql.getSql())) {
+            Object[] args = boundSql.getArgs();
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData metaData = rs.getMetaData();
+                List<ReportColumn> columns = new ArrayList<>();
+                for (int i = 0; i < metaData.getColumnCount(); i++) {
+                    columns.add(ReportColumn.of(metaData, i, metaData.getColumnLabel(i + 1)));
+                }
+                collector.onStart(columns);
+                RowBatch batch = new RowBatch(columns, 16);
+                while (rs.next()) {
+                    batch.readRow(rs);
+                }
+                collector.onBatch(batch);
+            }
+        }
+        return collector;
+    }
+}
@@ -9,6 +9,15 @@ export function generateReport(data) {
   })
 }
 
+// 分页预览报表数据（不生成文件）
+export function previewReportData(data) {
+  return request({
+    url: '/report/generate/preview-data',
+    method: 'post',
+    data
+  })
+}
+
 // 预览报表
 export function previewReport(recordId) {
   return request({